@@ -23,6 +23,7 @@ import software.amazon.awscdk.services.lambda.FunctionUrlAuthType;
 import software.amazon.awscdk.services.lambda.FunctionUrlCorsOptions;
 import software.amazon.awscdk.services.lambda.HttpMethod;
 import software.amazon.awscdk.services.lambda.Runtime;
+import software.amazon.awscdk.services.s3.Bucket;
 import software.amazon.awscdk.services.secretsmanager.Secret;
 import software.constructs.Construct;
 
@@ -184,6 +185,9 @@ class PoliscoreStack extends Stack {
         Secret dbReadSecret2 = new Secret(this, name + "-ipgeolocation");
         dbReadSecret2.grantRead(fPoliscore.getRole());
         
+        // The webapp indexes the databuilder publishes (see IndexArtifactStore)
+        Bucket.fromBucketName(this, name + "-archive", "poliscore-archive").grantRead(fPoliscore, "webapp-indexes/*");
+        
         
         
         
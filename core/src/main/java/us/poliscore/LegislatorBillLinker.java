@@ -1,12 +1,9 @@
 package us.poliscore;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
@@ -17,29 +14,56 @@ import us.poliscore.model.LegislativeNamespace;
 import us.poliscore.model.LegislativeSession;
 import us.poliscore.model.legislator.Legislator;
 import us.poliscore.model.legislator.LegislatorBillInteraction;
+import us.poliscore.search.MentionMatcher;
 
 public class LegislatorBillLinker {
+	
+	/**
+	 * Links bill mentions in the legislator's explanation, in place. Prefers the copy linked at build time (see
+	 * {@link #prelink}) and only falls back to linking it here for records built before that existed.
+	 */
 	public static void linkInterpBills(Legislator leg, List<LegislativeSession> sessions) {
+		val interp = leg.getInterpretation();
+		if (interp == null) return;
+		
+		if (interp.getLinkedLongExplain() != null) {
+			interp.setLongExplain(interp.getLinkedLongExplain());
+		} else {
+			interp.setLongExplain(link(interp.getLongExplain(), leg.getInteractions(), sessions));
+		}
+		
+		interp.setLinkedLongExplain(null);
+	}
+	
+	/**
+	 * Stores a linked copy of the legislator's explanation alongside the original, so that the webapp can serve it as is.
+	 */
+	public static void prelink(Legislator leg, List<LegislativeSession> sessions) {
+		val interp = leg.getInterpretation();
+		if (interp == null) return;
+		
+		interp.setLinkedLongExplain(link(interp.getLongExplain(), leg.getInteractions(), sessions));
+	}
+	
+	/**
+	 * @return The text with every mention of one of these interactions' bills (by name or by id) replaced with a link to it
+	 */
+	public static String link(String exp, Collection<LegislatorBillInteraction> interactions, List<LegislativeSession> sessions) {
 	    try {
-	        // Grab the text to process
-	        String exp = leg.getInterpretation().getLongExplain();
 	        if (exp == null || exp.isBlank()) {
-	            return; // Nothing to link
+	            return exp; // Nothing to link
 	        }
 
 	        // 1. Sort interactions by descending length of billName
-	        List<LegislatorBillInteraction> sortedInteractions = leg.getInteractions().stream()
+	        List<LegislatorBillInteraction> sortedInteractions = interactions.stream()
 	                .sorted(Comparator
 	                        .comparingInt((LegislatorBillInteraction b) -> b.getBillName().length())
 	                        .reversed())
 	                .collect(Collectors.toList());
 
-	        // We'll build a single "mega-pattern" that captures any of the known names/IDs.
-	        // Also store a map from matched-lowercase-string -> LinkRef (url + link text).
-	        StringBuilder patternBuilder = new StringBuilder("(?iu)\\b(");
-	        Map<String, LinkRef> dictionary = new HashMap<>();
+	        // Build a single matcher over every known name/ID, mapping each to its LinkRef (url + link text).
+	        val matcher = new MentionMatcher.Builder<LinkRef>();
 
-	        boolean first = true;
 	        for (LegislatorBillInteraction interact : sortedInteractions) {
 	            // 2. Normalize the official bill name
 	            String rawBillName = interact.getBillName();
@@ -53,51 +77,18 @@ public class LegislatorBillLinker {
 	            String billNumber = interact.getBillId().split("/")[5];       // e.g. "1234"
 	            String altBillId = typeName + "-" + billNumber;
 
-	            // 5. Register both the normalized bill name and the altBillId in our dictionary
-	            //    so that either form triggers the same replacement.
-	            dictionary.put(normalizedName.toLowerCase(), new LinkRef(url, normalizedName));
-	            dictionary.put(altBillId.toLowerCase(), new LinkRef(url, normalizedName));
-
-	            // 6. Add both forms to the big capturing group (quoted so special chars are safe).
-	            if (!first) {
-	                patternBuilder.append("|");
-	            }
-	            patternBuilder
-	                    .append(Pattern.quote(normalizedName))
-	                    .append("|")
-	                    .append(Pattern.quote(altBillId));
-	            first = false;
-	        }
-	        patternBuilder.append(")\\b");  // close the group + a word boundary
-
-	        // 7. Compile the combined pattern (case-insensitive, unicode)
-	        Pattern combinedPattern = Pattern.compile(patternBuilder.toString(),
-	                Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
-	        Matcher matcher = combinedPattern.matcher(exp);
-
-	        // 8. Single-pass replacement
-	        StringBuffer sb = new StringBuffer();
-	        while (matcher.find()) {
-	            // The text that matched one of our known bill name/id variants
-	            String matchedText = matcher.group(1);
-	            LinkRef linkRef = dictionary.get(matchedText.toLowerCase());
-
-	            if (linkRef != null) {
-	                // Build the <a> tag using the dictionary info
-	                String replacement = "<a href=\"" + linkRef.url + "\">" + linkRef.linkText + "</a>";
-	                matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
-	            } else {
-	                // If for some reason we can't find it, just re-insert the raw text
-	                matcher.appendReplacement(sb, Matcher.quoteReplacement(matchedText));
-	            }
+	            // 5. Register both the normalized bill name and the altBillId so that either form triggers the same replacement.
+	            matcher.add(normalizedName, new LinkRef(url, normalizedName));
+	            matcher.add(altBillId, new LinkRef(url, normalizedName));
 	        }
-	        matcher.appendTail(sb);
 
-	        // 9. Update the legislator’s interpretation text
-	        leg.getInterpretation().setLongExplain(sb.toString());
+	        // 6. Single-pass replacement (case-insensitive, whole words, longest mention wins)
+	        String linked = matcher.build().replace(exp, m -> "<a href=\"" + m.getValue().url + "\">" + m.getValue().linkText + "</a>");
 
+	        return linked;
 	    } catch (Throwable t) {
 	        Log.error(t);
+	        return exp;
 	    }
 	}
 	
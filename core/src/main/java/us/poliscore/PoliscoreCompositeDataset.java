@@ -1,22 +1,76 @@
 package us.poliscore;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import us.poliscore.model.Persistable;
 import us.poliscore.service.storage.ObjectStorageServiceIF;
 
+/**
+ * A read-only view over several datasets. Lookups by id are routed directly to the owning dataset using the
+ * session key embedded in the id (ID_CLASS_PREFIX/name/space/sessionCode/...), so their cost does not grow with
+ * the number of datasets. Ids which don't follow that pattern fall back to asking every dataset.
+ */
 public class PoliscoreCompositeDataset implements ObjectStorageServiceIF {
 
 	protected List<PoliscoreDataset> datasets = new ArrayList<>();
 
+	protected Map<String, PoliscoreDataset> datasetsBySessionKey = new HashMap<>();
+
 	public PoliscoreCompositeDataset(List<PoliscoreDataset> datasets) {
 		this.datasets = datasets;
+
+		for (PoliscoreDataset dataset : datasets) {
+			datasetsBySessionKey.putIfAbsent(dataset.getSession().getKey(), dataset);
+		}
+	}
+
+	/**
+	 * Parses the session key (i.e. "us/congress/118") out of an object id without splitting the whole string.
+	 *
+	 * @return The session key, or null if the id does not contain one.
+	 */
+	public static String parseSessionKey(String id) {
+		if (id == null) return null;
+
+		int start = id.indexOf('/');
+		if (start == -1) return null;
+
+		int end = start;
+		for (int i = 0; i < 3; ++i) {
+			end = id.indexOf('/', end + 1);
+
+			if (end == -1) {
+				// The session code may be the final segment of the id (i.e. SIT/us/congress/118)
+				return (i == 2 && start + 1 < id.length()) ? id.substring(start + 1) : null;
+			}
+		}
+
+		return id.substring(start + 1, end);
+	}
+
+	/**
+	 * @return The dataset which owns the provided id, or null if it can't be determined from the id alone.
+	 */
+	public PoliscoreDataset route(String id) {
+		String sessionKey = parseSessionKey(id);
+
+		return sessionKey == null ? null : datasetsBySessionKey.get(sessionKey);
 	}
 
 	@Override
 	public <T extends Persistable> Optional<T> get(String id, Class<T> clazz) {
+		PoliscoreDataset owner = route(id);
+		if (owner != null) {
+			return owner.get(id, clazz);
+		}
+
 		for (ObjectStorageServiceIF dataset : datasets) {
 			Optional<T> result = dataset.get(id, clazz);
 			if (result.isPresent()) {
@@ -31,12 +85,17 @@ public class PoliscoreCompositeDataset implements ObjectStorageServiceIF {
 //		for (ObjectStorageServiceIF dataset : datasets) {
 //			dataset.put(obj);
 //		}
-		
+
 		throw new UnsupportedOperationException("TODO : Composite dataset is read only (for now)");
 	}
 
 	@Override
 	public <T extends Persistable> boolean exists(String id, Class<T> clazz) {
+		PoliscoreDataset owner = route(id);
+		if (owner != null) {
+			return owner.exists(id, clazz);
+		}
+
 		for (ObjectStorageServiceIF dataset : datasets) {
 			if (dataset.exists(id, clazz)) {
 				return true;
@@ -45,15 +104,81 @@ public class PoliscoreCompositeDataset implements ObjectStorageServiceIF {
 		return false;
 	}
 
+	/**
+	 * Returns a read-only view which concatenates the results of each dataset. The per-dataset results are never
+	 * copied into a combined list.
+	 */
 	@Override
 	public <T extends Persistable> List<T> query(Class<T> clazz) {
-		List<T> results = new ArrayList<>();
+		List<List<T>> parts = new ArrayList<>(datasets.size());
 		for (ObjectStorageServiceIF dataset : datasets) {
 			List<T> partialResults = dataset.query(clazz);
-			if (partialResults != null) {
-				results.addAll(partialResults);
+			if (partialResults != null && !partialResults.isEmpty()) {
+				parts.add(partialResults);
 			}
 		}
-		return results;
+		return new ConcatenatedList<T>(parts);
+	}
+
+	protected static class ConcatenatedList<T> extends AbstractList<T> {
+
+		private final List<List<T>> parts;
+
+		// offsets[i] is the index within this list of the first element of parts[i]
+		private final int[] offsets;
+
+		private final int size;
+
+		public ConcatenatedList(List<List<T>> parts) {
+			this.parts = parts;
+			this.offsets = new int[parts.size()];
+
+			int total = 0;
+			for (int i = 0; i < parts.size(); ++i) {
+				offsets[i] = total;
+				total += parts.get(i).size();
+			}
+			this.size = total;
+		}
+
+		@Override
+		public T get(int index) {
+			if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+
+			int lo = 0, hi = offsets.length - 1;
+			while (lo < hi) {
+				int mid = (lo + hi + 1) >>> 1;
+				if (offsets[mid] <= index) lo = mid; else hi = mid - 1;
+			}
+
+			return parts.get(lo).get(index - offsets[lo]);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public Iterator<T> iterator() {
+			return new Iterator<T>() {
+				private int part = 0;
+				private Iterator<T> current = parts.isEmpty() ? null : parts.get(0).iterator();
+
+				@Override
+				public boolean hasNext() {
+					while (current != null && !current.hasNext()) {
+						current = (++part < parts.size()) ? parts.get(part).iterator() : null;
+					}
+					return current != null;
+				}
+
+				@Override
+				public T next() {
+					if (!hasNext()) throw new NoSuchElementException();
+					return current.next();
+				}
+			};
+		}
 	}
 }
@@ -0,0 +1,396 @@
+package us.poliscore.geo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.val;
+import us.poliscore.search.MappedResources;
+
+/**
+ * Resolves an IP address (v4 or v6) to the US state it's in, without leaving the process.
+ *
+ * The artifact is a binary trie over the 128 bits of the address, with IPv4 addresses stored at their IPv4-mapped
+ * position (::ffff:a.b.c.d). It's built by the WebappDataGenerator from a table of address ranges, which are first
+ * merged wherever neighbouring ranges share a region, and it's leaf pushed: every node has exactly two children, and a
+ * child is either another node or the answer for every address under it. That keeps the trie as small as the number of
+ * CIDR blocks the ranges break into, and a lookup is at most 32 (IPv4) or 128 (IPv6) steps through an int array.
+ *
+ * <pre>
+ * header:  magic, version, node count, region count, IPv4 root, nodes offset, regions offset
+ * nodes:   per node, two child slots. A slot greater than zero is a node, otherwise it's a leaf with value -slot.
+ * regions: the region codes, each a length byte followed by its ASCII
+ * </pre>
+ *
+ * A leaf value of {@link #UNKNOWN} means the table doesn't cover the address, and {@link #OUTSIDE_US} means it's known
+ * to be somewhere else. Anything higher is a region.
+ */
+public class IpRegionTrie {
+
+	public static final int MAGIC = 0x50534950; // PSIP
+
+	public static final int VERSION = 1;
+
+	public static final int UNKNOWN = 0;
+
+	public static final int OUTSIDE_US = 1;
+
+	private static final int FIRST_REGION = 2;
+
+	private static final int HEADER_BYTES = 4 * 7;
+
+	private static final int NODE_BYTES = 8;
+
+	// IPv4 addresses live under ::ffff:0:0/96
+	private static final int V4_PREFIX_BITS = 96;
+
+	private final ByteBuffer buf;
+
+	private final int nodeCount;
+
+	private final int v4Root;
+
+	private final int nodesOffset;
+
+	private final String[] regions;
+
+	public IpRegionTrie(ByteBuffer buffer) {
+		this.buf = buffer;
+
+		if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) throw new IllegalArgumentException("Not a version " + VERSION + " IP region trie");
+
+		nodeCount = buf.getInt(8);
+		regions = new String[buf.getInt(12)];
+		v4Root = buf.getInt(16);
+		nodesOffset = buf.getInt(20);
+
+		int at = buf.getInt(24);
+		for (int i = 0; i < regions.length; ++i) {
+			val bytes = new byte[buf.get(at)];
+			buf.get(at + 1, bytes, 0, bytes.length);
+			regions[i] = new String(bytes, StandardCharsets.US_ASCII);
+			at += 1 + bytes.length;
+		}
+	}
+
+	public static IpRegionTrie map(Path path) {
+		return new IpRegionTrie(MappedResources.map(path));
+	}
+
+	/**
+	 * Memory maps the trie from the classpath, or returns null if there's no such resource.
+	 */
+	public static IpRegionTrie mapResource(String resource) {
+		val buffer = MappedResources.mapResource(resource);
+		return buffer == null ? null : new IpRegionTrie(buffer);
+	}
+
+	public int size() {
+		return nodeCount;
+	}
+
+	/**
+	 * @return {@link #UNKNOWN}, {@link #OUTSIDE_US}, or the value of a region (see {@link #region(int)}). Unparseable addresses are UNKNOWN.
+	 */
+	public int lookup(String ip) {
+		if (ip == null) return UNKNOWN;
+
+		if (ip.indexOf(':') < 0) {
+			val v4 = parseIpv4(ip, 0, ip.length());
+			return v4 == -1 ? UNKNOWN : lookupIpv4((int) v4);
+		}
+
+		val address = parse(ip);
+		return address == null ? UNKNOWN : lookup(address);
+	}
+
+	public int lookupIpv4(int address) {
+		int slot = v4Root;
+
+		for (int bit = 31; bit >= 0 && slot > 0; --bit) {
+			slot = buf.getInt(nodesOffset + slot * NODE_BYTES + ((address >>> bit) & 1) * 4);
+		}
+
+		return -slot;
+	}
+
+	/**
+	 * @param address A 16 byte IPv6 address
+	 */
+	public int lookup(byte[] address) {
+		int slot = buf.getInt(nodesOffset + ((address[0] >>> 7) & 1) * 4);
+
+		for (int bit = 1; bit < 128 && slot > 0; ++bit) {
+			slot = buf.getInt(nodesOffset + slot * NODE_BYTES + ((address[bit >>> 3] >>> (7 - (bit & 7))) & 1) * 4);
+		}
+
+		return -slot;
+	}
+
+	/**
+	 * @return The region code for a value that lookup returned, or null if the value isn't a region
+	 */
+	public String region(int value) {
+		return value >= FIRST_REGION ? regions[value - FIRST_REGION] : null;
+	}
+
+	/**
+	 * @return The IPv4 address as an unsigned int in a long, or -1 if it isn't one
+	 */
+	private static long parseIpv4(String ip, int from, int to) {
+		long address = 0;
+		int octets = 0, octet = -1;
+
+		for (int i = from; i <= to; ++i) {
+			char c = i < to ? ip.charAt(i) : '.';
+
+			if (c == '.') {
+				if (octet < 0 || ++octets > 4) return -1;
+				address = (address << 8) | octet;
+				octet = -1;
+			} else if (c >= '0' && c <= '9') {
+				octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+				if (octet > 255) return -1;
+			} else {
+				return -1;
+			}
+		}
+
+		return octets == 4 ? address : -1;
+	}
+
+	/**
+	 * Parses an IPv4 or IPv6 address literal (never a hostname) into its 16 byte IPv6 form, or returns null if it isn't one.
+	 */
+	public static byte[] parse(String ip) {
+		if (ip == null) return null;
+
+		val address = new byte[16];
+
+		if (ip.indexOf(':') < 0) {
+			val v4 = parseIpv4(ip, 0, ip.length());
+			if (v4 == -1) return null;
+
+			address[10] = (byte) 0xFF;
+			address[11] = (byte) 0xFF;
+			for (int i = 0; i < 4; ++i) address[12 + i] = (byte) (v4 >>> (24 - i * 8));
+			return address;
+		}
+
+		// Drop any zone, as in fe80::1%eth0
+		int end = ip.indexOf('%');
+		if (end < 0) end = ip.length();
+
+		// The groups before and after the "::", if there is one
+		val groups = new int[8];
+		int count = 0, gap = -1, i = 0;
+
+		if (ip.startsWith("::")) {
+			gap = 0;
+			i = 2;
+		}
+
+		while (i < end) {
+			int next = i;
+			while (next < end && ip.charAt(next) != ':') ++next;
+
+			val part = ip.substring(i, next);
+
+			if (part.indexOf('.') >= 0) {
+				// A trailing IPv4 address, as in ::ffff:1.2.3.4
+				val v4 = parseIpv4(ip, i, next);
+				if (v4 == -1 || next != end || count > 6) return null;
+				groups[count++] = (int) (v4 >>> 16);
+				groups[count++] = (int) (v4 & 0xFFFF);
+			} else {
+				if (part.isEmpty() || part.length() > 4 || count >= 8) return null;
+
+				int group = 0;
+				for (int c = 0; c < part.length(); ++c) {
+					int digit = Character.digit(part.charAt(c), 16);
+					if (digit < 0) return null;
+					group = group * 16 + digit;
+				}
+				groups[count++] = group;
+			}
+
+			if (next < end - 1 && ip.charAt(next + 1) == ':') {
+				if (gap >= 0) return null;
+				gap = count;
+				next++;
+			} else if (next == end - 1) {
+				// A trailing single colon
+				return null;
+			}
+
+			i = next + 1;
+		}
+
+		if (gap < 0 ? count != 8 : count > 7) return null;
+
+		val expanded = new int[8];
+		if (gap < 0) {
+			System.arraycopy(groups, 0, expanded, 0, 8);
+		} else {
+			System.arraycopy(groups, 0, expanded, 0, gap);
+			System.arraycopy(groups, gap, expanded, 8 - (count - gap), count - gap);
+		}
+
+		for (int g = 0; g < 8; ++g) {
+			address[g * 2] = (byte) (expanded[g] >>> 8);
+			address[g * 2 + 1] = (byte) expanded[g];
+		}
+
+		return address;
+	}
+
+	@AllArgsConstructor
+	private static class Range {
+		private BigInteger start;
+
+		private BigInteger end;
+
+		private int value;
+	}
+
+	public static class Builder {
+		private final List<Range> ranges = new ArrayList<Range>();
+
+		private final Map<String, Integer> regionValues = new LinkedHashMap<String, Integer>();
+
+		/**
+		 * Adds an inclusive range of addresses. IPv4 and IPv6 ranges may be mixed. Ranges shouldn't overlap, but where they
+		 * do the one which starts first keeps the addresses they share.
+		 *
+		 * @param region The region code, or null if the range is outside the US
+		 */
+		public Builder add(String start, String end, String region) {
+			val from = parse(start);
+			val to = parse(end);
+			if (from == null || to == null) throw new IllegalArgumentException("Not an IP range: " + start + " - " + end);
+
+			int value = region == null ? OUTSIDE_US : regionValues.computeIfAbsent(region, r -> FIRST_REGION + regionValues.size());
+			val range = new Range(new BigInteger(1, from), new BigInteger(1, to), value);
+
+			// Range tables are usually sorted, and at the state level most neighbours agree, so join them as they come in
+			val last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+			if (last != null && last.value == value && last.end.add(BigInteger.ONE).equals(range.start)) {
+				last.end = range.end;
+			} else {
+				ranges.add(range);
+			}
+
+			return this;
+		}
+
+		@SneakyThrows
+		public byte[] build() {
+			val merged = merge();
+
+			val nodes = new ArrayList<int[]>();
+			nodes.add(new int[2]);
+			build(merged, 0, merged.size(), BigInteger.ZERO, 0, nodes, 0);
+
+			// Find the node (or leaf) where IPv4 addresses start
+			int v4Root = 0;
+			val v4Prefix = BigInteger.valueOf(0xFFFF).shiftLeft(32);
+			for (int bit = 0; bit < V4_PREFIX_BITS; ++bit) {
+				v4Root = nodes.get(v4Root)[v4Prefix.testBit(127 - bit) ? 1 : 0];
+				if (v4Root <= 0) break;
+			}
+
+			val bytes = new ByteArrayOutputStream();
+			val out = new DataOutputStream(bytes);
+			int nodesOffset = HEADER_BYTES;
+			int regionsOffset = nodesOffset + nodes.size() * NODE_BYTES;
+
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(nodes.size());
+			out.writeInt(regionValues.size());
+			out.writeInt(v4Root);
+			out.writeInt(nodesOffset);
+			out.writeInt(regionsOffset);
+
+			for (val node : nodes) {
+				out.writeInt(node[0]);
+				out.writeInt(node[1]);
+			}
+
+			for (val region : regionValues.keySet()) {
+				val ascii = region.getBytes(StandardCharsets.US_ASCII);
+				out.writeByte(ascii.length);
+				out.write(ascii);
+			}
+
+			return bytes.toByteArray();
+		}
+
+		/**
+		 * Sorts the ranges, clips any overlaps, and joins neighbours which share a value.
+		 */
+		private List<Range> merge() {
+			val sorted = new ArrayList<Range>(ranges);
+			sorted.sort(Comparator.comparing((Range r) -> r.start));
+
+			val merged = new ArrayList<Range>();
+			for (val r : sorted) {
+				val last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+				var start = r.start;
+
+				if (last != null && last.end.compareTo(start) >= 0) start = last.end.add(BigInteger.ONE);
+				if (start.compareTo(r.end) > 0) continue;
+
+				if (last != null && last.value == r.value && last.end.add(BigInteger.ONE).equals(start)) {
+					last.end = r.end;
+				} else {
+					merged.add(new Range(start, r.end, r.value));
+				}
+			}
+
+			return merged;
+		}
+
+		/**
+		 * Fills in the children of the node covering the 2^(128 - depth) addresses from start, given the (sorted,
+		 * disjoint) ranges [from, to) which overlap it.
+		 */
+		private static void build(List<Range> ranges, int from, int to, BigInteger start, int depth, List<int[]> nodes, int node) {
+			val half = BigInteger.ONE.shiftLeft(127 - depth);
+			val mid = start.add(half);
+
+			// The first range which starts in the upper half
+			int split = from;
+			while (split < to && ranges.get(split).start.compareTo(mid) < 0) ++split;
+
+			// A range which straddles the middle belongs to both halves
+			int upperFrom = split > from && ranges.get(split - 1).end.compareTo(mid) >= 0 ? split - 1 : split;
+
+			nodes.get(node)[0] = child(ranges, from, split, start, depth + 1, nodes);
+			nodes.get(node)[1] = child(ranges, upperFrom, to, mid, depth + 1, nodes);
+		}
+
+		private static int child(List<Range> ranges, int from, int to, BigInteger start, int depth, List<int[]> nodes) {
+			if (from == to) return -UNKNOWN;
+
+			val end = start.add(BigInteger.ONE.shiftLeft(128 - depth)).subtract(BigInteger.ONE);
+			val first = ranges.get(from);
+			if (to - from == 1 && first.start.compareTo(start) <= 0 && first.end.compareTo(end) >= 0) return -first.value;
+
+			int node = nodes.size();
+			nodes.add(new int[2]);
+			build(ranges, from, to, start, depth, nodes, node);
+			return node;
+		}
+	}
+}
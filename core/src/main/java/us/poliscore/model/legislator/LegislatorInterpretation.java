@@ -52,6 +52,11 @@ public class LegislatorInterpretation extends SessionPersistable
 	
 	protected String longExplain;
 	
+	// The long explanation with bill mentions already linked, produced when the database is built. It's only stored in
+	// DynamoDB: the webapp swaps it in for longExplain, so it's never serialized into a response.
+	@Getter(onMethod = @__({ @JsonIgnore }))
+	protected String linkedLongExplain;
+	
 	public LegislatorInterpretation(LegislativeNamespace namespace, String sessionKey, String legislatorCode, AIInterpretationMetadata metadata, IssueStats stats)
 	{
 		this.id = generateId(namespace, sessionKey, legislatorCode);
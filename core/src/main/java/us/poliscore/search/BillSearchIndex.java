@@ -0,0 +1,300 @@
+package us.poliscore.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.val;
+
+/**
+ * An inverted index over bill names, built once by the WebappDataGenerator and shipped with the webapp.
+ *
+ * Queries are evaluated by intersecting the postings of each query term and scoring the survivors with BM25. The last
+ * query term is treated as a prefix so that partially typed words still match, which is what the old substring scan
+ * did. Bills whose type and number match the query (i.e. "H.R. 123") are boosted above everything else. Only the best
+ * {@code limit} results are kept, in a bounded heap, so we never sort the full match set.
+ */
+@Data
+@NoArgsConstructor
+@RegisterForReflection
+public class BillSearchIndex {
+
+	public static final double K1 = 1.2;
+
+	public static final double B = 0.75;
+
+	public static final double EXACT_ID_BOOST = 1000;
+
+	// Each posting packs the bill ordinal and the term frequency (capped) into a single int
+	public static final int TF_BITS = 4;
+
+	public static final int TF_MASK = (1 << TF_BITS) - 1;
+
+	protected String[] ids;
+
+	protected String[] labels;
+
+	// Number of terms in each bill name
+	protected int[] lengths;
+
+	protected double averageLength;
+
+	// Sorted, so that we can binary search for exact terms and prefix ranges
+	protected String[] terms;
+
+	// Parallel to terms. Ascending by ordinal.
+	protected int[][] postings;
+
+	// "hr123" and "123" -> ordinals of the bills with that type and number
+	protected Map<String, int[]> refs;
+
+	/**
+	 * @param rows [id, label, space separated terms (as produced by {@link SearchText#tokenize(String)})]
+	 */
+	public static BillSearchIndex build(List<List<String>> rows) {
+		val index = new BillSearchIndex();
+		int n = rows.size();
+
+		index.ids = new String[n];
+		index.labels = new String[n];
+		index.lengths = new int[n];
+
+		val termPostings = new TreeMap<String, List<Integer>>();
+		val refPostings = new HashMap<String, List<Integer>>();
+		long totalLength = 0;
+
+		for (int i = 0; i < n; ++i) {
+			val row = rows.get(i);
+			index.ids[i] = row.get(0);
+			index.labels[i] = row.get(1);
+
+			val tf = new TreeMap<String, Integer>();
+			for (String term : row.get(2).split(" ")) {
+				if (!term.isEmpty()) tf.merge(term, 1, Integer::sum);
+			}
+
+			for (val e : tf.entrySet()) {
+				index.lengths[i] += e.getValue();
+				termPostings.computeIfAbsent(e.getKey(), k -> new ArrayList<Integer>()).add((i << TF_BITS) | Math.min(e.getValue(), TF_MASK));
+			}
+			totalLength += index.lengths[i];
+
+			// BIL/us/congress/118/hr/123
+			val parts = index.ids[i].split("/");
+			if (parts.length >= 2) {
+				val type = parts[parts.length - 2].toLowerCase();
+				val number = parts[parts.length - 1].toLowerCase();
+				refPostings.computeIfAbsent(type + number, k -> new ArrayList<Integer>()).add(i);
+				refPostings.computeIfAbsent(number, k -> new ArrayList<Integer>()).add(i);
+			}
+		}
+
+		index.averageLength = n == 0 ? 0 : (double) totalLength / n;
+		index.terms = termPostings.keySet().toArray(new String[0]);
+		index.postings = termPostings.values().stream().map(l -> l.stream().mapToInt(Integer::intValue).toArray()).toArray(int[][]::new);
+		index.refs = new HashMap<String, int[]>();
+		refPostings.forEach((k, v) -> index.refs.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+
+		return index;
+	}
+
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * @return Up to {@code limit} [id, label] pairs, best match first
+	 */
+	public List<List<String>> search(String text, int limit) {
+		val results = new ArrayList<List<String>>();
+
+		for (int ordinal : topK(text, limit)) {
+			results.add(List.of(ids[ordinal], labels[ordinal]));
+		}
+
+		return results;
+	}
+
+	/**
+	 * A query term resolved to the bills containing it, with each bill's BM25 contribution for that term.
+	 */
+	private static class TermMatches {
+		int[] ordinals;
+		double[] scores;
+		int cursor = 0;
+	}
+
+	private double bm25(int tf, int ordinal, double idf) {
+		double norm = K1 * (1 - B + B * lengths[ordinal] / averageLength);
+		return idf * (tf * (K1 + 1)) / (tf + norm);
+	}
+
+	private double idf(int df) {
+		return Math.log(1 + (ids.length - df + 0.5) / (df + 0.5));
+	}
+
+	/**
+	 * Matches for every term in [from, to), taking the best scoring term when a bill contains several of them.
+	 */
+	private TermMatches resolve(int from, int to) {
+		int total = 0;
+		for (int t = from; t < to; ++t) total += postings[t].length;
+
+		// (ordinal << 32 | score bits) sorts by ordinal and then by score, since positive float bits sort like the floats
+		val packed = new long[total];
+		int p = 0;
+		for (int t = from; t < to; ++t) {
+			double idf = idf(postings[t].length);
+
+			for (int posting : postings[t]) {
+				int ordinal = posting >>> TF_BITS;
+				float score = (float) bm25(posting & TF_MASK, ordinal, idf);
+				packed[p++] = ((long) ordinal << 32) | Float.floatToIntBits(score);
+			}
+		}
+		if (to - from > 1) Arrays.sort(packed);
+
+		val matches = new TermMatches();
+		matches.ordinals = new int[total];
+		matches.scores = new double[total];
+
+		int count = 0;
+		for (int i = 0; i < total; ++i) {
+			int ordinal = (int) (packed[i] >>> 32);
+			double score = Float.intBitsToFloat((int) packed[i]);
+
+			if (count > 0 && matches.ordinals[count - 1] == ordinal) {
+				matches.scores[count - 1] = score; // Last one wins, and it's the highest
+			} else {
+				matches.ordinals[count] = ordinal;
+				matches.scores[count++] = score;
+			}
+		}
+
+		matches.ordinals = Arrays.copyOf(matches.ordinals, count);
+		matches.scores = Arrays.copyOf(matches.scores, count);
+		return matches;
+	}
+
+	/**
+	 * @return The range [from, to) of terms which start with the prefix
+	 */
+	private int[] prefixRange(String prefix) {
+		int from = Arrays.binarySearch(terms, prefix);
+		if (from < 0) from = -from - 1;
+
+		int to = from;
+		while (to < terms.length && terms[to].startsWith(prefix)) ++to;
+
+		return new int[] { from, to };
+	}
+
+	/**
+	 * Moves the cursor to the first ordinal that is at least target, galloping so that intersecting a short list against
+	 * a long one doesn't walk the whole long one.
+	 */
+	private static boolean advanceTo(TermMatches m, int target) {
+		int lo = m.cursor, step = 1;
+		while (lo + step < m.ordinals.length && m.ordinals[lo + step] < target) {
+			lo += step;
+			step <<= 1;
+		}
+
+		int idx = Arrays.binarySearch(m.ordinals, lo, Math.min(m.ordinals.length, lo + step + 1), target);
+		m.cursor = idx >= 0 ? idx : -idx - 1;
+
+		return idx >= 0;
+	}
+
+	protected int[] topK(String text, int k) {
+		if (k <= 0 || ids.length == 0) return new int[0];
+
+		val tokens = SearchText.tokenize(text);
+		val refMatches = refs.getOrDefault(SearchText.normalizeBillRef(text), new int[0]);
+
+		// Min heap on rank, so the root is the worst hit we're currently keeping
+		Comparator<double[]> rank = (a, b) -> {
+			if (a[0] != b[0]) return Double.compare(a[0], b[0]);
+			if (labels[(int) a[1]].length() != labels[(int) b[1]].length()) return Integer.compare(labels[(int) b[1]].length(), labels[(int) a[1]].length());
+			return Double.compare(b[1], a[1]);
+		};
+		val heap = new PriorityQueue<double[]>(k + 1, rank);
+
+		val scoredRefs = new HashSet<Integer>();
+		val sortedRefs = refMatches.clone();
+		Arrays.sort(sortedRefs);
+
+		val lists = new ArrayList<TermMatches>();
+		for (int i = 0; i < tokens.size(); ++i) {
+			int[] range;
+			if (i == tokens.size() - 1) {
+				range = prefixRange(tokens.get(i));
+			} else {
+				int t = Arrays.binarySearch(terms, tokens.get(i));
+				range = t < 0 ? new int[] { 0, 0 } : new int[] { t, t + 1 };
+			}
+
+			if (range[0] == range[1]) { lists.clear(); break; }
+
+			lists.add(resolve(range[0], range[1]));
+		}
+
+		if (!lists.isEmpty()) {
+			lists.sort(Comparator.comparingInt(m -> m.ordinals.length));
+			val smallest = lists.get(0);
+
+			candidates:
+			for (int i = 0; i < smallest.ordinals.length; ++i) {
+				int ordinal = smallest.ordinals[i];
+				double score = smallest.scores[i];
+
+				for (int l = 1; l < lists.size(); ++l) {
+					val other = lists.get(l);
+					if (!advanceTo(other, ordinal)) {
+						if (other.cursor >= other.ordinals.length) break candidates;
+						continue candidates;
+					}
+					score += other.scores[other.cursor];
+				}
+
+				if (Arrays.binarySearch(sortedRefs, ordinal) >= 0) {
+					score += EXACT_ID_BOOST;
+					scoredRefs.add(ordinal);
+				}
+
+				offer(heap, k, rank, score, ordinal);
+			}
+		}
+
+		for (int ordinal : sortedRefs) {
+			if (!scoredRefs.contains(ordinal)) offer(heap, k, rank, EXACT_ID_BOOST, ordinal);
+		}
+
+		val result = new int[heap.size()];
+		for (int i = result.length - 1; i >= 0; --i) {
+			result[i] = (int) heap.poll()[1];
+		}
+
+		return result;
+	}
+
+	private static void offer(PriorityQueue<double[]> heap, int k, Comparator<double[]> rank, double score, int ordinal) {
+		val hit = new double[] { score, ordinal };
+
+		if (heap.size() < k) {
+			heap.add(hit);
+		} else if (rank.compare(hit, heap.peek()) > 0) {
+			heap.poll();
+			heap.add(hit);
+		}
+	}
+}
@@ -0,0 +1,322 @@
+package us.poliscore.search;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntToLongFunction;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.val;
+import us.poliscore.model.Persistable;
+import us.poliscore.search.StringTableIndex.StringPool;
+
+/**
+ * Every issue leaderboard of a deployment (legislators and bills, ranked by their rating or impact on each issue), as a
+ * binary, read-in-place artifact built by the WebappDataGenerator. The webapp pages through these in memory rather than
+ * querying the issue indexes in DynamoDB, and then only has to fetch the entities on the page, which are usually cached.
+ *
+ * Each board is named for the issue partition key its stats are stored under (e.g. LIS/us/congress/119/Education, see
+ * LegislatorIssueStat.getIndexPrimaryKey), and holds its entries sorted by id, so that an entry can be found by binary
+ * search, along with each entry's rating and impact. For each {@link Order} the board holds the permutation of its
+ * entries sorted ascending by that value (ties broken by id), and descending is read back to front. Entity ids are
+ * offsets into a string pool, stored as in {@link StringTableIndex}.
+ *
+ * <pre>
+ * header:    magic, version, board count, pool offset
+ * directory: per board, its name, entry count and the offset of its entries
+ * entries:   ids (int[n]), ratings (int[n]), impacts (long[n]), then a permutation (int[n]) per order
+ * pool:      the strings
+ * </pre>
+ */
+public class IssueLeaderboards {
+
+	public static final int MAGIC = 0x50534C42; // PSLB
+
+	public static final int VERSION = 1;
+
+	// Orderings by absolute value, which DynamoDB has no index for and are only served from the leaderboards
+	public static final String OBJECT_BY_ISSUE_RATING_ABS_INDEX = "ObjectsByIssueRatingAbs";
+
+	public static final String OBJECT_BY_ISSUE_IMPACT_ABS_INDEX = "ObjectsByIssueImpactAbs";
+
+	private static final int HEADER_BYTES = 4 * 4;
+
+	private static final int DIRECTORY_ENTRY_BYTES = 3 * 4;
+
+	@RequiredArgsConstructor
+	public static enum Order {
+		RATING(Persistable.OBJECT_BY_ISSUE_RATING_INDEX),
+		IMPACT(Persistable.OBJECT_BY_ISSUE_IMPACT_INDEX),
+		RATING_ABS(OBJECT_BY_ISSUE_RATING_ABS_INDEX),
+		IMPACT_ABS(OBJECT_BY_ISSUE_IMPACT_ABS_INDEX);
+
+		// The index a list request names to get this order
+		@Getter
+		private final String index;
+
+		/**
+		 * @return The order for this index name, or null if it isn't an issue index
+		 */
+		public static Order forIndex(String index) {
+			for (val order : values()) {
+				if (order.index.equals(index)) return order;
+			}
+
+			return null;
+		}
+	}
+
+	@Getter
+	@AllArgsConstructor
+	public static class Entry {
+		private final String id;
+
+		private final int rating;
+
+		private final long impact;
+	}
+
+	private final ByteBuffer buf;
+
+	private final Map<String, Board> boards = new LinkedHashMap<String, Board>();
+
+	public IssueLeaderboards(ByteBuffer buffer) {
+		this.buf = buffer;
+
+		if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) throw new IllegalArgumentException("Not a version " + VERSION + " issue leaderboard");
+
+		int boardCount = buf.getInt(8);
+		for (int i = 0; i < boardCount; ++i) {
+			int at = HEADER_BYTES + i * DIRECTORY_ENTRY_BYTES;
+			boards.put(StringPool.read(buf, buf.getInt(at)), new Board(buf.getInt(at + 4), buf.getInt(at + 8)));
+		}
+	}
+
+	public static IssueLeaderboards map(Path path) {
+		return new IssueLeaderboards(MappedResources.map(path));
+	}
+
+	public Set<String> names() {
+		return boards.keySet();
+	}
+
+	/**
+	 * @param name The issue partition key, e.g. LIS/us/congress/119/Education
+	 * @return The board, or null if there's no such board
+	 */
+	public Board board(String name) {
+		return boards.get(name);
+	}
+
+	public class Board {
+		@Getter
+		private final int size;
+
+		private final int idsOffset;
+
+		private final int ratingsOffset;
+
+		private final int impactsOffset;
+
+		private final int ordersOffset;
+
+		private Board(int size, int offset) {
+			this.size = size;
+			this.idsOffset = offset;
+			this.ratingsOffset = idsOffset + size * 4;
+			this.impactsOffset = ratingsOffset + size * 4;
+			this.ordersOffset = impactsOffset + size * 8;
+		}
+
+		public String id(int entry) {
+			return StringPool.read(buf, buf.getInt(idsOffset + entry * 4));
+		}
+
+		public int rating(int entry) {
+			return buf.getInt(ratingsOffset + entry * 4);
+		}
+
+		public long impact(int entry) {
+			return buf.getLong(impactsOffset + entry * 8);
+		}
+
+		/**
+		 * The value this entry is ranked by in the given order
+		 */
+		public long value(Order order, int entry) {
+			switch (order) {
+				case RATING: return rating(entry);
+				case IMPACT: return impact(entry);
+				case RATING_ABS: return Math.abs((long) rating(entry));
+				default: return Math.abs(impact(entry));
+			}
+		}
+
+		/**
+		 * @return The entry for this id, or -1 if it isn't on the board
+		 */
+		public int entry(String id) {
+			int lo = 0, hi = size - 1;
+
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				int cmp = id(mid).compareTo(id);
+
+				if (cmp < 0) lo = mid + 1;
+				else if (cmp > 0) hi = mid - 1;
+				else return mid;
+			}
+
+			return -1;
+		}
+
+		/**
+		 * The entry at this position of the ranking
+		 */
+		public int at(Order order, boolean ascending, int position) {
+			if (position < 0 || position >= size) throw new IndexOutOfBoundsException(position);
+
+			int i = ascending ? position : size - 1 - position;
+			return buf.getInt(ordersOffset + (order.ordinal() * size + i) * 4);
+		}
+
+		/**
+		 * @return Up to limit entries of the ranking, starting from this position
+		 */
+		public int[] page(Order order, boolean ascending, int start, int limit) {
+			start = Math.max(0, start);
+			int end = (int) Math.min(size, (long) start + Math.max(0, limit));
+
+			val page = new int[Math.max(0, end - start)];
+			for (int p = start; p < end; ++p) page[p - start] = at(order, ascending, p);
+			return page;
+		}
+
+		/**
+		 * The position the page following this entry starts at, for paging on from the last entry of a previous page. If the
+		 * id isn't on the board (say the page came from an earlier build) the ranking is resumed from the value instead,
+		 * and if there's no value either, from the start.
+		 *
+		 * @param id The last entity id of the previous page
+		 * @param value The value it was ranked by, or null if unknown
+		 */
+		public int positionAfter(Order order, boolean ascending, String id, Long value) {
+			int entry = id == null ? -1 : entry(id);
+
+			if (entry >= 0) {
+				for (int p = 0; p < size; ++p) {
+					if (at(order, ascending, p) == entry) return p + 1;
+				}
+			}
+
+			if (value == null) return 0;
+
+			// The first position ranked after the value
+			int lo = 0, hi = size;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				long v = value(order, at(order, ascending, mid));
+
+				if (ascending ? v <= value : v >= value) lo = mid + 1;
+				else hi = mid;
+			}
+
+			return lo;
+		}
+	}
+
+	public static class Builder {
+		private final Map<String, List<Entry>> boards = new LinkedHashMap<String, List<Entry>>();
+
+		/**
+		 * Adds a board. Each id may only appear once.
+		 */
+		public Builder add(String name, List<Entry> entries) {
+			val sorted = new ArrayList<Entry>(entries);
+			sorted.sort(Comparator.comparing(Entry::getId));
+
+			for (int i = 1; i < sorted.size(); ++i) {
+				if (sorted.get(i).getId().equals(sorted.get(i - 1).getId())) throw new IllegalArgumentException("Board " + name + " has " + sorted.get(i).getId() + " more than once");
+			}
+
+			boards.put(name, sorted);
+			return this;
+		}
+
+		@SneakyThrows
+		public byte[] build() {
+			int entriesOffset = HEADER_BYTES + boards.size() * DIRECTORY_ENTRY_BYTES;
+			int entryBytes = 0;
+			for (val entries : boards.values()) {
+				entryBytes += entries.size() * bytesPerEntry();
+			}
+
+			val pool = new StringPool(entriesOffset + entryBytes);
+
+			val bytes = new ByteArrayOutputStream();
+			val out = new DataOutputStream(bytes);
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(boards.size());
+			out.writeInt(pool.getBase());
+
+			int at = entriesOffset;
+			for (val e : boards.entrySet()) {
+				out.writeInt(pool.offset(e.getKey()));
+				out.writeInt(e.getValue().size());
+				out.writeInt(at);
+
+				at += e.getValue().size() * bytesPerEntry();
+			}
+
+			for (val entries : boards.values()) {
+				for (val entry : entries) out.writeInt(pool.offset(entry.getId()));
+				for (val entry : entries) out.writeInt(entry.getRating());
+				for (val entry : entries) out.writeLong(entry.getImpact());
+
+				for (val order : Order.values()) {
+					for (int i : ascending(entries, order)) out.writeInt(i);
+				}
+			}
+
+			out.write(pool.toByteArray());
+			return bytes.toByteArray();
+		}
+
+		private static int bytesPerEntry() {
+			return 4 + 4 + 8 + Order.values().length * 4;
+		}
+
+		/**
+		 * The entries (which are sorted by id) in ascending order of the value, with ties left in id order
+		 */
+		private static List<Integer> ascending(List<Entry> entries, Order order) {
+			IntToLongFunction value = i -> {
+				val e = entries.get(i);
+				switch (order) {
+					case RATING: return e.getRating();
+					case IMPACT: return e.getImpact();
+					case RATING_ABS: return Math.abs((long) e.getRating());
+					default: return Math.abs(e.getImpact());
+				}
+			};
+
+			val positions = new ArrayList<Integer>(entries.size());
+			for (int i = 0; i < entries.size(); ++i) positions.add(i);
+
+			// A stable sort, so ties stay in id order
+			positions.sort(Comparator.comparingLong(value::applyAsLong));
+			return positions;
+		}
+	}
+}
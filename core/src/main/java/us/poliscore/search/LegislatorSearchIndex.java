@@ -0,0 +1,276 @@
+package us.poliscore.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.val;
+
+/**
+ * A small name index for finding legislators as the user types, built once by the WebappDataGenerator and shipped with
+ * the webapp.
+ *
+ * Every distinct token (name parts, nicknames, state and district) is stored once in a sorted vocabulary, along with the
+ * legislators that have it. Each query word is matched against the vocabulary exactly, as a prefix (binary search over
+ * the sorted vocabulary), or with a typo or two (candidates found through a trigram index over the vocabulary, then
+ * checked with an edit distance). Legislators must match every query word. The whole thing is a few hundred kilobytes
+ * for every member of Congress, since the vocabulary is tiny compared to the bill index.
+ */
+@Data
+@NoArgsConstructor
+@RegisterForReflection
+public class LegislatorSearchIndex {
+
+	public static final double EXACT = 1.0;
+
+	public static final double PREFIX = 0.7;
+
+	public static final double FUZZY = 0.5;
+
+	// Nickname and location matches count for less than a match on the legislator's official name
+	public static final double SECONDARY_WEIGHT = 0.8;
+
+	protected String[] ids;
+
+	protected String[] names;
+
+	// Sorted
+	protected String[] vocabulary;
+
+	// Parallel to vocabulary. Each posting is (legislator ordinal << 1 | 1 if the token is part of the official name).
+	protected int[][] postings;
+
+	// Sorted
+	protected String[] trigrams;
+
+	// Parallel to trigrams, the vocabulary ordinals containing each trigram
+	protected int[][] trigramTokens;
+
+	/**
+	 * @param rows [id, official name, nicknames/aliases (optional), location tokens (optional)]
+	 */
+	public static LegislatorSearchIndex build(List<List<String>> rows) {
+		val index = new LegislatorSearchIndex();
+		int n = rows.size();
+
+		index.ids = new String[n];
+		index.names = new String[n];
+
+		val tokenPostings = new TreeMap<String, TreeMap<Integer, Integer>>();
+
+		for (int i = 0; i < n; ++i) {
+			val row = rows.get(i);
+			index.ids[i] = row.get(0);
+			index.names[i] = row.get(1);
+
+			for (int field = 1; field < row.size(); ++field) {
+				int primary = field == 1 ? 1 : 0;
+
+				for (String token : SearchText.tokenizeName(row.get(field))) {
+					tokenPostings.computeIfAbsent(token, k -> new TreeMap<Integer, Integer>()).merge(i, primary, Math::max);
+				}
+			}
+		}
+
+		index.vocabulary = tokenPostings.keySet().toArray(new String[0]);
+		index.postings = tokenPostings.values().stream()
+				.map(m -> m.entrySet().stream().mapToInt(e -> (e.getKey() << 1) | e.getValue()).toArray())
+				.toArray(int[][]::new);
+
+		val trigramMap = new TreeMap<String, TreeSet<Integer>>();
+		for (int t = 0; t < index.vocabulary.length; ++t) {
+			for (String trigram : trigrams(index.vocabulary[t])) {
+				trigramMap.computeIfAbsent(trigram, k -> new TreeSet<Integer>()).add(t);
+			}
+		}
+
+		index.trigrams = trigramMap.keySet().toArray(new String[0]);
+		index.trigramTokens = trigramMap.values().stream().map(s -> s.stream().mapToInt(Integer::intValue).toArray()).toArray(int[][]::new);
+
+		return index;
+	}
+
+	/**
+	 * Trigrams of the word, anchored at the start (i.e. "bern" → ^be, ber, ern) so that prefixes share trigrams too.
+	 */
+	protected static List<String> trigrams(String word) {
+		val padded = "^" + word;
+		val result = new ArrayList<String>();
+
+		for (int i = 0; i + 3 <= padded.length(); ++i) {
+			result.add(padded.substring(i, i + 3));
+		}
+
+		return result;
+	}
+
+	/**
+	 * How many edits we tolerate for a query word of this length
+	 */
+	protected static int maxEdits(int length) {
+		if (length < 4) return 0;
+		if (length < 7) return 1;
+		return 2;
+	}
+
+	/**
+	 * Optimal string alignment distance (Levenshtein plus adjacent transpositions), giving up once it exceeds max.
+	 */
+	protected static int editDistance(String a, String b, int max) {
+		if (Math.abs(a.length() - b.length()) > max) return max + 1;
+
+		int[] prev2 = new int[b.length() + 1];
+		int[] prev = new int[b.length() + 1];
+		int[] cur = new int[b.length() + 1];
+
+		for (int j = 0; j <= b.length(); ++j) prev[j] = j;
+
+		for (int i = 1; i <= a.length(); ++i) {
+			cur[0] = i;
+			int rowMin = cur[0];
+
+			for (int j = 1; j <= b.length(); ++j) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+
+				if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+					cur[j] = Math.min(cur[j], prev2[j - 2] + 1);
+				}
+
+				rowMin = Math.min(rowMin, cur[j]);
+			}
+
+			if (rowMin > max) return max + 1;
+
+			val tmp = prev2; prev2 = prev; prev = cur; cur = tmp;
+		}
+
+		return prev[b.length()];
+	}
+
+	/**
+	 * Scores every vocabulary token against a single query word. Tokens that don't match are left out.
+	 */
+	protected Map<Integer, Double> matchWord(String word) {
+		val matches = new HashMap<Integer, Double>();
+
+		// Exact and prefix matches sit next to each other in the sorted vocabulary
+		int from = Arrays.binarySearch(vocabulary, word);
+		if (from < 0) from = -from - 1;
+		for (int t = from; t < vocabulary.length && vocabulary[t].startsWith(word); ++t) {
+			matches.put(t, vocabulary[t].length() == word.length() ? EXACT : PREFIX * (0.5 + 0.5 * word.length() / vocabulary[t].length()));
+		}
+
+		int edits = maxEdits(word.length());
+		if (edits == 0) return matches;
+
+		// Each edit can break at most four trigrams (a transposition of two letters breaks every trigram spanning either),
+		// so true matches must share at least this many with the word
+		val wordTrigrams = trigrams(word);
+		int required = Math.max(1, wordTrigrams.size() - 4 * edits);
+
+		val shared = new HashMap<Integer, Integer>();
+		for (String trigram : wordTrigrams) {
+			int g = Arrays.binarySearch(trigrams, trigram);
+			if (g < 0) continue;
+
+			for (int t : trigramTokens[g]) shared.merge(t, 1, Integer::sum);
+		}
+
+		for (val e : shared.entrySet()) {
+			int t = e.getKey();
+			if (e.getValue() < required || matches.containsKey(t)) continue;
+
+			val token = vocabulary[t];
+
+			// Either the whole token is a near miss, or the word is a near miss of the start of the token
+			int distance = editDistance(word, token, edits);
+			if (distance > edits && token.length() > word.length()) {
+				distance = editDistance(word, token.substring(0, word.length()), edits);
+			}
+
+			if (distance <= edits) matches.put(t, FUZZY / distance);
+		}
+
+		return matches;
+	}
+
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * @return Up to {@code limit} [id, name] pairs, best match first
+	 */
+	public List<List<String>> search(String text, int limit) {
+		val results = new ArrayList<List<String>>();
+
+		for (int ordinal : topK(text, limit)) {
+			results.add(List.of(ids[ordinal], names[ordinal]));
+		}
+
+		return results;
+	}
+
+	protected int[] topK(String text, int k) {
+		val words = SearchText.tokenizeName(text);
+		if (k <= 0 || words.isEmpty() || ids.length == 0) return new int[0];
+
+		// Legislator ordinal -> score, narrowed down after every word so that only legislators matching all of them survive
+		Map<Integer, Double> scores = null;
+
+		for (String word : words) {
+			val next = new HashMap<Integer, Double>();
+
+			for (val match : matchWord(word).entrySet()) {
+				for (int posting : postings[match.getKey()]) {
+					int ordinal = posting >>> 1;
+					if (scores != null && !scores.containsKey(ordinal)) continue;
+
+					double score = match.getValue() * ((posting & 1) == 1 ? 1.0 : SECONDARY_WEIGHT);
+					next.merge(ordinal, score, Math::max);
+				}
+			}
+
+			if (scores != null) {
+				val previous = scores;
+				next.replaceAll((ordinal, score) -> score + previous.get(ordinal));
+			}
+
+			scores = next;
+			if (scores.isEmpty()) return new int[0];
+		}
+
+		// Min heap on rank, so the root is the worst hit we're currently keeping. Ties go to the shorter name.
+		final Map<Integer, Double> finalScores = scores;
+		Comparator<Integer> rank = Comparator.<Integer>comparingDouble(finalScores::get)
+				.thenComparing(Comparator.<Integer>comparingInt(o -> names[o].length()).reversed())
+				.thenComparing(Comparator.<Integer>reverseOrder());
+
+		val heap = new PriorityQueue<Integer>(k + 1, rank);
+		for (int ordinal : scores.keySet()) {
+			if (heap.size() < k) {
+				heap.add(ordinal);
+			} else if (rank.compare(ordinal, heap.peek()) > 0) {
+				heap.poll();
+				heap.add(ordinal);
+			}
+		}
+
+		val result = new int[heap.size()];
+		for (int i = result.length - 1; i >= 0; --i) {
+			result[i] = heap.poll();
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,49 @@
+package us.poliscore.search;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import lombok.SneakyThrows;
+import lombok.val;
+
+/**
+ * Memory maps the binary index artifacts that ship with the webapp, so that they're read in place rather than deserialized onto the heap.
+ */
+public class MappedResources {
+
+	@SneakyThrows
+	public static ByteBuffer map(Path path) {
+		try (val channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Memory maps a resource from the classpath. Resources packaged inside a jar or native image can't be mapped directly,
+	 * so they're copied out to a temporary file first.
+	 *
+	 * @return The mapped resource, or null if there's no such resource
+	 */
+	@SneakyThrows
+	public static ByteBuffer mapResource(String resource) {
+		URL url = MappedResources.class.getResource(resource);
+		if (url == null) return null;
+
+		if ("file".equals(url.getProtocol())) return map(Path.of(url.toURI()));
+
+		val tmp = Files.createTempFile("poliscore", ".index");
+		tmp.toFile().deleteOnExit();
+
+		try (InputStream in = url.openStream()) {
+			Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		return map(tmp);
+	}
+}
@@ -0,0 +1,271 @@
+package us.poliscore.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.val;
+
+/**
+ * Finds mentions of a fixed set of phrases (i.e. bill names and ids) in a block of text in a single pass, using an
+ * Aho–Corasick automaton which is built once and can then be reused for any number of texts.
+ *
+ * Matching follows the rules of the {@code (?iu)\b(phrase1|phrase2|...)\b} regex that the linkers used to compile on
+ * every call: phrases match case insensitively (with the same Unicode case folding), only where the text has a word
+ * boundary on both sides of the mention, and mentions don't overlap. When several phrases could match starting at the
+ * same place the longest one wins, and the text is consumed left to right.
+ */
+public class MentionMatcher<V> {
+
+	@Data
+	@AllArgsConstructor
+	public static class Mention<V> {
+		private int start;
+
+		private int end;
+
+		private V value;
+	}
+
+	public static class Builder<V> {
+		private final LinkedHashMap<String, V> phrases = new LinkedHashMap<String, V>();
+
+		/**
+		 * Adds a phrase. Adding a phrase which is already present (ignoring case) replaces its value. Blank phrases are ignored.
+		 */
+		public Builder<V> add(String phrase, V value) {
+			if (phrase == null || phrase.isEmpty()) return this;
+
+			phrases.put(fold(phrase), value);
+			return this;
+		}
+
+		public MentionMatcher<V> build() {
+			return new MentionMatcher<V>(phrases);
+		}
+	}
+
+	// Per state, its outgoing edges as a slice of edgeChars / edgeTargets (sorted by char), and its failure link
+	private final int[] edgeStart;
+
+	private final int[] edgeEnd;
+
+	private final char[] edgeChars;
+
+	private final int[] edgeTargets;
+
+	private final int[] failure;
+
+	// Length of the phrase ending at this state, or 0 if none does
+	private final int[] phraseLength;
+
+	// The next state down the failure chain at which some phrase ends, or -1
+	private final int[] outputLink;
+
+	private final Object[] values;
+
+	private MentionMatcher(LinkedHashMap<String, V> phrases) {
+		// Build the trie with maps first, then flatten it into arrays for matching
+		val children = new ArrayList<Map<Character, Integer>>();
+		val lengths = new ArrayList<Integer>();
+		val stateValues = new ArrayList<Object>();
+		children.add(new HashMap<Character, Integer>());
+		lengths.add(0);
+		stateValues.add(null);
+
+		for (val e : phrases.entrySet()) {
+			int state = 0;
+
+			for (char c : e.getKey().toCharArray()) {
+				Integer next = children.get(state).get(c);
+
+				if (next == null) {
+					next = children.size();
+					children.get(state).put(c, next);
+					children.add(new HashMap<Character, Integer>());
+					lengths.add(0);
+					stateValues.add(null);
+				}
+
+				state = next;
+			}
+
+			lengths.set(state, e.getKey().length());
+			stateValues.set(state, e.getValue());
+		}
+
+		int states = children.size();
+		edgeStart = new int[states];
+		edgeEnd = new int[states];
+		edgeChars = new char[states - 1];
+		edgeTargets = new int[states - 1];
+		failure = new int[states];
+		phraseLength = new int[states];
+		outputLink = new int[states];
+		values = stateValues.toArray();
+
+		int edge = 0;
+		for (int s = 0; s < states; ++s) {
+			phraseLength[s] = lengths.get(s);
+
+			val sorted = children.get(s).keySet().toArray(new Character[0]);
+			Arrays.sort(sorted);
+
+			edgeStart[s] = edge;
+			for (char c : sorted) {
+				edgeChars[edge] = c;
+				edgeTargets[edge] = children.get(s).get(c);
+				edge++;
+			}
+			edgeEnd[s] = edge;
+		}
+
+		// Breadth first, so that every state's failure link points at a state that's already been finished
+		val queue = new int[states];
+		int head = 0, tail = 0;
+		outputLink[0] = -1;
+
+		for (int e = edgeStart[0]; e < edgeEnd[0]; ++e) {
+			failure[edgeTargets[e]] = 0;
+			outputLink[edgeTargets[e]] = -1;
+			queue[tail++] = edgeTargets[e];
+		}
+
+		while (head < tail) {
+			int s = queue[head++];
+
+			for (int e = edgeStart[s]; e < edgeEnd[s]; ++e) {
+				int child = edgeTargets[e];
+				int f = next(failure[s], edgeChars[e]);
+
+				failure[child] = f;
+				outputLink[child] = phraseLength[f] > 0 ? f : outputLink[f];
+				queue[tail++] = child;
+			}
+		}
+	}
+
+	/**
+	 * The same case folding that a {@code CASE_INSENSITIVE | UNICODE_CASE} regex applies to each character.
+	 */
+	protected static char fold(char c) {
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}
+
+	protected static String fold(String s) {
+		val chars = s.toCharArray();
+		for (int i = 0; i < chars.length; ++i) chars[i] = fold(chars[i]);
+		return new String(chars);
+	}
+
+	private int child(int state, char c) {
+		int lo = edgeStart[state], hi = edgeEnd[state] - 1;
+
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (edgeChars[mid] < c) lo = mid + 1;
+			else if (edgeChars[mid] > c) hi = mid - 1;
+			else return edgeTargets[mid];
+		}
+
+		return -1;
+	}
+
+	private int next(int state, char c) {
+		while (true) {
+			int n = child(state, c);
+			if (n >= 0) return n;
+			if (state == 0) return 0;
+			state = failure[state];
+		}
+	}
+
+	/**
+	 * Word characters as {@code \b} sees them: ASCII letters, digits and underscore, plus combining marks attached to a letter or digit.
+	 */
+	private static boolean isWord(CharSequence text, int i) {
+		char c = text.charAt(i);
+		if (c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) return true;
+		if (Character.getType(c) != Character.NON_SPACING_MARK) return false;
+
+		for (int x = i - 1; x >= 0; --x) {
+			char base = text.charAt(x);
+			if (Character.isLetterOrDigit(base)) return true;
+			if (Character.getType(base) != Character.NON_SPACING_MARK) return false;
+		}
+
+		return false;
+	}
+
+	private static boolean isBoundary(CharSequence text, int i) {
+		boolean left = i > 0 && isWord(text, i - 1);
+		boolean right = i < text.length() && isWord(text, i);
+		return left != right;
+	}
+
+	public int size() {
+		int count = 0;
+		for (int length : phraseLength) if (length > 0) count++;
+		return count;
+	}
+
+	/**
+	 * @return Every mention in the text, in order
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Mention<V>> find(CharSequence text) {
+		int n = text.length();
+
+		// The furthest end of any mention starting at each position, and the state whose phrase ends there
+		val bestEnd = new int[n + 1];
+		val bestState = new int[n + 1];
+
+		int state = 0;
+		for (int i = 0; i < n; ++i) {
+			state = next(state, fold(text.charAt(i)));
+
+			for (int t = phraseLength[state] > 0 ? state : outputLink[state]; t >= 0; t = outputLink[t]) {
+				int end = i + 1;
+				int start = end - phraseLength[t];
+
+				if (end > bestEnd[start] && isBoundary(text, start) && isBoundary(text, end)) {
+					bestEnd[start] = end;
+					bestState[start] = t;
+				}
+			}
+		}
+
+		val mentions = new ArrayList<Mention<V>>();
+		for (int i = 0; i < n; ) {
+			if (bestEnd[i] > 0) {
+				mentions.add(new Mention<V>(i, bestEnd[i], (V) values[bestState[i]]));
+				i = bestEnd[i];
+			} else {
+				i++;
+			}
+		}
+
+		return mentions;
+	}
+
+	/**
+	 * Replaces every mention in the text with whatever the replacement function returns for it.
+	 */
+	public String replace(String text, Function<Mention<V>, String> replacement) {
+		val sb = new StringBuilder(text.length() + 256);
+		int last = 0;
+
+		for (val mention : find(text)) {
+			sb.append(text, last, mention.getStart()).append(replacement.apply(mention));
+			last = mention.getEnd();
+		}
+
+		return sb.append(text, last, text.length()).toString();
+	}
+}
@@ -0,0 +1,71 @@
+package us.poliscore.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.tartarus.snowball.SnowballStemmer;
+import org.tartarus.snowball.ext.englishStemmer;
+
+import lombok.val;
+
+/**
+ * Text normalization shared by the search indexes built in the databuilder and the queries run against them in the
+ * webapp. Both sides must tokenize identically or terms won't line up.
+ */
+public class SearchText {
+
+	public static final Set<String> STOPWORDS = Set.of(
+		"the", "of", "to", "and", "a", "in", "for", "on", "at", "by", "with", "act"
+	);
+
+	// Snowball stemmers hold state and are not thread safe
+	private static final ThreadLocal<SnowballStemmer> stemmer = ThreadLocal.withInitial(englishStemmer::new);
+
+	/**
+	 * Lowercases, strips punctuation, removes stopwords and stems. "Protecting Americans' Health Act" becomes
+	 * [protect, american, health].
+	 */
+	public static List<String> tokenize(String input) {
+		val tokens = new ArrayList<String>();
+		if (input == null) return tokens;
+
+		val s = stemmer.get();
+
+		for (String token : input.toLowerCase().replaceAll("[^a-z0-9\\s]", " ").trim().split("\\s+")) {
+			if (token.isEmpty() || STOPWORDS.contains(token)) continue;
+
+			s.setCurrent(token);
+			s.stem();
+			tokens.add(s.getCurrent());
+		}
+
+		return tokens;
+	}
+
+	/**
+	 * Tokenizes a person's name without stemming. Accents are folded and apostrophes dropped, so "Nydia M. Velázquez"
+	 * becomes [nydia, m, velazquez] and "Beto O'Rourke" becomes [beto, orourke].
+	 */
+	public static List<String> tokenizeName(String input) {
+		val tokens = new ArrayList<String>();
+		if (input == null) return tokens;
+
+		val folded = Normalizer.normalize(input, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase().replace("'", "").replace("\u2019", "");
+
+		for (String token : folded.replaceAll("[^a-z0-9]+", " ").trim().split(" ")) {
+			if (!token.isEmpty()) tokens.add(token);
+		}
+
+		return tokens;
+	}
+
+	/**
+	 * "H.R. 123" → "hr123"
+	 */
+	public static String normalizeBillRef(String input) {
+		return input == null ? "" : input.toLowerCase().replaceAll("[^a-z0-9]", "");
+	}
+
+}
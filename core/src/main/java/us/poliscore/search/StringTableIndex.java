@@ -0,0 +1,266 @@
+package us.poliscore.search;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.val;
+
+/**
+ * A binary, read-in-place form of the string table indexes the webapp ships with (legislators.index and bills.index),
+ * which are otherwise JSON arrays of rows of strings that have to be parsed onto the heap on every cold start.
+ *
+ * The artifact holds any number of named tables. Each table is a run of fixed-width rows, one int per column, and each
+ * int is the offset of the string in a pool shared by every table (so that repeated strings are only stored once). A
+ * string in the pool is its UTF-8 length (as a varint, so one byte for almost every string) followed by its bytes.
+ *
+ * <pre>
+ * header:    magic, version, table count, pool offset
+ * directory: per table, its name, row count, column count and the offset of its rows
+ * rows:      per row, column count string offsets (or -1 for null)
+ * pool:      the strings
+ * </pre>
+ *
+ * Nothing is decoded until it's asked for: {@link #table(String)} returns a {@code List<List<String>>} view over the
+ * buffer, which decodes a string only when that cell is read.
+ */
+public class StringTableIndex {
+
+	public static final int MAGIC = 0x50535354; // PSST
+
+	public static final int VERSION = 1;
+
+	// The single table in legislators.table. Each table in bills.table is named for its namespace.
+	public static final String LEGISLATORS_TABLE = "legislators";
+
+	private static final int HEADER_BYTES = 4 * 4;
+
+	private static final int DIRECTORY_ENTRY_BYTES = 4 * 4;
+
+	private final ByteBuffer buf;
+
+	private final Map<String, Table> tables = new LinkedHashMap<String, Table>();
+
+	public StringTableIndex(ByteBuffer buffer) {
+		this.buf = buffer;
+
+		if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) throw new IllegalArgumentException("Not a version " + VERSION + " string table index");
+
+		int tableCount = buf.getInt(8);
+		for (int i = 0; i < tableCount; ++i) {
+			int at = HEADER_BYTES + i * DIRECTORY_ENTRY_BYTES;
+			tables.put(string(buf.getInt(at)), new Table(buf.getInt(at + 4), buf.getInt(at + 8), buf.getInt(at + 12)));
+		}
+	}
+
+	public static StringTableIndex map(Path path) {
+		return new StringTableIndex(MappedResources.map(path));
+	}
+
+	/**
+	 * Memory maps the index from the classpath, or returns null if there's no such resource.
+	 */
+	public static StringTableIndex mapResource(String resource) {
+		val buffer = MappedResources.mapResource(resource);
+		return buffer == null ? null : new StringTableIndex(buffer);
+	}
+
+	public Set<String> names() {
+		return tables.keySet();
+	}
+
+	/**
+	 * @return A read only view of the table's rows, or null if there's no such table
+	 */
+	public List<List<String>> table(String name) {
+		return tables.get(name);
+	}
+
+	private String string(int at) {
+		return StringPool.read(buf, at);
+	}
+
+	private class Table extends AbstractList<List<String>> implements RandomAccess {
+		private final int rowCount;
+
+		private final int columnCount;
+
+		private final int rowsOffset;
+
+		private Table(int rowCount, int columnCount, int rowsOffset) {
+			this.rowCount = rowCount;
+			this.columnCount = columnCount;
+			this.rowsOffset = rowsOffset;
+		}
+
+		@Override
+		public List<String> get(int row) {
+			if (row < 0 || row >= rowCount) throw new IndexOutOfBoundsException(row);
+
+			val at = rowsOffset + row * columnCount * 4;
+			return new Row(at);
+		}
+
+		@Override
+		public int size() {
+			return rowCount;
+		}
+
+		private class Row extends AbstractList<String> implements RandomAccess {
+			private final int at;
+
+			private Row(int at) {
+				this.at = at;
+			}
+
+			@Override
+			public String get(int column) {
+				if (column < 0 || column >= columnCount) throw new IndexOutOfBoundsException(column);
+
+				return string(buf.getInt(at + column * 4));
+			}
+
+			@Override
+			public int size() {
+				return columnCount;
+			}
+		}
+	}
+
+	public static class Builder {
+		private final Map<String, List<List<String>>> tables = new LinkedHashMap<String, List<List<String>>>();
+
+		/**
+		 * Adds a table. Every row must have the same number of columns.
+		 */
+		public Builder add(String name, List<List<String>> rows) {
+			val columns = rows.isEmpty() ? 0 : rows.get(0).size();
+			for (val row : rows) {
+				if (row.size() != columns) throw new IllegalArgumentException("Table " + name + " has rows of different widths");
+			}
+
+			tables.put(name, rows);
+			return this;
+		}
+
+		public Builder addAll(Map<String, List<List<String>>> tables) {
+			tables.forEach(this::add);
+			return this;
+		}
+
+		@SneakyThrows
+		public byte[] build() {
+			// Rows are laid out right after the directory, and the pool after all the rows
+			int rowsOffset = HEADER_BYTES + tables.size() * DIRECTORY_ENTRY_BYTES;
+			int rowBytes = 0;
+			for (val rows : tables.values()) {
+				rowBytes += rows.size() * (rows.isEmpty() ? 0 : rows.get(0).size()) * 4;
+			}
+
+			val pool = new StringPool(rowsOffset + rowBytes);
+
+			val bytes = new ByteArrayOutputStream();
+			val out = new DataOutputStream(bytes);
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(tables.size());
+			out.writeInt(pool.getBase());
+
+			int at = rowsOffset;
+			for (val e : tables.entrySet()) {
+				int columns = e.getValue().isEmpty() ? 0 : e.getValue().get(0).size();
+
+				out.writeInt(pool.offset(e.getKey()));
+				out.writeInt(e.getValue().size());
+				out.writeInt(columns);
+				out.writeInt(at);
+
+				at += e.getValue().size() * columns * 4;
+			}
+
+			for (val rows : tables.values()) {
+				for (val row : rows) {
+					for (val cell : row) {
+						out.writeInt(pool.offset(cell));
+					}
+				}
+			}
+
+			out.write(pool.toByteArray());
+			return bytes.toByteArray();
+		}
+	}
+
+	/**
+	 * Strings written so far, each stored once, addressed by their offset in the finished artifact. Shared with the other
+	 * artifacts in this package that store strings the same way.
+	 */
+	static class StringPool {
+		@Getter
+		private final int base;
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		private final DataOutputStream out = new DataOutputStream(bytes);
+
+		private final Map<String, Integer> offsets = new HashMap<String, Integer>();
+
+		StringPool(int base) {
+			this.base = base;
+		}
+
+		@SneakyThrows
+		public int offset(String s) {
+			if (s == null) return -1;
+
+			Integer at = offsets.get(s);
+			if (at == null) {
+				at = base + bytes.size();
+				val utf8 = s.getBytes(StandardCharsets.UTF_8);
+
+				int length = utf8.length;
+				while (length >= 0x80) {
+					out.writeByte((length & 0x7F) | 0x80);
+					length >>>= 7;
+				}
+				out.writeByte(length);
+				out.write(utf8);
+				offsets.put(s, at);
+			}
+			return at;
+		}
+
+		public byte[] toByteArray() {
+			return bytes.toByteArray();
+		}
+
+		/**
+		 * Decodes the string at this offset of a finished artifact (or null for -1)
+		 */
+		public static String read(ByteBuffer buf, int at) {
+			if (at < 0) return null;
+
+			int length = 0;
+			for (int shift = 0; ; shift += 7) {
+				byte b = buf.get(at++);
+				length |= (b & 0x7F) << shift;
+				if (b >= 0) break;
+			}
+
+			val bytes = new byte[length];
+			buf.get(at, bytes, 0, length);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,522 @@
+package us.poliscore.search;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.val;
+
+/**
+ * Autocomplete suggestions for the search box, across bills, legislators and issues.
+ *
+ * The index is a single binary artifact built by the WebappDataGenerator and read in place (memory-mapped when loaded
+ * from a file), so nothing is deserialized onto the heap. It holds:
+ * <ul>
+ *   <li>A sorted array of keys, front coded in blocks of {@link #BLOCK_SIZE} so that shared prefixes are only stored
+ *   once. Every suggestion is reachable by several keys: each word boundary suffix of its title or name, and for bills
+ *   the bill reference (i.e. "hr 1234"), so that typing a word from the middle of a title still finds it.</li>
+ *   <li>The suggestion each key points to, along with a popularity weight.</li>
+ *   <li>The precomputed top suggestions for every prefix that matches more than {@link #HOT_RANGE_THRESHOLD} keys.</li>
+ * </ul>
+ *
+ * A query first looks for its prefix among the precomputed ones. Otherwise the prefix matches only a small range of keys,
+ * which is found by binary searching the block heads, and the heaviest suggestions in the range are kept in a bounded
+ * heap. Either way, no query touches more than a couple of hundred keys.
+ */
+public class TypeaheadIndex {
+
+	public static final int MAGIC = 0x50535441; // PSTA
+
+	public static final int VERSION = 1;
+
+	public static final int BLOCK_SIZE = 16;
+
+	// Prefixes matching more keys than this have their top suggestions precomputed
+	public static final int HOT_RANGE_THRESHOLD = 128;
+
+	public static final int MAX_KEY_LENGTH = 48;
+
+	public static final int MAX_SUGGESTIONS = 10;
+
+	// Popularity is normalized to a rank within each type, on this scale, so that bill hotness and legislator impact compare sensibly
+	public static final int WEIGHT_SCALE = 1_000_000;
+
+	private static final int ENTRY_BYTES = 16;
+
+	private static final int HEADER_BYTES = 4 * 12;
+
+	public enum SuggestionType {
+		// Issues are few and broad, so when one matches it leads
+		ISSUE(WEIGHT_SCALE),
+		LEGISLATOR(0),
+		BILL(0);
+
+		@Getter
+		private final int boost;
+
+		SuggestionType(int boost) { this.boost = boost; }
+	}
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@RegisterForReflection
+	public static class Suggestion {
+		protected SuggestionType type;
+		protected String id;
+		protected String label;
+	}
+
+	private final ByteBuffer buf;
+
+	private final int entryCount;
+	private final int keyCount;
+	private final int blockCount;
+	private final int hotCount;
+
+	private final int entriesOffset;
+	private final int blockOffsetsOffset;
+	private final int keyEntriesOffset;
+	private final int hotOffset;
+
+	public TypeaheadIndex(ByteBuffer buffer) {
+		this.buf = buffer;
+
+		if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) throw new IllegalArgumentException("Not a version " + VERSION + " typeahead index");
+
+		entryCount = buf.getInt(8);
+		keyCount = buf.getInt(12);
+		blockCount = buf.getInt(16);
+		hotCount = buf.getInt(20);
+		entriesOffset = buf.getInt(24);
+		blockOffsetsOffset = buf.getInt(32);
+		keyEntriesOffset = buf.getInt(36);
+		hotOffset = buf.getInt(44);
+	}
+
+	public static TypeaheadIndex map(Path path) {
+		return new TypeaheadIndex(MappedResources.map(path));
+	}
+
+	/**
+	 * Memory maps the index from the classpath, or returns null if there's no such resource.
+	 */
+	public static TypeaheadIndex mapResource(String resource) {
+		val buffer = MappedResources.mapResource(resource);
+		return buffer == null ? null : new TypeaheadIndex(buffer);
+	}
+
+	public int size() {
+		return entryCount;
+	}
+
+	/**
+	 * Lowercases, folds accents and drops periods and apostrophes, so "H.R. 1234" → "hr 1234" and "O'Rourke" → "orourke".
+	 */
+	public static String normalize(String input) {
+		if (input == null) return "";
+
+		val folded = Normalizer.normalize(input, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase().replaceAll("[.'’]", "");
+		return folded.replaceAll("[^a-z0-9]+", " ").trim();
+	}
+
+	public List<Suggestion> suggest(String text) {
+		return suggest(text, MAX_SUGGESTIONS);
+	}
+
+	public List<Suggestion> suggest(String text, int limit) {
+		var prefix = normalize(text);
+		if (prefix.isEmpty() || limit <= 0) return new ArrayList<Suggestion>();
+		if (prefix.length() > MAX_KEY_LENGTH) prefix = prefix.substring(0, MAX_KEY_LENGTH);
+
+		limit = Math.min(limit, MAX_SUGGESTIONS);
+
+		int[] ordinals = hotSuggestions(prefix, limit);
+		if (ordinals == null) ordinals = rangeSuggestions(prefix, limit);
+
+		val results = new ArrayList<Suggestion>(ordinals.length);
+		for (int ordinal : ordinals) {
+			results.add(entry(ordinal));
+		}
+
+		return results;
+	}
+
+	private Suggestion entry(int ordinal) {
+		int at = entriesOffset + ordinal * ENTRY_BYTES;
+		return new Suggestion(SuggestionType.values()[buf.getInt(at)], string(buf.getInt(at + 8)), string(buf.getInt(at + 12)));
+	}
+
+	private int weight(int ordinal) {
+		return buf.getInt(entriesOffset + ordinal * ENTRY_BYTES + 4);
+	}
+
+	private int labelLength(int ordinal) {
+		return buf.getShort(buf.getInt(entriesOffset + ordinal * ENTRY_BYTES + 12));
+	}
+
+	private String string(int at) {
+		val bytes = new byte[buf.getShort(at)];
+		buf.get(at + 2, bytes, 0, bytes.length);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return The precomputed top suggestions for the prefix, or null if it isn't one of the hot prefixes
+	 */
+	protected int[] hotSuggestions(String prefix, int limit) {
+		val target = prefix.getBytes(StandardCharsets.US_ASCII);
+
+		int lo = 0, hi = hotCount - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int at = buf.getInt(hotOffset + mid * 4);
+
+			int len = buf.get(at);
+			int cmp = 0;
+			for (int i = 0; i < Math.min(len, target.length) && cmp == 0; ++i) cmp = Byte.compare(buf.get(at + 1 + i), target[i]);
+			if (cmp == 0) cmp = Integer.compare(len, target.length);
+
+			if (cmp < 0) lo = mid + 1;
+			else if (cmp > 0) hi = mid - 1;
+			else {
+				at += 1 + len;
+
+				int count = 0;
+				val result = new int[limit];
+				while (count < limit && buf.getInt(at + count * 4) >= 0) {
+					result[count] = buf.getInt(at + count * 4);
+					++count;
+				}
+				return Arrays.copyOf(result, count);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Compares the key at the head of the block with the target
+	 */
+	private int compareBlockHead(int block, byte[] target) {
+		int at = buf.getInt(blockOffsetsOffset + block * 4);
+		int len = buf.get(at);
+
+		for (int i = 0; i < Math.min(len, target.length); ++i) {
+			int cmp = Byte.compare(buf.get(at + 1 + i), target[i]);
+			if (cmp != 0) return cmp;
+		}
+
+		return Integer.compare(len, target.length);
+	}
+
+	/**
+	 * @return The position of the first key which is greater than or equal to the target
+	 */
+	private int lowerBound(byte[] target) {
+		// Find the first block whose head is >= target. The answer is in the block before it, or is that head.
+		int lo = 0, hi = blockCount;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (compareBlockHead(mid, target) < 0) lo = mid + 1;
+			else hi = mid;
+		}
+
+		if (lo == 0) return 0;
+
+		// Walk the previous block, rebuilding each key from the one before it
+		int block = lo - 1;
+		int at = buf.getInt(blockOffsetsOffset + block * 4);
+		val key = new byte[MAX_KEY_LENGTH];
+		int len = buf.get(at++);
+		buf.get(at, key, 0, len);
+		at += len;
+
+		int position = block * BLOCK_SIZE;
+		int end = Math.min(keyCount, position + BLOCK_SIZE);
+
+		while (++position < end) {
+			int shared = buf.get(at++);
+			int suffix = buf.get(at++);
+			buf.get(at, key, shared, suffix);
+			at += suffix;
+			len = shared + suffix;
+
+			if (Arrays.compare(key, 0, len, target, 0, target.length) >= 0) return position;
+		}
+
+		return end;
+	}
+
+	protected int[] rangeSuggestions(String prefix, int limit) {
+		int from = lowerBound(prefix.getBytes(StandardCharsets.US_ASCII));
+
+		// Keys only contain [a-z0-9 ], and '{' sorts after all of them
+		int to = lowerBound((prefix + "{").getBytes(StandardCharsets.US_ASCII));
+
+		return top(from, to, limit);
+	}
+
+	private Comparator<Integer> rank() {
+		return Comparator.<Integer>comparingInt(this::weight)
+				.thenComparing(Comparator.<Integer>comparingInt(this::labelLength).reversed())
+				.thenComparing(Comparator.<Integer>reverseOrder());
+	}
+
+	private int[] top(int from, int to, int limit) {
+		val rank = rank();
+
+		// Min heap on rank, so the root is the weakest suggestion we're currently keeping
+		val heap = new PriorityQueue<Integer>(limit + 1, rank);
+		val seen = new HashSet<Integer>();
+
+		for (int position = from; position < to; ++position) {
+			int ordinal = buf.getInt(keyEntriesOffset + position * 4);
+			if (!seen.add(ordinal)) continue;
+
+			if (heap.size() < limit) {
+				heap.add(ordinal);
+			} else if (rank.compare(ordinal, heap.peek()) > 0) {
+				heap.poll();
+				heap.add(ordinal);
+			}
+		}
+
+		val result = new int[heap.size()];
+		for (int i = result.length - 1; i >= 0; --i) result[i] = heap.poll();
+		return result;
+	}
+
+	public static class Builder {
+
+		private static class Entry {
+			SuggestionType type;
+			String id;
+			String label;
+			double popularity;
+			int weight;
+		}
+
+		private final List<Entry> entries = new ArrayList<Entry>();
+
+		// key -> entry ordinals
+		private final TreeMap<String, TreeSet<Integer>> keys = new TreeMap<String, TreeSet<Integer>>();
+
+		/**
+		 * @param phrases Titles, names or aliases. Each is indexed from the start of every word that isn't a stopword.
+		 * @param exactKeys Keys indexed as is (after normalization), without adding their suffixes (i.e. bill references).
+		 */
+		public Builder add(SuggestionType type, String id, String label, double popularity, Collection<String> phrases, Collection<String> exactKeys) {
+			val entry = new Entry();
+			entry.type = type;
+			entry.id = id;
+			entry.label = label;
+			entry.popularity = popularity;
+			entries.add(entry);
+
+			int ordinal = entries.size() - 1;
+			val entryKeys = new LinkedHashSet<String>();
+
+			for (String phrase : phrases) {
+				val words = normalize(phrase).split(" ");
+
+				for (int i = 0; i < words.length; ++i) {
+					if (words[i].isEmpty() || SearchText.STOPWORDS.contains(words[i])) continue;
+					entryKeys.add(String.join(" ", Arrays.asList(words).subList(i, words.length)));
+				}
+			}
+
+			for (String key : exactKeys) entryKeys.add(normalize(key));
+
+			for (String key : entryKeys) {
+				if (key.isEmpty()) continue;
+				if (key.length() > MAX_KEY_LENGTH) key = key.substring(0, MAX_KEY_LENGTH).trim();
+
+				keys.computeIfAbsent(key, k -> new TreeSet<Integer>()).add(ordinal);
+			}
+
+			return this;
+		}
+
+		/**
+		 * Ranks each entry's popularity among the entries of its type, so every type is spread over the same scale.
+		 */
+		private void assignWeights() {
+			val byType = new HashMap<SuggestionType, List<Entry>>();
+			for (val e : entries) byType.computeIfAbsent(e.type, k -> new ArrayList<Entry>()).add(e);
+
+			for (val group : byType.values()) {
+				group.sort(Comparator.comparingDouble(e -> e.popularity));
+
+				int lower = 0;
+				for (int i = 0; i < group.size(); ++i) {
+					if (i > 0 && group.get(i).popularity > group.get(i - 1).popularity) lower = i;
+					group.get(i).weight = group.get(i).type.getBoost() + (int) ((long) WEIGHT_SCALE * lower / group.size());
+				}
+			}
+		}
+
+		@SneakyThrows
+		public byte[] build() {
+			assignWeights();
+
+			// Flatten the keys into sorted order, one row per (key, entry)
+			val sortedKeys = new ArrayList<String>();
+			val keyEntries = new ArrayList<Integer>();
+			for (val e : keys.entrySet()) {
+				for (int ordinal : e.getValue()) {
+					sortedKeys.add(e.getKey());
+					keyEntries.add(ordinal);
+				}
+			}
+
+			// Precompute the top suggestions for every prefix that matches a lot of keys
+			val rank = Comparator.<Integer>comparingInt(o -> entries.get(o).weight)
+					.thenComparing(Comparator.<Integer>comparingInt(o -> entries.get(o).label.length()).reversed())
+					.thenComparing(Comparator.<Integer>reverseOrder());
+			val hot = new TreeMap<String, List<Integer>>();
+			findHotPrefixes("", 0, sortedKeys.size(), sortedKeys, keyEntries, rank, hot);
+
+			// Strings
+			val strings = new ByteArrayOutputStream();
+			val stringsOut = new DataOutputStream(strings);
+			val stringOffsets = new int[entries.size() * 2];
+			for (int i = 0; i < entries.size(); ++i) {
+				stringOffsets[i * 2] = strings.size();
+				writeString(stringsOut, entries.get(i).id);
+				stringOffsets[i * 2 + 1] = strings.size();
+				writeString(stringsOut, entries.get(i).label);
+			}
+
+			// Front coded key blocks
+			val keyData = new ByteArrayOutputStream();
+			val keyOut = new DataOutputStream(keyData);
+			int blockCount = (sortedKeys.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+			val blockOffsets = new int[blockCount];
+			for (int i = 0; i < sortedKeys.size(); ++i) {
+				val key = sortedKeys.get(i).getBytes(StandardCharsets.US_ASCII);
+
+				if (i % BLOCK_SIZE == 0) {
+					blockOffsets[i / BLOCK_SIZE] = keyData.size();
+					keyOut.writeByte(key.length);
+					keyOut.write(key);
+				} else {
+					val previous = sortedKeys.get(i - 1).getBytes(StandardCharsets.US_ASCII);
+					int shared = 0;
+					while (shared < Math.min(previous.length, key.length) && previous[shared] == key[shared]) ++shared;
+
+					keyOut.writeByte(shared);
+					keyOut.writeByte(key.length - shared);
+					keyOut.write(key, shared, key.length - shared);
+				}
+			}
+
+			int entriesOffset = HEADER_BYTES;
+			int stringsOffset = entriesOffset + entries.size() * ENTRY_BYTES;
+			int blockOffsetsOffset = stringsOffset + strings.size();
+			int keyEntriesOffset = blockOffsetsOffset + blockCount * 4;
+			int keyDataOffset = keyEntriesOffset + keyEntries.size() * 4;
+			int hotOffset = keyDataOffset + keyData.size();
+			int hotDataOffset = hotOffset + hot.size() * 4;
+
+			val bytes = new ByteArrayOutputStream();
+			val out = new DataOutputStream(bytes);
+
+			for (int v : new int[] { MAGIC, VERSION, entries.size(), sortedKeys.size(), blockCount, hot.size(), entriesOffset, stringsOffset, blockOffsetsOffset, keyEntriesOffset, keyDataOffset, hotOffset }) {
+				out.writeInt(v);
+			}
+
+			for (int i = 0; i < entries.size(); ++i) {
+				out.writeInt(entries.get(i).type.ordinal());
+				out.writeInt(entries.get(i).weight);
+				out.writeInt(stringsOffset + stringOffsets[i * 2]);
+				out.writeInt(stringsOffset + stringOffsets[i * 2 + 1]);
+			}
+
+			strings.writeTo(out);
+			for (int offset : blockOffsets) out.writeInt(keyDataOffset + offset);
+			for (int ordinal : keyEntries) out.writeInt(ordinal);
+			keyData.writeTo(out);
+
+			int hotRecord = hotDataOffset;
+			for (val e : hot.entrySet()) {
+				out.writeInt(hotRecord);
+				hotRecord += 1 + e.getKey().length() + 4 * MAX_SUGGESTIONS;
+			}
+
+			for (val e : hot.entrySet()) {
+				out.writeByte(e.getKey().length());
+				out.write(e.getKey().getBytes(StandardCharsets.US_ASCII));
+
+				for (int i = 0; i < MAX_SUGGESTIONS; ++i) out.writeInt(i < e.getValue().size() ? e.getValue().get(i) : -1);
+			}
+
+			out.flush();
+			return bytes.toByteArray();
+		}
+
+		/**
+		 * Walks down the prefix tree over the sorted keys in [from, to), all of which start with the prefix, recording the
+		 * top suggestions of every prefix that matches more than HOT_RANGE_THRESHOLD keys.
+		 */
+		private void findHotPrefixes(String prefix, int from, int to, List<String> sortedKeys, List<Integer> keyEntries, Comparator<Integer> rank, TreeMap<String, List<Integer>> hot) {
+			if (to - from <= HOT_RANGE_THRESHOLD || prefix.length() >= MAX_KEY_LENGTH) return;
+
+			if (!prefix.isEmpty()) {
+				val heap = new PriorityQueue<Integer>(MAX_SUGGESTIONS + 1, rank);
+				val seen = new HashSet<Integer>();
+
+				for (int i = from; i < to; ++i) {
+					if (!seen.add(keyEntries.get(i))) continue;
+
+					heap.add(keyEntries.get(i));
+					if (heap.size() > MAX_SUGGESTIONS) heap.poll();
+				}
+
+				val top = new ArrayList<Integer>(heap);
+				top.sort(rank.reversed());
+				hot.put(prefix, top);
+			}
+
+			// Keys equal to the prefix sort first, and belong to no longer prefix
+			int i = from;
+			while (i < to && sortedKeys.get(i).length() == prefix.length()) ++i;
+
+			while (i < to) {
+				char next = sortedKeys.get(i).charAt(prefix.length());
+				int j = i;
+				while (j < to && sortedKeys.get(j).charAt(prefix.length()) == next) ++j;
+
+				findHotPrefixes(prefix + next, i, j, sortedKeys, keyEntries, rank, hot);
+				i = j;
+			}
+		}
+
+		private static void writeString(DataOutputStream out, String value) throws IOException {
+			val bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeShort(bytes.length);
+			out.write(bytes);
+		}
+	}
+}
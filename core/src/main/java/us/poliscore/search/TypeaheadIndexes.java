@@ -0,0 +1,105 @@
+package us.poliscore.search;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import us.poliscore.search.StringTableIndex.StringPool;
+
+/**
+ * The typeahead indexes of a deployment, one per legislative namespace (e.g. us/congress, us/co), as a single
+ * binary, read-in-place artifact built by the WebappDataGenerator. Each namespace's index only suggests that namespace's
+ * bills and legislators (along with every issue), so that a search on the congressional site never suggests a state bill.
+ *
+ * Each index is a complete {@link TypeaheadIndex}, read in place from a slice of the artifact.
+ *
+ * <pre>
+ * header:    magic, version, index count, pool offset
+ * directory: per index, its namespace, offset and length
+ * indexes:   the TypeaheadIndex artifacts, one after the other
+ * pool:      the namespaces
+ * </pre>
+ */
+public class TypeaheadIndexes {
+
+	public static final int MAGIC = 0x50535458; // PSTX
+
+	public static final int VERSION = 1;
+
+	private static final int HEADER_BYTES = 4 * 4;
+
+	private static final int DIRECTORY_ENTRY_BYTES = 3 * 4;
+
+	private final Map<String, TypeaheadIndex> indexes = new LinkedHashMap<String, TypeaheadIndex>();
+
+	public TypeaheadIndexes(ByteBuffer buffer) {
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) throw new IllegalArgumentException("Not a version " + VERSION + " set of typeahead indexes");
+
+		int count = buffer.getInt(8);
+		for (int i = 0; i < count; ++i) {
+			int at = HEADER_BYTES + i * DIRECTORY_ENTRY_BYTES;
+			indexes.put(StringPool.read(buffer, buffer.getInt(at)), new TypeaheadIndex(buffer.slice(buffer.getInt(at + 4), buffer.getInt(at + 8))));
+		}
+	}
+
+	public static TypeaheadIndexes map(Path path) {
+		return new TypeaheadIndexes(MappedResources.map(path));
+	}
+
+	public Set<String> namespaces() {
+		return indexes.keySet();
+	}
+
+	/**
+	 * @param namespace The legislative namespace, e.g. us/congress
+	 * @return The namespace's index, or null if there's no such index
+	 */
+	public TypeaheadIndex get(String namespace) {
+		return indexes.get(namespace);
+	}
+
+	public static class Builder {
+		private final Map<String, byte[]> indexes = new LinkedHashMap<String, byte[]>();
+
+		public Builder add(String namespace, byte[] index) {
+			indexes.put(namespace, index);
+			return this;
+		}
+
+		@SneakyThrows
+		public byte[] build() {
+			int indexesOffset = HEADER_BYTES + indexes.size() * DIRECTORY_ENTRY_BYTES;
+			int indexBytes = 0;
+			for (val index : indexes.values()) indexBytes += index.length;
+
+			val pool = new StringPool(indexesOffset + indexBytes);
+
+			val bytes = new ByteArrayOutputStream();
+			val out = new DataOutputStream(bytes);
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(indexes.size());
+			out.writeInt(pool.getBase());
+
+			int at = indexesOffset;
+			for (val e : indexes.entrySet()) {
+				out.writeInt(pool.offset(e.getKey()));
+				out.writeInt(at);
+				out.writeInt(e.getValue().length);
+
+				at += e.getValue().length;
+			}
+
+			for (val index : indexes.values()) out.write(index);
+
+			out.write(pool.toByteArray());
+			return bytes.toByteArray();
+		}
+	}
+}
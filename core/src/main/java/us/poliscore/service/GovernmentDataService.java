@@ -2,7 +2,9 @@ package us.poliscore.service;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import jakarta.enterprise.context.ApplicationScoped;
@@ -25,6 +27,11 @@ public class GovernmentDataService {
 	
 	private static List<PoliscoreDataset> importedDatasets = new ArrayList<PoliscoreDataset>();
 	
+	// Session key (i.e. "us/congress/118") -> dataset, so that id lookups don't have to scan every imported dataset
+	private static Map<String, PoliscoreDataset> datasetsBySessionKey = new HashMap<String, PoliscoreDataset>();
+	
+	private static PoliscoreCompositeDataset allDataset;
+	
 	private static boolean didImportDatasets = false;
 	
 	private static PoliscoreDataset workingDataset;
@@ -56,19 +63,21 @@ public class GovernmentDataService {
 		var dataset = provider.importDataset(ref);
 		
 		importedDatasets.add(dataset);
+		datasetsBySessionKey.putIfAbsent(dataset.getSession().getKey(), dataset);
+		allDataset = null;
 		
 		return dataset;
 	}
 	
 	public PoliscoreDataset getDataset(String poliscoreObjectId) {
-		String sessionKey = poliscoreObjectId.split("/")[1] + "/" + poliscoreObjectId.split("/")[2] + "/" + poliscoreObjectId.split("/")[3];
+		String sessionKey = PoliscoreCompositeDataset.parseSessionKey(poliscoreObjectId);
 		
-		for (val dataset : importedDatasets) {
-			if (dataset.getSession().getKey().equals(sessionKey))
-				return dataset;
-		}
+		val dataset = sessionKey == null ? null : datasetsBySessionKey.get(sessionKey);
 		
-		throw new NoSuchElementException();
+		if (dataset == null)
+			throw new NoSuchElementException();
+		
+		return dataset;
 	}
 	
 	public PoliscoreDataset getDataset(LegislativeNamespace namespace, int year) {
@@ -98,7 +107,11 @@ public class GovernmentDataService {
 	}
 	
 	public PoliscoreCompositeDataset getAllDataset() {
-		return new PoliscoreCompositeDataset(importedDatasets);
+		if (allDataset == null) {
+			allDataset = new PoliscoreCompositeDataset(importedDatasets);
+		}
+		
+		return allDataset;
 	}
 	
 	public List<PoliscoreDataset> getAllImportedDatasets() {
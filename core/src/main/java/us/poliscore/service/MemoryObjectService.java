@@ -1,27 +1,95 @@
 package us.poliscore.service;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.logging.Log;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import lombok.SneakyThrows;
+import lombok.val;
 import us.poliscore.model.Persistable;
 import us.poliscore.model.bill.Bill;
-import us.poliscore.service.storage.MemoryObjectStore;
+import us.poliscore.service.storage.BoundedMemoryObjectStore;
 import us.poliscore.service.storage.ObjectStorageServiceIF;
+import us.poliscore.service.storage.TtlCache;
 
 @ApplicationScoped
 public class MemoryObjectService implements ObjectStorageServiceIF {
 	
-	protected static MemoryObjectStore memoryStore = new MemoryObjectStore();
+	/**
+	 * How long we remember that an object does not exist in the tiers behind us before asking them again.
+	 */
+	public static final Duration NEGATIVE_ENTRY_TTL = Duration.ofMinutes(10);
+	
+	/**
+	 * Fraction of the max heap the cache may use when memory.budgetBytes isn't configured.
+	 */
+	public static final double DEFAULT_BUDGET_FRACTION = 0.4;
+	
+	protected static BoundedMemoryObjectStore memoryStore = new BoundedMemoryObjectStore((long) (Runtime.getRuntime().maxMemory() * DEFAULT_BUDGET_FRACTION));
+	
+	// Approximate heap the cache may use before least recently used objects are evicted. Zero or less means use DEFAULT_BUDGET_FRACTION of the max heap.
+	@ConfigProperty(name = "memory.budgetBytes", defaultValue = "0")
+	protected long budgetBytes;
+	
+	// Simple class names of objects which are never evicted, since everything else is built from them
+	@ConfigProperty(name = "memory.pinnedClasses", defaultValue = "Legislator,Bill")
+	protected String pinnedClasses;
+	
+	/**
+	 * The most ids we remember as missing. Past this the least recently checked are forgotten, which only costs a lookup.
+	 */
+	public static final int MAX_MISSING_ENTRIES = 100000;
+	
+	// Ids of objects which were recently found to not exist
+	protected static TtlCache<String, Boolean> missing = new TtlCache<String, Boolean>(MAX_MISSING_ENTRIES);
+	
+	@PostConstruct
+	protected void configure()
+	{
+		long budget = budgetBytes > 0 ? budgetBytes : (long) (Runtime.getRuntime().maxMemory() * DEFAULT_BUDGET_FRACTION);
+		val pinned = Arrays.stream(pinnedClasses.split(",")).map(String::trim).filter(c -> !c.isEmpty()).toList();
+		
+		memoryStore.configure(budget, pinned);
+		
+		Log.debug("Memory cache budget is " + (budget >> 20) + " MB, pinned classes " + pinned);
+	}
+	
+	/**
+	 * A one line summary of how much memory the cache is using, how much has been evicted and how often it hits.
+	 */
+	public String getUsageSummary()
+	{
+		return memoryStore.getUsageSummary();
+	}
 	
 	public void put(Persistable obj)
 	{
 		if (obj instanceof Bill) { ((Bill)obj).setText(null); }
 		
+		missing.invalidate(obj.getId());
 		memoryStore.put(obj);
 	}
 	
+	/**
+	 * Records that the object does not exist, so that cache tiers can skip the remote lookup until NEGATIVE_ENTRY_TTL
+	 * elapses or the object is put.
+	 */
+	public void putMissing(String id)
+	{
+		missing.put(id, Boolean.TRUE, NEGATIVE_ENTRY_TTL);
+	}
+	
+	public boolean isKnownMissing(String id)
+	{
+		return missing.getIfPresent(id) != null;
+	}
+	
 	@SuppressWarnings("unchecked")
 	public <T extends Persistable> Optional<T> get(String id, Class<T> clazz)
 	{
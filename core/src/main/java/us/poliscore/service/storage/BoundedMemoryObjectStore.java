@@ -0,0 +1,223 @@
+package us.poliscore.service.storage;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.val;
+import us.poliscore.PoliscoreUtil;
+import us.poliscore.model.Persistable;
+
+/**
+ * An in-memory object cache with a heap budget. Each entry is weighed by the length of its serialized form (times a
+ * fudge factor for object overhead), and once the total weight exceeds the budget the least recently used entries are
+ * evicted. Entries of pinned classes are counted against the budget but are never evicted.
+ *
+ * Unlike {@link MemoryObjectStore}, this is only suitable for use as a cache tier, since anything put may later vanish.
+ */
+public class BoundedMemoryObjectStore implements ObjectStorageServiceIF {
+
+	// Serialized JSON is a lot more compact than the equivalent object graph on the heap
+	public static final int HEAP_OVERHEAD_FACTOR = 3;
+
+	// Used when an object can't be serialized for whatever reason
+	public static final long DEFAULT_ENTRY_WEIGHT = 16 * 1024;
+
+	@AllArgsConstructor
+	private static class Entry {
+		Persistable obj;
+		long weight;
+		boolean pinned;
+	}
+
+	private static final ObjectMapper mapper = PoliscoreUtil.getObjectMapper();
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(256, 0.75f, true);
+
+	private final Map<Class<?>, long[]> usageByClass = new HashMap<Class<?>, long[]>();
+
+	@Getter
+	private long budgetBytes;
+
+	// Simple class names (i.e. "Legislator") of objects which are never evicted
+	private Set<String> pinnedClasses = new HashSet<String>();
+
+	@Getter
+	private long usedBytes = 0;
+
+	@Getter
+	private long pinnedBytes = 0;
+
+	@Getter
+	private long evictions = 0;
+
+	@Getter
+	private long hits = 0;
+
+	@Getter
+	private long misses = 0;
+
+	public BoundedMemoryObjectStore(long budgetBytes) {
+		this.budgetBytes = budgetBytes;
+	}
+
+	public synchronized void configure(long budgetBytes, Collection<String> pinnedClasses) {
+		this.budgetBytes = budgetBytes;
+		this.pinnedClasses = new HashSet<String>(pinnedClasses);
+
+		for (val e : entries.values()) {
+			boolean pinned = isPinned(e.obj);
+			if (pinned != e.pinned) {
+				pinnedBytes += pinned ? e.weight : -e.weight;
+				e.pinned = pinned;
+			}
+		}
+
+		evict();
+	}
+
+	private boolean isPinned(Persistable obj) {
+		return pinnedClasses.contains(obj.getClass().getSimpleName());
+	}
+
+	protected long estimateWeight(Persistable obj) {
+		return weigh(obj);
+	}
+
+	/**
+	 * Estimates the heap taken up by an object from the length of its serialized form, for weighing it against a budget.
+	 */
+	public static long weigh(Object obj) {
+		val counter = new OutputStream() {
+			long count = 0;
+			@Override public void write(int b) { count++; }
+			@Override public void write(byte[] b, int off, int len) { count += len; }
+		};
+
+		try {
+			mapper.writeValue(counter, obj);
+			return counter.count * HEAP_OVERHEAD_FACTOR;
+		} catch (Exception e) {
+			return DEFAULT_ENTRY_WEIGHT;
+		}
+	}
+
+	@Override
+	public <T extends Persistable> void put(T obj) {
+		// Weigh outside of the lock, serialization can be expensive for large objects
+		long weight = estimateWeight(obj);
+
+		synchronized (this) {
+			remove(obj.getId());
+
+			val entry = new Entry(obj, weight, isPinned(obj));
+
+			// Don't flush the entire cache to make room for a single object that would never fit anyway
+			if (!entry.pinned && weight > budgetBytes) return;
+
+			entries.put(obj.getId(), entry);
+			account(entry, 1);
+
+			evict();
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public synchronized <T extends Persistable> Optional<T> get(String id, Class<T> clazz) {
+		val entry = entries.get(id);
+
+		if (entry == null) {
+			misses++;
+			return Optional.empty();
+		}
+
+		hits++;
+		return Optional.of((T) entry.obj);
+	}
+
+	@Override
+	public synchronized <T extends Persistable> boolean exists(String id, Class<T> clazz) {
+		return entries.containsKey(id);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public synchronized <T extends Persistable> List<T> query(Class<T> clazz) {
+		val results = new ArrayList<T>();
+
+		// Iterate a copy so that reading doesn't reorder the LRU
+		for (val entry : new ArrayList<Entry>(entries.values())) {
+			if (entry.obj.getClass().equals(clazz)) results.add((T) entry.obj);
+		}
+
+		return results;
+	}
+
+	public <T extends Persistable> long count(Class<T> clazz) {
+		return query(clazz).size();
+	}
+
+	public synchronized void remove(String id) {
+		val existing = entries.remove(id);
+
+		if (existing != null) account(existing, -1);
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private void account(Entry entry, int sign) {
+		usedBytes += sign * entry.weight;
+		if (entry.pinned) pinnedBytes += sign * entry.weight;
+
+		val usage = usageByClass.computeIfAbsent(entry.obj.getClass(), k -> new long[2]);
+		usage[0] += sign;
+		usage[1] += sign * entry.weight;
+	}
+
+	private void evict() {
+		if (usedBytes <= budgetBytes) return;
+
+		Iterator<Entry> it = entries.values().iterator();
+		while (usedBytes > budgetBytes && it.hasNext()) {
+			val entry = it.next();
+
+			if (entry.pinned) continue;
+
+			it.remove();
+			account(entry, -1);
+			evictions++;
+		}
+	}
+
+	/**
+	 * A one line description of the cache's memory use, suitable for a run summary.
+	 */
+	public synchronized String getUsageSummary() {
+		val sb = new StringBuilder();
+		sb.append(String.format("Memory cache: %d objects, ~%d MB of %d MB budget (%d MB pinned), %d evictions, %d hits, %d misses",
+				entries.size(), usedBytes >> 20, budgetBytes >> 20, pinnedBytes >> 20, evictions, hits, misses));
+
+		for (val usage : usageByClass.entrySet()) {
+			if (usage.getValue()[0] == 0) continue;
+
+			sb.append(String.format(" | %s: %d (~%d MB)", usage.getKey().getSimpleName(), usage.getValue()[0], usage.getValue()[1] >> 20));
+		}
+
+		return sb.toString();
+	}
+}
@@ -38,10 +38,9 @@ public class CachedDynamoDbService implements ApplicationDataStoreIF
 	@SneakyThrows
 	public <T extends Persistable> Optional<T> get(String id, Class<T> clazz)
 	{
-		if (memory.exists(id, clazz))
-		{
-			return memory.get(id, clazz);
-		}
+		// A single lookup, since the object could be evicted between checking for it and reading it
+		val cached = memory.get(id, clazz);
+		if (cached.isPresent()) return cached;
 		
 		Optional<T> result = dynamodb.get(id, clazz);
 		
@@ -22,6 +22,8 @@ public class CachedS3Service implements ApplicationDataStoreIF
 	@Inject
 	private S3PersistenceService s3;
 	
+	private SingleFlight<String, Optional<? extends Persistable>> inFlight = new SingleFlight<String, Optional<? extends Persistable>>();
+	
 	@Override
 	public void put(Persistable obj) {
 		memory.put(obj);
@@ -29,27 +31,49 @@ public class CachedS3Service implements ApplicationDataStoreIF
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
 	public <T extends Persistable> Optional<T> get(String id, Class<T> clazz)
 	{
-		if (memory.exists(id, clazz))
-		{
-			return memory.get(id, clazz);
-		}
-		
-		Optional<T> result = s3.get(id, clazz);
+		// A single lookup, since the object could be evicted between checking for it and reading it
+		val cached = memory.get(id, clazz);
+		if (cached.isPresent()) return cached;
 		
-		if (result.isPresent())
+		if (memory.isKnownMissing(id))
 		{
-			memory.put(result.get());
+			return Optional.empty();
 		}
 		
-		return result;
+		// Concurrent callers for the same id share a single download
+		return (Optional<T>) inFlight.load(id, () -> {
+			val loaded = memory.get(id, clazz);
+			if (loaded.isPresent()) return loaded;
+			
+			Optional<T> result = s3.get(id, clazz);
+			
+			if (result.isPresent())
+			{
+				memory.put(result.get());
+			}
+			else
+			{
+				memory.putMissing(id);
+			}
+			
+			return result;
+		});
 	}
 	
 	@Override
 	public <T extends Persistable> boolean exists(String id, Class<T> clazz)
 	{
-		return memory.exists(id, clazz) || s3.exists(id, clazz);
+		if (memory.exists(id, clazz)) return true;
+		if (memory.isKnownMissing(id)) return false;
+		
+		val exists = s3.exists(id, clazz);
+		
+		if (!exists) memory.putMissing(id);
+		
+		return exists;
 	}
 
 	@Override
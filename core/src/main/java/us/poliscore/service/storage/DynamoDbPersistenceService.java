@@ -3,8 +3,10 @@ package us.poliscore.service.storage;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -26,6 +28,7 @@ import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.NestedAttributeName;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.BeanTableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbConvertedBy;
@@ -33,7 +36,10 @@ import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
 import us.poliscore.model.Persistable;
@@ -50,6 +56,14 @@ public class DynamoDbPersistenceService implements ObjectStorageServiceIF
 	
 	public static final String HEAD_PAGE = "0";
 	
+	// The most keys DynamoDB accepts in one BatchGetItem
+	public static final int MAX_BATCH_GET = 100;
+	
+	public static final int MAX_BATCH_GET_RETRIES = 5;
+	
+	// The item which records when the database was last built (see putBuildVersion)
+	public static final String BUILD_VERSION_ID = "~build~";
+	
 	@Data
 	public static class DdbPage {
 		public static DdbPage ALL = new DdbPage(null);
@@ -271,6 +285,45 @@ public class DynamoDbPersistenceService implements ObjectStorageServiceIF
 		return Optional.of(head);
 	}
 
+	/**
+	 * Fetches the head page of many objects with as few BatchGetItem calls as possible, rather than a query per object.
+	 * Keys that DynamoDB leaves unprocessed (when throttled, or when the response is too large) are retried with backoff.
+	 * 
+	 * @return The objects found, by id. Ids that don't exist are left out.
+	 */
+	@SneakyThrows
+	public <T extends Persistable> Map<String, T> batchGetHeads(@NonNull Collection<String> ids, @NonNull Class<T> clazz)
+	{
+		val schema = getSchema(clazz);
+		if (schema.tableMetadata().primarySortKey().isPresent()) throw new UnsupportedOperationException(clazz.getSimpleName());
+		
+		val unique = new ArrayList<String>(new LinkedHashSet<String>(ids));
+		val found = new HashMap<String, T>();
+		
+		for (int i = 0; i < unique.size(); i += MAX_BATCH_GET) {
+			val keys = unique.subList(i, Math.min(unique.size(), i + MAX_BATCH_GET)).stream()
+					.map(id -> Map.of("id", AttributeValue.fromS(id), "page", AttributeValue.fromS(HEAD_PAGE)))
+					.toList();
+			
+			Map<String, KeysAndAttributes> request = Map.of(TABLE_NAME, KeysAndAttributes.builder().keys(keys).build());
+			
+			for (int attempt = 0; !request.isEmpty(); ++attempt) {
+				if (attempt > MAX_BATCH_GET_RETRIES) throw new RuntimeException("Gave up on " + request.get(TABLE_NAME).keys().size() + " unprocessed keys");
+				if (attempt > 0) Thread.sleep(50L << attempt);
+				
+				val response = ddb.batchGetItem(BatchGetItemRequest.builder().requestItems(request).build());
+				
+				for (val item : response.responses().getOrDefault(TABLE_NAME, List.of())) {
+					found.put(item.get("id").s(), schema.mapToItem(item));
+				}
+				
+				request = response.unprocessedKeys();
+			}
+		}
+		
+		return found;
+	}
+
 	@SneakyThrows
 	private <T extends Persistable> void copyFields(Class<T> clazz, BeanTableSchema<T> tableSchema,  T head, String attr, AttributeValue rawValue) {
 		val getter = clazz.getMethod("get" + StringUtils.capitalize(attr));
@@ -333,13 +386,26 @@ public class DynamoDbPersistenceService implements ObjectStorageServiceIF
 	}
 	
 	public <T extends Persistable> PaginatedList<T> query(Class<T> clazz, String sessionKey, int pageSize, String index, Boolean ascending, String exclusiveStartKey, String sortKey) {
+		return query(clazz, sessionKey, pageSize, index, ascending, exclusiveStartKey, sortKey, null);
+	}
+	
+	public <T extends Persistable> PaginatedList<T> query(Class<T> clazz, String sessionKey, int pageSize, String index, Boolean ascending, String exclusiveStartKey, String sortKey, Collection<String> projection) {
 		final String storageBucket = Persistable.getClassStorageBucket(clazz, sessionKey);
 		
-		return query(clazz, pageSize, index, ascending, exclusiveStartKey, sortKey, storageBucket);
+		return query(clazz, pageSize, index, ascending, exclusiveStartKey, sortKey, storageBucket, projection);
 	}
 	
-	@SneakyThrows
 	public <T extends Persistable> PaginatedList<T> query(Class<T> clazz, int pageSize, String index, Boolean ascending, String exclusiveStartKey, String sortKey, String storageBucket)
+	{
+		return query(clazz, pageSize, index, ascending, exclusiveStartKey, sortKey, storageBucket, null);
+	}
+	
+	/**
+	 * @param projection If not null, only these attributes (dotted paths for nested ones, e.g. interpretation.issueStats)
+	 *   are read, and everything else on the returned objects is left at its default.
+	 */
+	@SneakyThrows
+	public <T extends Persistable> PaginatedList<T> query(Class<T> clazz, int pageSize, String index, Boolean ascending, String exclusiveStartKey, String sortKey, String storageBucket, Collection<String> projection)
 	{
 		
 		
@@ -400,6 +466,12 @@ public class DynamoDbPersistenceService implements ObjectStorageServiceIF
 		}
 		request.scanIndexForward(ascending);
 		
+		if (projection != null) {
+			for (String attr : projection) {
+				request.addNestedAttributeToProject(NestedAttributeName.create(attr.split("\\.")));
+			}
+		}
+		
 		var pageIt = table.query(request.build()).iterator();
 		
 		List<T> results = new ArrayList<T>();
@@ -424,4 +496,33 @@ public class DynamoDbPersistenceService implements ObjectStorageServiceIF
 	public <T extends Persistable> boolean exists(String id, Class<T> clazz) {
 		return get(id, clazz).isPresent();
 	}
+	
+	/**
+	 * Marks the database as built at this version, so that readers holding on to its objects know to reload them. Written
+	 * once everything else in a build has been, and not part of any index.
+	 */
+	public void putBuildVersion(long version) {
+		ddb.putItem(PutItemRequest.builder()
+				.tableName(TABLE_NAME)
+				.item(Map.of(
+						"id", AttributeValue.fromS(BUILD_VERSION_ID),
+						"page", AttributeValue.fromS(HEAD_PAGE),
+						"version", AttributeValue.fromN(String.valueOf(version))))
+				.build());
+	}
+	
+	/**
+	 * The version of the last build, or empty for databases built before builds were marked
+	 */
+	public Optional<Long> getBuildVersion() {
+		val item = ddb.getItem(GetItemRequest.builder()
+				.tableName(TABLE_NAME)
+				.key(Map.of("id", AttributeValue.fromS(BUILD_VERSION_ID), "page", AttributeValue.fromS(HEAD_PAGE)))
+				.consistentRead(true)
+				.build()).item();
+		
+		if (item == null || !item.containsKey("version")) return Optional.empty();
+		
+		return Optional.of(Long.parseLong(item.get("version").n()));
+	}
 }
@@ -0,0 +1,104 @@
+package us.poliscore.service.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import io.quarkus.logging.Log;
+import lombok.Getter;
+import lombok.val;
+
+/**
+ * The index artifacts the webapp serves from (the files the WebappDataGenerator writes to its resources), published to
+ * S3 so that a running webapp can pick up a new build without being redeployed. Each build is stored under its own
+ * version, and a small pointer object names the current one:
+ *
+ * <pre>
+ * webapp-indexes/{deployment}/{version}/{artifact}
+ * webapp-indexes/{deployment}/current
+ * </pre>
+ *
+ * Artifacts are uploaded before the pointer is moved, and a version is never rewritten, so anyone who reads the pointer
+ * and then the artifacts always gets a complete build. The deployment is the DynamoDB table the build was written to, so
+ * that each side of a blue/green deployment follows its own data.
+ */
+public class IndexArtifactStore {
+
+	public static final String PREFIX = "webapp-indexes";
+
+	public static final String POINTER = "current";
+
+	// Every artifact a build may publish, named as they are on the webapp's classpath (see WebappIndexes)
+	public static final List<String> ARTIFACTS = List.of(
+			"sessions.json",
+			"legislators.index",
+			"legislators.table",
+			"legislators.search",
+			"bills.index",
+			"bills.table",
+			"bills.search",
+			"typeahead.index",
+			"ipregions.trie",
+			"issue.leaderboards");
+
+	private final S3TransferManager transfer;
+
+	private final String bucket;
+
+	@Getter
+	private final String deployment;
+
+	public IndexArtifactStore(S3TransferManager transfer, String bucket, String deployment) {
+		this.transfer = transfer;
+		this.bucket = bucket;
+		this.deployment = deployment;
+	}
+
+	/**
+	 * A store in the archive bucket, transferring with the same settings as S3PersistenceService's defaults
+	 */
+	public static IndexArtifactStore forDeployment(String deployment) {
+		val transfer = new S3TransferManager(S3TransferManager.newClient(), 16 * 1024 * 1024, 8 * 1024 * 1024, 4);
+		return new IndexArtifactStore(transfer, S3PersistenceService.BUCKET_NAME, deployment);
+	}
+
+	protected String key(String version, String artifact) {
+		return PREFIX + "/" + deployment + "/" + version + "/" + artifact;
+	}
+
+	protected String pointerKey() {
+		return PREFIX + "/" + deployment + "/" + POINTER;
+	}
+
+	/**
+	 * Uploads a build's artifacts, and then makes it the current version
+	 */
+	public void publish(String version, Map<String, byte[]> artifacts) {
+		if (version.contains("/")) throw new IllegalArgumentException("Invalid version " + version);
+
+		for (val e : artifacts.entrySet()) {
+			if (!ARTIFACTS.contains(e.getKey())) throw new IllegalArgumentException("Unknown index artifact " + e.getKey());
+
+			transfer.upload(bucket, key(version, e.getKey()), e.getValue());
+		}
+
+		transfer.upload(bucket, pointerKey(), version.getBytes(StandardCharsets.UTF_8));
+
+		Log.info("Published " + artifacts.size() + " index artifacts as version " + version + " of " + deployment);
+	}
+
+	/**
+	 * @return The version the pointer names, or empty if nothing has been published
+	 */
+	public Optional<String> getCurrentVersion() {
+		return transfer.download(bucket, pointerKey()).map(b -> new String(b, StandardCharsets.UTF_8).trim());
+	}
+
+	/**
+	 * @return The artifact, or empty if it wasn't published with that version
+	 */
+	public Optional<byte[]> get(String version, String artifact) {
+		return transfer.download(bucket, key(version, artifact));
+	}
+}
@@ -1,9 +1,9 @@
 package us.poliscore.service.storage;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.SneakyThrows;
 import lombok.val;
@@ -12,7 +12,7 @@ import us.poliscore.model.bill.Bill;
 
 public class MemoryObjectStore implements ObjectStorageServiceIF {
 	
-	protected Map<String, Persistable> memoryStore = new HashMap<String,Persistable>();
+	protected Map<String, Persistable> memoryStore = new ConcurrentHashMap<String,Persistable>();
 	
 	public void put(Persistable obj)
 	{
@@ -0,0 +1,206 @@
+package us.poliscore.service.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import lombok.val;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Lists every key under a prefix by splitting the prefix into key ranges and listing those ranges concurrently.
+ *
+ * Each range is listed with StartAfter and stops once it passes its upper bound, so the ranges are disjoint and
+ * together always cover the whole prefix, no matter what the keys look like. Ranges are only split once a page comes
+ * back truncated, and the boundaries are derived from the keys on that page (see {@link #splitPoints}), so a prefix
+ * that's a little over one page costs about two requests while a large one fans out as its keys are discovered.
+ * Because the ranges are contiguous and listed in key order, concatenating them in range order yields the same
+ * globally sorted list that a single sequential listing would.
+ *
+ * Prefixes which fit in a single page are still listed with one request.
+ */
+public class S3ParallelLister {
+
+	public static final int PAGE_SIZE = 1000;
+
+	private static ExecutorService sharedExecutor;
+
+	private final S3Client client;
+
+	private final ExecutorService executor;
+
+	private static class Page {
+		final List<String> keys;
+
+		// Whether the range has no keys after these
+		final boolean complete;
+
+		Page(List<String> keys, boolean complete) {
+			this.keys = keys;
+			this.complete = complete;
+		}
+	}
+
+	public S3ParallelLister(S3Client client) {
+		this(client, getSharedExecutor());
+	}
+
+	public S3ParallelLister(S3Client client, ExecutorService executor) {
+		this.client = client;
+		this.executor = executor;
+	}
+
+	private static synchronized ExecutorService getSharedExecutor() {
+		if (sharedExecutor == null) {
+			sharedExecutor = Executors.newFixedThreadPool(16, r -> {
+				val t = new Thread(r, "s3-list");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+
+		return sharedExecutor;
+	}
+
+	/**
+	 * @return All object keys under the prefix, in ascending order.
+	 */
+	public List<String> listKeys(String bucket, String prefix) {
+		val first = page(bucket, prefix, null, null);
+		if (first.complete) return first.keys;
+
+		try {
+			return rest(bucket, prefix, first, null).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw e;
+		}
+	}
+
+	/**
+	 * Lists keys under the prefix which are greater than lower and less than or equal to upper (either of which may be
+	 * null, for unbounded).
+	 */
+	private CompletableFuture<List<String>> listRange(String bucket, String prefix, String lower, String upper) {
+		return CompletableFuture.supplyAsync(() -> page(bucket, prefix, lower, upper), executor)
+				.thenCompose(page -> page.complete ? CompletableFuture.completedFuture(page.keys) : rest(bucket, prefix, page, upper));
+	}
+
+	/**
+	 * The page's keys followed by the rest of its range, which is split up by what the page looks like. Nothing here
+	 * blocks, so ranges split further from within the executor without tying up its threads.
+	 */
+	private CompletableFuture<List<String>> rest(String bucket, String prefix, Page page, String upper) {
+		val bounds = new ArrayList<String>();
+		bounds.add(page.keys.get(page.keys.size() - 1));
+		bounds.addAll(splitPoints(prefix, page.keys, upper));
+		bounds.add(upper);
+
+		val ranges = new ArrayList<CompletableFuture<List<String>>>();
+		for (int i = 0; i < bounds.size() - 1; ++i) {
+			ranges.add(listRange(bucket, prefix, bounds.get(i), bounds.get(i + 1)));
+		}
+
+		return CompletableFuture.allOf(ranges.toArray(new CompletableFuture[0])).thenApply(v -> {
+			val keys = new ArrayList<String>(page.keys);
+			for (val range : ranges) keys.addAll(range.join());
+			return keys;
+		});
+	}
+
+	/**
+	 * The first page of keys after lower, up to upper. The request is narrowed to whatever prefix the bounds share, so
+	 * that a bounded range reads as few keys past its end as it can.
+	 */
+	private Page page(String bucket, String prefix, String lower, String upper) {
+		val builder = ListObjectsV2Request.builder()
+				.bucket(bucket)
+				.prefix(lower != null && upper != null ? commonPrefix(prefix, lower, upper) : prefix)
+				.maxKeys(PAGE_SIZE);
+
+		if (lower != null) builder.startAfter(lower);
+
+		val resp = client.listObjectsV2(builder.build());
+		val keys = new ArrayList<String>(resp.contents().size());
+
+		for (S3Object o : resp.contents()) {
+			if (upper != null && o.key().compareTo(upper) > 0) return new Page(keys, true);
+
+			keys.add(o.key());
+		}
+
+		return new Page(keys, keys.isEmpty() || !Boolean.TRUE.equals(resp.isTruncated()));
+	}
+
+	private static String commonPrefix(String prefix, String lower, String upper) {
+		int i = prefix.length();
+		while (i < lower.length() && i < upper.length() && lower.charAt(i) == upper.charAt(i)) ++i;
+		return lower.substring(0, i);
+	}
+
+	/**
+	 * Range boundaries for the keys after a truncated page, derived from the page itself. The page's keys start to
+	 * differ at some position (the first character of a legislator code, say, or a digit of a bill number), and the
+	 * keys after it most likely carry on through the rest of that character's class (digits, or upper or lower case
+	 * letters) there. How many keys each character of the class held on this page tells us how many of them to group
+	 * into a range, so that each range holds about a page, and a range that turns out to hold more is split again from
+	 * its own first page. If that doesn't leave enough keys to split, the position before is tried instead: the page
+	 * never got past its character there, so each of the characters after it likely holds a page or more (which is how
+	 * numbered keys, i.e. "hb/1" to "hb/1999", look).
+	 *
+	 * @param page The keys of a truncated page under the prefix, in order
+	 * @param upper The upper bound of the page's range, or null
+	 */
+	protected static List<String> splitPoints(String prefix, List<String> page, String upper) {
+		val first = page.get(0);
+		val last = page.get(page.size() - 1);
+
+		int d = 0;
+		while (d < first.length() && d < last.length() && first.charAt(d) == last.charAt(d)) ++d;
+		if (d >= last.length()) return List.of();
+
+		char from = d < first.length() ? first.charAt(d) : 0;
+		val points = splitPoints(last, d, from, page.size(), upper);
+
+		if (points.isEmpty() && d - 1 >= prefix.length()) return splitPoints(last, d - 1, last.charAt(d - 1), PAGE_SIZE, upper);
+
+		return points;
+	}
+
+	/**
+	 * Boundaries on the characters after the last key's at this position
+	 *
+	 * @param from The first character the page's keys had at this position
+	 * @param keys How many keys the page held from there up to the last key's character
+	 */
+	private static List<String> splitPoints(String last, int position, char from, int keys, String upper) {
+		char c = last.charAt(position);
+		char classStart, classEnd;
+		if (c >= '0' && c <= '9') { classStart = '0'; classEnd = '9'; }
+		else if (c >= 'A' && c <= 'Z') { classStart = 'A'; classEnd = 'Z'; }
+		else if (c >= 'a' && c <= 'z') { classStart = 'a'; classEnd = 'z'; }
+		else return List.of();
+
+		if (from < classStart || from > c) from = classStart;
+
+		double keysPerCharacter = (double) keys / (c - from + 1);
+		int step = Math.max(1, (int) Math.ceil(PAGE_SIZE / keysPerCharacter));
+
+		val stem = last.substring(0, position);
+		val points = new ArrayList<String>();
+
+		for (int next = c + step; next <= classEnd; next += step) {
+			val point = stem + (char) next;
+			if (upper != null && point.compareTo(upper) >= 0) break;
+
+			points.add(point);
+		}
+
+		return points;
+	}
+}
@@ -1,28 +1,25 @@
 package us.poliscore.service.storage;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import io.quarkus.logging.Log;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import lombok.Cleanup;
 import lombok.SneakyThrows;
 import lombok.val;
-import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
-import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import us.poliscore.PoliscoreUtil;
 import us.poliscore.model.LegislativeSession;
 import us.poliscore.model.Persistable;
@@ -36,9 +33,23 @@ public class S3PersistenceService implements ObjectStorageServiceIF
 	
 	@Inject protected GovernmentDataService data;
 	
+	// Objects at least this large are uploaded in parallel parts (bill texts, batch files, session interpretations)
+	@ConfigProperty(name = "s3.multipart.threshold", defaultValue = "16777216")
+	protected long multipartThreshold;
+	
+	@ConfigProperty(name = "s3.multipart.partSize", defaultValue = "8388608")
+	protected long multipartPartSize;
+	
+	@ConfigProperty(name = "s3.multipart.maxAttempts", defaultValue = "4")
+	protected int multipartMaxAttempts;
+	
 	private S3Client client;
 	
-	private static HashMap<String, Set<String>> objectsInBucket = new HashMap<String, Set<String>>();
+	private S3TransferManager transfer;
+	
+	private S3ParallelLister lister;
+	
+	private static Map<String, Set<String>> objectsInBucket = new ConcurrentHashMap<String, Set<String>>();
 	
 	protected String getObjectKey(String id)
 	{
@@ -61,6 +72,36 @@ public class S3PersistenceService implements ObjectStorageServiceIF
 		return client;
 	}
 	
+	private S3TransferManager getTransfer()
+	{
+		if (transfer == null)
+		{
+			// Its own client, since it does its own retrying and the one here retries with the SDK's defaults
+			transfer = new S3TransferManager(S3TransferManager.newClient(), multipartThreshold, Math.max(S3TransferManager.MIN_PART_SIZE, multipartPartSize), multipartMaxAttempts);
+		}
+		
+		return transfer;
+	}
+	
+	private S3ParallelLister getLister()
+	{
+		if (lister == null)
+		{
+			lister = new S3ParallelLister(getClient());
+		}
+		
+		return lister;
+	}
+	
+	protected <T extends Persistable> Optional<T> readObject(String key, Class<T> clazz) throws IOException
+	{
+		val bytes = getTransfer().download(BUCKET_NAME, key);
+		
+		if (bytes.isEmpty()) return Optional.empty();
+		
+		return Optional.of(PoliscoreUtil.getObjectMapper().readValue(bytes.get(), clazz));
+	}
+	
 	@SneakyThrows
 	public void put(Persistable obj)
 	{
@@ -72,12 +113,7 @@ public class S3PersistenceService implements ObjectStorageServiceIF
 			throw new UnsupportedOperationException("Your object's id is " + key + "... Really? I don't think so.");
 		}
 		
-        PutObjectRequest putOb = PutObjectRequest.builder()
-                .bucket(BUCKET_NAME)
-                .key(key)
-                .build();
-
-        getClient().putObject(putOb, RequestBody.fromString(PoliscoreUtil.getObjectMapper().writeValueAsString(obj)));
+        getTransfer().upload(BUCKET_NAME, key, PoliscoreUtil.getObjectMapper().writeValueAsBytes(obj));
         
         Log.info("Uploaded to S3 " + key);
 	}
@@ -87,24 +123,7 @@ public class S3PersistenceService implements ObjectStorageServiceIF
 	{
 		val key = getObjectKey(id);
 		
-        GetObjectRequest req = GetObjectRequest.builder()
-                .bucket(BUCKET_NAME)
-                .key(key)
-                .build();
-
-        try {
-        	@Cleanup val resp = getClient().getObject(req);
-        	
-//        	Log.info("Retrieved " + clazz.getSimpleName() + " from S3 " + key);
-        	
-        	return Optional.of(PoliscoreUtil.getObjectMapper().readValue(resp, clazz));
-        }
-        catch (NoSuchKeyException ex)
-        {
-//        	Log.info(clazz.getSimpleName() + " not found on S3 " + key);
-        	
-        	return Optional.empty();
-        }
+		return readObject(key, clazz);
 	}
 	
 	@Override
@@ -151,35 +170,14 @@ public class S3PersistenceService implements ObjectStorageServiceIF
 	@SneakyThrows
 	public <T extends Persistable> List<T> query(Class<T> clazz, String sessionKey, String objectKey, int pageSize, boolean ascending)
 	{
-	    val keys = new java.util.ArrayList<String>();
-	    String continuationToken = null;
-	    
 	    String storageBucket = Persistable.getClassStorageBucket(clazz, sessionKey);
 	    
 	    String fullPrefix = storageBucket;
 	    if (StringUtils.isNotBlank(objectKey))
 	    	fullPrefix = storageBucket + "/" + objectKey;
 
-	    // First: collect all matching keys
-	    do {
-	        val builder = ListObjectsV2Request.builder()
-	                .bucket(BUCKET_NAME)
-	                .prefix(fullPrefix)
-	                .maxKeys(1000); // AWS maximum per request
-
-	        if (continuationToken != null) {
-	            builder.continuationToken(continuationToken);
-	        }
-
-	        val resp = getClient().listObjectsV2(builder.build());
-
-	        for (val s3Object : resp.contents()) {
-	            keys.add(s3Object.key());
-	        }
-
-	        continuationToken = resp.nextContinuationToken();
-	    }
-	    while (continuationToken != null);
+	    // First: collect all matching keys (already in ascending order)
+	    val keys = getLister().listKeys(BUCKET_NAME, fullPrefix);
 
 	    // Now: sort keys if needed
 	    if (!ascending) {
@@ -193,15 +191,7 @@ public class S3PersistenceService implements ObjectStorageServiceIF
 	    for (int i = 0; i < limit; i++) {
 	        val s3Key = keys.get(i);
 
-	        val getObjectRequest = GetObjectRequest.builder()
-	                .bucket(BUCKET_NAME)
-	                .key(s3Key)
-	                .build();
-
-	        @Cleanup val s3ObjectStream = getClient().getObject(getObjectRequest);
-
-	        val obj = PoliscoreUtil.getObjectMapper().readValue(s3ObjectStream, clazz);
-	        results.add(obj);
+	        readObject(s3Key, clazz).ifPresent(results::add);
 	    }
 
 	    return results;
@@ -213,24 +203,14 @@ public class S3PersistenceService implements ObjectStorageServiceIF
 		
 		if (objectsInBucket.containsKey(storageBucket)) return;
 		
-		objectsInBucket.put(storageBucket, new HashSet<String>());
+		Set<String> ids = ConcurrentHashMap.newKeySet();
 		
-		String continuationToken = null;
-		do {
-			val builder = ListObjectsV2Request.builder().bucket(BUCKET_NAME)
-					.prefix(storageBucket);
-			
-			if (continuationToken != null) {
-				builder.continuationToken(continuationToken);
-			}
-			
-			val resp = getClient().listObjectsV2(builder.build());
-			
-			objectsInBucket.get(storageBucket).addAll(resp.contents().stream().map(o -> FilenameUtils.getPath(o.key()) + FilenameUtils.getBaseName(o.key())).toList());
-			
-			continuationToken = resp.nextContinuationToken();
+		for (val key : getLister().listKeys(BUCKET_NAME, storageBucket)) {
+			ids.add(FilenameUtils.getPath(key) + FilenameUtils.getBaseName(key));
 		}
-		while(continuationToken != null);
+		
+		// Only publish the set once it's complete, so that exists() never answers from a partial listing
+		objectsInBucket.put(storageBucket, ids);
 	}
 	
 	@SneakyThrows
@@ -0,0 +1,281 @@
+package us.poliscore.service.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import io.quarkus.logging.Log;
+import lombok.Getter;
+import lombok.val;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+/**
+ * Moves large objects to and from S3 in parallel parts. Objects at or above the threshold are uploaded with a
+ * multipart upload, objects larger than one part are downloaded with parallel ranged GETs, and each part is retried
+ * on its own so that a transient failure doesn't restart the whole transfer. Anything smaller goes through a single
+ * request, as before.
+ *
+ * Since the retries happen here, the client given to it shouldn't retry as well, or a failing part would be attempted
+ * maxAttempts times the client's own attempts (see newClient).
+ */
+public class S3TransferManager {
+
+	// S3 requires every part except the last to be at least 5 MiB
+	public static final long MIN_PART_SIZE = 5 * 1024 * 1024;
+
+	// How many times a download starts over because the object was overwritten while its parts were being fetched
+	public static final int MAX_DOWNLOAD_RESTARTS = 3;
+
+	private static ExecutorService sharedExecutor;
+
+	private final S3Client client;
+
+	@Getter
+	private final long threshold;
+
+	@Getter
+	private final long partSize;
+
+	private final int maxAttempts;
+
+	private final ExecutorService executor;
+
+	public S3TransferManager(S3Client client, long threshold, long partSize, int maxAttempts) {
+		this(client, threshold, partSize, maxAttempts, getSharedExecutor());
+	}
+
+	public S3TransferManager(S3Client client, long threshold, long partSize, int maxAttempts, ExecutorService executor) {
+		this.client = client;
+		this.threshold = threshold;
+		this.partSize = partSize;
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.executor = executor;
+	}
+
+	/**
+	 * A client for a transfer manager, i.e. one which leaves the retrying to it
+	 */
+	public static S3Client newClient() {
+		return S3Client.builder()
+				.overrideConfiguration(c -> c.retryStrategy(AwsRetryStrategy.doNotRetry()))
+				.build();
+	}
+
+	private static synchronized ExecutorService getSharedExecutor() {
+		if (sharedExecutor == null) {
+			sharedExecutor = Executors.newFixedThreadPool(8, r -> {
+				val t = new Thread(r, "s3-transfer");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+
+		return sharedExecutor;
+	}
+
+	public void upload(String bucket, String key, byte[] data) {
+		if (data.length < threshold || data.length <= partSize) {
+			withRetry("put " + key, () -> client.putObject(PutObjectRequest.builder().bucket(bucket).key(key).build(), RequestBody.fromBytes(data)));
+			return;
+		}
+
+		val uploadId = client.createMultipartUpload(CreateMultipartUploadRequest.builder().bucket(bucket).key(key).build()).uploadId();
+
+		try {
+			val futures = new ArrayList<CompletableFuture<CompletedPart>>();
+
+			int partNumber = 1;
+			for (long offset = 0; offset < data.length; offset += partSize, partNumber++) {
+				final int part = partNumber;
+				final int start = (int) offset;
+				final int length = (int) Math.min(partSize, data.length - offset);
+
+				futures.add(CompletableFuture.supplyAsync(() -> withRetry("upload part " + part + " of " + key, () -> {
+					val etag = client.uploadPart(UploadPartRequest.builder()
+							.bucket(bucket)
+							.key(key)
+							.uploadId(uploadId)
+							.partNumber(part)
+							.contentLength((long) length)
+							.build(), RequestBody.fromBytes(Arrays.copyOfRange(data, start, start + length))).eTag();
+
+					return CompletedPart.builder().partNumber(part).eTag(etag).build();
+				}), executor));
+			}
+
+			List<CompletedPart> parts = join(futures);
+			parts.sort(Comparator.comparing(CompletedPart::partNumber));
+
+			withRetry("complete upload " + key, () -> client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+					.bucket(bucket)
+					.key(key)
+					.uploadId(uploadId)
+					.multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+					.build()));
+		} catch (RuntimeException e) {
+			try {
+				client.abortMultipartUpload(AbortMultipartUploadRequest.builder().bucket(bucket).key(key).uploadId(uploadId).build());
+			} catch (Exception abortEx) {
+				Log.error("Unable to abort multipart upload of " + key, abortEx);
+			}
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Downloads the object. The first request asks for the first part's range, which also tells us the object's total
+	 * size; small objects are therefore still fetched with a single request, and the remaining ranges of large objects
+	 * are fetched in parallel. Those ranges are pinned to the first response's ETag, so if the object is overwritten
+	 * part way through the download starts over rather than stitching together parts of two versions.
+	 *
+	 * @return The object bytes, or empty if the key does not exist.
+	 */
+	public Optional<byte[]> download(String bucket, String key) {
+		for (int restart = 0; ; restart++) {
+			try {
+				return downloadOnce(bucket, key);
+			} catch (AwsServiceException e) {
+				if (e.statusCode() != 412 || restart >= MAX_DOWNLOAD_RESTARTS) throw e;
+
+				Log.warn("Object " + key + " changed during its download, starting over");
+			}
+		}
+	}
+
+	private Optional<byte[]> downloadOnce(String bucket, String key) {
+		ResponseBytes<GetObjectResponse> first;
+		try {
+			first = withRetry("get " + key, () -> client.getObjectAsBytes(GetObjectRequest.builder()
+					.bucket(bucket)
+					.key(key)
+					.range(range(0, partSize))
+					.build()));
+		} catch (NoSuchKeyException e) {
+			return Optional.empty();
+		} catch (AwsServiceException e) {
+			// Ranged requests against an empty object are rejected as unsatisfiable
+			if (e.statusCode() != 416) throw e;
+
+			first = withRetry("get " + key, () -> client.getObjectAsBytes(GetObjectRequest.builder().bucket(bucket).key(key).build()));
+		}
+
+		long total = totalSize(first.response());
+		val firstBytes = first.asByteArrayUnsafe();
+
+		if (total <= firstBytes.length) return Optional.of(firstBytes);
+
+		if (total > Integer.MAX_VALUE) throw new UnsupportedOperationException("Object " + key + " is too large to buffer (" + total + " bytes)");
+
+		val eTag = first.response().eTag();
+		val data = new byte[(int) total];
+		System.arraycopy(firstBytes, 0, data, 0, firstBytes.length);
+
+		val futures = new ArrayList<CompletableFuture<Void>>();
+		for (long offset = firstBytes.length; offset < total; offset += partSize) {
+			final long start = offset;
+			final long end = Math.min(total, offset + partSize);
+
+			futures.add(CompletableFuture.supplyAsync(() -> withRetry("get range " + start + "-" + end + " of " + key, () -> {
+				val bytes = client.getObjectAsBytes(GetObjectRequest.builder()
+						.bucket(bucket)
+						.key(key)
+						.range(range(start, end - start))
+						.ifMatch(eTag)
+						.build()).asByteArrayUnsafe();
+
+				if (bytes.length != end - start)
+					throw new IllegalStateException("Expected " + (end - start) + " bytes for range " + start + "-" + end + " of " + key + " but received " + bytes.length);
+
+				System.arraycopy(bytes, 0, data, (int) start, bytes.length);
+				return null;
+			}), executor));
+		}
+
+		join(futures);
+
+		return Optional.of(data);
+	}
+
+	private static String range(long start, long length) {
+		return "bytes=" + start + "-" + (start + length - 1);
+	}
+
+	private static long totalSize(GetObjectResponse resp) {
+		// i.e. "bytes 0-8388607/20971520"
+		val contentRange = resp.contentRange();
+
+		if (contentRange != null && contentRange.contains("/") && !contentRange.endsWith("/*")) {
+			return Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1));
+		}
+
+		return resp.contentLength();
+	}
+
+	private <T> T withRetry(String description, Supplier<T> action) {
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return action.get();
+			} catch (SdkException | IllegalStateException e) {
+				if (attempt >= maxAttempts || !isRetryable(e)) throw e;
+
+				Log.warn("Attempt " + attempt + " to " + description + " failed, retrying. " + e.getMessage());
+
+				try {
+					Thread.sleep(200L * (1L << (attempt - 1)));
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw e;
+				}
+			}
+		}
+	}
+
+	private static boolean isRetryable(RuntimeException e) {
+		if (e instanceof AwsServiceException) {
+			int status = ((AwsServiceException) e).statusCode();
+
+			// Client errors (missing keys, bad ranges, access denied) won't succeed on a retry, throttling and timeouts might
+			return status < 400 || status >= 500 || status == 408 || status == 429;
+		}
+
+		return true;
+	}
+
+	private static <T> List<T> join(List<CompletableFuture<T>> futures) {
+		try {
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+		} catch (CompletionException e) {
+			futures.forEach(f -> f.cancel(true));
+
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw e;
+		}
+
+		val results = new ArrayList<T>(futures.size());
+		futures.forEach(f -> results.add(f.join()));
+		return results;
+	}
+}
@@ -0,0 +1,56 @@
+package us.poliscore.service.storage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import lombok.val;
+
+/**
+ * Coalesces concurrent loads of the same key. The first caller for a key runs the loader, and any caller which
+ * arrives while that load is in flight waits for (and shares) its result instead of starting a load of its own.
+ * Nothing is cached once the load completes; that's the job of whichever tier is wrapping this.
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<K, CompletableFuture<V>>();
+
+	public V load(K key, Supplier<V> loader) {
+		CompletableFuture<V> mine = new CompletableFuture<V>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+
+		if (existing != null) {
+			try {
+				return existing.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+				if (e.getCause() instanceof Error) throw (Error) e.getCause();
+				throw e;
+			}
+		}
+
+		try {
+			V result = loader.get();
+			mine.complete(result);
+			return result;
+		} catch (Throwable t) {
+			mine.completeExceptionally(t);
+			throw t;
+		} finally {
+			inFlight.remove(key, mine);
+		}
+	}
+
+	public int inFlightCount() {
+		return inFlight.size();
+	}
+
+	/**
+	 * How many callers are waiting on the in-flight load of this key (not counting the one running it)
+	 */
+	int waitingCount(K key) {
+		val flight = inFlight.get(key);
+		return flight == null ? 0 : flight.getNumberOfDependents();
+	}
+}
@@ -0,0 +1,192 @@
+package us.poliscore.service.storage;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import lombok.val;
+
+/**
+ * A small, thread-safe, bounded cache for query results. Entries expire after a per-key time to live, the least recently
+ * used entry is dropped once the cache is full, and concurrent misses on the same key are coalesced through a
+ * {@link SingleFlight} so that a burst of identical requests only runs the loader once. Null results are never cached.
+ *
+ * A cache of large values can instead be bounded by their total weight (i.e. an estimate of their size on the heap), in
+ * which case least recently used entries are dropped until the total fits, and a value heavier than the whole budget
+ * isn't cached at all.
+ */
+public class TtlCache<K, V> {
+
+	private static class Entry<V> {
+		final V value;
+		final long expiresAt;
+		final long weight;
+
+		Entry(V value, long expiresAt, long weight) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+			this.weight = weight;
+		}
+	}
+
+	private final int maxEntries;
+
+	private final long maxWeight;
+
+	private final ToLongFunction<? super V> weigher;
+
+	private long totalWeight = 0;
+
+	private final LongSupplier clock;
+
+	private final LinkedHashMap<K, Entry<V>> entries;
+
+	private final SingleFlight<K, V> inFlight = new SingleFlight<K, V>();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong expirations = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	public TtlCache(int maxEntries) {
+		this(maxEntries, System::nanoTime);
+	}
+
+	/**
+	 * A cache bounded by the total weight of its values rather than their count.
+	 *
+	 * @param weigher Estimates a value's weight, in the same units as maxWeight (i.e. bytes). It's called once per put, outside of any lock.
+	 */
+	public TtlCache(long maxWeight, ToLongFunction<? super V> weigher) {
+		this(Integer.MAX_VALUE, maxWeight, weigher, System::nanoTime);
+	}
+
+	/**
+	 * @param clock A nanosecond clock, swappable for tests
+	 */
+	protected TtlCache(int maxEntries, LongSupplier clock) {
+		this(maxEntries, Long.MAX_VALUE, v -> 0, clock);
+	}
+
+	protected TtlCache(int maxEntries, long maxWeight, ToLongFunction<? super V> weigher, LongSupplier clock) {
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+		this.clock = clock;
+		this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true);
+	}
+
+	/**
+	 * Returns the cached value for this key, or runs the loader (once, no matter how many callers are waiting on it) and
+	 * caches its result for the given time to live.
+	 */
+	public V get(K key, Duration ttl, Supplier<V> loader) {
+		val cached = getIfPresent(key);
+		if (cached != null) {
+			hits.incrementAndGet();
+			return cached;
+		}
+
+		misses.incrementAndGet();
+
+		return inFlight.load(key, () -> {
+			// Someone else may have finished loading this key between our lookup and joining the flight
+			val loaded = getIfPresent(key);
+			if (loaded != null) return loaded;
+
+			val value = loader.get();
+			if (value != null) put(key, value, ttl);
+			return value;
+		});
+	}
+
+	public synchronized V getIfPresent(K key) {
+		val entry = entries.get(key);
+		if (entry == null) return null;
+
+		if (clock.getAsLong() - entry.expiresAt >= 0) {
+			remove(key);
+			expirations.incrementAndGet();
+			return null;
+		}
+
+		return entry.value;
+	}
+
+	public void put(K key, V value, Duration ttl) {
+		// Weigh outside of the lock, it can be expensive for large values
+		long weight = weigher.applyAsLong(value);
+
+		synchronized (this) {
+			remove(key);
+
+			// Don't flush the entire cache to make room for a single value that would never fit anyway
+			if (weight > maxWeight) return;
+
+			entries.put(key, new Entry<V>(value, clock.getAsLong() + ttl.toNanos(), weight));
+			totalWeight += weight;
+
+			val it = entries.values().iterator();
+			while ((entries.size() > maxEntries || totalWeight > maxWeight) && it.hasNext()) {
+				totalWeight -= it.next().weight;
+				it.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	public synchronized void invalidate(K key) {
+		remove(key);
+	}
+
+	public synchronized void invalidateAll() {
+		entries.clear();
+		totalWeight = 0;
+	}
+
+	private void remove(K key) {
+		val removed = entries.remove(key);
+		if (removed != null) totalWeight -= removed.weight;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getTotalWeight() {
+		return totalWeight;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getExpirations() {
+		return expirations.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	public double getHitRatio() {
+		long h = hits.get();
+		long total = h + misses.get();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	public String getStatsSummary() {
+		return String.format("%d entries, %d hits, %d misses (%.1f%% hit ratio), %d expired, %d evicted",
+				size(), getHits(), getMisses(), getHitRatio() * 100, getExpirations(), getEvictions());
+	}
+}
@@ -0,0 +1,160 @@
+package us.poliscore.service.storage;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import io.quarkus.logging.Log;
+import lombok.val;
+
+/**
+ * A set of objects which is loaded all at once and then served from memory, for data that only changes when the database
+ * is rebuilt. Every so often (no more than once per check interval, and only while it's being used) a version marker is
+ * read in the background, and if the version has moved on the whole set is reloaded, also in the background, and swapped
+ * in once it's ready. Callers are never made to wait on either, except for the very first load.
+ */
+public class VersionedSnapshot<K, V> {
+
+	private static class Snapshot<K, V> {
+		final String version;
+		final Map<K, V> values;
+
+		Snapshot(String version, Map<K, V> values) {
+			this.version = version;
+			this.values = values;
+		}
+	}
+
+	private static ExecutorService sharedExecutor;
+
+	private final Supplier<String> version;
+
+	private final Function<String, Map<K, V>> loader;
+
+	private final long checkInterval;
+
+	private final Executor executor;
+
+	private final LongSupplier clock;
+
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+
+	private volatile Snapshot<K, V> snapshot;
+
+	private volatile long lastCheck;
+
+	/**
+	 * @param version Reads the current version marker (null if there isn't one)
+	 * @param loader Loads every object, by key
+	 */
+	public VersionedSnapshot(Supplier<String> version, Supplier<Map<K, V>> loader, Duration checkInterval) {
+		this(version, v -> loader.get(), checkInterval, getSharedExecutor(), System::nanoTime);
+	}
+
+	/**
+	 * @param loader Loads every object at the given version (which is null if there's no marker), for data that's stored
+	 *   by version
+	 */
+	public VersionedSnapshot(Supplier<String> version, Function<String, Map<K, V>> loader, Duration checkInterval) {
+		this(version, loader, checkInterval, getSharedExecutor(), System::nanoTime);
+	}
+
+	/**
+	 * @param clock A nanosecond clock, swappable for tests
+	 */
+	protected VersionedSnapshot(Supplier<String> version, Supplier<Map<K, V>> loader, Duration checkInterval, Executor executor, LongSupplier clock) {
+		this(version, v -> loader.get(), checkInterval, executor, clock);
+	}
+
+	protected VersionedSnapshot(Supplier<String> version, Function<String, Map<K, V>> loader, Duration checkInterval, Executor executor, LongSupplier clock) {
+		this.version = version;
+		this.loader = loader;
+		this.checkInterval = checkInterval.toNanos();
+		this.executor = executor;
+		this.clock = clock;
+	}
+
+	private static synchronized ExecutorService getSharedExecutor() {
+		if (sharedExecutor == null) {
+			sharedExecutor = Executors.newSingleThreadExecutor(r -> {
+				val t = new Thread(r, "snapshot-refresh");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+
+		return sharedExecutor;
+	}
+
+	/**
+	 * Loads the set if it hasn't been already, e.g. while the application starts up so that no request has to wait for it
+	 */
+	public synchronized void load() {
+		if (snapshot != null) return;
+
+		lastCheck = clock.getAsLong();
+
+		// The marker is read before the data, so that a build finishing in between leaves us behind (and reloading at the
+		// next check) rather than claiming a version we don't have
+		val current = version.get();
+		snapshot = new Snapshot<K, V>(current, loader.apply(current));
+	}
+
+	/**
+	 * The object for this key from the current set, or null if the set doesn't have one
+	 */
+	public V get(K key) {
+		val current = snapshot;
+
+		if (current == null) {
+			load();
+			return snapshot.values.get(key);
+		}
+
+		if (clock.getAsLong() - lastCheck >= checkInterval && refreshing.compareAndSet(false, true)) {
+			lastCheck = clock.getAsLong();
+
+			try {
+				executor.execute(this::refresh);
+			} catch (Exception e) {
+				refreshing.set(false);
+				Log.error("Couldn't schedule a snapshot refresh", e);
+			}
+		}
+
+		return current.values.get(key);
+	}
+
+	/**
+	 * The version the current set was loaded at, or null if it hasn't been loaded
+	 */
+	public String getVersion() {
+		val current = snapshot;
+		return current == null ? null : current.version;
+	}
+
+	private void refresh() {
+		try {
+			val latest = version.get();
+			if (Objects.equals(latest, snapshot.version)) return;
+
+			val start = System.currentTimeMillis();
+			val values = loader.apply(latest);
+			snapshot = new Snapshot<K, V>(latest, values);
+
+			Log.info("Reloaded " + values.size() + " objects for version " + latest + " in " + (System.currentTimeMillis() - start) + "ms");
+		} catch (Exception e) {
+			// Keep serving what we have, and try again at the next check
+			Log.error("Couldn't refresh a snapshot, keeping version " + snapshot.version, e);
+		} finally {
+			refreshing.set(false);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package us.poliscore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+import us.poliscore.model.IssueStats;
+import us.poliscore.model.TrackedIssue;
+import us.poliscore.model.legislator.Legislator;
+import us.poliscore.model.legislator.Legislator.LegislatorBillInteractionList;
+import us.poliscore.model.legislator.LegislatorBillInteraction.LegislatorBillCosponsor;
+import us.poliscore.model.legislator.LegislatorBillInteraction.LegislatorBillSponsor;
+import us.poliscore.model.legislator.LegislatorInterpretation;
+import us.poliscore.model.legislator.LegislatorIssueStat;
+
+public class LegislatorBillLinkerTest {
+
+	private static Legislator legislator(String explain) {
+		val leg = new Legislator();
+		leg.setId("LEG/us/congress/119/S000033");
+
+		val sponsor = new LegislatorBillSponsor();
+		sponsor.setLegId(leg.getId());
+		sponsor.setBillId("BIL/us/congress/119/hr/1944");
+		sponsor.setBillName("10 Percent Credit Card Interest Rate Cap Act.");
+		sponsor.setDate(LocalDate.of(2025, 3, 1));
+		sponsor.setIssueStats(new IssueStats());
+
+		val cosponsor = new LegislatorBillCosponsor();
+		cosponsor.setLegId(leg.getId());
+		cosponsor.setBillId("BIL/us/congress/119/s/12");
+		cosponsor.setBillName("Credit Card Act");
+		cosponsor.setDate(LocalDate.of(2025, 2, 1));
+		cosponsor.setIssueStats(new IssueStats());
+
+		val interactions = new LegislatorBillInteractionList();
+		interactions.add(cosponsor);
+		interactions.add(sponsor);
+		leg.setInteractions(interactions);
+
+		val interp = new LegislatorInterpretation();
+		interp.setLongExplain(explain);
+		leg.setInterpretation(interp);
+
+		return leg;
+	}
+
+	@Test
+	public void testGolden() {
+		val leg = legislator("Sanders sponsored the 10 Percent Credit Card Interest Rate Cap Act and backed S-12, the credit card act. Credit Cards aren't a bill.");
+
+		LegislatorBillLinker.linkInterpBills(leg, List.of());
+
+		assertEquals("Sanders sponsored the <a href=\"/2026/bill/hr/1944\">10 Percent Credit Card Interest Rate Cap Act</a> and backed "
+				+ "<a href=\"/2026/bill/s/12\">Credit Card Act</a>, the <a href=\"/2026/bill/s/12\">Credit Card Act</a>. Credit Cards aren't a bill.",
+				leg.getInterpretation().getLongExplain());
+	}
+
+	@Test
+	public void testPrelinkedTextIsServedAsIs() {
+		val leg = legislator("Sanders sponsored the 10 Percent Credit Card Interest Rate Cap Act and backed S-12, the credit card act. Credit Cards aren't a bill.");
+
+		LegislatorBillLinker.prelink(leg, List.of());
+		val prelinked = leg.getInterpretation().getLinkedLongExplain();
+
+		// Built at the same time as the interactions, so linking at runtime would produce exactly the same thing
+		assertEquals(LegislatorBillLinker.link(leg.getInterpretation().getLongExplain(), leg.getInteractions(), List.of()), prelinked);
+
+		// Whatever was stored is used verbatim, without looking at the interactions again
+		leg.setInteractions(new LegislatorBillInteractionList());
+		LegislatorBillLinker.linkInterpBills(leg, List.of());
+
+		assertEquals(prelinked, leg.getInterpretation().getLongExplain());
+		assertNull(leg.getInterpretation().getLinkedLongExplain());
+	}
+
+	@Test
+	public void testLinkedCopyIsNeverServed() throws Exception {
+		val leg = legislator("Sanders sponsored the 10 Percent Credit Card Interest Rate Cap Act.");
+		leg.getInterpretation().setIssueStats(new IssueStats());
+		LegislatorBillLinker.prelink(leg, List.of());
+		assertTrue(leg.getInterpretation().getLinkedLongExplain().contains("/2026/bill/hr/1944"));
+
+		// Lists, by-id lookups and leaderboards serve the legislator (or a copy of its interpretation) without linking it first
+		val mapper = PoliscoreUtil.getObjectMapper();
+		for (Object served : List.of(leg, leg.getInterpretation(), new LegislatorIssueStat(TrackedIssue.Education, 0, leg))) {
+			val json = mapper.writeValueAsString(served);
+
+			assertFalse(json.contains("linkedLongExplain"), json);
+			assertFalse(json.contains("/2026/bill/hr/1944"), json);
+		}
+	}
+
+	@Test
+	public void testNothingToLink() {
+		val leg = legislator("No bills are mentioned here.");
+
+		LegislatorBillLinker.linkInterpBills(leg, List.of());
+
+		assertEquals("No bills are mentioned here.", leg.getInterpretation().getLongExplain());
+	}
+}
@@ -0,0 +1,109 @@
+package us.poliscore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+import us.poliscore.model.LegislativeNamespace;
+import us.poliscore.model.LegislativeSession;
+import us.poliscore.model.legislator.Legislator;
+
+public class PoliscoreCompositeDatasetTest {
+
+	private static final int LEGISLATORS_PER_DATASET = 200;
+
+	private List<PoliscoreDataset> buildStateDatasets() {
+		List<PoliscoreDataset> datasets = new ArrayList<PoliscoreDataset>();
+
+		for (LegislativeNamespace ns : LegislativeNamespace.values()) {
+			if (ns.equals(LegislativeNamespace.US_CONGRESS)) continue;
+			if (datasets.size() == 50) break;
+
+			PoliscoreDataset dataset = new PoliscoreDataset(new LegislativeSession(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), "2025", ns));
+
+			for (int i = 0; i < LEGISLATORS_PER_DATASET; ++i) {
+				Legislator leg = new Legislator();
+				leg.setId(Legislator.generateId(ns, "2025", "L" + i));
+				dataset.put(leg);
+			}
+
+			datasets.add(dataset);
+		}
+
+		return datasets;
+	}
+
+	@Test
+	public void testParseSessionKey() {
+		assertEquals("us/congress/118", PoliscoreCompositeDataset.parseSessionKey("LEG/us/congress/118/S000033"));
+		assertEquals("us/congress/118", PoliscoreCompositeDataset.parseSessionKey("BIL/us/congress/118/hr/1234"));
+		assertEquals("us/congress/118", PoliscoreCompositeDataset.parseSessionKey("SIT/us/congress/118"));
+		assertNull(PoliscoreCompositeDataset.parseSessionKey("IP"));
+		assertNull(PoliscoreCompositeDataset.parseSessionKey("LEG/us/congress"));
+	}
+
+	@Test
+	public void testRoutedLookups() {
+		val datasets = buildStateDatasets();
+		val composite = new PoliscoreCompositeDataset(datasets);
+
+		for (PoliscoreDataset dataset : datasets) {
+			String id = Legislator.generateId(dataset.getSession().getNamespace(), "2025", "L7");
+
+			assertTrue(composite.exists(id, Legislator.class));
+			assertEquals(id, composite.get(id, Legislator.class).orElseThrow().getId());
+		}
+
+		assertFalse(composite.exists(Legislator.generateId(LegislativeNamespace.US_CONGRESS, "119", "L7"), Legislator.class));
+		assertEquals(50 * LEGISLATORS_PER_DATASET, composite.query(Legislator.class).size());
+		assertEquals(50 * LEGISLATORS_PER_DATASET, composite.query(Legislator.class).stream().count());
+	}
+
+	/**
+	 * Routed lookups find exactly what the previous fan-out over every dataset found, with 50 state datasets loaded.
+	 */
+	@Test
+	public void testRoutedMatchesFanOut() {
+		val datasets = buildStateDatasets();
+		val composite = new PoliscoreCompositeDataset(datasets);
+
+		List<String> ids = new ArrayList<String>();
+		for (PoliscoreDataset dataset : datasets) {
+			for (int i = 0; i < LEGISLATORS_PER_DATASET; ++i) {
+				ids.add(Legislator.generateId(dataset.getSession().getNamespace(), "2025", "L" + i));
+			}
+			ids.add(Legislator.generateId(dataset.getSession().getNamespace(), "2025", "MISSING"));
+		}
+
+		assertEquals(50 * LEGISLATORS_PER_DATASET, fanOut(datasets, ids));
+		assertEquals(fanOut(datasets, ids), routed(composite, ids));
+	}
+
+	private int fanOut(List<PoliscoreDataset> datasets, List<String> ids) {
+		int hits = 0;
+		for (String id : ids) {
+			for (PoliscoreDataset dataset : datasets) {
+				Optional<Legislator> result = dataset.get(id, Legislator.class);
+				if (result.isPresent()) { hits++; break; }
+			}
+		}
+		return hits;
+	}
+
+	private int routed(PoliscoreCompositeDataset composite, List<String> ids) {
+		int hits = 0;
+		for (String id : ids) {
+			if (composite.get(id, Legislator.class).isPresent()) hits++;
+		}
+		return hits;
+	}
+}
@@ -0,0 +1,123 @@
+package us.poliscore.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.SneakyThrows;
+import lombok.val;
+
+public class IpRegionTrieTest {
+
+	private static final List<String> STATES = List.of("NY", "CA", "VT", "TX", "CO");
+
+	private static String ipv4(long address) {
+		return ((address >>> 24) & 0xFF) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+	}
+
+	private static IpRegionTrie trie(IpRegionTrie.Builder builder) {
+		return new IpRegionTrie(ByteBuffer.wrap(builder.build()));
+	}
+
+	private static String locate(IpRegionTrie trie, String ip) {
+		val value = trie.lookup(ip);
+		return value == IpRegionTrie.UNKNOWN ? "?" : value == IpRegionTrie.OUTSIDE_US ? "-" : trie.region(value);
+	}
+
+	@Test
+	public void testGolden() {
+		val trie = trie(new IpRegionTrie.Builder()
+				.add("8.8.8.0", "8.8.8.255", "CA")
+				.add("8.8.9.0", "8.8.9.127", "CA")
+				.add("24.0.0.0", "24.255.255.255", null)
+				.add("66.171.0.0", "66.171.15.255", "VT")
+				.add("2001:db8::", "2001:db8::ffff", "NY")
+				.add("2600::", "2600:0:ffff:ffff:ffff:ffff:ffff:ffff", "TX"));
+
+		assertEquals("CA", locate(trie, "8.8.8.8"));
+		assertEquals("CA", locate(trie, "8.8.9.127"));
+		assertEquals("?", locate(trie, "8.8.9.128"));
+		assertEquals("-", locate(trie, "24.1.2.3"));
+		assertEquals("VT", locate(trie, "66.171.15.255"));
+		assertEquals("?", locate(trie, "66.171.16.0"));
+		assertEquals("NY", locate(trie, "2001:db8::1"));
+		assertEquals("NY", locate(trie, "2001:0db8:0000:0000:0000:0000:0000:ffff"));
+		assertEquals("?", locate(trie, "2001:db8::1:0"));
+		assertEquals("TX", locate(trie, "2600:0:1234::5%eth0"));
+
+		// IPv4 addresses can arrive in their IPv6 form too
+		assertEquals("CA", locate(trie, "::ffff:8.8.8.8"));
+		assertEquals("VT", locate(trie, "::ffff:42ab:1"));
+
+		for (String bad : List.of("", "8.8.8", "8.8.8.256", "8.8.8.8.8", "1:2:3", "1::2::3", "g::1", "12345::", "1:", "example.com")) {
+			assertEquals("?", locate(trie, bad), bad);
+		}
+	}
+
+	@Test
+	@SneakyThrows
+	public void testParseMatchesInetAddress() {
+		for (String ip : List.of("::", "::1", "1::", "fe80::1:2", "2001:db8:85a3::8a2e:370:7334", "1:2:3:4:5:6:7:8", "::ffff:1.2.3.4", "1:2:3:4:5:6:1.2.3.4", "0.0.0.0", "255.255.255.255", "10.0.0.1")) {
+			val expected = InetAddress.getByName(ip).getAddress();
+			val actual = IpRegionTrie.parse(ip);
+
+			// InetAddress gives IPv4 (and IPv4-mapped IPv6) addresses back as 4 bytes
+			assertTrue(Arrays.equals(expected, expected.length == 4 ? Arrays.copyOfRange(actual, 12, 16) : actual), ip);
+		}
+
+		assertNull(IpRegionTrie.parse("localhost"));
+	}
+
+	@Test
+	public void testMatchesLinearScan() {
+		val random = new Random(7);
+		val starts = new ArrayList<Long>();
+		val ends = new ArrayList<Long>();
+		val regions = new ArrayList<String>();
+		val builder = new IpRegionTrie.Builder();
+
+		// Disjoint ranges of every size, with gaps between some of them
+		long at = 0;
+		while (at < 0xFFFFFFFFL) {
+			long length = 1L << random.nextInt(24);
+			length += random.nextInt((int) Math.min(length, 1000));
+			long end = Math.min(0xFFFFFFFFL, at + length);
+
+			if (random.nextInt(5) > 0) {
+				String region = random.nextInt(4) == 0 ? null : STATES.get(random.nextInt(STATES.size()));
+				builder.add(ipv4(at), ipv4(end), region);
+				starts.add(at);
+				ends.add(end);
+				regions.add(region == null ? "-" : region);
+			}
+
+			at = end + 1;
+		}
+
+		val trie = trie(builder);
+
+		for (int i = 0; i < 100000; ++i) {
+			long address = random.nextLong() & 0xFFFFFFFFL;
+
+			String expected = "?";
+			for (int r = 0; r < starts.size(); ++r) {
+				if (starts.get(r) <= address && address <= ends.get(r)) {
+					expected = regions.get(r);
+					break;
+				}
+				if (starts.get(r) > address) break;
+			}
+
+			assertEquals(expected, locate(trie, ipv4(address)), ipv4(address));
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package us.poliscore.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.apache.commons.text.similarity.LevenshteinDistance;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.tartarus.snowball.SnowballStemmer;
+import org.tartarus.snowball.ext.englishStemmer;
+
+import lombok.val;
+import us.poliscore.PoliscoreUtil;
+
+public class BillSearchIndexTest {
+
+	private static List<String> row(String id, String name) {
+		val parts = id.split("/");
+		val label = name + " (" + parts[parts.length - 2].toUpperCase() + " " + parts[parts.length - 1] + ")";
+		return Arrays.asList(id, label, String.join(" ", SearchText.tokenize(name)));
+	}
+
+	private static List<List<String>> sampleRows() {
+		return Arrays.asList(
+			row("BIL/us/congress/119/hr/1944", "10 Percent Credit Card Interest Rate Cap Act"),
+			row("BIL/us/congress/119/s/381", "10 Percent Credit Card Interest Rate Cap Act"),
+			row("BIL/us/congress/119/hr/123", "Protecting Americans from Credit Fraud Act"),
+			row("BIL/us/congress/119/hr/1123", "Rural Health Care Access Act"),
+			row("BIL/us/congress/119/s/123", "Veterans Health Care Improvement Act"),
+			row("BIL/us/congress/119/hr/77", "Credit Union Modernization and Card Security Act of 2025")
+		);
+	}
+
+	private static List<String> ids(List<List<String>> results) {
+		return results.stream().map(r -> r.get(0)).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testAllTermsMustMatch() {
+		val index = BillSearchIndex.build(sampleRows());
+
+		val results = ids(index.search("credit card", 30));
+
+		assertEquals(3, results.size());
+		assertTrue(results.containsAll(List.of("BIL/us/congress/119/hr/1944", "BIL/us/congress/119/s/381", "BIL/us/congress/119/hr/77")));
+
+		// The shorter, more focused title scores higher under BM25 length normalization
+		assertEquals("BIL/us/congress/119/hr/77", results.get(0));
+	}
+
+	@Test
+	public void testLastTermIsPrefix() {
+		val index = BillSearchIndex.build(sampleRows());
+
+		assertEquals(List.of("BIL/us/congress/119/hr/1123", "BIL/us/congress/119/s/123"), ids(index.search("health ca", 30)));
+		assertEquals(List.of("BIL/us/congress/119/s/123"), ids(index.search("veter", 30)));
+		assertEquals(0, index.search("health zebra", 30).size());
+	}
+
+	@Test
+	public void testExactIdBoost() {
+		val index = BillSearchIndex.build(sampleRows());
+
+		assertEquals("BIL/us/congress/119/hr/123", ids(index.search("H.R. 123", 30)).get(0));
+		assertEquals(List.of("BIL/us/congress/119/s/123"), ids(index.search("S. 123", 30)));
+
+		// A bare number matches every bill type with that number, but not longer numbers ending in it
+		assertEquals(List.of("BIL/us/congress/119/hr/123", "BIL/us/congress/119/s/123"), ids(index.search("123", 30)).stream().sorted().toList());
+	}
+
+	@Test
+	public void testJsonRoundTrip() throws Exception {
+		val mapper = PoliscoreUtil.getObjectMapper();
+		val index = BillSearchIndex.build(sampleRows());
+
+		val copy = mapper.readValue(mapper.writeValueAsString(index), BillSearchIndex.class);
+
+		for (String q : List.of("credit card", "health ca", "hr 123", "rate")) {
+			assertEquals(index.search(q, 30), copy.search(q, 30));
+		}
+	}
+
+	private static final String[] SYLLABLES = { "ba", "ce", "di", "fo", "gu", "ha", "je", "ki", "lo", "mu", "na", "pe", "qui", "ro", "su", "ta", "ve", "wi", "xo", "yu", "za", "tion", "ment", "ing" };
+
+	private static String[] vocabulary(Random random, int size) {
+		val words = new String[size];
+
+		for (int i = 0; i < size; ++i) {
+			val sb = new StringBuilder();
+			int syllables = 2 + random.nextInt(3);
+			for (int s = 0; s < syllables; ++s) sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+			words[i] = sb.toString();
+		}
+
+		return words;
+	}
+
+	private static List<List<String>> syntheticCorpus(int size) {
+		val random = new Random(42);
+		val words = vocabulary(random, 5000);
+		val types = new String[] { "hr", "s", "hres", "sres", "hjres" };
+		val rows = new ArrayList<List<String>>(size);
+
+		for (int i = 0; i < size; ++i) {
+			val name = new StringBuilder();
+			int length = 3 + random.nextInt(10);
+
+			// Skew towards common words, like real bill titles
+			for (int w = 0; w < length; ++w) {
+				name.append(words[(int) Math.min(words.length - 1, Math.abs(random.nextGaussian()) * 600)]).append(" ");
+			}
+
+			rows.add(row("BIL/us/congress/118/" + types[i % types.length] + "/" + (i / types.length + 1), name.toString().trim()));
+		}
+
+		rows.sort(Comparator.comparing(r -> r.get(1)));
+		return rows;
+	}
+
+	@Test
+	public void testTopKMatchesFullRanking() {
+		val index = BillSearchIndex.build(syntheticCorpus(20000));
+
+		for (String q : List.of("bace", "bace di", "ki", "hr 15", "5")) {
+			val full = index.topK(q, index.size());
+			val top = index.topK(q, 30);
+
+			assertEquals(Math.min(30, full.length), top.length);
+			assertTrue(Arrays.equals(Arrays.copyOf(full, top.length), top), "Top 30 differs from full ranking for " + q);
+		}
+	}
+
+	/**
+	 * The scan that Lambda.queryBills used to do on every request
+	 */
+	private static List<List<String>> legacyQuery(List<List<String>> bills, String text) {
+		SnowballStemmer stemmer = new englishStemmer();
+
+		List<String> queryTokens = Arrays.stream(text.toLowerCase()
+				.replaceAll("[^a-z0-9\\s]", " ")
+				.replaceAll("\\s+", " ")
+				.trim()
+				.split(" "))
+			.filter(token -> !SearchText.STOPWORDS.contains(token))
+			.map(token -> {
+				stemmer.setCurrent(token);
+				stemmer.stem();
+				return stemmer.getCurrent();
+			})
+			.toList();
+
+		String normalizedBillRef = SearchText.normalizeBillRef(text);
+
+		return new ArrayList<>(bills).stream()
+			.filter(bill -> {
+				boolean matchesTokens = queryTokens.stream().allMatch(bill.get(2)::contains);
+				boolean matchesTypeNumber = bill.get(0).replaceAll("[^a-z0-9]", "").endsWith(normalizedBillRef);
+				return matchesTokens || matchesTypeNumber;
+			})
+			.sorted(Comparator.comparingInt(bill -> LevenshteinDistance.getDefaultInstance().apply(bill.get(1).toLowerCase(), text.toLowerCase())))
+			.limit(30)
+			.map(bill -> List.of(bill.get(0), bill.get(1)))
+			.collect(Collectors.toList());
+	}
+
+	private static long percentile(long[] sorted, double p) {
+		return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+	}
+
+	/**
+	 * Compares query latency with the linear scan this index replaced. Excluded from the unit tests (see the core pom).
+	 */
+	@Test
+	@Tag("benchmark")
+	public void benchmarkAgainstLinearScan() {
+		val corpus = syntheticCorpus(100000);
+		val index = BillSearchIndex.build(corpus);
+
+		// Build a query mix out of real title words: single words, pairs, partial words and bill references
+		val random = new Random(7);
+		val queries = new ArrayList<String>();
+		for (int i = 0; i < 200; ++i) {
+			val words = corpus.get(random.nextInt(corpus.size())).get(2).split(" ");
+			switch (i % 4) {
+				case 0 -> queries.add(words[0]);
+				case 1 -> queries.add(words[0] + " " + words[words.length - 1]);
+				case 2 -> queries.add(words[0].substring(0, Math.max(2, words[0].length() - 2)));
+				default -> queries.add("hr " + (1 + random.nextInt(20000)));
+			}
+		}
+
+		val legacy = new long[queries.size()];
+		val indexed = new long[queries.size()];
+
+		// Warm up both paths before timing
+		for (int i = 0; i < 20; ++i) {
+			legacyQuery(corpus, queries.get(i));
+			index.search(queries.get(i), 30);
+		}
+
+		for (int i = 0; i < queries.size(); ++i) {
+			long start = System.nanoTime();
+			legacyQuery(corpus, queries.get(i));
+			legacy[i] = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			index.search(queries.get(i), 30);
+			indexed[i] = System.nanoTime() - start;
+		}
+
+		Arrays.sort(legacy);
+		Arrays.sort(indexed);
+
+		System.out.println(String.format("Bill search over %d bills: linear scan p50 %.2f ms, p99 %.2f ms | inverted index p50 %.3f ms, p99 %.3f ms",
+				corpus.size(),
+				percentile(legacy, 0.5) / 1e6, percentile(legacy, 0.99) / 1e6,
+				percentile(indexed, 0.5) / 1e6, percentile(indexed, 0.99) / 1e6));
+	}
+}
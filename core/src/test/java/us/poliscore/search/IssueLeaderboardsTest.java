@@ -0,0 +1,159 @@
+package us.poliscore.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+import us.poliscore.model.Persistable;
+import us.poliscore.search.IssueLeaderboards.Entry;
+import us.poliscore.search.IssueLeaderboards.Order;
+
+public class IssueLeaderboardsTest {
+
+	private static final String EDUCATION = "LIS/us/congress/119/Education";
+
+	private static List<Entry> legislators(int count) {
+		val random = new Random(count);
+		val entries = new ArrayList<Entry>();
+
+		for (int i = 0; i < count; ++i) {
+			entries.add(new Entry("LEG/us/congress/119/B" + String.format("%06d", random.nextInt(1000000)) + i, random.nextInt(201) - 100, random.nextLong(-5000000000L, 5000000000L)));
+		}
+
+		return entries;
+	}
+
+	private static IssueLeaderboards build(String name, List<Entry> entries) {
+		return new IssueLeaderboards(ByteBuffer.wrap(new IssueLeaderboards.Builder().add(name, entries).build()));
+	}
+
+	private static List<String> ranking(IssueLeaderboards.Board board, Order order, boolean ascending) {
+		val ids = new ArrayList<String>();
+		for (int entry : board.page(order, ascending, 0, board.getSize())) ids.add(board.id(entry));
+		return ids;
+	}
+
+	@Test
+	public void testRoundTrip() {
+		val entries = legislators(500);
+		val leaderboards = new IssueLeaderboards(ByteBuffer.wrap(new IssueLeaderboards.Builder()
+				.add(EDUCATION, entries)
+				.add("BIS/us/co/2025/Education", List.of(new Entry("BIL/us/co/2025/hb/1001", 40, 12)))
+				.add("BIS/us/co/2025/Housing", new ArrayList<Entry>())
+				.build()));
+
+		assertEquals(List.of(EDUCATION, "BIS/us/co/2025/Education", "BIS/us/co/2025/Housing"), new ArrayList<String>(leaderboards.names()));
+		assertNull(leaderboards.board("LIS/us/congress/119/Housing"));
+		assertEquals(0, leaderboards.board("BIS/us/co/2025/Housing").getSize());
+
+		val board = leaderboards.board(EDUCATION);
+		assertEquals(500, board.getSize());
+
+		for (val e : entries) {
+			int entry = board.entry(e.getId());
+			assertEquals(e.getId(), board.id(entry));
+			assertEquals(e.getRating(), board.rating(entry));
+			assertEquals(e.getImpact(), board.impact(entry));
+		}
+
+		assertEquals(-1, board.entry("LEG/us/congress/119/Z000000"));
+	}
+
+	@Test
+	public void testOrders() {
+		val entries = legislators(300);
+		entries.add(new Entry("LEG/us/congress/119/A000001", 7, -9));
+		entries.add(new Entry("LEG/us/congress/119/A000002", -7, 9));
+		val board = build(EDUCATION, entries).board(EDUCATION);
+
+		val byRating = new ArrayList<Entry>(entries);
+		byRating.sort(Comparator.comparingInt(Entry::getRating).thenComparing(Entry::getId));
+		assertEquals(byRating.stream().map(Entry::getId).toList(), ranking(board, Order.RATING, true));
+
+		val byImpact = new ArrayList<Entry>(entries);
+		byImpact.sort(Comparator.comparingLong(Entry::getImpact).thenComparing(Entry::getId));
+		assertEquals(byImpact.stream().map(Entry::getId).toList(), ranking(board, Order.IMPACT, true));
+
+		val byAbsImpact = new ArrayList<Entry>(entries);
+		byAbsImpact.sort(Comparator.comparingLong((Entry e) -> Math.abs(e.getImpact())).thenComparing(Entry::getId));
+		assertEquals(byAbsImpact.stream().map(Entry::getId).toList(), ranking(board, Order.IMPACT_ABS, true));
+
+		// Descending is ascending read back to front
+		val descending = ranking(board, Order.RATING_ABS, false);
+		val ascending = ranking(board, Order.RATING_ABS, true);
+		for (int i = 0; i < descending.size(); ++i) assertEquals(ascending.get(ascending.size() - 1 - i), descending.get(i));
+
+		for (int p = 1; p < descending.size(); ++p) {
+			assertTrue(Math.abs(board.rating(board.entry(descending.get(p - 1)))) >= Math.abs(board.rating(board.entry(descending.get(p)))));
+		}
+
+		assertEquals(Order.RATING, Order.forIndex(Persistable.OBJECT_BY_ISSUE_RATING_INDEX));
+		assertEquals(Order.IMPACT_ABS, Order.forIndex(IssueLeaderboards.OBJECT_BY_ISSUE_IMPACT_ABS_INDEX));
+		assertNull(Order.forIndex(Persistable.OBJECT_BY_RATING_INDEX));
+	}
+
+	@Test
+	public void testPaging() {
+		val board = build(EDUCATION, legislators(103)).board(EDUCATION);
+		val all = ranking(board, Order.IMPACT, false);
+
+		// Paging on from the last id of each page visits every entry once, in order
+		val paged = new ArrayList<String>();
+		int start = 0;
+		while (true) {
+			val page = board.page(Order.IMPACT, false, start, 25);
+			if (page.length == 0) break;
+
+			for (int entry : page) paged.add(board.id(entry));
+
+			val last = page[page.length - 1];
+			start = board.positionAfter(Order.IMPACT, false, board.id(last), board.impact(last));
+		}
+		assertEquals(all, paged);
+
+		assertEquals(3, board.page(Order.IMPACT, false, 100, 25).length);
+		assertEquals(0, board.page(Order.IMPACT, false, 500, 25).length);
+		assertEquals(0, board.positionAfter(Order.IMPACT, false, null, null));
+		assertThrows(IndexOutOfBoundsException.class, () -> board.at(Order.IMPACT, true, 103));
+	}
+
+	@Test
+	public void testPagingFromAnEntryNoLongerOnTheBoard() {
+		val entries = new ArrayList<Entry>();
+		for (int i = 0; i < 10; ++i) entries.add(new Entry("LEG/us/congress/119/A00000" + i, i * 10, 0));
+		val board = build(EDUCATION, entries).board(EDUCATION);
+
+		// Picks up after the value the missing entry was ranked by
+		int start = board.positionAfter(Order.RATING, true, "LEG/us/congress/119/Z000000", 35L);
+		assertEquals("LEG/us/congress/119/A000004", board.id(board.at(Order.RATING, true, start)));
+
+		start = board.positionAfter(Order.RATING, false, "LEG/us/congress/119/Z000000", 35L);
+		assertEquals("LEG/us/congress/119/A000003", board.id(board.at(Order.RATING, false, start)));
+
+		// Ties with the value were on the previous page
+		start = board.positionAfter(Order.RATING, false, "LEG/us/congress/119/Z000000", 40L);
+		assertEquals("LEG/us/congress/119/A000003", board.id(board.at(Order.RATING, false, start)));
+
+		assertEquals(0, board.positionAfter(Order.RATING, true, "LEG/us/congress/119/Z000000", null));
+	}
+
+	@Test
+	public void testDuplicateIds() {
+		assertThrows(IllegalArgumentException.class, () -> new IssueLeaderboards.Builder().add(EDUCATION, List.of(new Entry("a", 1, 1), new Entry("a", 2, 2))));
+	}
+
+	@Test
+	public void testRejectsOtherArtifacts() {
+		assertThrows(IllegalArgumentException.class, () -> new IssueLeaderboards(ByteBuffer.wrap(new StringTableIndex.Builder().build())));
+	}
+}
@@ -0,0 +1,119 @@
+package us.poliscore.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+import us.poliscore.PoliscoreUtil;
+
+public class LegislatorSearchIndexTest {
+
+	private static final String SANDERS = "LEG/us/congress/118/S000033";
+	private static final String WYDEN = "LEG/us/congress/119/W000779";
+	private static final String BEAN = "LEG/us/congress/119/B001314";
+	private static final String VELAZQUEZ = "LEG/us/congress/119/V000081";
+	private static final String OCASIO_CORTEZ = "LEG/us/congress/119/O000172";
+
+	private static LegislatorSearchIndex sampleIndex() {
+		return LegislatorSearchIndex.build(Arrays.asList(
+			Arrays.asList(SANDERS, "Bernard Sanders", "bernard sanders bernie barney", "VT"),
+			Arrays.asList(WYDEN, "Ron Wyden", "ron wyden ronald", "OR"),
+			Arrays.asList(BEAN, "Aaron Bean", "aaron bean ron ronnie erin", "FL FL4"),
+			Arrays.asList(VELAZQUEZ, "Nydia M. Velázquez", "nydia m. velázquez", "NY NY7"),
+			Arrays.asList(OCASIO_CORTEZ, "Alexandria Ocasio-Cortez", "alexandria ocasio-cortez alex sandra", "NY NY14")
+		));
+	}
+
+	private static List<String> ids(List<List<String>> results) {
+		return results.stream().map(r -> r.get(0)).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testExactAndPrefix() {
+		val index = sampleIndex();
+
+		assertEquals(List.of(SANDERS), ids(index.search("Bernie", 10)));
+		assertEquals(List.of(SANDERS), ids(index.search("bern sand", 10)));
+		assertEquals(List.of(OCASIO_CORTEZ), ids(index.search("ocasio-cortez", 10)));
+	}
+
+	@Test
+	public void testOfficialNameOutranksNickname() {
+		assertEquals(List.of(WYDEN, BEAN), ids(sampleIndex().search("ron", 10)));
+	}
+
+	@Test
+	public void testTypos() {
+		val index = sampleIndex();
+
+		assertEquals(SANDERS, ids(index.search("snaders", 10)).get(0));
+		assertEquals(List.of(SANDERS), ids(index.search("bernei sanders", 10)));
+		assertEquals(List.of(VELAZQUEZ), ids(index.search("velasquez", 10)));
+
+		// Short words must match exactly or as a prefix, otherwise everything would match
+		assertEquals(0, index.search("xy", 10).size());
+	}
+
+	@Test
+	public void testAccentsAndLocations() {
+		val index = sampleIndex();
+
+		assertEquals(List.of(VELAZQUEZ), ids(index.search("velazquez", 10)));
+		assertEquals(List.of(VELAZQUEZ, OCASIO_CORTEZ), ids(index.search("ny", 10)));
+		assertEquals(List.of(BEAN), ids(index.search("fl4", 10)));
+	}
+
+	@Test
+	public void testJsonRoundTrip() throws Exception {
+		val mapper = PoliscoreUtil.getObjectMapper();
+		val index = sampleIndex();
+
+		val copy = mapper.readValue(mapper.writeValueAsString(index), LegislatorSearchIndex.class);
+
+		for (String q : List.of("ron", "snaders", "ny", "velaz")) {
+			assertEquals(index.search(q, 10), copy.search(q, 10));
+		}
+	}
+
+	@Test
+	public void testSearchAtScale() {
+		val random = new Random(3);
+		val letters = "abcdefghijklmnopqrstuvwxyz";
+		val rows = new ArrayList<List<String>>();
+		val surnames = new ArrayList<String>();
+
+		// Roughly every member of Congress across a few sessions
+		for (int i = 0; i < 3000; ++i) {
+			val first = new StringBuilder();
+			val last = new StringBuilder();
+			for (int c = 0; c < 4 + random.nextInt(4); ++c) first.append(letters.charAt(random.nextInt(26)));
+			for (int c = 0; c < 5 + random.nextInt(6); ++c) last.append(letters.charAt(random.nextInt(26)));
+
+			surnames.add(last.toString());
+			rows.add(Arrays.asList(String.format("LEG/us/congress/119/X%06d", i), first + " " + last, first + " " + last + " " + first.substring(0, 3), "CA CA" + (i % 50)));
+		}
+
+		val index = LegislatorSearchIndex.build(rows);
+
+		for (int i = 0; i < 1000; ++i) {
+			int n = random.nextInt(surnames.size());
+			val surname = surnames.get(n);
+			val id = String.format("LEG/us/congress/119/X%06d", n);
+
+			// Prefixes find the legislator, and a transposed pair of letters still turns up close matches
+			val prefix = index.search(surname.substring(0, 4), 10).stream().map(r -> r.get(0)).toList();
+			assertTrue(prefix.contains(id), surname + " not found by prefix");
+
+			val typo = surname.substring(0, 2) + surname.charAt(3) + surname.charAt(2) + surname.substring(4);
+			assertTrue(index.search(typo, 10).size() > 0, "Nothing found for " + typo);
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package us.poliscore.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class MentionMatcherTest {
+
+	private static final List<String> NAMES = List.of(
+		"Lower Energy Costs Act",
+		"Energy Costs Act",
+		"Veterans Health Care Improvement Act",
+		"Health Care Act",
+		"Protect Our Kids (POK) Act",
+		"SAFE Banking Act of 2023",
+		"C.H.I.P.S. Act",
+		"Act",
+		"DETERRENT Act"
+	);
+
+	private static String id(int i) {
+		return (i % 2 == 0 ? "hr" : "s") + "-" + (100 + i);
+	}
+
+	private static MentionMatcher<String> matcher() {
+		val builder = new MentionMatcher.Builder<String>();
+
+		// Same order the linkers add them in: longest names first, each followed by its id
+		val sorted = NAMES.stream().sorted(Comparator.comparingInt(String::length).reversed()).collect(Collectors.toList());
+		for (String name : sorted) {
+			builder.add(name, name);
+			builder.add(id(NAMES.indexOf(name)), name);
+		}
+
+		return builder.build();
+	}
+
+	private static String link(String name) {
+		return "<a href=\"/bill/" + NAMES.indexOf(name) + "\">" + name + "</a>";
+	}
+
+	/**
+	 * The regex replacement the bill linkers used to do
+	 */
+	private static String legacyLink(String text) {
+		val sorted = NAMES.stream().sorted(Comparator.comparingInt(String::length).reversed()).collect(Collectors.toList());
+		val pattern = new StringBuilder("(?iu)\\b(");
+		Map<String, String> dictionary = new HashMap<>();
+
+		boolean first = true;
+		for (String name : sorted) {
+			val id = id(NAMES.indexOf(name));
+			dictionary.put(name.toLowerCase(), name);
+			dictionary.put(id.toLowerCase(), name);
+
+			if (!first) pattern.append("|");
+			pattern.append(Pattern.quote(name)).append("|").append(Pattern.quote(id));
+			first = false;
+		}
+		pattern.append(")\\b");
+
+		Matcher matcher = Pattern.compile(pattern.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE).matcher(text);
+		StringBuffer sb = new StringBuffer();
+		while (matcher.find()) {
+			val name = dictionary.get(matcher.group(1).toLowerCase());
+			matcher.appendReplacement(sb, Matcher.quoteReplacement(name == null ? matcher.group(1) : link(name)));
+		}
+		matcher.appendTail(sb);
+
+		return sb.toString();
+	}
+
+	@Test
+	public void testGolden() {
+		val matcher = matcher();
+
+		assertEquals("He voted for the " + link("Lower Energy Costs Act") + " and against the " + link("Energy Costs Act") + ".",
+				matcher.replace("He voted for the lower energy costs act and against the Energy Costs Act.", m -> link(m.getValue())));
+
+		// Ids, and mentions that run into other words aren't mentions
+		assertEquals("See " + link("Health Care Act") + " (" + link("SAFE Banking Act of 2023") + "), not Health Care Actually or xs-103.",
+				matcher.replace("See S-103 (s-105), not Health Care Actually or xs-103.", m -> link(m.getValue())));
+
+		// Names that start or end with punctuation
+		assertEquals(link("Protect Our Kids (POK) Act") + " and " + link("C.H.I.P.S. Act") + ".",
+				matcher.replace("Protect Our Kids (POK) Act and c.h.i.p.s. act.", m -> link(m.getValue())));
+
+		assertEquals("Nothing to see here", matcher.replace("Nothing to see here", m -> link(m.getValue())));
+	}
+
+	@Test
+	public void testMatchesLegacyRegex() {
+		val matcher = matcher();
+		val random = new Random(23);
+		val fillers = List.of("the", "a", "supported", "Act", "Actual", "energy", "costs", "health", "care", "(", ")", ".", ",", "of", "2023", "hr", "-", "_", "kids", "s");
+
+		for (int trial = 0; trial < 2000; ++trial) {
+			val words = new ArrayList<String>();
+			for (int w = 0; w < 5 + random.nextInt(20); ++w) {
+				int pick = random.nextInt(10);
+				if (pick < 3) {
+					val name = NAMES.get(random.nextInt(NAMES.size()));
+					words.add(random.nextBoolean() ? name : name.toUpperCase());
+				} else if (pick < 4) {
+					words.add(id(random.nextInt(NAMES.size())));
+				} else {
+					words.add(fillers.get(random.nextInt(fillers.size())));
+				}
+			}
+
+			// Sometimes glue words together so that boundaries get exercised
+			val text = new StringBuilder();
+			for (String word : words) text.append(word).append(random.nextInt(6) == 0 ? "" : " ");
+
+			assertEquals(legacyLink(text.toString()), matcher.replace(text.toString(), m -> link(m.getValue())), text.toString());
+		}
+	}
+
+	@Test
+	public void testLaterValuesReplaceEarlier() {
+		val matcher = new MentionMatcher.Builder<Integer>().add("Farm Act", 1).add("farm act", 2).add("", 3).build();
+
+		assertEquals(1, matcher.size());
+		assertEquals(List.of(new MentionMatcher.Mention<Integer>(4, 12, 2)), matcher.find("The FARM ACT"));
+	}
+
+	@Test
+	public void testLargeDictionary() {
+		val builder = new MentionMatcher.Builder<Integer>();
+		val random = new Random(1);
+		val names = new ArrayList<String>();
+
+		// Roughly a long-serving legislator's interactions
+		for (int i = 0; i < 4000; ++i) {
+			val name = new StringBuilder();
+			for (int w = 0; w < 2 + random.nextInt(8); ++w) name.append(NAMES.get(random.nextInt(NAMES.size())).split(" ")[0]).append(random.nextInt(50)).append(' ');
+			names.add(name.append("Act").toString());
+		}
+		names.sort(Comparator.comparingInt(String::length).reversed());
+		for (int i = 0; i < names.size(); ++i) builder.add(names.get(i), i);
+
+		val matcher = builder.build();
+		val text = new StringBuilder();
+		for (int i = 0; i < 200; ++i) text.append("In this paragraph they supported the ").append(names.get(random.nextInt(names.size()))).append(". ");
+
+		val mentions = matcher.find(text.toString());
+		assertTrue(mentions.size() >= 200);
+	}
+}
@@ -0,0 +1,101 @@
+package us.poliscore.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import us.poliscore.PoliscoreUtil;
+
+public class StringTableIndexTest {
+
+	private static List<List<String>> bills(String session, int count) {
+		val random = new Random(count);
+		val words = List.of("Lower", "Energy", "Costs", "Veterans", "Health", "Care", "Protect", "Our", "Kids", "Banking", "Tax", "Relief", "Économie", "住房", "Act");
+		val rows = new ArrayList<List<String>>();
+
+		for (int i = 0; i < count; ++i) {
+			val name = new StringBuilder();
+			for (int w = 0; w < 3 + random.nextInt(10); ++w) name.append(words.get(random.nextInt(words.size()))).append(' ');
+
+			rows.add(Arrays.asList("BIL/us/congress/" + session + "/hr/" + i, name + "Act (HR " + i + ")", name.toString().toLowerCase().trim()));
+		}
+
+		return rows;
+	}
+
+	@Test
+	public void testRoundTrip() {
+		val tables = new LinkedHashMap<String, List<List<String>>>();
+		tables.put("us/congress", bills("119", 500));
+		tables.get("us/congress").add(Arrays.asList("BIL/us/congress/119/hr/9999", "A".repeat(70000), ""));
+		tables.put("us/co", bills("2025", 20));
+		tables.put("empty", new ArrayList<List<String>>());
+
+		val index = new StringTableIndex(ByteBuffer.wrap(new StringTableIndex.Builder().addAll(tables).build()));
+
+		assertEquals(List.of("us/congress", "us/co", "empty"), new ArrayList<String>(index.names()));
+		for (val e : tables.entrySet()) {
+			assertEquals(e.getValue(), index.table(e.getKey()));
+		}
+
+		assertNull(index.table("us/ny"));
+		assertEquals(0, index.table("empty").size());
+		assertEquals("BIL/us/congress/119/hr/42", index.table("us/congress").get(42).get(0));
+	}
+
+	@Test
+	public void testNullsAndDuplicates() {
+		val rows = new ArrayList<List<String>>();
+		rows.add(Arrays.asList("LEG/us/congress/119/S000033", "Bernard Sanders", null));
+		rows.add(Arrays.asList("LEG/us/congress/119/S000033", "Bernard Sanders", ""));
+
+		val once = new StringTableIndex.Builder().add("legislators", rows.subList(0, 1)).build();
+		val twice = new StringTableIndex.Builder().add("legislators", rows).build();
+		val index = new StringTableIndex(ByteBuffer.wrap(twice));
+
+		assertEquals(rows, index.table("legislators"));
+
+		// The second row reuses both strings from the pool, so it only costs its row plus the empty string
+		assertEquals(once.length + 3 * 4 + 1, twice.length);
+	}
+
+	@Test
+	public void testRejectsOtherArtifacts() {
+		try {
+			new StringTableIndex(ByteBuffer.wrap(new byte[16]));
+			assertTrue(false);
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	@SneakyThrows
+	public void testMatchesJson() {
+		val tables = new LinkedHashMap<String, List<List<String>>>();
+		tables.put("us/congress", bills("119", 10000));
+
+		// The JSON index the binary one replaces, read back the way the Lambda falls back to it
+		val json = PoliscoreUtil.getObjectMapper().writeValueAsString(tables);
+		Map<String, List<List<String>>> parsed = PoliscoreUtil.getObjectMapper().readValue(json, new TypeReference<Map<String, List<List<String>>>>() {});
+
+		val index = new StringTableIndex(ByteBuffer.wrap(new StringTableIndex.Builder().addAll(tables).build()));
+
+		assertEquals(parsed.keySet(), index.names());
+		assertEquals(parsed.get("us/congress"), index.table("us/congress"));
+	}
+}
@@ -0,0 +1,121 @@
+package us.poliscore.search;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+import us.poliscore.search.TypeaheadIndex.Suggestion;
+import us.poliscore.search.TypeaheadIndex.SuggestionType;
+
+public class TypeaheadIndexTest {
+
+	private static TypeaheadIndex sampleIndex() {
+		val builder = new TypeaheadIndex.Builder()
+			.add(SuggestionType.ISSUE, "Healthcare", "Healthcare", 0, List.of("Healthcare"), List.of())
+			.add(SuggestionType.ISSUE, "Housing", "Housing", 0, List.of("Housing"), List.of())
+			.add(SuggestionType.LEGISLATOR, "LEG/us/congress/118/S000033", "Bernard Sanders", 900, List.of("Bernard Sanders", "bernie Sanders"), List.of())
+			.add(SuggestionType.LEGISLATOR, "LEG/us/congress/119/H001098", "Abraham J. Hamadeh", 10, List.of("Abraham J. Hamadeh", "abe Hamadeh"), List.of())
+			.add(SuggestionType.BILL, "BIL/us/congress/119/hr/1944", "10 Percent Credit Card Interest Rate Cap Act (HR 1944)", 50, List.of("10 Percent Credit Card Interest Rate Cap Act"), List.of("HR 1944", "HR1944"))
+			.add(SuggestionType.BILL, "BIL/us/congress/119/hr/77", "Credit Union Modernization Act (HR 77)", 500, List.of("Credit Union Modernization Act"), List.of("HR 77", "HR77"))
+			.add(SuggestionType.BILL, "BIL/us/congress/119/s/12", "Rural Health Care Access Act (S 12)", 5, List.of("Rural Health Care Access Act"), List.of("S 12", "S12"));
+
+		return new TypeaheadIndex(ByteBuffer.wrap(builder.build()));
+	}
+
+	private static List<String> ids(List<Suggestion> suggestions) {
+		return suggestions.stream().map(Suggestion::getId).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testPrefixesAcrossTypes() {
+		val index = sampleIndex();
+
+		// Issues lead, then by popularity within the rest
+		assertEquals(List.of("Healthcare", "BIL/us/congress/119/s/12"), ids(index.suggest("heal")));
+		assertEquals(List.of("BIL/us/congress/119/hr/77", "BIL/us/congress/119/hr/1944"), ids(index.suggest("credit")));
+		assertEquals(List.of("LEG/us/congress/118/S000033"), ids(index.suggest("Bernie S")));
+		assertEquals(List.of("LEG/us/congress/119/H001098"), ids(index.suggest("hamad")));
+	}
+
+	@Test
+	public void testWordsInsideTitles() {
+		val index = sampleIndex();
+
+		assertEquals(List.of("BIL/us/congress/119/hr/1944"), ids(index.suggest("interest rate")));
+		assertEquals(List.of("BIL/us/congress/119/s/12"), ids(index.suggest("care acc")));
+	}
+
+	@Test
+	public void testBillReferences() {
+		val index = sampleIndex();
+
+		assertEquals(List.of("BIL/us/congress/119/hr/1944"), ids(index.suggest("H.R. 1944")));
+		assertEquals(List.of("BIL/us/congress/119/hr/1944"), ids(index.suggest("hr194")));
+		assertEquals("BIL/us/congress/119/hr/77", ids(index.suggest("hr")).get(0));
+	}
+
+	@Test
+	public void testNoMatches() {
+		val index = sampleIndex();
+
+		assertEquals(0, index.suggest("zzz").size());
+		assertEquals(0, index.suggest("zebra crossing").size());
+		assertEquals(0, index.suggest("  ").size());
+	}
+
+	@Test
+	public void testHotPrefixesMatchRangeScan() {
+		val random = new Random(11);
+		val builder = new TypeaheadIndex.Builder();
+		val letters = "abcdefghij";
+
+		for (int i = 0; i < 5000; ++i) {
+			val title = new StringBuilder();
+			for (int w = 0; w < 2 + random.nextInt(5); ++w) {
+				for (int c = 0; c < 3 + random.nextInt(6); ++c) title.append(letters.charAt(random.nextInt(letters.length())));
+				title.append(' ');
+			}
+
+			builder.add(SuggestionType.BILL, "BIL/us/congress/119/hr/" + i, title.toString().trim(), random.nextInt(1000), List.of(title.toString()), List.of("hr " + i));
+		}
+
+		val index = new TypeaheadIndex(ByteBuffer.wrap(builder.build()));
+
+		int hot = 0;
+		for (String prefix : List.of("a", "b", "ab", "hr", "hr ", "hr 1", "hr 12", "abc", "jj", "jjj", "abcd")) {
+			val precomputed = index.hotSuggestions(prefix, 10);
+			if (precomputed == null) continue;
+
+			assertArrayEquals(index.rangeSuggestions(prefix, 10), precomputed, "Hot suggestions differ for '" + prefix + "'");
+			hot++;
+		}
+
+		assertTrue(hot >= 5);
+	}
+
+	@Test
+	public void testMemoryMapped() throws Exception {
+		val tmp = Files.createTempFile("typeahead", ".index");
+
+		try {
+			Files.write(tmp, new TypeaheadIndex.Builder()
+					.add(SuggestionType.ISSUE, "Energy", "Energy", 0, List.of("Energy"), List.of())
+					.build());
+
+			val index = TypeaheadIndex.map(tmp);
+			assertEquals(Arrays.asList(new Suggestion(SuggestionType.ISSUE, "Energy", "Energy")), index.suggest("ener"));
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package us.poliscore.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+import us.poliscore.search.TypeaheadIndex.Suggestion;
+import us.poliscore.search.TypeaheadIndex.SuggestionType;
+
+public class TypeaheadIndexesTest {
+
+	private static byte[] sample() {
+		val congress = new TypeaheadIndex.Builder()
+			.add(SuggestionType.ISSUE, "Healthcare", "Healthcare", 0, List.of("Healthcare"), List.of())
+			.add(SuggestionType.BILL, "BIL/us/congress/119/hr/77", "Credit Union Modernization Act (HR 77)", 500, List.of("Credit Union Modernization Act"), List.of("HR 77", "HR77"))
+			.add(SuggestionType.LEGISLATOR, "LEG/us/congress/119/S000033", "Bernard Sanders", 900, List.of("Bernard Sanders"), List.of());
+
+		val colorado = new TypeaheadIndex.Builder()
+			.add(SuggestionType.ISSUE, "Healthcare", "Healthcare", 0, List.of("Healthcare"), List.of())
+			.add(SuggestionType.BILL, "BIL/us/co/2025/hb/1001", "Credit Union Charter Act (HB 1001)", 50, List.of("Credit Union Charter Act"), List.of("HB 1001", "HB1001"));
+
+		return new TypeaheadIndexes.Builder()
+			.add("us/congress", congress.build())
+			.add("us/co", colorado.build())
+			.build();
+	}
+
+	private static List<String> ids(List<Suggestion> suggestions) {
+		return suggestions.stream().map(Suggestion::getId).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testNamespacesAreSeparate() {
+		val indexes = new TypeaheadIndexes(ByteBuffer.wrap(sample()));
+
+		assertEquals(Set.of("us/congress", "us/co"), indexes.namespaces());
+		assertEquals(List.of("BIL/us/congress/119/hr/77"), ids(indexes.get("us/congress").suggest("credit")));
+		assertEquals(List.of("BIL/us/co/2025/hb/1001"), ids(indexes.get("us/co").suggest("credit")));
+		assertEquals(List.of(), ids(indexes.get("us/co").suggest("sanders")));
+
+		// Issues are suggested everywhere
+		assertEquals(List.of("Healthcare"), ids(indexes.get("us/co").suggest("heal")));
+
+		assertNull(indexes.get("us/texas"));
+	}
+
+	@Test
+	public void testMemoryMapped() throws Exception {
+		val tmp = Files.createTempFile("typeahead", ".index");
+
+		try {
+			Files.write(tmp, sample());
+
+			val indexes = TypeaheadIndexes.map(tmp);
+			assertEquals(List.of("LEG/us/congress/119/S000033"), ids(indexes.get("us/congress").suggest("bern")));
+			assertEquals(List.of("BIL/us/co/2025/hb/1001"), ids(indexes.get("us/co").suggest("hb 1001")));
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package us.poliscore.service.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.val;
+import us.poliscore.model.Persistable;
+import us.poliscore.model.legislator.Legislator;
+
+public class BoundedMemoryObjectStoreTest {
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Blob implements Persistable {
+		private String id;
+		private String storageBucket;
+		private String payload;
+	}
+
+	private static Blob blob(String id, int size) {
+		return new Blob(id, "BLB", "x".repeat(size));
+	}
+
+	@Test
+	public void testWeightTracksSerializedLength() {
+		val store = new BoundedMemoryObjectStore(Long.MAX_VALUE);
+
+		store.put(blob("BLB/1", 1000));
+		long small = store.getUsedBytes();
+
+		store.put(blob("BLB/2", 100000));
+		long large = store.getUsedBytes() - small;
+
+		assertTrue(large > 50 * small, "Weight should scale with serialized size (" + small + " vs " + large + ")");
+
+		// Replacing an entry must not double count it
+		store.put(blob("BLB/2", 1000));
+		assertEquals(2 * small, store.getUsedBytes(), small / 10.0);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEvictedFirst() {
+		val store = new BoundedMemoryObjectStore(Long.MAX_VALUE);
+		store.put(blob("BLB/0", 10000));
+		long weight = store.getUsedBytes();
+		store.remove("BLB/0");
+
+		store.configure(weight * 3 + weight / 2, List.of());
+
+		store.put(blob("BLB/1", 10000));
+		store.put(blob("BLB/2", 10000));
+		store.put(blob("BLB/3", 10000));
+
+		// Touch 1 so that 2 becomes the eldest
+		store.get("BLB/1", Blob.class);
+
+		store.put(blob("BLB/4", 10000));
+
+		assertTrue(store.exists("BLB/1", Blob.class));
+		assertFalse(store.exists("BLB/2", Blob.class));
+		assertTrue(store.exists("BLB/3", Blob.class));
+		assertTrue(store.exists("BLB/4", Blob.class));
+		assertEquals(1, store.getEvictions());
+		assertTrue(store.getUsedBytes() <= store.getBudgetBytes());
+	}
+
+	@Test
+	public void testPinnedClassesAreNeverEvicted() {
+		val store = new BoundedMemoryObjectStore(1);
+		store.configure(1, Arrays.asList("Legislator"));
+
+		val leg = new Legislator();
+		leg.setId("LEG/us/congress/118/S000033");
+		store.put(leg);
+
+		store.put(blob("BLB/1", 10));
+
+		assertTrue(store.exists(leg.getId(), Legislator.class));
+		assertFalse(store.exists("BLB/1", Blob.class));
+		assertEquals(store.getUsedBytes(), store.getPinnedBytes());
+		assertTrue(store.getUsageSummary().contains("Legislator: 1"));
+	}
+
+	@Test
+	public void testOversizedObjectDoesNotFlushCache() {
+		val store = new BoundedMemoryObjectStore(Long.MAX_VALUE);
+		store.put(blob("BLB/1", 1000));
+		store.configure(store.getUsedBytes() * 4, List.of());
+
+		store.put(blob("BLB/huge", 100000));
+
+		assertTrue(store.exists("BLB/1", Blob.class));
+		assertFalse(store.exists("BLB/huge", Blob.class));
+		assertEquals(0, store.getEvictions());
+	}
+}
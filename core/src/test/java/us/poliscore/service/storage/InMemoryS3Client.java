@@ -0,0 +1,216 @@
+package us.poliscore.service.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.SneakyThrows;
+import lombok.val;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+/**
+ * A local, in-memory stand-in for the parts of S3 that the persistence layer uses. Keys live in a single bucket
+ * namespace. Individual requests can be made to fail once through {@link #setFailOnce(Predicate)} to exercise retries.
+ */
+public class InMemoryS3Client implements S3Client {
+
+	@Getter
+	private final ConcurrentSkipListMap<String, byte[]> objects = new ConcurrentSkipListMap<String, byte[]>();
+
+	private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<String, Map<Integer, byte[]>>();
+
+	private final Map<String, Boolean> failed = new ConcurrentHashMap<String, Boolean>();
+
+	// Request description (i.e. "part:3" or "range:bytes=0-1023") -> whether to fail the first time it's seen
+	@Setter
+	private Predicate<String> failOnce = r -> false;
+
+	@Getter
+	private final AtomicInteger requestCount = new AtomicInteger();
+
+	@Getter
+	private final AtomicInteger listRequestCount = new AtomicInteger();
+
+	@Override
+	public String serviceName() {
+		return "s3";
+	}
+
+	@Override
+	public void close() { }
+
+	private void maybeFail(String request) {
+		requestCount.incrementAndGet();
+
+		if (failOnce.test(request) && failed.putIfAbsent(request, Boolean.TRUE) == null) {
+			throw SdkClientException.create("Injected transient failure for " + request);
+		}
+	}
+
+	private static String eTag(byte[] data) {
+		return "\"" + Integer.toHexString(Arrays.hashCode(data)) + "\"";
+	}
+
+	@SneakyThrows
+	private static byte[] read(RequestBody body) {
+		try (InputStream in = body.contentStreamProvider().newStream()) {
+			val out = new ByteArrayOutputStream();
+			in.transferTo(out);
+			return out.toByteArray();
+		}
+	}
+
+	@Override
+	public PutObjectResponse putObject(PutObjectRequest req, RequestBody body) {
+		maybeFail("put:" + req.key());
+		objects.put(req.key(), read(body));
+		return PutObjectResponse.builder().build();
+	}
+
+	@Override
+	public <ReturnT> ReturnT getObject(GetObjectRequest req, ResponseTransformer<GetObjectResponse, ReturnT> transformer) {
+		maybeFail("range:" + req.range());
+
+		byte[] data = objects.get(req.key());
+		if (data == null) throw NoSuchKeyException.builder().statusCode(404).message("No such key " + req.key()).build();
+
+		if (req.ifMatch() != null && !req.ifMatch().equals(eTag(data))) throw (S3Exception) S3Exception.builder().statusCode(412).message("Precondition failed").build();
+
+		val resp = GetObjectResponse.builder().eTag(eTag(data));
+		byte[] slice = data;
+
+		if (req.range() != null) {
+			val bounds = req.range().replace("bytes=", "").split("-");
+			long start = Long.parseLong(bounds[0]);
+			long end = Math.min(data.length - 1, Long.parseLong(bounds[1]));
+
+			if (start >= data.length) throw (S3Exception) S3Exception.builder().statusCode(416).message("Requested range not satisfiable").build();
+
+			slice = Arrays.copyOfRange(data, (int) start, (int) end + 1);
+			resp.contentRange("bytes " + start + "-" + end + "/" + data.length);
+		}
+
+		resp.contentLength((long) slice.length);
+
+		try {
+			return transformer.transform(resp.build(), AbortableInputStream.create(new ByteArrayInputStream(slice)));
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest req) {
+		val uploadId = UUID.randomUUID().toString();
+		uploads.put(uploadId, new ConcurrentHashMap<Integer, byte[]>());
+		return CreateMultipartUploadResponse.builder().uploadId(uploadId).bucket(req.bucket()).key(req.key()).build();
+	}
+
+	@Override
+	public UploadPartResponse uploadPart(UploadPartRequest req, RequestBody body) {
+		maybeFail("part:" + req.partNumber());
+		uploads.get(req.uploadId()).put(req.partNumber(), read(body));
+		return UploadPartResponse.builder().eTag("etag-" + req.partNumber()).build();
+	}
+
+	@Override
+	@SneakyThrows
+	public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest req) {
+		val parts = uploads.remove(req.uploadId());
+		val out = new ByteArrayOutputStream();
+
+		int expected = 1;
+		for (CompletedPart part : req.multipartUpload().parts()) {
+			if (part.partNumber() != expected++) throw new IllegalStateException("Parts must be completed in order");
+			out.write(parts.get(part.partNumber()));
+		}
+
+		objects.put(req.key(), out.toByteArray());
+		return CompleteMultipartUploadResponse.builder().key(req.key()).build();
+	}
+
+	@Override
+	public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest req) {
+		uploads.remove(req.uploadId());
+		return AbortMultipartUploadResponse.builder().build();
+	}
+
+	@Override
+	public ListObjectsV2Response listObjectsV2(ListObjectsV2Request req) {
+		listRequestCount.incrementAndGet();
+
+		String prefix = req.prefix() == null ? "" : req.prefix();
+		int maxKeys = req.maxKeys() == null ? 1000 : req.maxKeys();
+		String after = req.continuationToken() != null ? req.continuationToken() : req.startAfter();
+
+		val tail = after == null ? objects.tailMap(prefix, true) : objects.tailMap(after, false);
+		val contents = new ArrayList<S3Object>();
+		val prefixes = new TreeMap<String, CommonPrefix>();
+		String last = null;
+		boolean truncated = false;
+
+		for (String key : tail.keySet()) {
+			if (!key.startsWith(prefix)) break;
+
+			if (last != null && key.compareTo(last) <= 0) continue;
+
+			if (contents.size() + prefixes.size() >= maxKeys) { truncated = true; break; }
+
+			last = key;
+
+			if (req.delimiter() != null) {
+				int idx = key.indexOf(req.delimiter(), prefix.length());
+				if (idx != -1) {
+					// Roll every key under this common prefix up into a single entry
+					val common = key.substring(0, idx + req.delimiter().length());
+					prefixes.put(common, CommonPrefix.builder().prefix(common).build());
+					last = common + Character.MAX_VALUE;
+					continue;
+				}
+			}
+
+			contents.add(S3Object.builder().key(key).size((long) objects.get(key).length).build());
+		}
+
+		return ListObjectsV2Response.builder()
+				.contents(contents)
+				.commonPrefixes(prefixes.values())
+				.isTruncated(truncated)
+				.nextContinuationToken(truncated ? last : null)
+				.build();
+	}
+}
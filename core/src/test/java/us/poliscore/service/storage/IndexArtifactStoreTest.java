@@ -0,0 +1,159 @@
+package us.poliscore.service.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class IndexArtifactStoreTest {
+
+	private static final String BUCKET = "poliscore-test";
+
+	private static final String DEPLOYMENT = "poliscore-test-blue";
+
+	private static final int PART_SIZE = 1024;
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	private final InMemoryS3Client s3 = new InMemoryS3Client();
+
+	private final IndexArtifactStore store = new IndexArtifactStore(new S3TransferManager(s3, 2 * PART_SIZE, PART_SIZE, 3, executor), BUCKET, DEPLOYMENT);
+
+	@AfterEach
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	// Large enough to take the multipart path, and stamped with the version throughout so that a mix is detectable
+	private static byte[] artifact(String name, int version) {
+		return (name + "@" + version + ";").repeat(300).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private void publish(int version) {
+		store.publish(String.valueOf(version), Map.of(
+				"bills.table", artifact("bills.table", version),
+				"typeahead.index", artifact("typeahead.index", version)));
+	}
+
+	@Test
+	public void testPublish() {
+		assertTrue(store.getCurrentVersion().isEmpty());
+
+		publish(1);
+		publish(2);
+
+		assertEquals("2", store.getCurrentVersion().orElseThrow());
+		assertArrayEquals(artifact("bills.table", 2), store.get("2", "bills.table").orElseThrow());
+
+		// Earlier versions stay readable for anyone still loading them
+		assertArrayEquals(artifact("typeahead.index", 1), store.get("1", "typeahead.index").orElseThrow());
+		assertTrue(store.get("2", "bills.records").isEmpty());
+
+		// Each deployment has its own pointer
+		val green = new IndexArtifactStore(new S3TransferManager(s3, 2 * PART_SIZE, PART_SIZE, 3, executor), BUCKET, "poliscore-test-green");
+		assertTrue(green.getCurrentVersion().isEmpty());
+	}
+
+	@Test
+	public void testPointerMovesLast() {
+		val uploaded = Collections.synchronizedList(new ArrayList<String>());
+		s3.setFailOnce(r -> {
+			uploaded.add(r);
+			return false;
+		});
+
+		publish(1);
+
+		val pointer = "webapp-indexes/" + DEPLOYMENT + "/current";
+		assertTrue(s3.getObjects().containsKey(pointer));
+		assertTrue(s3.getObjects().containsKey("webapp-indexes/" + DEPLOYMENT + "/1/bills.table"));
+		assertTrue(uploaded.get(uploaded.size() - 1).contains(pointer), "The pointer was written before " + uploaded.get(uploaded.size() - 1));
+	}
+
+	@Test
+	public void testRejectsUnknownArtifacts() {
+		assertThrows(IllegalArgumentException.class, () -> store.publish("1", Map.of("allbills.dump", new byte[1])));
+		assertThrows(IllegalArgumentException.class, () -> store.publish("1/2", Map.of()));
+		assertFalse(store.getCurrentVersion().isPresent());
+	}
+
+	@Test
+	public void testHotSwapUnderLoad() throws Exception {
+		publish(1);
+
+		val loads = new AtomicInteger();
+		val snapshot = new VersionedSnapshot<String, List<String>>(() -> store.getCurrentVersion().orElse(null), version -> {
+			loads.incrementAndGet();
+			val tables = new String(store.get(version, "bills.table").orElseThrow(), StandardCharsets.UTF_8);
+			val typeahead = new String(store.get(version, "typeahead.index").orElseThrow(), StandardCharsets.UTF_8);
+			return Map.of("indexes", List.of(version, tables, typeahead));
+		}, Duration.ofMillis(1));
+		snapshot.load();
+
+		val latest = 20;
+		val done = new AtomicBoolean();
+		val failure = new AtomicReference<Throwable>();
+		val reads = new AtomicInteger();
+		val readers = new ArrayList<Thread>();
+
+		for (int r = 0; r < 4; ++r) {
+			val reader = new Thread(() -> {
+				try {
+					int seen = 0;
+
+					while (!done.get() || seen < latest) {
+						val indexes = snapshot.get("indexes");
+						int version = Integer.parseInt(indexes.get(0));
+
+						// Every artifact comes from the version the set claims, and no reader ever goes back a version
+						assertEquals(new String(artifact("bills.table", version), StandardCharsets.UTF_8), indexes.get(1));
+						assertEquals(new String(artifact("typeahead.index", version), StandardCharsets.UTF_8), indexes.get(2));
+						assertTrue(version >= seen, "Went back from " + seen + " to " + version);
+
+						seen = version;
+						reads.incrementAndGet();
+						Thread.onSpinWait();
+					}
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				}
+			});
+
+			reader.start();
+			readers.add(reader);
+		}
+
+		for (int v = 2; v <= latest; ++v) {
+			publish(v);
+			Thread.sleep(5);
+		}
+		done.set(true);
+
+		for (val reader : readers) reader.join(Duration.ofSeconds(30).toMillis());
+
+		if (failure.get() != null) throw new AssertionError(failure.get());
+		for (val reader : readers) assertFalse(reader.isAlive(), "A reader never saw version " + latest);
+
+		assertEquals(String.valueOf(latest), snapshot.getVersion());
+		assertTrue(loads.get() <= latest, "Loaded " + loads.get() + " times for " + latest + " versions");
+		assertTrue(reads.get() > latest);
+	}
+}
@@ -0,0 +1,109 @@
+package us.poliscore.service.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class S3ParallelListerTest {
+
+	private static final String BUCKET = "poliscore-test";
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+	@AfterEach
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testPartitionedListingMatchesSequentialOrder() {
+		val s3 = new InMemoryS3Client();
+
+		for (int i = 1; i <= 6000; ++i) s3.getObjects().put("BIL/us/congress/118/hr/" + i + ".json", new byte[0]);
+		for (int i = 1; i <= 2500; ++i) s3.getObjects().put("BIL/us/congress/118/s/" + i + ".json", new byte[0]);
+		for (int i = 1; i <= 40; ++i) s3.getObjects().put("BIL/us/congress/118/hjres/" + i + ".json", new byte[0]);
+
+		// Keys which don't follow any known structure must still be listed
+		s3.getObjects().put("BIL/us/congress/118/_odd.json", new byte[0]);
+		s3.getObjects().put("BIL/us/congress/118/~odd.json", new byte[0]);
+		s3.getObjects().put("BIL/us/congress/118/hr/~odd.json", new byte[0]);
+
+		// Neighbouring sessions must not leak into the listing
+		s3.getObjects().put("BIL/us/congress/117/hr/1.json", new byte[0]);
+		s3.getObjects().put("BIL/us/congress/119/hr/1.json", new byte[0]);
+
+		val expected = new ArrayList<String>(s3.getObjects().subMap("BIL/us/congress/118/", "BIL/us/congress/118/" + Character.MAX_VALUE).keySet());
+
+		val lister = new S3ParallelLister(s3, executor);
+
+		assertEquals(expected, lister.listKeys(BUCKET, "BIL/us/congress/118"));
+		assertEquals(expected, lister.listKeys(BUCKET, "BIL/us/congress/118/"));
+	}
+
+	@Test
+	public void testLegislatorCodes() {
+		val s3 = new InMemoryS3Client();
+
+		for (char c = 'A'; c <= 'Z'; ++c) {
+			for (int i = 0; i < 100; ++i) {
+				s3.getObjects().put(String.format("LEG/us/congress/118/%c%06d.json", c, i), new byte[0]);
+			}
+		}
+
+		val expected = new ArrayList<String>(s3.getObjects().keySet());
+
+		assertEquals(expected, new S3ParallelLister(s3, executor).listKeys(BUCKET, "LEG/us/congress/118"));
+	}
+
+	@Test
+	public void testSlightlyOverOnePage() {
+		val s3 = new InMemoryS3Client();
+
+		for (char c = 'A'; c <= 'Z'; ++c) {
+			for (int i = 0; i < 43; ++i) {
+				s3.getObjects().put(String.format("LEG/us/co/2025/%c%06d.json", c, i), new byte[0]);
+			}
+		}
+
+		val keys = new S3ParallelLister(s3, executor).listKeys(BUCKET, "LEG/us/co/2025");
+
+		assertEquals(new ArrayList<String>(s3.getObjects().keySet()), keys);
+		assertEquals(2, s3.getListRequestCount().get());
+	}
+
+	@Test
+	public void testRangesAreDerivedFromTheKeys() {
+		val s3 = new InMemoryS3Client();
+
+		// Two pages of numbered bills: the first ends in the 2000s, so the rest is split on the leading digit
+		for (int i = 1; i <= 2000; ++i) s3.getObjects().put("BIL/us/co/2025/hb/" + i + ".json", new byte[0]);
+
+		val splits = S3ParallelLister.splitPoints("BIL/us/co/2025", new ArrayList<String>(s3.getObjects().keySet()).subList(0, S3ParallelLister.PAGE_SIZE), null);
+		assertTrue(splits.stream().allMatch(p -> p.matches("BIL/us/co/2025/hb/[0-9]")), splits.toString());
+		assertFalse(splits.isEmpty());
+
+		assertEquals(new ArrayList<String>(s3.getObjects().keySet()), new S3ParallelLister(s3, executor).listKeys(BUCKET, "BIL/us/co/2025"));
+		assertTrue(s3.getListRequestCount().get() <= 2 + splits.size() + 1, s3.getListRequestCount().get() + " requests");
+	}
+
+	@Test
+	public void testSmallPrefixUsesSingleRequest() {
+		val s3 = new InMemoryS3Client();
+
+		for (int i = 1; i <= 10; ++i) s3.getObjects().put("LEG/us/co/2025/L" + i + ".json", new byte[0]);
+
+		val keys = new S3ParallelLister(s3, executor).listKeys(BUCKET, "LEG/us/co/2025");
+
+		assertEquals(10, keys.size());
+		assertEquals(1, s3.getListRequestCount().get());
+	}
+}
@@ -0,0 +1,103 @@
+package us.poliscore.service.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class S3TransferManagerTest {
+
+	private static final String BUCKET = "poliscore-test";
+
+	private static final int PART_SIZE = 1024;
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	@AfterEach
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private byte[] randomBytes(int length) {
+		val data = new byte[length];
+		new Random(length).nextBytes(data);
+		return data;
+	}
+
+	@Test
+	public void testRoundTripAcrossPartBoundaries() {
+		val s3 = new InMemoryS3Client();
+		val transfer = new S3TransferManager(s3, 2 * PART_SIZE, PART_SIZE, 3, executor);
+
+		int[] sizes = new int[] { 0, 1, PART_SIZE - 1, PART_SIZE, PART_SIZE + 1, 2 * PART_SIZE, 3 * PART_SIZE, 3 * PART_SIZE + 1, 10 * PART_SIZE - 7 };
+
+		for (int size : sizes) {
+			val key = "BIL/us/congress/118/hr/" + size + ".json";
+			val data = randomBytes(size);
+
+			transfer.upload(BUCKET, key, data);
+
+			assertArrayEquals(data, s3.getObjects().get(key), "Uploaded bytes differ for size " + size);
+			assertArrayEquals(data, transfer.download(BUCKET, key).orElseThrow(), "Downloaded bytes differ for size " + size);
+		}
+	}
+
+	@Test
+	public void testMissingKey() {
+		val transfer = new S3TransferManager(new InMemoryS3Client(), 2 * PART_SIZE, PART_SIZE, 3, executor);
+
+		assertTrue(transfer.download(BUCKET, "BIL/us/congress/118/hr/missing.json").isEmpty());
+	}
+
+	@Test
+	public void testOverwriteDuringDownloadStartsOver() {
+		val s3 = new InMemoryS3Client();
+		val transfer = new S3TransferManager(s3, 2 * PART_SIZE, PART_SIZE, 3, executor);
+		val key = "BIL/us/congress/118/hr/2.json";
+		val original = randomBytes(6 * PART_SIZE);
+		val replacement = randomBytes(6 * PART_SIZE + 1);
+
+		transfer.upload(BUCKET, key, original);
+
+		// Overwrite the object just as the second range is requested
+		val overwritten = new AtomicBoolean();
+		s3.setFailOnce(r -> {
+			if (r.equals("range:bytes=" + PART_SIZE + "-" + (2 * PART_SIZE - 1)) && overwritten.compareAndSet(false, true)) {
+				s3.getObjects().put(key, replacement);
+			}
+			return false;
+		});
+
+		assertArrayEquals(replacement, transfer.download(BUCKET, key).orElseThrow());
+		assertTrue(overwritten.get());
+	}
+
+	@Test
+	public void testFailedPartsAreRetriedIndividually() {
+		val s3 = new InMemoryS3Client();
+		val transfer = new S3TransferManager(s3, 2 * PART_SIZE, PART_SIZE, 3, executor);
+		val key = "BTX/us/congress/118/hr/1.json";
+		val data = randomBytes(5 * PART_SIZE + 10);
+
+		// Fail part 3 of the upload, and the second range of the download, exactly once
+		s3.setFailOnce(r -> r.equals("part:3") || r.equals("range:bytes=" + PART_SIZE + "-" + (2 * PART_SIZE - 1)));
+
+		transfer.upload(BUCKET, key, data);
+		assertArrayEquals(data, s3.getObjects().get(key));
+
+		s3.getRequestCount().set(0);
+		assertArrayEquals(data, transfer.download(BUCKET, key).orElseThrow());
+
+		// 6 ranges plus the single retried one
+		assertEquals(7, s3.getRequestCount().get());
+	}
+}
@@ -0,0 +1,78 @@
+package us.poliscore.service.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class SingleFlightTest {
+
+	@Test
+	public void testConcurrentLoadsAreCoalesced() throws Exception {
+		val callers = 8;
+		val key = "BIL/us/congress/118/hr/1";
+		val flight = new SingleFlight<String, String>();
+		val loads = new AtomicInteger();
+		val arrived = new CountDownLatch(callers);
+		ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (int i = 0; i < callers; ++i) {
+				results.add(executor.submit(() -> {
+					arrived.countDown();
+
+					return flight.load(key, () -> {
+						loads.incrementAndGet();
+
+						// Hold the load until every other caller has joined it
+						try {
+							assertTrue(arrived.await(5, TimeUnit.SECONDS));
+
+							val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+							while (flight.waitingCount(key) < callers - 1) {
+								if (System.nanoTime() > deadline) throw new IllegalStateException("Only " + flight.waitingCount(key) + " callers joined the load");
+								Thread.onSpinWait();
+							}
+						} catch (InterruptedException e) {
+							throw new RuntimeException(e);
+						}
+
+						return "loaded";
+					});
+				}));
+			}
+
+			for (Future<String> result : results) {
+				assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+			}
+
+			assertEquals(1, loads.get());
+			assertEquals(0, flight.inFlightCount());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSequentialLoadsAreNotCached() {
+		val flight = new SingleFlight<String, Integer>();
+		val loads = new AtomicInteger();
+
+		flight.load("a", loads::incrementAndGet);
+		flight.load("a", loads::incrementAndGet);
+
+		assertEquals(2, loads.get());
+	}
+}
@@ -0,0 +1,142 @@
+package us.poliscore.service.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class TtlCacheTest {
+
+	@Test
+	public void testEntriesExpire() {
+		val now = new AtomicLong();
+		val cache = new TtlCache<String, String>(10, now::get);
+		val loads = new AtomicInteger();
+
+		assertEquals("1", cache.get("bills|hr", Duration.ofMinutes(10), () -> String.valueOf(loads.incrementAndGet())));
+		assertEquals("1", cache.get("bills|hr", Duration.ofMinutes(10), () -> String.valueOf(loads.incrementAndGet())));
+
+		now.addAndGet(Duration.ofMinutes(10).toNanos());
+
+		assertEquals("2", cache.get("bills|hr", Duration.ofMinutes(10), () -> String.valueOf(loads.incrementAndGet())));
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		assertEquals(1, cache.getExpirations());
+		assertEquals(1.0 / 3, cache.getHitRatio(), 0.0001);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() {
+		val cache = new TtlCache<String, Integer>(2);
+		val ttl = Duration.ofHours(1);
+
+		cache.put("a", 1, ttl);
+		cache.put("b", 2, ttl);
+		cache.getIfPresent("a");
+		cache.put("c", 3, ttl);
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getIfPresent("a"));
+		assertNull(cache.getIfPresent("b"));
+		assertEquals(1, cache.getEvictions());
+	}
+
+	@Test
+	public void testBoundedByWeight() {
+		val cache = new TtlCache<String, String>(10, String::length);
+		val ttl = Duration.ofHours(1);
+
+		cache.put("a", "aaaa", ttl);
+		cache.put("b", "bbbb", ttl);
+		cache.getIfPresent("a");
+		cache.put("c", "cccccc", ttl);
+
+		// b was dropped to fit c, even though the cache would hold far more values by count
+		assertEquals(2, cache.size());
+		assertEquals(10, cache.getTotalWeight());
+		assertEquals("aaaa", cache.getIfPresent("a"));
+		assertNull(cache.getIfPresent("b"));
+		assertEquals(1, cache.getEvictions());
+
+		// A value heavier than the whole budget is left out, rather than flushing everything else
+		cache.put("d", "ddddddddddddddd", ttl);
+		assertNull(cache.getIfPresent("d"));
+		assertEquals(2, cache.size());
+
+		// Replacing a value swaps its weight
+		cache.put("c", "cc", ttl);
+		assertEquals(6, cache.getTotalWeight());
+
+		cache.invalidate("c");
+		assertEquals(4, cache.getTotalWeight());
+	}
+
+	@Test
+	public void testInvalidate() {
+		val cache = new TtlCache<String, Boolean>(10);
+
+		cache.put("BIL/us/congress/119/hr/404", Boolean.TRUE, Duration.ofMinutes(10));
+		cache.invalidate("BIL/us/congress/119/hr/404");
+		cache.invalidate("BIL/us/congress/119/hr/405");
+
+		assertNull(cache.getIfPresent("BIL/us/congress/119/hr/404"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testNullsAreNotCached() {
+		val cache = new TtlCache<String, String>(10);
+		val loads = new AtomicInteger();
+
+		cache.get("a", Duration.ofHours(1), () -> { loads.incrementAndGet(); return null; });
+		cache.get("a", Duration.ofHours(1), () -> { loads.incrementAndGet(); return null; });
+
+		assertEquals(2, loads.get());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testConcurrentMissesAreCoalesced() throws Exception {
+		val cache = new TtlCache<String, String>(10);
+		val loads = new AtomicInteger();
+		val release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (int i = 0; i < 16; ++i) {
+				results.add(executor.submit(() -> cache.get("legislators|LEG/us/congress/119|ObjectsByDate|true||25|", Duration.ofHours(1), () -> {
+					loads.incrementAndGet();
+					try { release.await(5, TimeUnit.SECONDS); } catch (InterruptedException e) { throw new RuntimeException(e); }
+					return "page";
+				})));
+			}
+
+			// Let the rest of the burst pile up behind the first load
+			while (cache.getMisses() < 16) Thread.sleep(1);
+			release.countDown();
+
+			for (Future<String> result : results) {
+				assertEquals("page", result.get(5, TimeUnit.SECONDS));
+			}
+
+			assertEquals(1, loads.get());
+			assertEquals("page", cache.get("legislators|LEG/us/congress/119|ObjectsByDate|true||25|", Duration.ofHours(1), () -> "reloaded"));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package us.poliscore.service.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class VersionedSnapshotTest {
+
+	private static final Duration CHECK = Duration.ofMinutes(5);
+
+	private final AtomicLong now = new AtomicLong();
+
+	private final AtomicReference<String> version = new AtomicReference<String>("1");
+
+	private final AtomicInteger versionChecks = new AtomicInteger();
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	// Background work is queued here and run when the test says so
+	private final List<Runnable> background = new ArrayList<Runnable>();
+
+	private final VersionedSnapshot<String, String> snapshot = new VersionedSnapshot<String, String>(() -> {
+		versionChecks.incrementAndGet();
+		return version.get();
+	}, () -> Map.of("SIT/us/congress/119", "v" + version.get() + " load " + loads.incrementAndGet()), CHECK, background::add, now::get);
+
+	private void runBackground() {
+		val queued = new ArrayList<Runnable>(background);
+		background.clear();
+		queued.forEach(Runnable::run);
+	}
+
+	@Test
+	public void testServedFromMemory() {
+		snapshot.load();
+		snapshot.load();
+
+		for (int i = 0; i < 1000; ++i) assertEquals("v1 load 1", snapshot.get("SIT/us/congress/119"));
+
+		assertNull(snapshot.get("SIT/us/co/2173"));
+		assertEquals(1, loads.get());
+		assertEquals(1, versionChecks.get());
+		assertEquals("1", snapshot.getVersion());
+		assertTrue(background.isEmpty());
+	}
+
+	@Test
+	public void testLoadsOnFirstUse() {
+		assertNull(snapshot.getVersion());
+		assertEquals("v1 load 1", snapshot.get("SIT/us/congress/119"));
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	public void testReloadsInBackgroundWhenVersionChanges() {
+		snapshot.load();
+
+		// Unchanged, the check costs a version read and nothing else
+		now.addAndGet(CHECK.toNanos());
+		assertEquals("v1 load 1", snapshot.get("SIT/us/congress/119"));
+		assertEquals(1, background.size());
+		runBackground();
+		assertEquals(2, versionChecks.get());
+		assertEquals(1, loads.get());
+
+		// Not checked again until another interval has passed
+		version.set("2");
+		assertEquals("v1 load 1", snapshot.get("SIT/us/congress/119"));
+		assertTrue(background.isEmpty());
+
+		// A new build is served once the background reload finishes, and not before
+		now.addAndGet(CHECK.toNanos());
+		assertEquals("v1 load 1", snapshot.get("SIT/us/congress/119"));
+		assertEquals("v1 load 1", snapshot.get("SIT/us/congress/119"));
+		assertEquals(1, background.size());
+
+		runBackground();
+		assertEquals("v2 load 2", snapshot.get("SIT/us/congress/119"));
+		assertEquals("2", snapshot.getVersion());
+	}
+
+	@Test
+	public void testFailedRefreshKeepsServing() {
+		val fail = new AtomicReference<Boolean>(false);
+		val flaky = new VersionedSnapshot<String, String>(() -> {
+			if (fail.get()) throw new IllegalStateException("DynamoDB is down");
+			return version.get();
+		}, () -> Map.of("a", "v" + version.get()), CHECK, background::add, now::get);
+
+		flaky.load();
+
+		version.set("2");
+		fail.set(true);
+		now.addAndGet(CHECK.toNanos());
+		assertEquals("v1", flaky.get("a"));
+		runBackground();
+		assertEquals("v1", flaky.get("a"));
+
+		// The next check tries again
+		fail.set(false);
+		now.addAndGet(CHECK.toNanos());
+		flaky.get("a");
+		runBackground();
+		assertEquals("v2", flaky.get("a"));
+	}
+}
@@ -3,11 +3,7 @@ package us.poliscore;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -19,9 +15,19 @@ import us.poliscore.model.bill.Bill;
 import us.poliscore.model.bill.BillInterpretation;
 import us.poliscore.model.session.SessionInterpretation;
 import us.poliscore.model.session.SessionInterpretation.PartyInterpretation;
+import us.poliscore.search.MentionMatcher;
 import us.poliscore.service.storage.LocalCachedS3Service;
 
 public class PartyBillLinker {
+	
+	// Every party in a session is linked against the same set of bills, so the matcher is built once and reused until the
+	// session (or its bills) change. Only the session's key is kept, so a finished dataset can still be collected.
+	private static String cachedSessionKey;
+	
+	private static int cachedBillCount;
+	
+	private static MentionMatcher<Bill> cachedMatcher;
+	
 	public static void linkPartyBillsSinglePass(PartyInterpretation interp, SessionInterpretation sessionInterp, PoliscoreDataset dataset, LocalCachedS3Service s3) {
 	    try {
 	        String exp = interp.getLongExplain();
@@ -29,85 +35,65 @@ public class PartyBillLinker {
 	            return;  // No text to process
 	        }
 
-	        // 1. Retrieve bills
-	        List<Bill> bills = new ArrayList<Bill>(dataset.query(Bill.class));
-	        
-	        // 2. (Optional) Attach BillInterpretation to each Bill
-	        for (Bill bill : bills) {
-	            val bi = s3.get(BillInterpretation.generateId(bill.getId(), null), BillInterpretation.class);
-	            bi.ifPresent(bill::setInterpretation);
-	        }
-
-	        // 3. Sort bills by length of their official name (descending),
-	        //    ensuring longer names match before shorter ones:
-	        bills.sort(Comparator.comparingInt((Bill b) -> b.getName().length()).reversed());
-
-	        // 4. Build a single combined pattern of all bill names/IDs.
-	        //    We use word boundaries (\b) to avoid partial matches
-	        //    (e.g. matching only "Over" in "OverSIGHT").
-	        StringBuilder patternBuilder = new StringBuilder();
-	        patternBuilder.append("(?iu)\\b("); // (?iu) => case-insensitive + Unicode
+	        val matcher = getMatcher(dataset, s3);
 
-	        // We'll map each name/ID (lowercase) -> Bill so we know
-	        // which Bill we matched inside the matcher loop.
-	        Map<String, Bill> dictionary = new HashMap<>();
-	        
-	        boolean first = true;
-	        for (Bill bill : bills) {
-	            String billName = normalizeBillName(bill.getName());
-	            String billId   = buildReadableBillId(bill);
-
-	            // Put both forms into a dictionary
-	            dictionary.put(billName.toLowerCase(), bill);
-	            dictionary.put(billId.toLowerCase(), bill);
-
-	            // Add them to the pattern. We quote them so special regex chars don’t break it.
-	            if (!first) {
-	                patternBuilder.append("|");
-	            }
-	            patternBuilder.append(Pattern.quote(billName));
-	            patternBuilder.append("|");
-	            patternBuilder.append(Pattern.quote(billId));
-	            first = false;
-	        }
-	        patternBuilder.append(")\\b"); // close the big capturing group, then word boundary
-
-	        // 5. Compile the “mega” pattern
-	        Pattern combinedPattern = Pattern.compile(patternBuilder.toString(), 
-	                                                  Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
-
-	        // 6. One-pass replacement: scan from left to right
-	        Matcher matcher = combinedPattern.matcher(exp);
-	        StringBuffer sb = new StringBuffer();
-	        while (matcher.find()) {
-	            String matchedText = matcher.group(1); // The actual substring that matched
-	            Bill matchedBill   = dictionary.get(matchedText.toLowerCase());
+	        // One-pass replacement: scan from left to right
+	        String linked = matcher.replace(exp, m -> {
+	            Bill matchedBill = m.getValue();
 	            
-	            if (matchedBill != null) {
-	                // Build the actual URL
-	                String linkUrl = linkForBill(matchedBill.getId(), dataset.getSession());
-	                // We want to display the official Bill name (or your choice)
-	                String linkText = normalizeBillName(matchedBill.getName());
+	            // Build the actual URL
+	            String linkUrl = linkForBill(matchedBill.getId(), dataset.getSession());
+	            // We want to display the official Bill name (or your choice)
+	            String linkText = normalizeBillName(matchedBill.getName());
 
-	                // Build the HTML anchor
-	                String replacement = "<a href=\"" + linkUrl + "\">" + linkText + "</a>";
+	            // Build the HTML anchor
+	            return "<a href=\"" + linkUrl + "\">" + linkText + "</a>";
+	        });
 
-	                // Safely insert the replacement text
-	                matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
-	            } else {
-	                // Fallback: if somehow we didn't find the Bill, just keep original text
-	                matcher.appendReplacement(sb, Matcher.quoteReplacement(matchedText));
-	            }
-	        }
-	        // Don’t forget the tail after the last match
-	        matcher.appendTail(sb);
-
-	        // 7. The final replaced text
-	        interp.setLongExplain(sb.toString());
+	        // The final replaced text
+	        interp.setLongExplain(linked);
 	    } catch (Throwable t) {
 	        Log.error(t);
 	    }
 	}
+	
+	private static synchronized MentionMatcher<Bill> getMatcher(PoliscoreDataset dataset, LocalCachedS3Service s3) {
+		val billCount = dataset.query(Bill.class).size();
+		val sessionKey = dataset.getSession().getKey();
+		
+		if (cachedMatcher == null || !sessionKey.equals(cachedSessionKey) || cachedBillCount != billCount) {
+			cachedMatcher = buildMatcher(dataset, s3);
+			cachedSessionKey = sessionKey;
+			cachedBillCount = billCount;
+		}
+		
+		return cachedMatcher;
+	}
+	
+	private static MentionMatcher<Bill> buildMatcher(PoliscoreDataset dataset, LocalCachedS3Service s3) {
+		// 1. Retrieve bills
+		List<Bill> bills = new ArrayList<Bill>(dataset.query(Bill.class));
+		
+		// 2. (Optional) Attach BillInterpretation to each Bill
+		for (Bill bill : bills) {
+			val bi = s3.get(BillInterpretation.generateId(bill.getId(), null), BillInterpretation.class);
+			bi.ifPresent(bill::setInterpretation);
+		}
+		
+		// 3. Sort bills by length of their official name (descending), so that the dictionary is built
+		//    in the same order as it always has been (later duplicates win).
+		bills.sort(Comparator.comparingInt((Bill b) -> b.getName().length()).reversed());
+		
+		// 4. Register both the name and the readable ID of every bill. Matching is case-insensitive,
+		//    on whole words only (e.g. never just "Over" in "OverSIGHT"), and the longest mention wins.
+		val builder = new MentionMatcher.Builder<Bill>();
+		for (Bill bill : bills) {
+			builder.add(normalizeBillName(bill.getName()), bill);
+			builder.add(buildReadableBillId(bill), bill);
+		}
+		
+		return builder.build();
+	}
 
 	/**
 	 * Example helper to remove trailing periods, trim, etc.
@@ -41,6 +41,7 @@ import us.poliscore.service.BillService;
 import us.poliscore.service.GovernmentDataService;
 import us.poliscore.service.LegislatorInterpretationService;
 import us.poliscore.service.LegislatorService;
+import us.poliscore.service.MemoryObjectService;
 import us.poliscore.service.OpenAIService;
 import us.poliscore.service.PartyInterpretationService;
 import us.poliscore.service.storage.DynamoDbPersistenceService;
@@ -102,6 +103,9 @@ public class DatabaseBuilder implements QuarkusApplication
 	@Inject
 	private LegislatorInterpretationService legInterp;
 	
+	@Inject
+	protected MemoryObjectService memory;
+	
 	public static List<String> PROCESS_BILL_TYPE = Arrays.asList(CongressionalBillType.values()).stream().filter(bt -> !CongressionalBillType.getIgnoredBillTypes().contains(bt)).map(bt -> bt.getName().toLowerCase()).collect(Collectors.toList());
 	
 	protected void process() throws IOException
@@ -129,6 +133,7 @@ public class DatabaseBuilder implements QuarkusApplication
 		
 		webappDataGenerator.process();
 		
+		Log.info(memory.getUsageSummary());
 		Log.info("Poliscore database build complete.");
 	}
 	
@@ -1,22 +1,22 @@
 package us.poliscore.entrypoint;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
-import org.tartarus.snowball.SnowballStemmer;
-import org.tartarus.snowball.ext.englishStemmer;
 
 import com.opencsv.CSVReader;
 
@@ -30,14 +30,29 @@ import lombok.val;
 import us.poliscore.Environment;
 import us.poliscore.PoliscoreDataset;
 import us.poliscore.PoliscoreUtil;
+import us.poliscore.geo.IpRegionTrie;
 import us.poliscore.model.LegislativeNamespace;
 import us.poliscore.model.LegislativeSession;
+import us.poliscore.model.Persistable;
+import us.poliscore.model.TrackedIssue;
 import us.poliscore.model.bill.Bill;
 import us.poliscore.model.bill.BillInterpretation;
+import us.poliscore.model.bill.BillIssueStat;
 import us.poliscore.model.legislator.Legislator;
 import us.poliscore.model.legislator.LegislatorInterpretation;
+import us.poliscore.model.legislator.LegislatorIssueStat;
+import us.poliscore.search.BillSearchIndex;
+import us.poliscore.search.IssueLeaderboards;
+import us.poliscore.search.LegislatorSearchIndex;
+import us.poliscore.search.TypeaheadIndex;
+import us.poliscore.search.TypeaheadIndexes;
+import us.poliscore.search.TypeaheadIndex.SuggestionType;
+import us.poliscore.search.SearchText;
+import us.poliscore.search.StringTableIndex;
 import us.poliscore.service.GovernmentDataService;
 import us.poliscore.service.PoliscoreConfigService;
+import us.poliscore.service.storage.DynamoDbPersistenceService;
+import us.poliscore.service.storage.IndexArtifactStore;
 import us.poliscore.service.storage.LocalCachedS3Service;
 
 /**
@@ -49,6 +64,8 @@ public class WebappDataGenerator implements QuarkusApplication
 	
 	protected static String WEBAPP_PATH = "../../webapp";
 	
+	protected static String IP_REGION_CSV = "dbip-city-lite.csv";
+	
 	@Inject
 	private LocalCachedS3Service s3;
 	
@@ -57,6 +74,9 @@ public class WebappDataGenerator implements QuarkusApplication
 	
 	@Inject private PoliscoreConfigService config;
 	
+	@Inject
+	private DynamoDbPersistenceService ddb;
+	
 	public static final String[] states = new String[] {
 		"KY", "LA", "ME", "MD", "MA", "MI", "MN", "MS", "MO", "MT", "NE", "NV", "NH", "NJ", "NM", "NY", "NC", "ND", "MP", "AL", "AK", "AZ", "AR", "AS", "CA", "CO", "CT", "DE", "DC", "FL", "GA", "GU", "HI", "ID", "IL", "IN", "IA", "KS", "OH", "OK", "OR", "PA", "PR", "RI", "SC", "SD", "TN", "TX", "TT", "UT", "VT", "VA", "VI", "WA", "WV", "WI", "WY" 
 	};
@@ -78,11 +98,131 @@ public class WebappDataGenerator implements QuarkusApplication
 		generateSiteMap(datasets);
 		generateLegislatorWebappIndex(datasets);
 		generateBillWebappIndex(datasets);
+		generateTypeaheadIndex(datasets);
+		generateIpRegionIndex();
+		generateIssueLeaderboards(datasets);
 		writeSessionInfo(datasets);
 		
+		val version = System.currentTimeMillis();
+		publishIndexes(version);
+		writeBuildVersion(version);
+		
 		Log.info("Webapp Data Generator complete.");
 	}
 	
+	/**
+	 * Compiles the IP → state table the Lambda uses to pick a visitor's legislators, from the DB-IP "IP to City Lite"
+	 * CSV (https://db-ip.com/db/download/ip-to-city-lite, CC BY 4.0). The CSV is a few hundred megabytes so it isn't
+	 * checked in: download it next to the databuilder before running. Without it the Lambda keeps using the geolocation API.
+	 */
+	@SneakyThrows
+	public void generateIpRegionIndex() {
+		final File in = new File(Environment.getDeployedPath(), IP_REGION_CSV);
+		final File out = new File(Environment.getDeployedPath(), WEBAPP_PATH + "/src/main/resources/ipregions.trie");
+		
+		if (!in.exists()) {
+			Log.warn("No " + in.getAbsolutePath() + " found, skipping the IP region index");
+			return;
+		}
+		
+		// State names as DB-IP writes them → their abbreviation
+		val stateCodes = new HashMap<String, String>();
+		for (val ns : LegislativeNamespace.values()) {
+			if (ns != LegislativeNamespace.US_CONGRESS) stateCodes.put(ns.getDescription().toLowerCase(), ns.toAbbreviation());
+		}
+		stateCodes.put("district of columbia", "DC");
+		stateCodes.put("puerto rico", "PR");
+		stateCodes.put("guam", "GU");
+		stateCodes.put("american samoa", "AS");
+		stateCodes.put("northern mariana islands", "MP");
+		stateCodes.put("u.s. virgin islands", "VI");
+		
+		val builder = new IpRegionTrie.Builder();
+		int rows = 0;
+		
+		// ip_start, ip_end, continent, country, stateprov, city, latitude, longitude
+		try (CSVReader reader = new CSVReader(new InputStreamReader(new FileInputStream(in), StandardCharsets.UTF_8))) {
+			String[] row;
+			while ((row = reader.readNext()) != null) {
+				if (row.length < 5) continue;
+				
+				if (!"US".equals(row[3])) {
+					builder.add(row[0], row[1], null);
+				} else if (stateCodes.containsKey(row[4].toLowerCase())) {
+					builder.add(row[0], row[1], stateCodes.get(row[4].toLowerCase()));
+				}
+				
+				rows++;
+			}
+		}
+		
+		val bytes = builder.build();
+		FileUtils.writeByteArrayToFile(out, bytes);
+		Log.info("Generated an IP region index of " + bytes.length + " bytes from " + rows + " ranges");
+	}
+	
+	/**
+	 * Snapshots every issue leaderboard from the issue stats in the database, which the Lambda then pages through in memory
+	 * rather than querying the issue indexes. Must run after the database is built, since that's where the stats come from.
+	 */
+	@SneakyThrows
+	public void generateIssueLeaderboards(List<PoliscoreDataset> datasets) {
+		final File out = new File(Environment.getDeployedPath(), WEBAPP_PATH + "/src/main/resources/issue.leaderboards");
+		val builder = new IssueLeaderboards.Builder();
+		int entries = 0;
+		
+		for (val dataset : datasets) {
+			val session = dataset.getSession();
+			
+			for (val issue : TrackedIssue.values()) {
+				val legislatorBoard = LegislatorIssueStat.getIndexPrimaryKey(session.getNamespace(), session.getCode(), issue);
+				val legislators = ddb.query(LegislatorIssueStat.class, -1, Persistable.OBJECT_BY_ISSUE_RATING_INDEX, true, null, null, legislatorBoard, List.of("legislatorId", "issue", "rating", "impact")).stream()
+						.map(s -> new IssueLeaderboards.Entry(s.getLegislatorId(), s.getRating(), s.getImpact()))
+						.toList();
+				builder.add(legislatorBoard, legislators);
+				
+				val billBoard = BillIssueStat.getIndexPrimaryKey(session.getNamespace(), session.getCode(), issue);
+				val bills = ddb.query(BillIssueStat.class, -1, Persistable.OBJECT_BY_ISSUE_RATING_INDEX, true, null, null, billBoard, List.of("billId", "issue", "rating", "impact")).stream()
+						.map(s -> new IssueLeaderboards.Entry(s.getBillId(), s.getRating(), s.getImpact()))
+						.toList();
+				builder.add(billBoard, bills);
+				
+				entries += legislators.size() + bills.size();
+			}
+		}
+		
+		val bytes = builder.build();
+		FileUtils.writeByteArrayToFile(out, bytes);
+		Log.info("Generated issue leaderboards of " + entries + " entries (" + (bytes.length / 1024) + " KB)");
+	}
+	
+	/**
+	 * Publishes the generated indexes under the build version (see IndexArtifactStore), so that running Lambdas which follow
+	 * the store swap them in without waiting for a redeploy. Runs before the build version is marked in the database.
+	 */
+	@SneakyThrows
+	private void publishIndexes(long version) {
+		val artifacts = new LinkedHashMap<String, byte[]>();
+		
+		for (String name : IndexArtifactStore.ARTIFACTS) {
+			val file = new File(Environment.getDeployedPath(), WEBAPP_PATH + "/src/main/resources/" + name);
+			if (file.exists()) artifacts.put(name, FileUtils.readFileToByteArray(file));
+		}
+		
+		IndexArtifactStore.forDeployment(ddb.TABLE_NAME).publish(String.valueOf(version), artifacts);
+	}
+	
+	/**
+	 * Identifies the data this webapp was built with. The Lambda derives its ETags from it, so that browsers and CDNs only
+	 * ever re-download something after a new build. The same version is marked in the database, where running Lambdas
+	 * check it to know when to reload the objects they hold in memory.
+	 */
+	@SneakyThrows
+	private void writeBuildVersion(long version) {
+		FileUtils.write(new File(Environment.getDeployedPath(), WEBAPP_PATH + "/src/main/resources/build.version"), String.valueOf(version), "UTF-8");
+		ddb.putBuildVersion(version);
+	}
+	
 	@SneakyThrows
 	private void writeSessionInfo(List<PoliscoreDataset> datasets) {
 		val result = new ArrayList<LegislativeSession>();
@@ -185,6 +325,22 @@ public class WebappDataGenerator implements QuarkusApplication
 	    }).sorted(Comparator.comparing(a -> a.get(1))).toList());
 
 	    FileUtils.write(out, PoliscoreUtil.getObjectMapper().writeValueAsString(result), "UTF-8");
+	    FileUtils.writeByteArrayToFile(new File(Environment.getDeployedPath(), WEBAPP_PATH + "/src/main/resources/legislators.table"), new StringTableIndex.Builder().add(StringTableIndex.LEGISLATORS_TABLE, result).build());
+	    
+	    // The search index also knows where each legislator is from, so that "ny" or "ca12" find them
+	    List<List<String>> searchRows = result.stream().map(row -> {
+	        val l = uniqueSet.get(row.get(0).substring(row.get(0).lastIndexOf('/') + 1));
+	        String location = "";
+	        
+	        if (l.getTerms() != null && l.getTerms().size() > 0 && l.getTerms().last().getState() != null) {
+	            val term = l.getTerms().last();
+	            location = term.getState().toString() + (term.getDistrict() == null ? "" : " " + term.getState().toString() + term.getDistrict());
+	        }
+	        
+	        return Arrays.asList(row.get(0), row.get(1), row.get(2), location);
+	    }).toList();
+	    
+	    FileUtils.write(new File(Environment.getDeployedPath(), WEBAPP_PATH + "/src/main/resources/legislators.search"), PoliscoreUtil.getObjectMapper().writeValueAsString(LegislatorSearchIndex.build(searchRows)), "UTF-8");
 	}
 	
 	// names.csv fetched from : https://raw.githubusercontent.com/carltonnorthern/nicknames/refs/heads/master/names.csv
@@ -211,10 +367,11 @@ public class WebappDataGenerator implements QuarkusApplication
 	@SneakyThrows
 	public void generateBillWebappIndex(List<PoliscoreDataset> datasets) {
 	    final File out = new File(Environment.getDeployedPath(), WEBAPP_PATH + "/src/main/resources/bills.index");
+	    final File searchOut = new File(Environment.getDeployedPath(), WEBAPP_PATH + "/src/main/resources/bills.search");
 	    DateTimeFormatter usFormat = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-	    SnowballStemmer stemmer = new englishStemmer();
 	    
 	    Map<String, List<List<String>>> result = new HashMap<String, List<List<String>>>();
+	    Map<String, BillSearchIndex> search = new HashMap<String, BillSearchIndex>();
 
 	    for (var dataset : datasets) {
 	    	List<List<String>> datasetList = new ArrayList<List<String>>();
@@ -225,7 +382,7 @@ public class WebappDataGenerator implements QuarkusApplication
 		            b.setInterpretation(s3.get(BillInterpretation.generateId(b.getId(), null), BillInterpretation.class).orElseThrow());
 	
 		            String displayName = b.getName();
-		            String normalizedTokens = normalize(displayName, stemmer);
+		            String normalizedTokens = String.join(" ", SearchText.tokenize(displayName));
 	
 		            String label = !(dataset.getSession().isOver())
 		                    ? displayName + " (" + b.getType() + " " + b.getNumber() + ")"
@@ -236,29 +393,70 @@ public class WebappDataGenerator implements QuarkusApplication
 		        .sorted(Comparator.comparing(b -> b.get(1)))
 		        .toList());
 	    	result.put(dataset.getSession().getNamespace().getNamespace(), datasetList);
+	    	search.put(dataset.getSession().getNamespace().getNamespace(), BillSearchIndex.build(datasetList));
 	    }
 
 	    FileUtils.write(out, PoliscoreUtil.getObjectMapper().writeValueAsString(result), "UTF-8");
+	    FileUtils.writeByteArrayToFile(new File(Environment.getDeployedPath(), WEBAPP_PATH + "/src/main/resources/bills.table"), new StringTableIndex.Builder().addAll(result).build());
+	    FileUtils.write(searchOut, PoliscoreUtil.getObjectMapper().writeValueAsString(search), "UTF-8");
 	    Log.info("Generated a bill 'index' of size " + result.size());
 	}
 
-	private static final Set<String> STOPWORDS = Set.of(
-	    "the", "of", "to", "and", "a", "in", "for", "on", "at", "by", "with", "act"
-	);
-
-	private String normalize(String input, SnowballStemmer stemmer) {
-	    return Arrays.stream(input.toLowerCase()
-	            .replaceAll("[^a-z0-9\\s]", " ")   // remove punctuation
-	            .replaceAll("\\s+", " ")           // collapse spaces
-	            .trim()
-	            .split(" "))
-	        .filter(token -> !STOPWORDS.contains(token))
-	        .map(token -> {
-	            stemmer.setCurrent(token);
-	            stemmer.stem();
-	            return stemmer.getCurrent();
-	        })
-	        .collect(Collectors.joining(" "));
+	/**
+	 * Builds a typeahead index per namespace, from the same dataset as that namespace's bills.search, so that suggestions
+	 * never cross namespaces. Must run after generateBillWebappIndex, which attaches interpretations to the bills.
+	 */
+	@SneakyThrows
+	public void generateTypeaheadIndex(List<PoliscoreDataset> datasets) {
+	    final File out = new File(Environment.getDeployedPath(), WEBAPP_PATH + "/src/main/resources/typeahead.index");
+	    Map<String, Set<String>> canonToNick = loadNicknameMap();
+	    
+	    // As with bills.search, the last dataset of each namespace is the one served
+	    val byNamespace = new LinkedHashMap<String, PoliscoreDataset>();
+	    for (var dataset : datasets) {
+	        byNamespace.put(dataset.getSession().getNamespace().getNamespace(), dataset);
+	    }
+	    
+	    val indexes = new TypeaheadIndexes.Builder();
+	    for (val e : byNamespace.entrySet()) {
+	        val dataset = e.getValue();
+	        val builder = new TypeaheadIndex.Builder();
+	        
+	        for (val issue : TrackedIssue.values()) {
+	            builder.add(SuggestionType.ISSUE, issue.name(), issue.getName(), 0, List.of(issue.getName()), List.of());
+	        }
+	        
+	        int legislators = 0;
+	        for (val l : dataset.query(Legislator.class)) {
+	            String fullName = l.getName().getOfficial_full();
+	            String[] parts = fullName.split("\\s+");
+	            
+	            val phrases = new ArrayList<String>();
+	            phrases.add(fullName);
+	            for (String nick : canonToNick.getOrDefault(parts[0].toLowerCase(), Set.of())) {
+	                phrases.add(nick + " " + parts[parts.length - 1]);
+	            }
+	            
+	            builder.add(SuggestionType.LEGISLATOR, l.getId(), fullName, l.getImpactAbs(), phrases, List.of());
+	            legislators++;
+	        }
+	        
+	        int bills = 0;
+	        for (val b : dataset.query(Bill.class)) {
+	            if (b.getInterpretation() == null) continue;
+	            
+	            String ref = b.getType() + " " + b.getNumber();
+	            builder.add(SuggestionType.BILL, b.getId(), b.getShortName() + " (" + ref + ")", Math.max(b.getHot(), 0), List.of(b.getShortName()), List.of(ref, b.getType() + b.getNumber()));
+	            bills++;
+	        }
+	        
+	        indexes.add(e.getKey(), builder.build());
+	        Log.info("Generated a " + e.getKey() + " typeahead index over " + TrackedIssue.values().length + " issues, " + legislators + " legislators and " + bills + " bills");
+	    }
+	    
+	    val bytes = indexes.build();
+	    FileUtils.writeByteArrayToFile(out, bytes);
+	    Log.info("Generated typeahead indexes for " + byNamespace.size() + " namespaces (" + (bytes.length / 1024) + " KB)");
 	}
 	
 	@Override
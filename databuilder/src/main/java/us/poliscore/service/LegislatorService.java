@@ -2,6 +2,8 @@ package us.poliscore.service;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import us.poliscore.LegislatorBillLinker;
+import us.poliscore.PoliscoreDataset;
 import us.poliscore.model.TrackedIssue;
 import us.poliscore.model.legislator.Legislator;
 import us.poliscore.model.legislator.LegislatorInterpretation;
@@ -17,9 +19,16 @@ public class LegislatorService {
 	@Inject
 	private LegislatorInterpretationService legInterp;
 	
+	@Inject
+	private GovernmentDataService data;
+	
 	public void ddbPersist(Legislator leg, LegislatorInterpretation interp)
 	{
 		leg.setInterpretation(interp);
+		
+		// Interactions and interpretation are final at this point, so link bill mentions now rather than on every request
+		LegislatorBillLinker.prelink(leg, data.getAllImportedDatasets().stream().map(PoliscoreDataset::getSession).toList());
+		
 		ddb.put(leg);
 		
 		if (legInterp.meetsInterpretationPrereqs(leg))
@@ -56,6 +56,9 @@ update_property "$DB_PROPS" "ddb.table" "$DDB_TABLE"
 
 update_property "$WEB_PROPS" "ipGeoSecretName" "$IP_GEO_SECRET_NAME"
 update_property "$WEB_PROPS" "ddb.table" "$DDB_TABLE"
+update_property "$WEB_PROPS" "quarkus.lambda.handler" "poliscore"
+update_property "$WEB_PROPS" "quarkus.dynamodb.interceptors" "us.poliscore.metrics.DynamoDbTimingInterceptor"
+update_property "$WEB_PROPS" "webapp.indexes.published" "true"
 
 # Print what was set
 echo "✅ Environment variables set:"
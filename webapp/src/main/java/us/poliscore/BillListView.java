@@ -0,0 +1,128 @@
+package us.poliscore;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.collections4.ListUtils;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.val;
+import us.poliscore.model.IssueStats;
+import us.poliscore.model.Persistable;
+import us.poliscore.model.bill.Bill;
+import us.poliscore.model.bill.Bill.BillSponsor;
+import us.poliscore.model.bill.BillIssueStat;
+import us.poliscore.model.bill.BillStatus;
+
+/**
+ * A bill as the bills list shows it: its name, grade, sponsor, status and short explanation. Fields that weren't asked
+ * for are left out of the JSON.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(Include.NON_NULL)
+@RegisterForReflection
+public class BillListView {
+	
+	// Impact isn't read back from the table (Bill calculates it), so it needs everything its calculation does
+	private static final List<String> IMPACT = List.of("id", "number", "type", "originatingChamber", "status", "cosponsors", "interpretation.issueStats");
+	
+	// Bill.setInterpretation and the name depend on each other through the number, so it's read with either
+	public static final Map<String, List<String>> FIELDS = Map.ofEntries(
+			Map.entry("id", List.of("id")),
+			Map.entry("name", List.of("name", "number")),
+			Map.entry("type", List.of("type")),
+			Map.entry("introducedDate", List.of("introducedDate")),
+			Map.entry("status", List.of("status")),
+			Map.entry("sponsor", List.of("sponsor")),
+			Map.entry("interpretation", List.of("number", "interpretation.issueStats", "interpretation.genBillTitle", "interpretation.shortExplain")),
+			
+			// The list pages with these
+			Map.entry("impact", IMPACT),
+			Map.entry("hot", ListUtils.union(IMPACT, List.of("introducedDate", "lastActionDate"))),
+			
+			// Only set on bills listed by issue, which keep these in place of an interpretation
+			Map.entry("rating", List.of()),
+			Map.entry("shortExplain", List.of())
+	);
+	
+	protected String id;
+	
+	protected String name;
+	
+	protected String type;
+	
+	protected LocalDate introducedDate;
+	
+	protected BillStatus status;
+	
+	protected BillSponsor sponsor;
+	
+	protected Interpretation interpretation;
+	
+	protected Integer impact;
+	
+	protected Integer hot;
+	
+	protected Integer rating;
+	
+	protected String shortExplain;
+	
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	@JsonInclude(Include.NON_NULL)
+	@RegisterForReflection
+	public static class Interpretation {
+		
+		protected IssueStats issueStats;
+		
+		protected String genBillTitle;
+		
+		protected String shortExplain;
+		
+	}
+	
+	public static BillListView toView(Persistable p, Set<String> fields)
+	{
+		val view = new BillListView();
+		
+		if (p instanceof Bill bill) {
+			if (fields.contains("id")) view.setId(bill.getId());
+			if (fields.contains("name")) view.setName(bill.getName());
+			if (fields.contains("type")) view.setType(bill.getType());
+			if (fields.contains("introducedDate")) view.setIntroducedDate(bill.getIntroducedDate());
+			if (fields.contains("status")) view.setStatus(bill.getStatus());
+			if (fields.contains("sponsor")) view.setSponsor(bill.getSponsor());
+			
+			val interp = bill.getInterpretation();
+			if (fields.contains("interpretation") && interp != null) view.setInterpretation(new Interpretation(interp.getIssueStats(), interp.getGenBillTitle(), interp.getShortExplain()));
+			if (fields.contains("impact") && interp != null) view.setImpact(bill.getImpact());
+			if (fields.contains("hot") && interp != null) view.setHot(bill.getHot());
+		} else if (p instanceof BillIssueStat stat) {
+			if (fields.contains("id")) view.setId(stat.getBillId());
+			if (fields.contains("name")) view.setName(stat.getName());
+			if (fields.contains("type")) view.setType(stat.getType().name());
+			if (fields.contains("introducedDate")) view.setIntroducedDate(stat.getIntroducedDate());
+			if (fields.contains("status")) view.setStatus(stat.getStatus());
+			if (fields.contains("sponsor")) view.setSponsor(stat.getSponsor());
+			if (fields.contains("impact")) view.setImpact(stat.getImpact());
+			if (fields.contains("rating")) view.setRating(stat.getRating());
+			if (fields.contains("shortExplain")) view.setShortExplain(stat.getShortExplain());
+		} else {
+			throw new UnsupportedOperationException(p.getClass().getSimpleName());
+		}
+		
+		return view;
+	}
+	
+}
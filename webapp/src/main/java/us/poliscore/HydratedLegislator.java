@@ -0,0 +1,117 @@
+package us.poliscore;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.val;
+import us.poliscore.model.Persistable;
+import us.poliscore.model.TrackedIssue;
+import us.poliscore.model.legislator.Legislator;
+import us.poliscore.model.legislator.Legislator.LegislatorBillInteractionList;
+import us.poliscore.model.legislator.LegislatorBillInteraction;
+
+/**
+ * A legislator which has been fetched, decompressed and linked once, and is then shared between requests. The
+ * interactions are held in a plain array, and each ordering the webapp asks for (index, direction and tracked issue) is
+ * sorted once into an int[] permutation of that array, so that serving any page afterwards is just a slice.
+ *
+ * Nothing here is mutated after construction (other than filling in orderings), so it's safe to share across threads.
+ */
+public class HydratedLegislator {
+
+	public static final String TRACKED_ISSUE_INDEX = "TrackedIssue";
+
+	private static final ObjectMapper mapper = PoliscoreUtil.getObjectMapper();
+
+	@Getter
+	private final Legislator legislator;
+
+	private final LegislatorBillInteraction[] interactions;
+
+	private final ConcurrentHashMap<String, int[]> orderings = new ConcurrentHashMap<String, int[]>();
+
+	// The legislator as served, minus their interactions, which each page's copy is read back from
+	private final ObjectNode head;
+
+	public HydratedLegislator(Legislator legislator) {
+		this.legislator = legislator;
+		this.interactions = legislator.getInteractions().toArray(new LegislatorBillInteraction[0]);
+
+		this.head = mapper.valueToTree(legislator);
+		this.head.remove("interactions");
+	}
+
+	/**
+	 * The ordering of interactions for this index, in the same order (including ties) that sorting the full list would produce.
+	 */
+	public int[] ordering(String index, String sortKey, boolean ascending) {
+		val key = index + "|" + (TRACKED_ISSUE_INDEX.equals(index) ? sortKey : "") + "|" + ascending;
+
+		return orderings.computeIfAbsent(key, k -> {
+			Predicate<LegislatorBillInteraction> filter = i -> true;
+			Comparator<LegislatorBillInteraction> comparator;
+
+			if (index.equals(Persistable.OBJECT_BY_DATE_INDEX)) {
+				comparator = Comparator.comparing(LegislatorBillInteraction::getDate);
+			} else if (index.equals(Persistable.OBJECT_BY_RATING_INDEX)) {
+				comparator = Comparator.comparing(LegislatorBillInteraction::getRating);
+			} else if (index.equals(Persistable.OBJECT_BY_RATING_ABS_INDEX)) {
+				comparator = Comparator.comparing(LegislatorBillInteraction::getRatingAbs);
+			} else if (index.equals(Persistable.OBJECT_BY_IMPACT_INDEX)) {
+				comparator = Comparator.comparing(LegislatorBillInteraction::getImpact);
+			} else if (index.equals(Persistable.OBJECT_BY_IMPACT_ABS_INDEX)) {
+				comparator = Comparator.comparing(LegislatorBillInteraction::getImpactAbs);
+			} else if (index.equals(Persistable.OBJECT_BY_HOT_INDEX)) {
+				comparator = Comparator.comparing(LegislatorBillInteraction::getHot);
+			} else if (index.equals(TRACKED_ISSUE_INDEX)) {
+				val issue = TrackedIssue.valueOf(sortKey);
+				filter = lbi -> lbi.getIssueStats().hasStat(issue);
+				comparator = Comparator.comparingInt(lbi -> lbi.getRating(issue));
+			} else {
+				throw new UnsupportedOperationException(index);
+			}
+
+			if (!ascending) comparator = comparator.reversed();
+
+			// A stable sort over the original positions, so that ties come out the way they always have
+			val sortBy = comparator;
+			val include = filter;
+			return IntStream.range(0, interactions.length)
+					.filter(i -> include.test(interactions[i]))
+					.boxed()
+					.sorted((a, b) -> sortBy.compare(interactions[a], interactions[b]))
+					.mapToInt(Integer::intValue)
+					.toArray();
+		});
+	}
+
+	public Page<LegislatorBillInteractionList> page(String index, String sortKey, int pageSize, boolean ascending, int exclusiveStartKey) {
+		val ordering = ordering(index, sortKey, ascending);
+		val interacts = new LegislatorBillInteractionList();
+
+		for (int i = exclusiveStartKey + 1; i < Math.min(ordering.length, exclusiveStartKey + 1 + pageSize); ++i) {
+			interacts.add(interactions[ordering[i]]);
+		}
+
+		return new Page<LegislatorBillInteractionList>(Arrays.asList(interacts), exclusiveStartKey, (interacts.size() + 1 + exclusiveStartKey) < ordering.length);
+	}
+
+	/**
+	 * A copy of the legislator carrying only the given interactions, so that the shared instance is never modified. The
+	 * copy goes through the mapper, so it carries every field that would be served, including any added later.
+	 */
+	@SneakyThrows
+	public Legislator withInteractions(LegislatorBillInteractionList interacts) {
+		val copy = mapper.treeToValue(head, Legislator.class);
+		copy.setInteractions(interacts);
+		return copy;
+	}
+}
@@ -0,0 +1,100 @@
+package us.poliscore;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.val;
+import us.poliscore.model.IssueStats;
+import us.poliscore.model.Persistable;
+import us.poliscore.model.legislator.Legislator;
+import us.poliscore.model.legislator.Legislator.LegislativeTerm;
+import us.poliscore.model.legislator.Legislator.LegislatorLegislativeTermSortedSet;
+import us.poliscore.model.legislator.Legislator.LegislatorName;
+import us.poliscore.model.legislator.LegislatorInterpretation;
+import us.poliscore.model.legislator.LegislatorIssueStat;
+
+/**
+ * A legislator as the legislators list shows it: their name, grade, current term and short explanation. Fields that
+ * weren't asked for are left out of the JSON.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(Include.NON_NULL)
+@RegisterForReflection
+public class LegislatorListView {
+	
+	public static final Map<String, List<String>> FIELDS = Map.of(
+			"id", List.of("id"),
+			"name", List.of("name"),
+			"terms", List.of("terms"),
+			"birthday", List.of("birthday"),
+			"impact", List.of("impact"),
+			"interpretation", List.of("interpretation.issueStats", "interpretation.shortExplain")
+	);
+	
+	protected String id;
+	
+	protected LegislatorName name;
+	
+	// Only the current term
+	protected List<LegislativeTerm> terms;
+	
+	// The list pages with these
+	protected LocalDate birthday;
+	
+	protected Long impact;
+	
+	protected Interpretation interpretation;
+	
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	@JsonInclude(Include.NON_NULL)
+	@RegisterForReflection
+	public static class Interpretation {
+		
+		protected IssueStats issueStats;
+		
+		protected String shortExplain;
+		
+	}
+	
+	public static LegislatorListView toView(Persistable p, Set<String> fields)
+	{
+		if (p instanceof Legislator leg) {
+			val view = toView(leg.getId(), leg.getName(), leg.getTerms(), leg.getInterpretation(), fields);
+			if (fields.contains("birthday")) view.setBirthday(leg.getBirthday());
+			if (fields.contains("impact")) view.setImpact(leg.getImpact());
+			return view;
+		} else if (p instanceof LegislatorIssueStat stat) {
+			val view = toView(stat.getLegislatorId(), stat.getName(), stat.getTerms(), stat.getInterpretation(), fields);
+			if (fields.contains("impact")) view.setImpact(stat.getImpact());
+			return view;
+		}
+		
+		throw new UnsupportedOperationException(p.getClass().getSimpleName());
+	}
+	
+	private static LegislatorListView toView(String id, LegislatorName name, LegislatorLegislativeTermSortedSet terms, LegislatorInterpretation interp, Set<String> fields)
+	{
+		val view = new LegislatorListView();
+		
+		if (fields.contains("id")) view.setId(id);
+		if (fields.contains("name")) view.setName(name);
+		if (fields.contains("terms") && terms != null && !terms.isEmpty()) view.setTerms(List.of(terms.last()));
+		if (fields.contains("interpretation") && interp != null) view.setInterpretation(new Interpretation(interp.getIssueStats(), interp.getShortExplain()));
+		
+		return view;
+	}
+	
+}
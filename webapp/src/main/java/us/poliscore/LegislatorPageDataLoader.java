@@ -0,0 +1,122 @@
+package us.poliscore;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.quarkus.logging.Log;
+import jakarta.ws.rs.ServiceUnavailableException;
+import lombok.val;
+import us.poliscore.metrics.Telemetry;
+import us.poliscore.model.Persistable;
+
+/**
+ * Puts together the legislators page, bounding each of the calls it depends on.
+ *
+ * When the caller's state isn't given it has to be found from their IP first. That's a lookup in the bundled IP region
+ * table, which is in memory, so only the ipgeolocation.io fallback (for addresses the table doesn't cover) is bounded:
+ * a slow or failed fallback degrades to the default list (the one shown when we don't know where someone is) rather than
+ * failing the page, as does a slow or failed query for the located state's legislators. The default list is only
+ * fetched in those cases, so a located caller costs a single list query. A call which outlives its timeout is cancelled
+ * rather than left running for a caller that has moved on.
+ */
+public class LegislatorPageDataLoader {
+
+	public static final Duration GEOLOCATION_TIMEOUT = Duration.ofMillis(750);
+
+	public static final Duration LIST_TIMEOUT = Duration.ofSeconds(5);
+
+	private static ExecutorService sharedExecutor;
+
+	private final ExecutorService executor;
+
+	private final Duration geolocationTimeout;
+
+	private final Duration listTimeout;
+
+	public LegislatorPageDataLoader() {
+		this(getSharedExecutor(), GEOLOCATION_TIMEOUT, LIST_TIMEOUT);
+	}
+
+	public LegislatorPageDataLoader(ExecutorService executor, Duration geolocationTimeout, Duration listTimeout) {
+		this.executor = executor;
+		this.geolocationTimeout = geolocationTimeout;
+		this.listTimeout = listTimeout;
+	}
+
+	private static synchronized ExecutorService getSharedExecutor() {
+		if (sharedExecutor == null) {
+			sharedExecutor = Executors.newFixedThreadPool(8, r -> {
+				val t = new Thread(r, "page-data");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+
+		return sharedExecutor;
+	}
+
+	/**
+	 * @param state The state the caller asked for, if any
+	 * @param locate Finds the caller's state in memory: the state, "" if they're outside the US, or null if it can't tell
+	 * @param locateRemotely Finds the caller's state with a remote lookup, for when locate can't tell
+	 * @param legislators The legislators list for a state, or the default list for null
+	 * @param allLegislators Every legislator, for the search box
+	 */
+	public LegislatorPageData load(String state, Supplier<String> locate, Supplier<Optional<String>> locateRemotely, Function<String, List<Persistable>> legislators, Supplier<List<List<String>>> allLegislators) {
+		if (state != null) {
+			return new LegislatorPageData(state, legislators.apply(state), allLegislators.get());
+		}
+
+		String located = locate.get();
+		if (located == null) {
+			located = within(locateRemotely, geolocationTimeout, "Geolocation").flatMap(l -> l).orElse(null);
+		}
+
+		if (StringUtils.isNotEmpty(located)) {
+			val location = located;
+			val legs = within(() -> legislators.apply(location), listTimeout, "The legislators query for " + location);
+			if (legs.isPresent()) return new LegislatorPageData(location, legs.get(), allLegislators.get());
+		}
+
+		val defaults = within(() -> legislators.apply(null), listTimeout, "The default legislators query")
+				.orElseThrow(() -> new ServiceUnavailableException("Couldn't load the legislators"));
+
+		return new LegislatorPageData(null, defaults, allLegislators.get());
+	}
+
+	/**
+	 * Runs the call on the executor (charging its time to the caller's invocation, see Telemetry) and waits up to the
+	 * timeout for it, cancelling (and so interrupting) it if it's still running after that.
+	 *
+	 * @return The result, or empty if the call failed or timed out
+	 */
+	private <T> Optional<T> within(Supplier<T> call, Duration timeout, String what) {
+		Future<T> future = executor.submit(Telemetry.get().carry(call)::get);
+
+		try {
+			return Optional.ofNullable(future.get(timeout.toMillis(), TimeUnit.MILLISECONDS));
+		} catch (TimeoutException e) {
+			Log.warn(what + " took longer than " + timeout.toMillis() + "ms");
+			return Optional.empty();
+		} catch (ExecutionException e) {
+			Log.error(what + " failed", e.getCause());
+			return Optional.empty();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Optional.empty();
+		} finally {
+			future.cancel(true);
+		}
+	}
+}
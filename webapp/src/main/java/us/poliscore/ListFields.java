@@ -0,0 +1,60 @@
+package us.poliscore;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+import jakarta.ws.rs.BadRequestException;
+import lombok.val;
+
+/**
+ * The fields parameter of the list endpoints. Each list view declares its fields along with the DynamoDB attributes
+ * needed to fill them, so that a request for a few fields only reads (and only serializes) those.
+ */
+public class ListFields {
+
+	// Shorthand for every field of the view
+	public static final String ALL = "list";
+
+	/**
+	 * @param fields A comma separated list of view fields, or "list" for all of them
+	 * @param available The view's fields and the attributes behind them
+	 * @return The requested fields, or null if none were asked for (in which case the full objects are returned)
+	 */
+	public static Set<String> parse(String fields, Map<String, List<String>> available) {
+		if (StringUtils.isBlank(fields)) return null;
+
+		val parsed = new LinkedHashSet<String>();
+
+		for (String field : fields.split(",")) {
+			field = field.trim();
+
+			if (field.equals(ALL)) {
+				parsed.addAll(available.keySet());
+			} else if (available.containsKey(field)) {
+				parsed.add(field);
+			} else if (StringUtils.isNotBlank(field)) {
+				throw new BadRequestException("Unknown field " + field + ", expected one of " + available.keySet());
+			}
+		}
+
+		return parsed;
+	}
+
+	/**
+	 * The DynamoDB attributes (as dotted paths) to project for these fields
+	 */
+	public static List<String> projection(Set<String> fields, Map<String, List<String>> available) {
+		val attributes = new LinkedHashSet<String>();
+
+		for (String field : fields) {
+			attributes.addAll(available.get(field));
+		}
+
+		return new ArrayList<String>(attributes);
+	}
+}
@@ -0,0 +1,294 @@
+package us.poliscore;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ImageMode;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.val;
+import us.poliscore.geo.IpRegionTrie;
+import us.poliscore.model.LegislativeNamespace;
+import us.poliscore.model.LegislativeSession;
+import us.poliscore.search.BillSearchIndex;
+import us.poliscore.search.IssueLeaderboards;
+import us.poliscore.search.LegislatorSearchIndex;
+import us.poliscore.search.MappedResources;
+import us.poliscore.search.StringTableIndex;
+import us.poliscore.search.TypeaheadIndexes;
+import us.poliscore.service.storage.IndexArtifactStore;
+import us.poliscore.service.storage.VersionedSnapshot;
+
+/**
+ * Every index the webapp ships with as a classpath resource, loaded all at once.
+ *
+ * Since the resources are fixed for a deployment, the native image loads them while it's being built: {@link #get()}
+ * reads from a holder class which is initialized at build time (see the native profile in the pom), so the loaded
+ * indexes are part of the image heap and the first request doesn't pay to parse anything. Buffers that would otherwise
+ * be memory-mapped are read onto the heap instead, since a mapping can't outlive the build.
+ *
+ * On the JVM the same holder is simply initialized on first use, with the binary indexes memory-mapped.
+ *
+ * A webapp can also follow the indexes published to an {@link IndexArtifactStore} (see PublishedIndexService), in which
+ * case {@link #get()} returns the published build once it's loaded, and each newer build as it's swapped in. A published
+ * build is only loaded when it's newer than the one bundled with the deployment.
+ */
+@Getter
+public class WebappIndexes {
+
+	private final List<LegislativeSession> sessions;
+
+	private final List<List<String>> legislators;
+
+	private final Map<String, List<List<String>>> bills;
+
+	private final Map<String, BillSearchIndex> billSearch;
+
+	private final LegislatorSearchIndex legislatorSearch;
+
+	// Null if the deployment wasn't built with them
+	private final TypeaheadIndexes typeahead;
+
+	// Null if the deployment wasn't built with one
+	private final IpRegionTrie ipRegions;
+
+	// Null if the deployment wasn't built with them
+	private final IssueLeaderboards issueLeaderboards;
+
+	// The published build these were loaded from, or null for the ones bundled with the deployment
+	private final String version;
+
+	// The key of the published indexes in their snapshot, which only ever holds the one set
+	private static final String PUBLISHED = "indexes";
+
+	private static volatile VersionedSnapshot<String, WebappIndexes> published;
+
+	/**
+	 * Where a set of indexes is read from, by artifact name (see IndexArtifactStore.ARTIFACTS)
+	 */
+	private static interface Source {
+		String string(String name);
+
+		ByteBuffer buffer(String name);
+	}
+
+	private static class Baked {
+		private static final WebappIndexes INDEXES;
+
+		static {
+			val start = System.currentTimeMillis();
+			val inHeap = ImageMode.current() == ImageMode.NATIVE_BUILD;
+
+			INDEXES = load(inHeap);
+
+			Log.info("Loaded webapp indexes" + (inHeap ? " into the image heap" : "") + " in " + (System.currentTimeMillis() - start) + "ms");
+		}
+	}
+
+	public static WebappIndexes get() {
+		val snapshot = published;
+
+		if (snapshot != null) {
+			val indexes = snapshot.get(PUBLISHED);
+			if (indexes != null) return indexes;
+		}
+
+		return Baked.INDEXES;
+	}
+
+	/**
+	 * Serves the indexes published to the store from now on, swapping in each newer build as it's published. The current
+	 * build is loaded in the background, and requests are served the bundled indexes until it's ready (or for as long as
+	 * nothing newer than them has been published), so no request ever waits on a download.
+	 *
+	 * @param checkInterval How often (at most) the store's pointer is read, in the background
+	 * @param bundledVersion The build version of the bundled indexes
+	 */
+	public static void follow(IndexArtifactStore store, Duration checkInterval, long bundledVersion) {
+		val snapshot = new VersionedSnapshot<String, WebappIndexes>(() -> store.getCurrentVersion().orElse(null), version -> {
+			if (!isNewer(version, bundledVersion)) {
+				Log.info("Published webapp indexes " + version + " aren't newer than the bundled build " + bundledVersion + ", serving the bundled ones");
+				return Map.of();
+			}
+
+			val start = System.currentTimeMillis();
+			val indexes = load(publishedSource(store, version), version);
+
+			Log.info("Loaded webapp indexes " + version + " from " + store.getDeployment() + " in " + (System.currentTimeMillis() - start) + "ms");
+			return Map.of(PUBLISHED, indexes);
+		}, checkInterval);
+
+		val loader = new Thread(() -> {
+			try {
+				snapshot.load();
+				published = snapshot;
+			} catch (Exception e) {
+				// The bundled indexes are always there to fall back on
+				Log.error("Couldn't load the published webapp indexes, serving the bundled ones", e);
+			}
+		}, "index-load");
+
+		loader.setDaemon(true);
+		loader.start();
+	}
+
+	/**
+	 * Whether the published version is a build strictly newer than the bundled one. Versions are build timestamps, so one
+	 * that isn't a number can't be ordered against ours and is never loaded.
+	 */
+	protected static boolean isNewer(String version, long bundledVersion) {
+		if (version == null) return false;
+
+		try {
+			return Long.parseLong(version) > bundledVersion;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @param inHeap Read binary indexes onto the heap rather than memory mapping them
+	 */
+	public static WebappIndexes load(boolean inHeap) {
+		return load(new Source() {
+			@Override
+			public String string(String name) {
+				return resourceString("/" + name);
+			}
+
+			@Override
+			public ByteBuffer buffer(String name) {
+				return WebappIndexes.buffer("/" + name, inHeap);
+			}
+		}, null);
+	}
+
+	private static Source publishedSource(IndexArtifactStore store, String version) {
+		return new Source() {
+			@Override
+			public String string(String name) {
+				return store.get(version, name).map(b -> new String(b, StandardCharsets.UTF_8)).orElse(null);
+			}
+
+			@Override
+			public ByteBuffer buffer(String name) {
+				return store.get(version, name).map(ByteBuffer::wrap).orElse(null);
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	@SneakyThrows
+	private static WebappIndexes load(Source source, String version) {
+		val mapper = PoliscoreUtil.getObjectMapper();
+
+		val sessions = mapper.readValue(source.string("sessions.json"), new TypeReference<List<LegislativeSession>>() {});
+
+		List<List<String>> legislators;
+		val legislatorTable = stringTable(source, "legislators.table");
+		if (legislatorTable != null) {
+			legislators = legislatorTable.table(StringTableIndex.LEGISLATORS_TABLE);
+		} else {
+			legislators = mapper.readValue(source.string("legislators.index"), List.class);
+		}
+
+		Map<String, List<List<String>>> bills = new HashMap<String, List<List<String>>>();
+		val billTable = stringTable(source, "bills.table");
+		if (billTable != null) {
+			for (val ns : billTable.names()) bills.put(ns, billTable.table(ns));
+		} else {
+			val json = mapper.readTree(source.string("bills.index"));
+
+			// Indexes from before there were multiple namespaces are a single list of congressional bills
+			if (json.isArray()) {
+				bills.put(LegislativeNamespace.US_CONGRESS.getNamespace(), mapper.convertValue(json, List.class));
+			} else {
+				bills = mapper.convertValue(json, Map.class);
+			}
+		}
+
+		Map<String, BillSearchIndex> billSearch;
+		val billSearchJson = source.string("bills.search");
+		if (billSearchJson != null) {
+			billSearch = mapper.readValue(billSearchJson, new TypeReference<Map<String, BillSearchIndex>>() {});
+		} else {
+			// Deployments built before bills.search existed only ship the bills.index rows, which the search index can be built from
+			billSearch = new HashMap<String, BillSearchIndex>();
+			for (val e : bills.entrySet()) billSearch.put(e.getKey(), BillSearchIndex.build(e.getValue()));
+		}
+
+		LegislatorSearchIndex legislatorSearch;
+		val legislatorSearchJson = source.string("legislators.search");
+		if (legislatorSearchJson != null) {
+			legislatorSearch = mapper.readValue(legislatorSearchJson, LegislatorSearchIndex.class);
+		} else {
+			// Without the prebuilt index we can still search names and nicknames, just not locations
+			legislatorSearch = LegislatorSearchIndex.build(legislators);
+		}
+
+		val typeaheadBuffer = source.buffer("typeahead.index");
+		val typeahead = typeaheadBuffer == null ? null : new TypeaheadIndexes(typeaheadBuffer);
+
+		val ipRegionBuffer = source.buffer("ipregions.trie");
+		val ipRegions = ipRegionBuffer == null ? null : new IpRegionTrie(ipRegionBuffer);
+
+		val leaderboardBuffer = source.buffer("issue.leaderboards");
+		val issueLeaderboards = leaderboardBuffer == null ? null : new IssueLeaderboards(leaderboardBuffer);
+
+		return new WebappIndexes(sessions, legislators, bills, billSearch, legislatorSearch, typeahead, ipRegions, issueLeaderboards, version);
+	}
+
+	private WebappIndexes(List<LegislativeSession> sessions, List<List<String>> legislators, Map<String, List<List<String>>> bills, Map<String, BillSearchIndex> billSearch, LegislatorSearchIndex legislatorSearch, TypeaheadIndexes typeahead, IpRegionTrie ipRegions, IssueLeaderboards issueLeaderboards, String version) {
+		this.sessions = sessions;
+		this.legislators = legislators;
+		this.bills = bills;
+		this.billSearch = billSearch;
+		this.legislatorSearch = legislatorSearch;
+		this.typeahead = typeahead;
+		this.ipRegions = ipRegions;
+		this.issueLeaderboards = issueLeaderboards;
+		this.version = version;
+	}
+
+	@SneakyThrows
+	private static String resourceString(String resource) {
+		try (InputStream in = WebappIndexes.class.getResourceAsStream(resource)) {
+			return in == null ? null : IOUtils.toString(in, "UTF-8");
+		}
+	}
+
+	@SneakyThrows
+	private static ByteBuffer buffer(String resource, boolean inHeap) {
+		if (!inHeap) return MappedResources.mapResource(resource);
+
+		try (InputStream in = WebappIndexes.class.getResourceAsStream(resource)) {
+			return in == null ? null : ByteBuffer.wrap(IOUtils.toByteArray(in));
+		}
+	}
+
+	/**
+	 * The binary form of a JSON index, or null if the deployment doesn't ship one (or ships one from an incompatible
+	 * version), in which case the caller falls back to the JSON.
+	 */
+	private static StringTableIndex stringTable(Source source, String name) {
+		val buffer = source.buffer(name);
+		if (buffer == null) return null;
+
+		try {
+			return new StringTableIndex(buffer);
+		} catch (IllegalArgumentException e) {
+			Log.warn("Ignoring " + name + ": " + e.getMessage());
+			return null;
+		}
+	}
+}
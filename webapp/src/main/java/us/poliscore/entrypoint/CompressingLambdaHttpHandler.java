@@ -0,0 +1,42 @@
+package us.poliscore.entrypoint;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+
+import io.quarkus.amazon.lambda.http.LambdaHttpHandler;
+import jakarta.inject.Named;
+import lombok.val;
+import us.poliscore.metrics.Telemetry;
+
+/**
+ * The HTTP handler, with its responses compressed on the way out (see ResponseCompression) and every invocation timed
+ * (see Telemetry).
+ */
+@Named("poliscore")
+public class CompressingLambdaHttpHandler extends LambdaHttpHandler {
+
+	// Anything else (a probe for /wp-admin, say) is counted together, so that stray paths can't add dimensions
+	public static final String OTHER_ENDPOINT = "other";
+
+	private static final ResponseCompression compression = new ResponseCompression();
+
+	@Override
+	public APIGatewayV2HTTPResponse handleRequest(APIGatewayV2HTTPEvent event, Context context) {
+		val telemetry = Telemetry.get();
+		val invocation = telemetry.begin(endpoint(event));
+
+		try {
+			return compression.handle(event, e -> super.handleRequest(e, context));
+		} finally {
+			telemetry.end(invocation);
+		}
+	}
+
+	static String endpoint(APIGatewayV2HTTPEvent event) {
+		val endpoint = StringUtils.removeStart(event.getRawPath(), "/");
+		return HttpCacheFilter.POLICIES.containsKey(endpoint) ? endpoint : OTHER_ENDPOINT;
+	}
+}
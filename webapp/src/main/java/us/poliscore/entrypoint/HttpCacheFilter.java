@@ -0,0 +1,176 @@
+package us.poliscore.entrypoint;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import io.quarkus.logging.Log;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import lombok.val;
+import us.poliscore.WebappIndexes;
+
+/**
+ * Adds ETag, Last-Modified and Cache-Control headers to the Lambda's endpoints, and answers conditional requests with a 304
+ * before the endpoint (and DynamoDB) is ever touched.
+ *
+ * Everything the Lambda serves is produced by a database build, and the webapp is redeployed with the indexes from that
+ * build, so the build version (written to build.version by the WebappDataGenerator) identifies the content of every
+ * response. A webapp following the published indexes (see PublishedIndexService) may since have swapped in a newer build,
+ * whose version is used instead. The current day is part of the tag as well, since the "hot" orderings decay daily.
+ */
+@Provider
+public class HttpCacheFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+	public static final String NO_STORE = "no-store";
+
+	public static final String PRIVATE = "private, max-age=300";
+
+	// Browsers revalidate after five minutes (which usually costs a 304), shared caches hold on for an hour
+	public static final String OBJECT = "public, max-age=300, s-maxage=3600, stale-while-revalidate=60";
+
+	// Served entirely from indexes that ship with the deployment
+	public static final String INDEX = "public, max-age=3600, s-maxage=86400";
+
+	public static final Map<String, String> POLICIES = Map.ofEntries(
+		Map.entry("getSessionStats", OBJECT),
+		Map.entry("getLegislator", OBJECT),
+		Map.entry("getLegislatorInteractions", OBJECT),
+		Map.entry("getLegislators", OBJECT),
+		Map.entry("getLegislatorPageData", OBJECT),
+		Map.entry("getBill", OBJECT),
+		Map.entry("getBills", OBJECT),
+		Map.entry("getBillsByIds", OBJECT),
+		Map.entry("getLegislatorsByIds", OBJECT),
+		Map.entry("queryBills", INDEX),
+		Map.entry("queryLegislators", INDEX),
+		Map.entry("autocomplete", INDEX)
+	);
+
+	private static Long buildVersion;
+
+	public static synchronized long getBuildVersion() {
+		if (buildVersion == null) {
+			try (InputStream is = HttpCacheFilter.class.getResourceAsStream("/build.version")) {
+				buildVersion = Long.parseLong(IOUtils.toString(is, StandardCharsets.UTF_8).trim());
+			} catch (Exception e) {
+				// Without a build version, fall back to one per container so that we never claim stale content is current
+				Log.warn("No build.version found, ETags will change with every cold start");
+				buildVersion = System.currentTimeMillis();
+			}
+		}
+
+		return buildVersion;
+	}
+
+	/**
+	 * The version of the build being served, i.e. the bundled one or a later one swapped in since
+	 */
+	protected static long getServedVersion() {
+		val published = WebappIndexes.get().getVersion();
+
+		if (published != null) {
+			try {
+				return Math.max(getBuildVersion(), Long.parseLong(published));
+			} catch (NumberFormatException e) {
+				// Not a build timestamp, so it can't be ordered against ours
+			}
+		}
+
+		return getBuildVersion();
+	}
+
+	/**
+	 * The time the content last changed, i.e. the later of the build and the start of today (UTC)
+	 */
+	protected static long lastModified() {
+		val today = LocalDate.now(ZoneOffset.UTC).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+
+		// HTTP dates only have second precision
+		return (Math.max(getServedVersion(), today) / 1000) * 1000;
+	}
+
+	/**
+	 * Identifies the content of every response, changing with each build and each day
+	 */
+	protected static String contentVersion() {
+		return Long.toString(getServedVersion(), 36) + "-" + LocalDate.now(ZoneOffset.UTC).toEpochDay();
+	}
+
+	// Weak, so that it holds across the gzipped and plain forms of a response (see ResponseCompression)
+	protected static EntityTag entityTag() {
+		return new EntityTag(contentVersion(), true);
+	}
+
+	protected static String endpoint(ContainerRequestContext request) {
+		return StringUtils.removeStart(request.getUriInfo().getPath(), "/");
+	}
+
+	/**
+	 * Which policy applies to this request, or null if it shouldn't be cached or validated at all
+	 */
+	protected static String policy(ContainerRequestContext request) {
+		if (!HttpMethod.GET.equals(request.getMethod())) return null;
+
+		val endpoint = endpoint(request);
+
+		// Without a state the legislators are picked by the caller's IP, so the response belongs to them alone
+		if (endpoint.equals("getLegislatorPageData") && StringUtils.isBlank(request.getUriInfo().getQueryParameters().getFirst("state"))) {
+			return PRIVATE;
+		}
+
+		return POLICIES.get(endpoint);
+	}
+
+	@Override
+	public void filter(ContainerRequestContext request) {
+		val policy = policy(request);
+		if (policy == null || policy.equals(PRIVATE)) return;
+
+		val tag = entityTag();
+		val builder = request.getRequest().evaluatePreconditions(new Date(lastModified()), tag);
+
+		if (builder != null) {
+			request.abortWith(builder
+					.tag(tag)
+					.lastModified(new Date(lastModified()))
+					.header(HttpHeaders.CACHE_CONTROL, policy)
+					.build());
+		}
+	}
+
+	@Override
+	public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+		if (response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) return;
+
+		val policy = policy(request);
+		if (policy == null) return;
+
+		// Errors and missing objects shouldn't stick around anywhere
+		if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+			response.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL, NO_STORE);
+			return;
+		}
+
+		response.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL, policy);
+
+		if (!policy.equals(PRIVATE)) {
+			response.getHeaders().putSingle(HttpHeaders.ETAG, entityTag());
+			response.getHeaders().putSingle(HttpHeaders.LAST_MODIFIED, Date.from(Instant.ofEpochMilli(lastModified())));
+		}
+	}
+}
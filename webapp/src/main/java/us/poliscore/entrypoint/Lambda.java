@@ -1,38 +1,45 @@
 package us.poliscore.entrypoint;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.text.similarity.LevenshteinDistance;
 import org.jboss.resteasy.reactive.RestQuery;
 import org.joda.time.LocalDate;
-import org.tartarus.snowball.SnowballStemmer;
-import org.tartarus.snowball.ext.englishStemmer;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.quarkus.logging.Log;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.core.Context;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.val;
+import us.poliscore.BillListView;
+import us.poliscore.HydratedLegislator;
 import us.poliscore.LegislatorBillLinker;
+import us.poliscore.LegislatorListView;
 import us.poliscore.LegislatorPageData;
+import us.poliscore.LegislatorPageDataLoader;
+import us.poliscore.ListFields;
 import us.poliscore.Page;
+import us.poliscore.WebappIndexes;
+import us.poliscore.metrics.Telemetry;
+import us.poliscore.metrics.Telemetry.Phase;
 import us.poliscore.model.CongressionalSession;
 import us.poliscore.model.LegislativeNamespace;
 import us.poliscore.model.LegislativeSession;
@@ -43,11 +50,18 @@ import us.poliscore.model.bill.BillInterpretation;
 import us.poliscore.model.bill.BillIssueStat;
 import us.poliscore.model.legislator.Legislator;
 import us.poliscore.model.legislator.Legislator.LegislatorBillInteractionList;
-import us.poliscore.model.legislator.LegislatorBillInteraction;
 import us.poliscore.model.legislator.LegislatorIssueStat;
 import us.poliscore.model.session.SessionInterpretation;
+import us.poliscore.search.BillSearchIndex;
+import us.poliscore.search.IssueLeaderboards;
+import us.poliscore.search.LegislatorSearchIndex;
+import us.poliscore.search.TypeaheadIndex;
+import us.poliscore.search.TypeaheadIndex.Suggestion;
 import us.poliscore.service.IpGeolocationService;
+import us.poliscore.service.SessionInterpretationService;
+import us.poliscore.service.storage.BoundedMemoryObjectStore;
 import us.poliscore.service.storage.DynamoDbPersistenceService;
+import us.poliscore.service.storage.TtlCache;
 
 @Path("")
 @RequestScoped
@@ -63,19 +77,33 @@ public class Lambda {
     IpGeolocationService ipService;
     
     @Inject
-    ObjectMapper mapper;
+    SessionInterpretationService sessionInterpretations;
     
-    private static List<List<String>> cachedAllLegs;
+    // The database is rebuilt at most a few times a day, so first pages can live for a while. Deep pages and issue
+    // leaderboards are requested less often and aren't worth holding on to for as long.
+    public static final Duration FIRST_PAGE_TTL = Duration.ofHours(1);
     
-    private static List<LegislativeSession> cachedSessions;
+    public static final Duration LIST_TTL = Duration.ofMinutes(10);
     
-    private static Map<String, List<Legislator>> cachedLegislators = new HashMap<String, List<Legislator>>();
+    public static final int MAX_CACHED_LISTS = 500;
     
-    private static Map<String, List<Bill>> cachedBills = new HashMap<String, List<Bill>>();
+    private static final TtlCache<String, List<Persistable>> cachedLists = new TtlCache<String, List<Persistable>>(MAX_CACHED_LISTS);
     
-    private static List<Bill> allBillsDump;
+    // Legislators with a full set of interactions can be a few megabytes each once hydrated, so rather than a count they're
+    // held to a share of the Lambda's heap (which also has to fit the lists, heads and compressed responses), weighed the
+    // same way as the memory object cache.
+    public static final long MAX_HYDRATED_LEGISLATOR_BYTES = 32L * 1024 * 1024;
     
-    private static Map<String,List<List<String>>> allBillsIndex;
+    private static final TtlCache<String, HydratedLegislator> hydratedLegislators = new TtlCache<String, HydratedLegislator>(MAX_HYDRATED_LEGISLATOR_BYTES, h -> BoundedMemoryObjectStore.weigh(h.getLegislator()));
+    
+    // Head pages (a bill, or a legislator without their interactions) for the by-ids endpoints
+    public static final int MAX_CACHED_HEADS = 2000;
+    
+    private static final TtlCache<String, Persistable> cachedHeads = new TtlCache<String, Persistable>(MAX_CACHED_HEADS);
+    
+    public static final int MAX_BATCH_IDS = DynamoDbPersistenceService.MAX_BATCH_GET;
+    
+    private static final LegislatorPageDataLoader pageDataLoader = new LegislatorPageDataLoader();
     
     @GET
     @Path("getSessionStats")
@@ -83,12 +111,14 @@ public class Lambda {
     	val namespace = LegislativeNamespace.of(nsKey);
     	val session = lookupSession(namespace, year);
     	
-    	val op = ddb.get(SessionInterpretation.generateId(namespace, session.getCode()), SessionInterpretation.class);
+    	val op = sessionInterpretations.get(session);
     	
+    	// A session which hasn't been interpreted yet (a new congress, say) shows another one from the same legislature
     	if (op.isEmpty()) {
     		for (var loopSes : getSessions()) {
     			if (!loopSes.equals(session) && loopSes.getNamespace().equals(session.getNamespace())) {
-    				return ddb.get(SessionInterpretation.generateId(loopSes.getNamespace(), loopSes.getCode()), SessionInterpretation.class).orElse(null);
+    				val other = sessionInterpretations.get(loopSes);
+    				if (other.isPresent()) return other.get();
     			}
     		}
     	}
@@ -104,22 +134,15 @@ public class Lambda {
     	Boolean ascending = _ascending == null ? Boolean.FALSE : _ascending;
     	int exclusiveStartKey = (_exclusiveStartKey == null) ? -1 : _exclusiveStartKey;
     	
-    	val op = ddb.get(id, Legislator.class);
+    	val hydrated = getHydratedLegislator(id);
+    	if (hydrated == null) return null;
     	
-    	if (op.isPresent()) {
-    		val leg = op.get();
-    		
-//    		if (_ascending == null && leg.getInterpretation().getRating() < 0)
-//    			ascending = Boolean.TRUE;
-    		
-    		LegislatorBillLinker.linkInterpBills(leg, getSessions());
-    		
-    		var page = filterInteractions(leg, index, sortKey, pageSize, ascending, exclusiveStartKey);
-    		
-    		leg.setInteractions(page.getData().get(0));
-    	}
+//    	if (_ascending == null && hydrated.getLegislator().getInterpretation().getRating() < 0)
+//    		ascending = Boolean.TRUE;
     	
-    	return op.orElse(null);
+    	val page = hydrated.page(index, sortKey, pageSize, ascending, exclusiveStartKey);
+    	
+    	return hydrated.withInteractions(page.getData().get(0));
     }
     
     @GET
@@ -130,12 +153,10 @@ public class Lambda {
     	Boolean ascending = _ascending == null ? Boolean.FALSE : _ascending;
     	int exclusiveStartKey = (_exclusiveStartKey == null) ? -1 : _exclusiveStartKey;
 
-    	val op = ddb.get(id, Legislator.class);
+    	val hydrated = getHydratedLegislator(id);
     	
-    	if (op.isPresent()) {
-    		val leg = op.get();
-    		
-    		return filterInteractions(leg, index, sortKey, pageSize, ascending, exclusiveStartKey);
+    	if (hydrated != null) {
+    		return hydrated.page(index, sortKey, pageSize, ascending, exclusiveStartKey);
     	}
     	
     	Page<LegislatorBillInteractionList> page = new Page<LegislatorBillInteractionList>();
@@ -145,58 +166,35 @@ public class Lambda {
     	return page;
     }
     
-    private Page<LegislatorBillInteractionList> filterInteractions(Legislator leg, String index, String sortKey, Integer pageSize, Boolean ascending, Integer exclusiveStartKey)
-    {
-    	Page<LegislatorBillInteractionList> page = new Page<LegislatorBillInteractionList>();
-    	page.setData(Arrays.asList());
-    	page.setExclusiveStartKey(exclusiveStartKey);
-    	
-    	val interacts = new LegislatorBillInteractionList();
-    	page.setData(Arrays.asList(interacts));
-    	
-    	var stream = leg.getInteractions().stream();
-		
-		Comparator<LegislatorBillInteraction> comparator;
-		if (index.equals(Persistable.OBJECT_BY_DATE_INDEX)) {
-			comparator = Comparator.comparing(LegislatorBillInteraction::getDate);
-		} else if (index.equals(Persistable.OBJECT_BY_RATING_INDEX)) {
-			comparator = Comparator.comparing(LegislatorBillInteraction::getRating);
-		} else if (index.equals(Persistable.OBJECT_BY_RATING_ABS_INDEX)) {
-			comparator = Comparator.comparing(LegislatorBillInteraction::getRatingAbs);
-		} else if (index.equals(Persistable.OBJECT_BY_IMPACT_INDEX)) {
-			comparator = Comparator.comparing(LegislatorBillInteraction::getImpact);
-		} else if (index.equals(Persistable.OBJECT_BY_IMPACT_ABS_INDEX)) {
-			comparator = Comparator.comparing(LegislatorBillInteraction::getImpactAbs);
-		} else if (index.equals(Persistable.OBJECT_BY_HOT_INDEX)) {
-			comparator = Comparator.comparing(LegislatorBillInteraction::getHot);
-		} else if (index.equals("TrackedIssue")) {
-			var issue = TrackedIssue.valueOf(sortKey);
-			stream = stream.filter(lbi -> lbi.getIssueStats().hasStat(issue));
-			comparator = (LegislatorBillInteraction a, LegislatorBillInteraction b) -> Integer.valueOf(a.getRating(issue)).compareTo(b.getRating(issue));
-		} else {
-			throw new UnsupportedOperationException(index);
-		}
-		
-		if (ascending) {
-			stream = stream.sorted(comparator);
-		} else {
-			stream = stream.sorted(comparator.reversed());
-		}
-		
-		var allInteracts = stream.collect(Collectors.toList());
-		
-		for (int i = exclusiveStartKey + 1; i < Math.min(allInteracts.size(), exclusiveStartKey + 1 + pageSize); ++i) {
-			interacts.add(allInteracts.get(i));
-		}
-		
-		page.setHasMoreData((interacts.size() + 1 + exclusiveStartKey) < allInteracts.size());
-		
-		return page;
+    /**
+     * Fetches, decompresses and links a legislator once per container (until it expires), rather than on every request.
+     * The returned instance is shared and must not be modified.
+     */
+    private HydratedLegislator getHydratedLegislator(String id) {
+    	return hydratedLegislators.get(versioned(id), FIRST_PAGE_TTL, () -> {
+    		val op = ddb.get(id, Legislator.class);
+    		if (op.isEmpty()) return null;
+    		
+    		val leg = op.get();
+    		Telemetry.get().time(Phase.LINKING, () -> LegislatorBillLinker.linkInterpBills(leg, getSessions()));
+    		
+    		return new HydratedLegislator(leg);
+    	});
     }
     
     @GET
     @Path("/getLegislators")
-    public List<Persistable> getLegislators(@RestQuery("pageSize") Integer _pageSize, @RestQuery("index") String _index, @RestQuery("ascending") Boolean _ascending, @RestQuery("exclusiveStartKey") String _exclusiveStartKey, @RestQuery String sortKey, @RestQuery("year") Integer _year, @RestQuery("namespace") String _namespace) {
+    public List<?> getLegislators(@RestQuery("pageSize") Integer _pageSize, @RestQuery("index") String _index, @RestQuery("ascending") Boolean _ascending, @RestQuery("exclusiveStartKey") String _exclusiveStartKey, @RestQuery String sortKey, @RestQuery("year") Integer _year, @RestQuery("namespace") String _namespace, @RestQuery("fields") String _fields) {
+    	val fields = ListFields.parse(_fields, LegislatorListView.FIELDS);
+    	val legs = getLegislatorList(_pageSize, _index, _ascending, _exclusiveStartKey, sortKey, _year, _namespace, fields);
+    	
+    	return fields == null ? legs : legs.stream().map(l -> LegislatorListView.toView(l, fields)).toList();
+    }
+    
+    /**
+     * @param fields The list view fields to read, or null for full legislators
+     */
+    private List<Persistable> getLegislatorList(Integer _pageSize, String _index, Boolean _ascending, String _exclusiveStartKey, String sortKey, Integer _year, String _namespace, Set<String> fields) {
     	val index = StringUtils.isNotBlank(_index) ? _index : Persistable.OBJECT_BY_DATE_INDEX;
     	val startKey = _exclusiveStartKey;
     	var pageSize = _pageSize == null ? 25 : _pageSize;
@@ -207,85 +205,141 @@ public class Lambda {
     	val session = lookupSession(namespace, year);
     	String storageBucket = Persistable.getClassStorageBucket(Legislator.class, namespace, session.getCode());
     	
-    	val cacheable = StringUtils.isBlank(startKey) && pageSize == 25 && !index.equals(Persistable.OBJECT_BY_ISSUE_IMPACT_INDEX) && !index.equals(Persistable.OBJECT_BY_ISSUE_RATING_INDEX);
-    	val cacheKey = storageBucket + "-" + index + "-" + ascending.toString() + (StringUtils.isBlank(sortKey) ? "" : "-" + sortKey);
-    	if (cacheable && cachedLegislators.containsKey(cacheKey)) return cachedLegislators.get(cacheKey).stream().map(l -> (Persistable) l).toList();
-    	
-    	if (index.equals(Persistable.OBJECT_BY_ISSUE_IMPACT_INDEX) || index.equals(Persistable.OBJECT_BY_ISSUE_RATING_INDEX)) {
-    		storageBucket = LegislatorIssueStat.getIndexPrimaryKey(session.getNamespace(), session.getCode(), TrackedIssue.valueOf(sortKey));
-    		sortKey = null;
-    		val legs = ddb.query(LegislatorIssueStat.class, pageSize, index, ascending, startKey, sortKey, storageBucket);
-    		return legs.stream().map(l -> (Persistable) l).toList();
+    	val cacheKey = listCacheKey("legislators", storageBucket, index, ascending, sortKey, pageSize, startKey, fields);
+    	val issueOrder = IssueLeaderboards.Order.forIndex(index);
+    	
+    	return cachedList(cacheKey, StringUtils.isBlank(startKey) && issueOrder == null, () -> {
+	    	if (issueOrder != null) {
+	    		val issue = TrackedIssue.valueOf(sortKey);
+	    		val issueBucket = LegislatorIssueStat.getIndexPrimaryKey(session.getNamespace(), session.getCode(), issue);
+	    		val page = leaderboardPage(issueBucket, issueOrder, ascending, startKey, pageSize, Legislator.class, found -> {}, (leg, impact) -> new LegislatorIssueStat(issue, impact, leg));
+	    		if (page != null) return page;
+	    		
+	    		val legs = ddb.query(LegislatorIssueStat.class, pageSize, index, ascending, startKey, null, issueBucket);
+	    		return legs.stream().map(l -> (Persistable) l).toList();
+	    	}
+	    	
+	    	val legs = ddb.query(Legislator.class, session.getKey(), pageSize, index, ascending, startKey, sortKey, fields == null ? null : ListFields.projection(fields, LegislatorListView.FIELDS));
+	    	
+	    	legs.forEach(l -> l.setInteractions(new LegislatorBillInteractionList()));
+	    	
+	    	return legs.stream().map(l -> (Persistable) l).toList();
+    	});
+    }
+    
+    /**
+     * A page of an issue leaderboard, ranked from the leaderboards bundled with the deployment, with only the entities on
+     * the page fetched (from the head cache where possible, the rest in one batch). The stats are rebuilt from the heads and
+     * the impact on the board, as they were when the database was built.
+     * 
+     * @return The page, or null if the deployment has no such leaderboard, in which case the issue index is queried instead
+     */
+    private <T extends Persistable> List<Persistable> leaderboardPage(String issueBucket, IssueLeaderboards.Order order, boolean ascending, String startKey, int pageSize, Class<T> clazz, Consumer<Map<String, T>> prepare, BiFunction<T, Long, Persistable> stat) {
+    	val leaderboards = WebappIndexes.get().getIssueLeaderboards();
+    	val board = leaderboards == null ? null : leaderboards.board(issueBucket);
+    	
+    	if (board == null) {
+    		// DynamoDB has no index to fall back on for these
+    		if (order == IssueLeaderboards.Order.RATING_ABS || order == IssueLeaderboards.Order.IMPACT_ABS) throw new BadRequestException("No leaderboard for " + issueBucket);
+    		
+    		return null;
     	}
     	
-    	val legs = ddb.query(Legislator.class, session.getKey(), pageSize, index, ascending, startKey, sortKey);
+    	val entries = board.page(order, ascending, leaderboardStart(board, order, ascending, startKey, issueBucket), pageSize);
+    	
+    	val ids = new ArrayList<String>(entries.length);
+    	for (int entry : entries) ids.add(board.id(entry));
     	
-    	legs.forEach(l -> l.setInteractions(new LegislatorBillInteractionList()));
+    	val heads = getHeads(ids, clazz, prepare);
     	
-    	if (cacheable) {
-    		cachedLegislators.put(cacheKey, legs);
+    	val page = new ArrayList<Persistable>(entries.length);
+    	for (int i = 0; i < entries.length; ++i) {
+    		if (heads.get(i) != null) page.add(stat.apply(heads.get(i), board.impact(entries[i])));
     	}
     	
-    	return legs.stream().map(l -> (Persistable) l).toList();
+    	return page;
+    }
+    
+    /**
+     * Where a page of a leaderboard starts, from the exclusive start key of the previous page (id~`~value, where the id is
+     * either the entity's or its stat's)
+     */
+    static int leaderboardStart(IssueLeaderboards.Board board, IssueLeaderboards.Order order, boolean ascending, String startKey, String issueBucket) {
+    	if (StringUtils.isBlank(startKey)) return 0;
+    	
+    	val parts = startKey.split("~`~");
+    	val id = StringUtils.removeStart(parts[0], issueBucket + "/");
+    	
+    	Long value = null;
+    	try {
+    		if (parts.length > 1) value = Long.valueOf(parts[1]);
+    	} catch (NumberFormatException e) {
+    		// Resume from the id alone
+    	}
+    	
+    	return board.positionAfter(order, ascending, id, value);
+    }
+    
+    /**
+     * Prefixes a cache key with the build being served. A newer build can be swapped in at runtime (see
+     * PublishedIndexService), and with it the ETag and Last-Modified, so nothing cached from the old build may be served
+     * after that. Entries from the old build are left to age out.
+     */
+    private static String versioned(String key) {
+    	return HttpCacheFilter.getServedVersion() + "|" + key;
+    }
+    
+    /**
+     * Every parameter that changes the query result is part of the key, so that any page, sort or filter can be cached.
+     */
+    private static String listCacheKey(String type, String storageBucket, String index, Boolean ascending, String sortKey, int pageSize, String startKey, Set<String> fields) {
+    	return versioned(String.join("|", type, storageBucket, index, ascending.toString(), StringUtils.defaultString(sortKey), String.valueOf(pageSize), StringUtils.defaultString(startKey), fields == null ? "" : String.join(",", new TreeSet<String>(fields))));
+    }
+    
+    private static List<Persistable> cachedList(String cacheKey, boolean firstPage, Supplier<List<Persistable>> loader) {
+    	return cachedLists.get(cacheKey, firstPage ? FIRST_PAGE_TTL : LIST_TTL, () -> {
+    		val result = loader.get();
+    		Log.debug("List cache miss on " + cacheKey + ": " + cachedLists.getStatsSummary());
+    		return result;
+    	});
     }
     
     @GET
     @SneakyThrows
     @Path("/getLegislatorPageData")
     public LegislatorPageData getLegislatorPageData(@Context APIGatewayV2HTTPEvent event, @RestQuery("state") String state, @RestQuery("year") Integer _year, @RestQuery("namespace") String _namespace) {
-    	String location = null;
     	Integer year = _year == null ? LocalDate.now().getYear() : _year;
     	LegislativeNamespace namespace = StringUtils.isEmpty(_namespace) ? LegislativeNamespace.US_CONGRESS : LegislativeNamespace.of(_namespace);
     	
-    	if (StringUtils.isNotBlank(state)) {
-    		location = state.toUpperCase();
-    	} else {
-	    	try {
-		    	val sourceIp = event.getRequestContext().getHttp().getSourceIp();
-		    	location = ipService.locateIp(sourceIp).orElse(null);
-	    	}
-	    	catch(Exception e) {
-	    		Log.error(e);
-	    	}
-    	}
-    	
-    	String index = (location == null ? null : Persistable.OBJECT_BY_LOCATION_INDEX);
-    	
-    	val legs = getLegislators(null, index, null, null, location, year, namespace.getNamespace());
+    	val ip = event.getRequestContext().getHttp().getSourceIp();
     	
-    	return new LegislatorPageData(location, legs, getAllLegs());
+    	return pageDataLoader.load(StringUtils.isNotBlank(state) ? state.toUpperCase() : null,
+    			() -> ipService.locateIpLocally(ip),
+    			() -> ipService.locateIpRemotely(ip),
+    			location -> getLegislatorList(null, location == null ? null : Persistable.OBJECT_BY_LOCATION_INDEX, null, null, location, year, namespace.getNamespace(), null),
+    			this::getAllLegs);
     }
     
-    @SuppressWarnings("unchecked")
-    @SneakyThrows
     private List<LegislativeSession> getSessions() {
-    	if (cachedSessions == null) {
-    		cachedSessions = mapper.readValue(IOUtils.toString(Lambda.class.getResourceAsStream("/sessions.json"), "UTF-8"), new TypeReference<List<LegislativeSession>>() {});
-    	}
-    	
-    	return cachedSessions;
+    	return WebappIndexes.get().getSessions();
     }
     
     private LegislativeSession lookupSession(LegislativeNamespace namespace, int year) {
     	return getSessions().stream().filter(s -> s.getNamespace().equals(namespace) && s.isYearWithin(year)).findAny().get();
     }
     
-    @SuppressWarnings("unchecked")
-	@SneakyThrows
     private List<List<String>> getAllLegs() {
-    	if (cachedAllLegs == null) {
-    		cachedAllLegs = mapper.readValue(IOUtils.toString(Lambda.class.getResourceAsStream("/legislators.index"), "UTF-8"), List.class);
-    	}
-    	
-    	return cachedAllLegs;
+    	return WebappIndexes.get().getLegislators();
     }
     
     @GET
     @Path("/getBill")
     public Bill getBill(@NonNull @RestQuery("id") String id)
     {
-    	val b = ddb.get(id, Bill.class).orElse(null);
-    	
+    	return stripSliceInterpretations(ddb.get(id, Bill.class).orElse(null));
+    }
+    
+    private static Bill stripSliceInterpretations(Bill b) {
     	if (b != null && b.getInterpretation() != null) {
     		// Unfortunately the SliceInterpretations's "start" and "end" fields (e.g. /bill[1]/legis-body[1]/title[3]/section[15]) are confusing Google.
     		// Google thinks that it's a URL and is trying to follow it. Because we don't really use this data anyway (at the moment), we're going to just null it out for now.
@@ -295,10 +349,103 @@ public class Lambda {
     	return b;
     }
     
+    /**
+     * Up to 100 bills in one call, for pages that list many bills. Ids may be repeated (?ids=a&ids=b) or comma separated.
+     * The result lines up with the requested ids, with a null for each one that doesn't exist.
+     */
+    @GET
+    @Path("/getBillsByIds")
+    public List<Bill> getBillsByIds(@RestQuery("ids") List<String> ids) {
+    	return getHeadsByIds(ids, Bill.class, found -> found.values().forEach(Lambda::stripSliceInterpretations));
+    }
+    
+    /**
+     * Up to 100 legislators in one call, without their interactions (use getLegislator for those). The result lines up with
+     * the requested ids, with a null for each one that doesn't exist.
+     */
+    @GET
+    @Path("/getLegislatorsByIds")
+    public List<Legislator> getLegislatorsByIds(@RestQuery("ids") List<String> ids) {
+    	return getHeadsByIds(ids, Legislator.class, found -> {});
+    }
+    
+    private <T extends Persistable> List<T> getHeadsByIds(List<String> ids, Class<T> clazz, Consumer<Map<String, T>> prepare) {
+    	return getHeads(parseIds(ids), clazz, prepare);
+    }
+    
+    /**
+     * @param prepare Applied to heads fetched from the database before they're cached
+     */
+    private <T extends Persistable> List<T> getHeads(List<String> ids, Class<T> clazz, Consumer<Map<String, T>> prepare) {
+    	val version = HttpCacheFilter.getServedVersion() + "|";
+    	
+    	return inRequestOrder(ids, id -> {
+    		val cached = cachedHeads.getIfPresent(version + id);
+    		return clazz.isInstance(cached) ? clazz.cast(cached) : null;
+    	}, misses -> {
+    		val found = ddb.batchGetHeads(misses, clazz);
+    		prepare.accept(found);
+    		found.forEach((id, head) -> cachedHeads.put(version + id, head, FIRST_PAGE_TTL));
+    		
+    		Log.debug("Fetched " + found.size() + " of " + misses.size() + " " + clazz.getSimpleName() + " cache misses: " + cachedHeads.getStatsSummary());
+    		return found;
+    	});
+    }
+    
+    static List<String> parseIds(List<String> ids) {
+    	val parsed = new ArrayList<String>();
+    	
+    	if (ids != null) {
+    		for (String param : ids) {
+    			for (String id : param.split(",")) {
+    				if (StringUtils.isNotBlank(id)) parsed.add(id.trim());
+    			}
+    		}
+    	}
+    	
+    	if (parsed.size() > MAX_BATCH_IDS) throw new BadRequestException("At most " + MAX_BATCH_IDS + " ids can be fetched at once");
+    	
+    	return parsed;
+    }
+    
+    /**
+     * Answers what it can from the cache, fetches everything else in one go, and lines the results back up with the ids.
+     */
+    static <T> List<T> inRequestOrder(List<String> ids, Function<String, T> cached, Function<Set<String>, Map<String, T>> fetch) {
+    	val results = new ArrayList<T>(ids.size());
+    	val misses = new LinkedHashSet<String>();
+    	
+    	for (String id : ids) {
+    		val hit = cached.apply(id);
+    		results.add(hit);
+    		if (hit == null) misses.add(id);
+    	}
+    	
+    	if (!misses.isEmpty()) {
+    		val found = fetch.apply(misses);
+    		
+    		for (int i = 0; i < ids.size(); ++i) {
+    			if (results.get(i) == null) results.set(i, found.get(ids.get(i)));
+    		}
+    	}
+    	
+    	return results;
+    }
+    
     @GET
     @Path("/getBills")
     @SneakyThrows
-    public List<Persistable> getBills(@RestQuery("pageSize") Integer _pageSize, @RestQuery("index") String _index, @RestQuery("ascending") Boolean _ascending, @RestQuery("exclusiveStartKey") String _exclusiveStartKey, @RestQuery String sortKey, @RestQuery("year") Integer _year, @RestQuery("namespace") String _namespace) {
+    public List<?> getBills(@RestQuery("pageSize") Integer _pageSize, @RestQuery("index") String _index, @RestQuery("ascending") Boolean _ascending, @RestQuery("exclusiveStartKey") String _exclusiveStartKey, @RestQuery String sortKey, @RestQuery("year") Integer _year, @RestQuery("namespace") String _namespace, @RestQuery("fields") String _fields) {
+    	val fields = ListFields.parse(_fields, BillListView.FIELDS);
+    	val bills = getBillList(_pageSize, _index, _ascending, _exclusiveStartKey, sortKey, _year, _namespace, fields);
+    	
+    	return fields == null ? bills : bills.stream().map(b -> BillListView.toView(b, fields)).toList();
+    }
+    
+    /**
+     * @param fields The list view fields to read, or null for full bills
+     */
+    private List<Persistable> getBillList(Integer _pageSize, String _index, Boolean _ascending, String _exclusiveStartKey, String sortKey, Integer _year, String _namespace, Set<String> fields) {
     	val index = StringUtils.isNotBlank(_index) ? _index : Persistable.OBJECT_BY_DATE_INDEX;
     	val startKey = _exclusiveStartKey;
     	var pageSize = _pageSize == null ? 25 : _pageSize;
@@ -309,96 +456,72 @@ public class Lambda {
     	val session = lookupSession(namespace, year);
     	String storageBucket = Persistable.getClassStorageBucket(Bill.class, namespace, session.getCode());
     	
-    	val cacheable = StringUtils.isBlank(startKey) && pageSize == 25 && StringUtils.isBlank(sortKey) && !index.startsWith(TRACKED_ISSUE_INDEX) && !index.equals(Persistable.OBJECT_BY_ISSUE_IMPACT_INDEX) && !index.equals(Persistable.OBJECT_BY_ISSUE_RATING_INDEX);
-    	val cacheKey = storageBucket + "-" + index + "-" + ascending.toString();
-    	if (cacheable && cachedBills.containsKey(cacheKey)) return cachedBills.get(cacheKey).stream().map(l -> (Persistable) l).toList();
-    	
-    	List<Bill> bills;
-    	if (index.equals(Persistable.OBJECT_BY_ISSUE_IMPACT_INDEX) || index.equals(Persistable.OBJECT_BY_ISSUE_RATING_INDEX)) {
-    		storageBucket = BillIssueStat.getIndexPrimaryKey(namespace, session.getCode(), TrackedIssue.valueOf(sortKey));
-    		sortKey = null;
-    		val bii = ddb.query(BillIssueStat.class, pageSize, index, ascending, startKey, sortKey, storageBucket);
-    		return bii.stream().map(l -> (Persistable) l).toList();
-    	} else {
-    		bills = ddb.query(Bill.class, session.getKey(), pageSize, index, ascending, startKey, sortKey);
-    	}
+    	val cacheKey = listCacheKey("bills", storageBucket, index, ascending, sortKey, pageSize, startKey, fields);
+    	val issueOrder = IssueLeaderboards.Order.forIndex(index);
+    	
+    	return cachedList(cacheKey, StringUtils.isBlank(startKey) && issueOrder == null, () -> {
+	    	if (issueOrder != null) {
+	    		val issue = TrackedIssue.valueOf(sortKey);
+	    		val issueBucket = BillIssueStat.getIndexPrimaryKey(namespace, session.getCode(), issue);
+	    		val page = leaderboardPage(issueBucket, issueOrder, ascending, startKey, pageSize, Bill.class, found -> found.values().forEach(Lambda::stripSliceInterpretations), (bill, impact) -> new BillIssueStat(issue, impact.intValue(), bill));
+	    		if (page != null) return page;
+	    		
+	    		val bii = ddb.query(BillIssueStat.class, pageSize, index, ascending, startKey, null, issueBucket);
+	    		return bii.stream().map(l -> (Persistable) l).toList();
+	    	}
+	    	
+	    	val bills = ddb.query(Bill.class, session.getKey(), pageSize, index, ascending, startKey, sortKey, fields == null ? null : ListFields.projection(fields, BillListView.FIELDS));
+	    	
+	    	return bills.stream().map(l -> (Persistable) l).toList();
+    	});
+    }
+    
+    public List<List<String>> getBillsIndex(String namespace) {
+    	return WebappIndexes.get().getBills().get(namespace);
+    }
+    
+    @GET
+    @Path("/queryBills")
+    public List<List<String>> queryBills(@RestQuery("text") String text, @RestQuery("namespace") String namespace) {
+    	val index = getBillSearchIndex(namespace);
     	
-    	if (cacheable) {
-    		cachedBills.put(cacheKey, bills);
-    	}
+    	if (index == null || StringUtils.isBlank(text)) return new ArrayList<List<String>>();
     	
-    	return bills.stream().map(l -> (Persistable) l).toList();
+    	return index.search(text, 30);
     }
     
-    @SuppressWarnings("unchecked")
-    @SneakyThrows
-    public List<Bill> getBillsDump() {
-    	if (allBillsDump == null) {
-    		allBillsDump = mapper.readValue(IOUtils.toString(Lambda.class.getResourceAsStream("/allbills.dump"), "UTF-8"), new TypeReference<List<Bill>>() {});
-    	}
-    	
-    	return allBillsDump;
+    public BillSearchIndex getBillSearchIndex(String namespace) {
+    	return WebappIndexes.get().getBillSearch().get(namespace);
     }
     
-    @SuppressWarnings("unchecked")
-    @SneakyThrows
-    public List<List<String>> getBillsIndex(String namespace) {
-    	if (allBillsIndex == null) {
-    		allBillsIndex = mapper.readValue(IOUtils.toString(Lambda.class.getResourceAsStream("/bills.index"), "UTF-8"), Map.class);
-    	}
+    @GET
+    @Path("/queryLegislators")
+    public List<List<String>> queryLegislators(@RestQuery("text") String text, @RestQuery("limit") Integer _limit) {
+    	int limit = _limit == null ? 10 : Math.max(1, Math.min(_limit, 50));
     	
-    	return allBillsIndex.get(namespace);
+    	if (StringUtils.isBlank(text)) return new ArrayList<List<String>>();
+    	
+    	return getLegislatorSearchIndex().search(text, limit);
+    }
+    
+    public LegislatorSearchIndex getLegislatorSearchIndex() {
+    	return WebappIndexes.get().getLegislatorSearch();
     }
     
     @GET
-    @Path("/queryBills")
-    public List<List<String>> queryBills(@RestQuery("text") String text, @RestQuery("namespace") String namespace) {
-    	SnowballStemmer stemmer = new englishStemmer();
-
-        // Normalize query to tokens
-        List<String> queryTokens = Arrays.stream(text.toLowerCase()
-                .replaceAll("[^a-z0-9\\s]", " ")
-                .replaceAll("\\s+", " ")
-                .trim()
-                .split(" "))
-            .filter(token -> !STOPWORDS.contains(token))
-            .map(token -> {
-                stemmer.setCurrent(token);
-                stemmer.stem();
-                return stemmer.getCurrent();
-            })
-            .toList();
-
-        // Also check if query looks like a bill type + number
-        String normalizedBillRef = normalizeBillRef(text);  // e.g., "hr123"
-
-        List<List<String>> bills = new ArrayList<>(getBillsIndex(namespace));
-
-        return bills.stream()
-            .filter(bill -> {
-                String billId = bill.get(0);       // bil/us/congress/117/hr/123
-                String stemmedTokens = bill.get(2);
-
-                boolean matchesTokens = queryTokens.stream().allMatch(stemmedTokens::contains);
-                boolean matchesTypeNumber = billId.replaceAll("[^a-z0-9]", "").endsWith(normalizedBillRef);
-
-                return matchesTokens || matchesTypeNumber;
-            })
-            .sorted(Comparator.comparingInt(bill ->
-                LevenshteinDistance.getDefaultInstance().apply(bill.get(1).toLowerCase(), text.toLowerCase())
-            ))
-            .limit(30)
-            .map(bill -> List.of(bill.get(0), bill.get(1)))
-            .collect(Collectors.toList());
+    @Path("/autocomplete")
+    public List<Suggestion> autocomplete(@RestQuery("text") String text, @RestQuery("namespace") String _namespace) {
+    	LegislativeNamespace namespace = StringUtils.isEmpty(_namespace) ? LegislativeNamespace.US_CONGRESS : LegislativeNamespace.of(_namespace);
+    	val index = getTypeaheadIndex(namespace.getNamespace());
+    	
+    	if (index == null || StringUtils.isBlank(text)) return new ArrayList<Suggestion>();
+    	
+    	return index.suggest(text);
     }
-
-    private String normalizeBillRef(String input) {
-        return input.toLowerCase().replaceAll("[^a-z0-9]", "");  // "H.R. 123" → "hr123"
+    
+    public TypeaheadIndex getTypeaheadIndex(String namespace) {
+    	val indexes = WebappIndexes.get().getTypeahead();
+    	return indexes == null ? null : indexes.get(namespace);
     }
-
-
-    private static final Set<String> STOPWORDS = Set.of(
-        "the", "of", "to", "and", "a", "in", "for", "on", "at", "by", "with", "act"
-    );
-
+    
 }
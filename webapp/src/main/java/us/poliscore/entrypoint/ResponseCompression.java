@@ -0,0 +1,230 @@
+package us.poliscore.entrypoint;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+
+import io.quarkus.logging.Log;
+import lombok.SneakyThrows;
+import lombok.val;
+import us.poliscore.metrics.Telemetry;
+import us.poliscore.metrics.Telemetry.Phase;
+import us.poliscore.service.storage.TtlCache;
+
+/**
+ * Compresses the Lambda's responses for callers that accept it (Accept-Encoding), and keeps the compressed bytes of
+ * publicly cacheable responses so that repeated requests for them skip the endpoint, serialization and compression
+ * altogether.
+ *
+ * This has to happen on the Lambda response itself rather than in a JAX-RS interceptor, because the HTTP handler turns
+ * JSON bodies into strings and only base64 encodes content types it considers binary.
+ */
+public class ResponseCompression {
+
+	public static final String GZIP = "gzip";
+
+	// Below this a response fits in a packet or two anyway, and gzip's header and trailer eat into the savings
+	public static final int MIN_COMPRESS_BYTES = 1024;
+
+	public static final int MAX_CACHED_RESPONSES = 200;
+
+	// The same as the list cache, which is where most of these responses would otherwise come from
+	public static final Duration RESPONSE_TTL = Lambda.LIST_TTL;
+
+	private static final List<String> COMPRESSIBLE = List.of("json", "text", "javascript", "xml", "svg");
+
+	private static class CachedResponse {
+		final int status;
+		final Map<String, String> headers;
+		final String body;
+
+		CachedResponse(APIGatewayV2HTTPResponse response) {
+			this.status = response.getStatusCode();
+			this.headers = new HashMap<String, String>(response.getHeaders());
+			this.body = response.getBody();
+		}
+
+		APIGatewayV2HTTPResponse toResponse() {
+			return APIGatewayV2HTTPResponse.builder()
+					.withStatusCode(status)
+					.withHeaders(new HashMap<String, String>(headers))
+					.withBody(body)
+					.withIsBase64Encoded(true)
+					.build();
+		}
+	}
+
+	private final TtlCache<String, CachedResponse> cache;
+
+	private final Duration ttl;
+
+	private final Supplier<String> contentVersion;
+
+	public ResponseCompression() {
+		this(MAX_CACHED_RESPONSES, RESPONSE_TTL, HttpCacheFilter::contentVersion);
+	}
+
+	/**
+	 * @param contentVersion Identifies the content being served (see HttpCacheFilter), so that cached responses are never
+	 *   served once it changes
+	 */
+	public ResponseCompression(int maxCachedResponses, Duration ttl, Supplier<String> contentVersion) {
+		this.cache = new TtlCache<String, CachedResponse>(maxCachedResponses);
+		this.ttl = ttl;
+		this.contentVersion = contentVersion;
+	}
+
+	public APIGatewayV2HTTPResponse handle(APIGatewayV2HTTPEvent event, Function<APIGatewayV2HTTPEvent, APIGatewayV2HTTPResponse> handler) {
+		val encoding = negotiate(header(event.getHeaders(), "Accept-Encoding"));
+		val key = cacheKey(event, encoding);
+
+		if (key != null) {
+			val cached = cache.getIfPresent(key);
+			if (cached != null) return cached.toResponse();
+		}
+
+		val response = handler.apply(event);
+		if (response == null) return null;
+
+		vary(response);
+
+		if (encoding != null && compressible(response)) {
+			val cacheable = key != null && StringUtils.startsWith(header(response.getHeaders(), "Cache-Control"), "public");
+
+			// Cached responses are compressed once and served many times, so they get the smallest output we can make
+			Telemetry.get().time(Phase.COMPRESSION, () -> compress(response, cacheable ? Deflater.BEST_COMPRESSION : Deflater.DEFAULT_COMPRESSION));
+
+			if (cacheable) {
+				cache.put(key, new CachedResponse(response), ttl);
+				Log.debug("Cached a compressed " + key + " (" + cache.size() + " responses cached)");
+			}
+		}
+
+		return response;
+	}
+
+	/**
+	 * Which content coding to answer with, or null for none. Only gzip is on offer: there's no pure Java brotli encoder to
+	 * use, and a JNI one would have to be built into the native image for Lambda's architecture.
+	 */
+	public static String negotiate(String acceptEncoding) {
+		if (StringUtils.isBlank(acceptEncoding)) return null;
+
+		Double gzip = null;
+		Double any = null;
+
+		for (String coding : acceptEncoding.split(",")) {
+			val params = coding.split(";");
+			val name = params[0].trim().toLowerCase(Locale.ROOT);
+
+			double q = 1;
+			for (int i = 1; i < params.length; ++i) {
+				val param = params[i].trim();
+				if (param.startsWith("q=")) {
+					try {
+						q = Double.parseDouble(param.substring(2));
+					} catch (NumberFormatException e) {
+						q = 0;
+					}
+				}
+			}
+
+			if (name.equals(GZIP) || name.equals("x-gzip")) {
+				gzip = q;
+			} else if (name.equals("*")) {
+				any = q;
+			}
+		}
+
+		val q = gzip != null ? gzip : any;
+		return q != null && q > 0 ? GZIP : null;
+	}
+
+	/**
+	 * Only plain, unconditional GETs are answered from the cache, since conditional ones are answered with a 304 anyway
+	 */
+	private String cacheKey(APIGatewayV2HTTPEvent event, String encoding) {
+		if (encoding == null) return null;
+
+		val context = event.getRequestContext();
+		if (context == null || context.getHttp() == null || !"GET".equalsIgnoreCase(context.getHttp().getMethod())) return null;
+
+		val headers = event.getHeaders();
+		if (header(headers, "If-None-Match") != null || header(headers, "If-Modified-Since") != null) return null;
+
+		return String.join("|", contentVersion.get(), encoding, event.getRawPath(), StringUtils.defaultString(event.getRawQueryString()));
+	}
+
+	private static boolean compressible(APIGatewayV2HTTPResponse response) {
+		if (response.getStatusCode() != 200 || response.getIsBase64Encoded() || response.getBody() == null) return false;
+		if (header(response.getHeaders(), "Content-Encoding") != null) return false;
+
+		val type = StringUtils.defaultString(header(response.getHeaders(), "Content-Type")).toLowerCase(Locale.ROOT);
+		if (COMPRESSIBLE.stream().noneMatch(type::contains)) return false;
+
+		// Close enough to the byte count, without encoding the body just to find out
+		return response.getBody().length() >= MIN_COMPRESS_BYTES;
+	}
+
+	@SneakyThrows
+	private static void compress(APIGatewayV2HTTPResponse response, int level) {
+		val bytes = response.getBody().getBytes(StandardCharsets.UTF_8);
+		val out = new ByteArrayOutputStream(bytes.length / 4);
+
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out) { { def.setLevel(level); } }) {
+			gzip.write(bytes);
+		}
+
+		response.setBody(Base64.getEncoder().encodeToString(out.toByteArray()));
+		response.setIsBase64Encoded(true);
+		response.getHeaders().remove(headerName(response.getHeaders(), "Content-Length"));
+		response.getHeaders().put("Content-Encoding", GZIP);
+	}
+
+	/**
+	 * Whether or not this response was compressed, another caller's Accept-Encoding could get a different one
+	 */
+	private static void vary(APIGatewayV2HTTPResponse response) {
+		if (response.getStatusCode() != 200 && response.getStatusCode() != 304) return;
+
+		if (response.getHeaders() == null) response.setHeaders(new HashMap<String, String>());
+
+		val name = headerName(response.getHeaders(), "Vary");
+		val vary = name == null ? null : response.getHeaders().get(name);
+
+		if (vary == null) {
+			response.getHeaders().put("Vary", "Accept-Encoding");
+		} else if (!vary.toLowerCase(Locale.ROOT).contains("accept-encoding") && !vary.trim().equals("*")) {
+			response.getHeaders().put(name, vary + ", Accept-Encoding");
+		}
+	}
+
+	private static String headerName(Map<String, String> headers, String name) {
+		if (headers == null) return null;
+
+		for (String key : headers.keySet()) {
+			if (key.equalsIgnoreCase(name)) return key;
+		}
+
+		return null;
+	}
+
+	private static String header(Map<String, String> headers, String name) {
+		val key = headerName(headers, name);
+		return key == null ? null : headers.get(key);
+	}
+}
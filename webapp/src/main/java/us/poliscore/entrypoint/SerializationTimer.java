@@ -0,0 +1,27 @@
+package us.poliscore.entrypoint;
+
+import java.io.IOException;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import us.poliscore.metrics.Telemetry;
+
+/**
+ * Times the writing of response bodies (see Telemetry)
+ */
+@Provider
+public class SerializationTimer implements WriterInterceptor {
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+		long start = System.nanoTime();
+
+		try {
+			context.proceed();
+		} finally {
+			Telemetry.get().add(Telemetry.Phase.SERIALIZATION, System.nanoTime() - start);
+		}
+	}
+}
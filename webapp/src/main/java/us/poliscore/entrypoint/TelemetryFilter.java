@@ -0,0 +1,22 @@
+package us.poliscore.entrypoint;
+
+import java.io.IOException;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.ext.Provider;
+import us.poliscore.metrics.Telemetry;
+
+/**
+ * Attaches the thread serving a request to the invocation it belongs to, so that the DynamoDB calls, linking and
+ * serialization done for it are charged to that invocation (see Telemetry). Request filters run on the same worker
+ * thread as the (blocking) resource method.
+ */
+@Provider
+public class TelemetryFilter implements ContainerRequestFilter {
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) throws IOException {
+		Telemetry.get().attach();
+	}
+}
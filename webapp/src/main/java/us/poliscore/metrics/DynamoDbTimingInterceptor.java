@@ -0,0 +1,41 @@
+package us.poliscore.metrics;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+
+/**
+ * Splits the time spent in DynamoDB calls into waiting on DynamoDB (from sending the request to receiving the response,
+ * for every attempt) and reading its response, and adds them to the current invocation (see Telemetry). Registered on
+ * the client with quarkus.dynamodb.interceptors.
+ */
+@RegisterForReflection
+public class DynamoDbTimingInterceptor implements ExecutionInterceptor {
+
+	private static final ExecutionAttribute<Long> SENT = new ExecutionAttribute<Long>("PoliscoreSent");
+
+	private static final ExecutionAttribute<Long> RECEIVED = new ExecutionAttribute<Long>("PoliscoreReceived");
+
+	@Override
+	public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes attributes) {
+		attributes.putAttribute(SENT, System.nanoTime());
+	}
+
+	@Override
+	public void afterTransmission(Context.AfterTransmission context, ExecutionAttributes attributes) {
+		long now = System.nanoTime();
+		Long sent = attributes.getAttribute(SENT);
+
+		if (sent != null) Telemetry.get().add(Telemetry.Phase.DYNAMODB, now - sent);
+		attributes.putAttribute(RECEIVED, now);
+	}
+
+	@Override
+	public void afterExecution(Context.AfterExecution context, ExecutionAttributes attributes) {
+		Long received = attributes.getAttribute(RECEIVED);
+
+		if (received != null) Telemetry.get().add(Telemetry.Phase.DESERIALIZATION, System.nanoTime() - received);
+	}
+}
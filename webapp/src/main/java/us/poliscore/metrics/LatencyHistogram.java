@@ -0,0 +1,166 @@
+package us.poliscore.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.val;
+
+/**
+ * A latency histogram in the style of HdrHistogram: buckets are exact below 256 microseconds, and above that each power
+ * of two is split into 128 linear sub-buckets, so that any recorded value is known to within 1% however large it is.
+ * Recording is a shift and an increment, and the whole histogram is a fixed array sized up front, so it behaves the same
+ * in a native image as on the JVM.
+ *
+ * Values are recorded in microseconds, up to about 17 minutes (anything larger is counted as the largest value).
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 7;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	// The values below this have a bucket each
+	private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;
+
+	public static final long MAX_MICROS = (1L << 30) - 1;
+
+	private static final int BUCKETS = bucket(MAX_MICROS) + 1;
+
+	private final long[] counts = new long[BUCKETS];
+
+	private long count;
+
+	private long sum;
+
+	private long min = Long.MAX_VALUE;
+
+	private long max;
+
+	static int bucket(long micros) {
+		if (micros < LINEAR_LIMIT) return (int) micros;
+
+		int shift = (63 - Long.numberOfLeadingZeros(micros)) - SUB_BUCKET_BITS;
+		return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) (micros >>> shift) - SUB_BUCKETS;
+	}
+
+	static long lowest(int bucket) {
+		if (bucket < LINEAR_LIMIT) return bucket;
+
+		int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+		return (long) ((bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS) << shift;
+	}
+
+	static long highest(int bucket) {
+		return bucket + 1 < LINEAR_LIMIT ? bucket : lowest(bucket + 1) - 1;
+	}
+
+	public synchronized void record(long micros) {
+		micros = Math.max(0, Math.min(micros, MAX_MICROS));
+
+		counts[bucket(micros)]++;
+		count++;
+		sum += micros;
+		min = Math.min(min, micros);
+		max = Math.max(max, micros);
+	}
+
+	public synchronized long getCount() {
+		return count;
+	}
+
+	public synchronized long getSum() {
+		return sum;
+	}
+
+	public synchronized long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	public synchronized long getMax() {
+		return max;
+	}
+
+	/**
+	 * The value below which the given percentage (0 to 100) of recorded values fall, to within the precision of a bucket
+	 */
+	public synchronized long percentile(double percent) {
+		if (count == 0) return 0;
+
+		long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+		long seen = 0;
+
+		for (int i = 0; i < BUCKETS; ++i) {
+			seen += counts[i];
+			if (seen >= rank) return Math.max(min, Math.min(max, midpoint(i)));
+		}
+
+		return max;
+	}
+
+	private static long midpoint(int bucket) {
+		return (lowest(bucket) + highest(bucket)) / 2;
+	}
+
+	/**
+	 * The distribution as a CloudWatch EMF value set, in milliseconds. EMF takes at most a hundred distinct values per
+	 * metric, so when more buckets than that are in use, neighbouring ones are merged (at their count weighted mean).
+	 */
+	public synchronized Map<String, Object> toEmf(int maxValues) {
+		int used = 0;
+		for (long c : counts) {
+			if (c > 0) used++;
+		}
+
+		int perValue = (used + maxValues - 1) / Math.max(1, maxValues);
+
+		val values = new ArrayList<Double>();
+		val valueCounts = new ArrayList<Long>();
+
+		long groupCount = 0;
+		double groupSum = 0;
+		int grouped = 0;
+
+		for (int i = 0; i < BUCKETS; ++i) {
+			if (counts[i] == 0) continue;
+
+			groupCount += counts[i];
+			groupSum += (double) midpoint(i) * counts[i];
+
+			if (++grouped == perValue) {
+				values.add(millis(groupSum / groupCount));
+				valueCounts.add(groupCount);
+				groupCount = 0;
+				groupSum = 0;
+				grouped = 0;
+			}
+		}
+
+		if (grouped > 0) {
+			values.add(millis(groupSum / groupCount));
+			valueCounts.add(groupCount);
+		}
+
+		val emf = new LinkedHashMap<String, Object>();
+		emf.put("Values", values);
+		emf.put("Counts", valueCounts);
+		emf.put("Max", millis(getMax()));
+		emf.put("Min", millis(getMin()));
+		emf.put("Count", count);
+		emf.put("Sum", millis(sum));
+		return emf;
+	}
+
+	static double millis(double micros) {
+		return Math.round(micros) / 1000d;
+	}
+
+	public synchronized void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		sum = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+}
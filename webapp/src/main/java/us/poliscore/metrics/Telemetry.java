@@ -0,0 +1,332 @@
+package us.poliscore.metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.quarkus.logging.Log;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+/**
+ * Times every Lambda invocation, and the phases within it (see Phase), per endpoint. Warm invocations are aggregated into
+ * latency histograms which are written out about once a minute as CloudWatch Embedded Metric Format (EMF) log lines, one
+ * per endpoint, from which CloudWatch derives the metrics and their percentiles. The first invocation of a container is
+ * reported on its own line as soon as it finishes, along with how long the container took to initialize, so that cold
+ * starts are never mixed into the warm numbers.
+ *
+ * Time is only charged to an invocation from the threads working on it: the handler thread that began it, the request
+ * thread serving it (which attaches to it, see TelemetryFilter), and any work those hand to other threads with
+ * {@link #carry(Supplier)}. Anything else, such as a snapshot refreshing in the background, records nothing, as does work
+ * which is still running once its invocation has ended. Histograms that haven't been written when a container is frozen
+ * or shut down are lost, which costs a minute of warm data now and then.
+ */
+public class Telemetry {
+
+	public static final String NAMESPACE = "PoliScore";
+
+	public static final Duration FLUSH_INTERVAL = Duration.ofMinutes(1);
+
+	// The most distinct values EMF accepts for a metric
+	public static final int MAX_EMF_VALUES = 100;
+
+	public static final String LATENCY = "Latency";
+
+	public static final String INIT_DURATION = "InitDuration";
+
+	@RequiredArgsConstructor
+	public static enum Phase {
+		// Waiting on DynamoDB, from sending a request to receiving the response
+		DYNAMODB("DynamoDb"),
+
+		// Turning responses (from DynamoDB, or bundled dumps) into objects
+		DESERIALIZATION("Deserialization"),
+
+		// Linking legislators to the bills they interacted with
+		LINKING("Linking"),
+
+		// Writing the response body
+		SERIALIZATION("Serialization"),
+
+		// Gzipping the response body (see ResponseCompression)
+		COMPRESSION("Compression");
+
+		@Getter
+		private final String metric;
+	}
+
+	public static class Invocation {
+		@Getter
+		private final String endpoint;
+
+		private final long start;
+
+		private final boolean cold;
+
+		private final AtomicLongArray phases = new AtomicLongArray(Phase.values().length);
+
+		private volatile boolean ended;
+
+		private Invocation(String endpoint, long start, boolean cold) {
+			this.endpoint = endpoint;
+			this.start = start;
+			this.cold = cold;
+		}
+	}
+
+	private static class EndpointStats {
+		final LatencyHistogram latency = new LatencyHistogram();
+		final Map<Phase, LatencyHistogram> phases = new EnumMap<Phase, LatencyHistogram>(Phase.class);
+
+		EndpointStats() {
+			for (Phase phase : Phase.values()) phases.put(phase, new LatencyHistogram());
+		}
+	}
+
+	// The lines are plain maps, so the mapper needs no modules
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private static Telemetry instance;
+
+	private final Consumer<String> out;
+
+	private final long flushInterval;
+
+	private final LongSupplier clock;
+
+	private final long processStart;
+
+	private final AtomicBoolean cold = new AtomicBoolean(true);
+
+	// The invocation the container is serving (it serves one at a time), for the request thread to attach to
+	private final AtomicReference<Invocation> inFlight = new AtomicReference<Invocation>();
+
+	// The invocation each thread is working on, if any
+	private final ThreadLocal<Invocation> current = new ThreadLocal<Invocation>();
+
+	private final Map<String, EndpointStats> stats = new ConcurrentHashMap<String, EndpointStats>();
+
+	private volatile long lastFlush;
+
+	public static synchronized Telemetry get() {
+		if (instance == null) {
+			// Lambda picks EMF lines out of standard out, which has to carry nothing but the JSON
+			instance = new Telemetry(System.out::println, FLUSH_INTERVAL, System::nanoTime, processStart());
+		}
+
+		return instance;
+	}
+
+	/**
+	 * @param out Where EMF lines are written
+	 * @param clock Nanoseconds, as System.nanoTime
+	 * @param processStart When the process started, in the same nanoseconds as the clock
+	 */
+	public Telemetry(Consumer<String> out, Duration flushInterval, LongSupplier clock, long processStart) {
+		this.out = out;
+		this.flushInterval = flushInterval.toNanos();
+		this.clock = clock;
+		this.processStart = processStart;
+		this.lastFlush = clock.getAsLong();
+	}
+
+	private static long processStart() {
+		val now = System.nanoTime();
+
+		try {
+			val started = ProcessHandle.current().info().startInstant();
+			if (started.isPresent()) return now - Duration.between(started.get(), Instant.now()).toNanos();
+		} catch (Exception e) {
+			// Not every platform can say
+		}
+
+		Log.warn("Couldn't find the process start time, init durations will be measured from the first use of Telemetry");
+		return now;
+	}
+
+	public Invocation begin(String endpoint) {
+		val invocation = new Invocation(endpoint, clock.getAsLong(), cold.getAndSet(false));
+		inFlight.set(invocation);
+		current.set(invocation);
+		return invocation;
+	}
+
+	/**
+	 * Has the calling thread work on the invocation in flight, if there is one. The request thread calls this, since the
+	 * Lambda handler hands the request over to it rather than serving it on its own thread.
+	 */
+	public void attach() {
+		val invocation = inFlight.get();
+
+		if (invocation == null) {
+			current.remove();
+		} else {
+			current.set(invocation);
+		}
+	}
+
+	/**
+	 * Wraps work which the calling thread hands to another thread, so that its time is charged to the calling thread's
+	 * invocation (and to nothing, if it has none).
+	 */
+	public <T> Supplier<T> carry(Supplier<T> work) {
+		val invocation = current.get();
+
+		return () -> {
+			val previous = current.get();
+			current.set(invocation);
+
+			try {
+				return work.get();
+			} finally {
+				if (previous == null) {
+					current.remove();
+				} else {
+					current.set(previous);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Adds time to the phase of the invocation the calling thread is working on. Outside of an invocation (at startup, or
+	 * on a background thread) this does nothing.
+	 */
+	public void add(Phase phase, long nanos) {
+		val invocation = current.get();
+		if (invocation != null && !invocation.ended) invocation.phases.addAndGet(phase.ordinal(), nanos);
+	}
+
+	public <T> T time(Phase phase, Supplier<T> work) {
+		long start = clock.getAsLong();
+
+		try {
+			return work.get();
+		} finally {
+			add(phase, clock.getAsLong() - start);
+		}
+	}
+
+	public void time(Phase phase, Runnable work) {
+		time(phase, () -> {
+			work.run();
+			return null;
+		});
+	}
+
+	public void end(Invocation invocation) {
+		long now = clock.getAsLong();
+		invocation.ended = true;
+		inFlight.compareAndSet(invocation, null);
+		if (current.get() == invocation) current.remove();
+
+		try {
+			if (invocation.cold) {
+				reportColdStart(invocation, now);
+			} else {
+				val endpoint = stats.computeIfAbsent(invocation.endpoint, k -> new EndpointStats());
+				endpoint.latency.record(micros(now - invocation.start));
+
+				for (Phase phase : Phase.values()) {
+					long nanos = invocation.phases.get(phase.ordinal());
+					if (nanos > 0) endpoint.phases.get(phase).record(micros(nanos));
+				}
+			}
+
+			if (now - lastFlush >= flushInterval) flush();
+		} catch (Exception e) {
+			// Telemetry must never fail a request
+			Log.error("Couldn't record telemetry for " + invocation.endpoint, e);
+		}
+	}
+
+	/**
+	 * Writes out every endpoint's histograms, and starts them afresh
+	 */
+	public synchronized void flush() {
+		lastFlush = clock.getAsLong();
+
+		for (val entry : stats.entrySet()) {
+			val endpoint = entry.getValue();
+			if (endpoint.latency.getCount() == 0) continue;
+
+			val values = new LinkedHashMap<String, Object>();
+			values.put(LATENCY, endpoint.latency.toEmf(MAX_EMF_VALUES));
+			endpoint.latency.reset();
+
+			for (val phase : endpoint.phases.entrySet()) {
+				if (phase.getValue().getCount() == 0) continue;
+
+				values.put(phase.getKey().getMetric(), phase.getValue().toEmf(MAX_EMF_VALUES));
+				phase.getValue().reset();
+			}
+
+			val properties = new LinkedHashMap<String, Object>();
+			properties.put("Endpoint", entry.getKey());
+			properties.put("Start", "warm");
+
+			emit(List.of("Endpoint"), properties, values);
+		}
+	}
+
+	private void reportColdStart(Invocation invocation, long now) {
+		val values = new LinkedHashMap<String, Object>();
+		values.put(INIT_DURATION, LatencyHistogram.millis(micros(invocation.start - processStart)));
+		values.put(LATENCY, LatencyHistogram.millis(micros(now - invocation.start)));
+
+		for (Phase phase : Phase.values()) {
+			long nanos = invocation.phases.get(phase.ordinal());
+			if (nanos > 0) values.put(phase.getMetric(), LatencyHistogram.millis(micros(nanos)));
+		}
+
+		val properties = new LinkedHashMap<String, Object>();
+		properties.put("Start", "cold");
+		properties.put("Endpoint", invocation.endpoint);
+
+		// on-demand, provisioned-concurrency or snap-start
+		val initType = System.getenv("AWS_LAMBDA_INITIALIZATION_TYPE");
+		if (initType != null) properties.put("InitType", initType);
+
+		emit(List.of("Start"), properties, values);
+	}
+
+	private void emit(List<String> dimensions, Map<String, Object> properties, Map<String, Object> values) {
+		val metrics = new ArrayList<Map<String, String>>();
+		for (String name : values.keySet()) metrics.add(Map.of("Name", name, "Unit", "Milliseconds"));
+
+		val directive = new LinkedHashMap<String, Object>();
+		directive.put("Namespace", NAMESPACE);
+		directive.put("Dimensions", List.of(dimensions));
+		directive.put("Metrics", metrics);
+
+		val line = new LinkedHashMap<String, Object>();
+		line.put("_aws", Map.of("Timestamp", System.currentTimeMillis(), "CloudWatchMetrics", List.of(directive)));
+		line.putAll(properties);
+		line.putAll(values);
+
+		try {
+			out.accept(mapper.writeValueAsString(line));
+		} catch (Exception e) {
+			Log.error("Couldn't write metrics", e);
+		}
+	}
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+	}
+}
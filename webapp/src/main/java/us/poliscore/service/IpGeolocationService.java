@@ -1,18 +1,24 @@
 package us.poliscore.service;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.Optional;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import lombok.SneakyThrows;
 import lombok.val;
 import us.poliscore.PoliscoreUtil;
+import us.poliscore.WebappIndexes;
+import us.poliscore.geo.IpRegionTrie;
 import us.poliscore.model.IpGeolocationResponse;
 import us.poliscore.model.IpLocationMapping;
 import us.poliscore.service.storage.CachedDynamoDbService;
+import us.poliscore.service.storage.TtlCache;
 
 @ApplicationScoped
 public class IpGeolocationService {
@@ -23,6 +29,17 @@ public class IpGeolocationService {
 	@Inject
 	private CachedDynamoDbService ddb;
 	
+	// Whether addresses the bundled IP region table doesn't cover are looked up with ipgeolocation.io
+	@ConfigProperty(name = "ipGeo.apiFallback", defaultValue = "true")
+	private boolean apiFallback;
+	
+	public static final int MAX_CACHED_IPS = 10000;
+	
+	public static final Duration IP_TTL = Duration.ofHours(6);
+	
+	// Locations by address, with "" for addresses outside the US (since the cache doesn't hold nulls)
+	private static final TtlCache<String, String> cachedLocations = new TtlCache<String, String>(MAX_CACHED_IPS);
+	
 //	@SneakyThrows
 //	public Optional<String> locateIp(String ip) {
 //		val mapping = ddb.get(ip, IpLocationMapping.class);
@@ -47,8 +64,34 @@ public class IpGeolocationService {
 //		return result;
 //	}
 	
+	/**
+	 * Looks the address up in the bundled IP region table, which is in memory
+	 *
+	 * @return The state the address is in, "" if it's outside the US, or null if the table doesn't cover it (or the
+	 *   deployment wasn't built with one)
+	 */
+	public String locateIpLocally(String ip) {
+		val trie = WebappIndexes.get().getIpRegions();
+		if (trie == null) return null;
+		
+		int value = trie.lookup(ip);
+		return value == IpRegionTrie.UNKNOWN ? null : StringUtils.defaultString(trie.region(value));
+	}
+	
+	/**
+	 * Looks the address up with ipgeolocation.io, for addresses the bundled table doesn't cover. This is a remote call
+	 * (unless the address is cached), so callers should bound it.
+	 *
+	 * @return The state the address is in, or empty if it's outside the US (or can't be located)
+	 */
+	public Optional<String> locateIpRemotely(String ip) {
+		if (!apiFallback) return Optional.empty();
+		
+		return Optional.ofNullable(StringUtils.trimToNull(cachedLocations.get(ip, IP_TTL, () -> locateIpWithApi(ip).orElse(""))));
+	}
+	
 	@SneakyThrows
-	public Optional<String> locateIp(String ip) {
+	public Optional<String> locateIpWithApi(String ip) {
 		val mapping = ddb.get(ip, IpLocationMapping.class);
 		if (mapping.isPresent()) { return Optional.ofNullable(mapping.get().getLocation()); }
 		
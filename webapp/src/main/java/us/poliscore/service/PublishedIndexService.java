@@ -0,0 +1,43 @@
+package us.poliscore.service;
+
+import java.time.Duration;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import us.poliscore.WebappIndexes;
+import us.poliscore.entrypoint.HttpCacheFilter;
+import us.poliscore.service.storage.IndexArtifactStore;
+
+/**
+ * Has the webapp serve the indexes the WebappDataGenerator publishes to S3 (see IndexArtifactStore), rather than the ones
+ * bundled with the deployment, so that a database rebuild reaches the webapp without a redeploy. Only builds newer than
+ * the bundled one are loaded, and always in the background, so that a container starts up (and serves the bundled
+ * indexes) without waiting on S3.
+ */
+@ApplicationScoped
+public class PublishedIndexService {
+
+	// Reading the pointer is a single small GET, made in the background
+	public static final Duration CHECK_INTERVAL = Duration.ofMinutes(1);
+
+	@ConfigProperty(name = "webapp.indexes.published", defaultValue = "false")
+	boolean enabled;
+
+	@ConfigProperty(name = "ddb.table")
+	String table;
+
+	void onStart(@Observes StartupEvent event) {
+		if (!enabled) return;
+
+		try {
+			WebappIndexes.follow(IndexArtifactStore.forDeployment(table), CHECK_INTERVAL, HttpCacheFilter.getBuildVersion());
+		} catch (Exception e) {
+			// The bundled indexes are always there to fall back on
+			Log.error("Couldn't follow the published webapp indexes, serving the bundled ones", e);
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package us.poliscore.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lombok.val;
+import us.poliscore.WebappIndexes;
+import us.poliscore.model.LegislativeSession;
+import us.poliscore.model.session.SessionInterpretation;
+import us.poliscore.service.storage.DynamoDbPersistenceService;
+import us.poliscore.service.storage.VersionedSnapshot;
+
+/**
+ * Holds the session interpretation of every supported deployment in memory. They're large, are read on every party
+ * page view and only change when the database is rebuilt, so they're loaded while the container starts up and reloaded
+ * in the background whenever the database's build version moves on.
+ */
+@ApplicationScoped
+public class SessionInterpretationService {
+
+	public static final Duration BUILD_VERSION_CHECK_INTERVAL = Duration.ofMinutes(5);
+
+	@Inject
+	DynamoDbPersistenceService ddb;
+
+	@Inject
+	PoliscoreConfigService config;
+
+	private VersionedSnapshot<String, SessionInterpretation> interpretations;
+
+	private synchronized VersionedSnapshot<String, SessionInterpretation> interpretations() {
+		if (interpretations == null) {
+			interpretations = new VersionedSnapshot<String, SessionInterpretation>(
+					() -> ddb.getBuildVersion().map(String::valueOf).orElse(null),
+					this::loadAll,
+					BUILD_VERSION_CHECK_INTERVAL);
+		}
+
+		return interpretations;
+	}
+
+	void onStart(@Observes StartupEvent event) {
+		try {
+			val start = System.currentTimeMillis();
+			interpretations().load();
+			Log.info("Loaded session interpretations (build " + interpretations().getVersion() + ") in " + (System.currentTimeMillis() - start) + "ms");
+		} catch (Exception e) {
+			// The first request will try again
+			Log.error("Couldn't load session interpretations at startup", e);
+		}
+	}
+
+	public Optional<SessionInterpretation> get(LegislativeSession session) {
+		return Optional.ofNullable(interpretations().get(SessionInterpretation.generateId(session.getNamespace(), session.getCode())));
+	}
+
+	private Map<String, SessionInterpretation> loadAll() {
+		val all = new HashMap<String, SessionInterpretation>();
+
+		for (val deployment : config.getSupportedDeployments()) {
+			val session = WebappIndexes.get().getSessions().stream()
+					.filter(s -> s.getNamespace().equals(deployment.getNamespace()) && s.isYearWithin(deployment.getYear()))
+					.findAny();
+
+			if (session.isEmpty()) {
+				Log.warn("No session in this deployment for " + deployment.getNamespace() + " " + deployment.getYear());
+				continue;
+			}
+
+			val id = SessionInterpretation.generateId(session.get().getNamespace(), session.get().getCode());
+			ddb.get(id, SessionInterpretation.class).ifPresent(interp -> all.put(id, interp));
+		}
+
+		return all;
+	}
+}
@@ -107,6 +107,9 @@ export class AppService {
         params = params.set("year", this.config.getYear());
         params = params.set("namespace", this.config.getNamespace());
 
+        // Only what the list cards show
+        params = params.set("fields", "list");
+
         return firstValueFrom(this.http.get<Bill[]>(backendUrl + "/getBills", { params: params }));
     }
 
@@ -143,6 +146,9 @@ export class AppService {
         params = params.set("year", this.config.getYear());
         params = params.set("namespace", this.config.getNamespace());
 
+        // Only what the list cards show
+        params = params.set("fields", "list");
+
         return firstValueFrom(this.http.get<Legislator[]>(backendUrl + "/getLegislators", { params: params }));
     }
 
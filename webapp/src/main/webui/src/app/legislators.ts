@@ -1,9 +1,14 @@
 import convertStateCodeToName, { gradeForStats, hasValidInterpretation, issueKeyToLabel, issueKeyToLabelSmall, Legislator } from "./model";
 
+// List views only carry the short explanation, so it stands in for the long one here
+function hasValidListInterpretation(leg: Legislator): boolean {
+  return leg?.interpretation != null && hasValidInterpretation({ interpretation: { ...leg.interpretation, longExplain: leg.interpretation.longExplain ?? leg.interpretation.shortExplain } });
+}
+
 // 
 export function descriptionForLegislator(leg: Legislator, small: boolean = false): string
   {
-    if (!hasValidInterpretation(leg))
+    if (!hasValidListInterpretation(leg))
       return "Waiting for more data ...";
 
     if (leg.interpretation!.shortExplain && leg.interpretation!.shortExplain.length > 0)
@@ -31,7 +36,7 @@ export function descriptionForLegislator(leg: Legislator, small: boolean = false
 
   export function gradeForLegislator(leg: Legislator): string
   {
-    if (!hasValidInterpretation(leg))
+    if (!hasValidListInterpretation(leg))
       return "";
 
     return gradeForStats(leg.interpretation?.issueStats!);
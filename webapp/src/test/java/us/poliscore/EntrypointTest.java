@@ -2,17 +2,23 @@ package us.poliscore;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import org.junit.jupiter.api.Test;
 
 import io.quarkus.runtime.annotations.QuarkusMain;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
+import lombok.val;
 import us.poliscore.dynamodb.DdbBuilder;
+import us.poliscore.entrypoint.HttpCacheFilter;
 import us.poliscore.model.Persistable;
 import us.poliscore.service.MemoryObjectService;
 import us.poliscore.service.storage.DynamoDbPersistenceService;
 
+@QuarkusTest
 public class EntrypointTest {
 	
 	@Inject
@@ -91,4 +97,63 @@ public class EntrypointTest {
 
 	
 	
+	@Test
+	public void testCacheHeaders() throws Exception {
+		given()
+				.queryParam("text", "credit card")
+				.get("/queryBills")
+				.then()
+				.statusCode(200)
+				.header("ETag", notNullValue())
+				.header("Last-Modified", notNullValue())
+				.header("Cache-Control", equalTo(HttpCacheFilter.INDEX));
+	}
+	
+	@Test
+	public void testIfNoneMatch() throws Exception {
+		val etag = given()
+				.queryParam("text", "credit card")
+				.get("/queryBills")
+				.then()
+				.statusCode(200)
+				.extract().header("ETag");
+		
+		val body = given()
+				.queryParam("text", "credit card")
+				.header("If-None-Match", etag)
+				.get("/queryBills")
+				.then()
+				.statusCode(304)
+				.header("ETag", equalTo(etag))
+				.header("Cache-Control", equalTo(HttpCacheFilter.INDEX))
+				.extract().asString();
+		
+		assertEquals("", body);
+		
+		// A tag from some other build doesn't match
+		given()
+				.queryParam("text", "credit card")
+				.header("If-None-Match", "W/\"0-0\"")
+				.get("/queryBills")
+				.then()
+				.statusCode(200);
+	}
+	
+	@Test
+	public void testIfModifiedSince() throws Exception {
+		val lastModified = given()
+				.queryParam("text", "sanders")
+				.get("/queryLegislators")
+				.then()
+				.statusCode(200)
+				.extract().header("Last-Modified");
+		
+		given()
+				.queryParam("text", "sanders")
+				.header("If-Modified-Since", lastModified)
+				.get("/queryLegislators")
+				.then()
+				.statusCode(304);
+	}
+	
 }
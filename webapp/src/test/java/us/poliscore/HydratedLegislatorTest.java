@@ -0,0 +1,141 @@
+package us.poliscore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import lombok.val;
+import us.poliscore.model.IssueStats;
+import us.poliscore.model.Persistable;
+import us.poliscore.model.TrackedIssue;
+import us.poliscore.model.legislator.Legislator;
+import us.poliscore.model.legislator.Legislator.LegislatorBillInteractionList;
+import us.poliscore.model.legislator.Legislator.LegislatorName;
+import us.poliscore.model.legislator.LegislatorBillInteraction;
+import us.poliscore.model.legislator.LegislatorBillInteraction.LegislatorBillCosponsor;
+import us.poliscore.model.legislator.LegislatorBillInteraction.LegislatorBillSponsor;
+
+public class HydratedLegislatorTest {
+
+	private static Legislator legislator(int interactions) {
+		val random = new Random(17);
+		val leg = new Legislator();
+		leg.setId("LEG/us/congress/119/S000033");
+		leg.setName(new LegislatorName("Bernard", "Sanders", "Bernard Sanders"));
+
+		val list = new LegislatorBillInteractionList();
+		for (int i = 0; i < interactions; ++i) {
+			LegislatorBillInteraction interact = i % 3 == 0 ? new LegislatorBillSponsor() : new LegislatorBillCosponsor();
+			interact.setLegId(leg.getId());
+			interact.setBillId("BIL/us/congress/119/hr/" + i);
+			interact.setBillName("Bill " + i);
+			interact.setStatusProgress(random.nextFloat());
+			interact.setCosponsorPercent(random.nextFloat());
+
+			// Plenty of ties, so that the tie ordering is exercised too
+			interact.setDate(LocalDate.of(2025, 1, 1).plusDays(random.nextInt(60)));
+
+			val stats = new IssueStats();
+			stats.setStat(TrackedIssue.OverallBenefitToSociety, random.nextInt(21) - 10);
+			if (random.nextBoolean()) stats.setStat(TrackedIssue.Education, random.nextInt(21) - 10);
+			interact.setIssueStats(stats);
+
+			list.add(interact);
+		}
+
+		leg.setInteractions(list);
+		return leg;
+	}
+
+	/**
+	 * The sort and slice that the Lambda used to do on every request
+	 */
+	private static List<LegislatorBillInteraction> legacyPage(Legislator leg, String index, String sortKey, int pageSize, boolean ascending, int exclusiveStartKey) {
+		var stream = leg.getInteractions().stream();
+
+		Comparator<LegislatorBillInteraction> comparator;
+		if (index.equals(Persistable.OBJECT_BY_DATE_INDEX)) {
+			comparator = Comparator.comparing(LegislatorBillInteraction::getDate);
+		} else if (index.equals(Persistable.OBJECT_BY_RATING_INDEX)) {
+			comparator = Comparator.comparing(LegislatorBillInteraction::getRating);
+		} else if (index.equals(Persistable.OBJECT_BY_RATING_ABS_INDEX)) {
+			comparator = Comparator.comparing(LegislatorBillInteraction::getRatingAbs);
+		} else if (index.equals(Persistable.OBJECT_BY_IMPACT_INDEX)) {
+			comparator = Comparator.comparing(LegislatorBillInteraction::getImpact);
+		} else {
+			val issue = TrackedIssue.valueOf(sortKey);
+			stream = stream.filter(lbi -> lbi.getIssueStats().hasStat(issue));
+			comparator = (LegislatorBillInteraction a, LegislatorBillInteraction b) -> Integer.valueOf(a.getRating(issue)).compareTo(b.getRating(issue));
+		}
+
+		val all = stream.sorted(ascending ? comparator : comparator.reversed()).collect(Collectors.toList());
+		return new ArrayList<LegislatorBillInteraction>(all.subList(Math.min(all.size(), exclusiveStartKey + 1), Math.min(all.size(), exclusiveStartKey + 1 + pageSize)));
+	}
+
+	@Test
+	public void testPagesMatchFullSort() {
+		val leg = legislator(1500);
+		val hydrated = new HydratedLegislator(leg);
+
+		for (String index : List.of(Persistable.OBJECT_BY_DATE_INDEX, Persistable.OBJECT_BY_RATING_INDEX, Persistable.OBJECT_BY_RATING_ABS_INDEX, Persistable.OBJECT_BY_IMPACT_INDEX, HydratedLegislator.TRACKED_ISSUE_INDEX)) {
+			for (boolean ascending : new boolean[] { true, false }) {
+				for (int start : new int[] { -1, 24, 990, 1490 }) {
+					val page = hydrated.page(index, "Education", 25, ascending, start);
+
+					assertEquals(legacyPage(leg, index, "Education", 25, ascending, start), page.getData().get(0), index + " " + ascending + " " + start);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testHasMoreData() {
+		val hydrated = new HydratedLegislator(legislator(30));
+
+		assertEquals(true, hydrated.page(Persistable.OBJECT_BY_DATE_INDEX, null, 25, true, -1).isHasMoreData());
+		assertEquals(false, hydrated.page(Persistable.OBJECT_BY_DATE_INDEX, null, 25, true, 24).isHasMoreData());
+		assertEquals(5, hydrated.page(Persistable.OBJECT_BY_DATE_INDEX, null, 25, true, 24).getData().get(0).size());
+	}
+
+	@Test
+	public void testSharedLegislatorIsNotModified() {
+		val hydrated = new HydratedLegislator(legislator(100));
+		val page = hydrated.page(Persistable.OBJECT_BY_RATING_ABS_INDEX, null, 10, false, -1);
+
+		val copy = hydrated.withInteractions(page.getData().get(0));
+
+		assertEquals(10, copy.getInteractions().size());
+		assertEquals(100, hydrated.getLegislator().getInteractions().size());
+		assertEquals(hydrated.getLegislator().getName(), copy.getName());
+	}
+
+	@Test
+	public void testCopyCarriesEveryServedField() {
+		val leg = legislator(20);
+		leg.setOfficialUrl("https://www.sanders.senate.gov");
+		leg.setLisId("S313");
+		leg.setBirthday(LocalDate.of(1941, 9, 8));
+		leg.setImpact(1234L);
+
+		val hydrated = new HydratedLegislator(leg);
+		val interacts = hydrated.page(Persistable.OBJECT_BY_DATE_INDEX, null, 5, true, -1).getData().get(0);
+		val copy = hydrated.withInteractions(interacts);
+
+		// Other than the page of interactions, the copy serves exactly what the legislator would
+		val mapper = PoliscoreUtil.getObjectMapper();
+		val expected = (ObjectNode) mapper.valueToTree(leg);
+		val actual = (ObjectNode) mapper.valueToTree(copy);
+		expected.remove("interactions");
+		assertEquals(5, actual.remove("interactions").size());
+		assertEquals(expected, actual);
+	}
+}
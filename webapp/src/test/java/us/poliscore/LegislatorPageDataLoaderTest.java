@@ -0,0 +1,196 @@
+package us.poliscore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.ws.rs.ServiceUnavailableException;
+import lombok.SneakyThrows;
+import lombok.val;
+import us.poliscore.model.Persistable;
+
+/**
+ * Runs the loader against stub dependencies which record the calls made to them, and which hang (until they're
+ * interrupted) to stand in for a slow dependency.
+ */
+public class LegislatorPageDataLoaderTest {
+
+	private static final List<Persistable> DEFAULTS = new ArrayList<Persistable>();
+
+	private static final List<Persistable> NEW_YORK = new ArrayList<Persistable>();
+
+	private static final List<List<String>> ALL = new ArrayList<List<String>>();
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final LegislatorPageDataLoader loader = new LegislatorPageDataLoader(executor, Duration.ofMillis(100), Duration.ofMillis(100));
+
+	// Every call made to the dependencies, in order: "locate", then "list NY" or "list default"
+	private final List<String> calls = new CopyOnWriteArrayList<String>();
+
+	// Counted down when a hanging call is interrupted by its timeout
+	private final CountDownLatch cancelled = new CountDownLatch(1);
+
+	@AfterEach
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@SneakyThrows
+	private void hang() {
+		try {
+			new CountDownLatch(1).await(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			cancelled.countDown();
+			throw e;
+		}
+	}
+
+	// The in-memory lookup: a state, "" outside the US, or null when it can't tell
+	private Supplier<String> locate(String state) {
+		return () -> {
+			calls.add("locate");
+			return state;
+		};
+	}
+
+	private Supplier<Optional<String>> locateRemotely(String state) {
+		return () -> {
+			calls.add("locate remotely");
+			return Optional.ofNullable(state);
+		};
+	}
+
+	private final Supplier<Optional<String>> unused = () -> { throw new IllegalStateException("Shouldn't locate remotely"); };
+
+	private Function<String, List<Persistable>> legislators() {
+		return state -> {
+			calls.add("list " + (state == null ? "default" : state));
+			return state == null ? DEFAULTS : NEW_YORK;
+		};
+	}
+
+	@SneakyThrows
+	private void assertCancelled() {
+		assertTrue(cancelled.await(5, TimeUnit.SECONDS), "The timed out call was left running");
+	}
+
+	@Test
+	public void testStateGiven() {
+		val data = loader.load("NY", () -> { throw new IllegalStateException("Shouldn't locate when the state is given"); }, unused, legislators(), () -> ALL);
+
+		assertEquals("NY", data.getLocation());
+		assertSame(NEW_YORK, data.getLegislators());
+		assertSame(ALL, data.getAllLegislators());
+		assertEquals(List.of("list NY"), calls);
+	}
+
+	@Test
+	public void testLocatedSkipsDefaults() {
+		val data = loader.load(null, locate("NY"), unused, legislators(), () -> ALL);
+
+		assertEquals("NY", data.getLocation());
+		assertSame(NEW_YORK, data.getLegislators());
+
+		// The default list is never fetched for a caller who was located
+		assertEquals(Arrays.asList("locate", "list NY"), calls);
+	}
+
+	@Test
+	public void testOutsideUsGetsDefaults() {
+		val data = loader.load(null, locate(""), unused, legislators(), () -> ALL);
+
+		assertNull(data.getLocation());
+		assertSame(DEFAULTS, data.getLegislators());
+		assertEquals(Arrays.asList("locate", "list default"), calls);
+	}
+
+	@Test
+	public void testUncoveredAddressIsLocatedRemotely() {
+		val data = loader.load(null, locate(null), locateRemotely("NY"), legislators(), () -> ALL);
+
+		assertEquals("NY", data.getLocation());
+		assertSame(NEW_YORK, data.getLegislators());
+		assertEquals(Arrays.asList("locate", "locate remotely", "list NY"), calls);
+	}
+
+	@Test
+	public void testSlowRemoteGeolocationIsCancelled() {
+		val data = loader.load(null, locate(null), () -> {
+			calls.add("locate remotely");
+			hang();
+			return Optional.of("NY");
+		}, legislators(), () -> ALL);
+
+		assertNull(data.getLocation());
+		assertSame(DEFAULTS, data.getLegislators());
+		assertEquals(Arrays.asList("locate", "locate remotely", "list default"), calls);
+		assertCancelled();
+	}
+
+	@Test
+	public void testFailedRemoteGeolocationDegrades() {
+		val data = loader.load(null, locate(null), () -> { throw new IllegalStateException("Geolocation is down"); }, legislators(), () -> ALL);
+
+		assertNull(data.getLocation());
+		assertSame(DEFAULTS, data.getLegislators());
+		assertEquals(Arrays.asList("locate", "list default"), calls);
+	}
+
+	@Test
+	public void testFailedStateListDegrades() {
+		val data = loader.load(null, locate("NY"), unused, state -> {
+			calls.add("list " + (state == null ? "default" : state));
+			if (state != null) throw new IllegalStateException("Query failed");
+			return DEFAULTS;
+		}, () -> ALL);
+
+		assertNull(data.getLocation());
+		assertSame(DEFAULTS, data.getLegislators());
+		assertEquals(Arrays.asList("locate", "list NY", "list default"), calls);
+	}
+
+	@Test
+	public void testSlowStateListIsCancelled() {
+		val data = loader.load(null, locate("NY"), unused, state -> {
+			calls.add("list " + (state == null ? "default" : state));
+			if (state != null) hang();
+			return state == null ? DEFAULTS : NEW_YORK;
+		}, () -> ALL);
+
+		assertNull(data.getLocation());
+		assertSame(DEFAULTS, data.getLegislators());
+		assertEquals(Arrays.asList("locate", "list NY", "list default"), calls);
+		assertCancelled();
+	}
+
+	@Test
+	public void testSlowDefaultListIsCancelled() {
+		assertThrows(ServiceUnavailableException.class, () -> loader.load(null, locate(""), unused, state -> {
+			calls.add("list " + (state == null ? "default" : state));
+			hang();
+			return DEFAULTS;
+		}, () -> ALL));
+
+		assertEquals(Arrays.asList("locate", "list default"), calls);
+		assertCancelled();
+	}
+}
@@ -0,0 +1,252 @@
+package us.poliscore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import jakarta.ws.rs.BadRequestException;
+import lombok.SneakyThrows;
+import lombok.val;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import us.poliscore.legiscan.view.LegiscanState;
+import us.poliscore.model.IssueStats;
+import us.poliscore.model.LegislativeChamber;
+import us.poliscore.model.Party;
+import us.poliscore.model.Persistable;
+import us.poliscore.model.TrackedIssue;
+import us.poliscore.model.bill.Bill;
+import us.poliscore.model.bill.Bill.BillSponsor;
+import us.poliscore.model.bill.BillInterpretation;
+import us.poliscore.model.bill.BillIssueStat;
+import us.poliscore.model.bill.BillStatus;
+import us.poliscore.model.legislator.Legislator;
+import us.poliscore.model.legislator.Legislator.LegislativeTerm;
+import us.poliscore.model.legislator.Legislator.LegislatorName;
+import us.poliscore.model.legislator.LegislatorInterpretation;
+
+/**
+ * Checks the list views against what the bills and legislators pages read from each entry (bills.ts, legislators.ts,
+ * the two list templates and the paging in their components). Every value the frontend reads has to come through the
+ * view exactly as it is on the full object, and nothing else should.
+ */
+public class ListViewContractTest {
+
+	// JSON pointers into a bill as the bills list reads it
+	private static final List<String> BILL_CONTRACT = List.of(
+			"/id", "/name", "/type", "/introducedDate", "/status/description", "/sponsor/name/official_full",
+			"/interpretation/issueStats/stats", "/interpretation/genBillTitle", "/interpretation/shortExplain",
+			"/impact", "/hot");
+
+	// The same for a legislator, where only the current term is read
+	private static final List<String> LEGISLATOR_CONTRACT = List.of(
+			"/id", "/name/official_full", "/birthday", "/impact",
+			"/interpretation/issueStats/stats", "/interpretation/shortExplain",
+			"/terms/last/chamber", "/terms/last/state", "/terms/last/district", "/terms/last/party", "/terms/last/endDate");
+
+	private static String lorem(int words) {
+		val sb = new StringBuilder();
+		for (int i = 0; i < words; ++i) sb.append(i % 7 == 0 ? "legislation " : "lorem ipsum ");
+		return sb.toString().trim();
+	}
+
+	private static IssueStats stats(int seed) {
+		val stats = new IssueStats();
+		stats.setStat(TrackedIssue.OverallBenefitToSociety, seed % 21 - 10);
+		stats.setStat(TrackedIssue.Education, seed % 13 - 6);
+		stats.setStat(TrackedIssue.Healthcare, seed % 11 - 5);
+		return stats;
+	}
+
+	private static Bill bill(int n) {
+		val bill = new Bill();
+		bill.setId("BIL/us/congress/119/hr/" + n);
+		bill.setType("HR");
+		bill.setNumber(n);
+		bill.setName("A bill to amend title " + n + " of the United States Code");
+		bill.setIntroducedDate(LocalDate.of(2025, 2, 1).plusDays(n % 90));
+		bill.setLastActionDate(LocalDate.of(2025, 5, 1).plusDays(n % 30));
+		bill.setOfficialUrl("https://www.congress.gov/bill/119th-congress/house-bill/" + n);
+
+		val status = new BillStatus();
+		status.setDescription("Introduced");
+		status.setProgress(0.1f);
+		status.setSourceStatus("INTRODUCED");
+		bill.setStatus(status);
+
+		val sponsor = new BillSponsor("LEG/us/congress/119/S000033", new LegislatorName("Bernard", "Sanders", "Bernard Sanders"));
+		sponsor.setParty(Party.INDEPENDENT);
+		bill.setSponsor(sponsor);
+
+		val cosponsors = new ArrayList<BillSponsor>();
+		for (int i = 0; i < 20; ++i) cosponsors.add(new BillSponsor("LEG/us/congress/119/C" + i, new LegislatorName("First" + i, "Last" + i, "First" + i + " Last" + i)));
+		bill.setCosponsors(cosponsors);
+
+		val interp = new BillInterpretation();
+		interp.setIssueStats(stats(n));
+		interp.setGenBillTitle("Generated title " + n);
+		interp.setShortExplain(lorem(60));
+		interp.setLongExplain(lorem(600));
+		interp.setRiders(List.of(lorem(40), lorem(40)));
+		interp.setBillId(bill.getId());
+		bill.setInterpretation(interp);
+
+		return bill;
+	}
+
+	private static Legislator legislator(int n) {
+		val leg = new Legislator();
+		leg.setId("LEG/us/congress/119/L" + n);
+		leg.setName(new LegislatorName("First" + n, "Last" + n, "First" + n + " Last" + n));
+		leg.setBirthday(LocalDate.of(1950, 1, 1).plusDays(n * 37));
+		leg.setOfficialUrl("https://example.gov/" + n);
+		leg.setImpact(1000L * n);
+		leg.getTerms().add(new LegislativeTerm(LocalDate.of(2021, 1, 3), LocalDate.of(2023, 1, 3), LegiscanState.fromAbbreviation("VT"), null, Party.INDEPENDENT, LegislativeChamber.LOWER));
+		leg.getTerms().add(new LegislativeTerm(LocalDate.of(2023, 1, 3), LocalDate.of(2027, 1, 3), LegiscanState.fromAbbreviation("VT"), "1", Party.INDEPENDENT, LegislativeChamber.UPPER));
+
+		val interp = new LegislatorInterpretation();
+		interp.setIssueStats(stats(n));
+		interp.setShortExplain(lorem(60));
+		interp.setLongExplain(lorem(900));
+		leg.setInterpretation(interp);
+
+		return leg;
+	}
+
+	@SneakyThrows
+	private static JsonNode json(Object o) {
+		val mapper = PoliscoreUtil.getObjectMapper();
+		return mapper.readTree(mapper.writeValueAsString(o));
+	}
+
+	private static JsonNode at(JsonNode node, String pointer) {
+		if (pointer.startsWith("/terms/last/")) {
+			val terms = node.get("terms");
+			return terms == null ? null : terms.get(terms.size() - 1).at(pointer.substring("/terms/last".length()));
+		}
+
+		return node.at(pointer);
+	}
+
+	private static void assertContract(Object full, Object view, List<String> contract) {
+		val fullJson = json(full);
+		val viewJson = json(view);
+
+		for (String pointer : contract) {
+			val expected = at(fullJson, pointer);
+			assertFalse(expected.isMissingNode(), "The full object has no " + pointer);
+			assertEquals(expected, at(viewJson, pointer), pointer);
+		}
+	}
+
+	private static Set<String> keys(JsonNode node) {
+		val keys = new TreeSet<String>();
+		node.fieldNames().forEachRemaining(keys::add);
+		return keys;
+	}
+
+	@Test
+	public void testBillContract() {
+		val fields = ListFields.parse(ListFields.ALL, BillListView.FIELDS);
+
+		for (int n = 1; n < 50; ++n) {
+			val bill = bill(n);
+			assertContract(bill, BillListView.toView(bill, fields), BILL_CONTRACT);
+		}
+
+		val view = json(BillListView.toView(bill(7), fields));
+		assertEquals(Set.of("id", "name", "type", "introducedDate", "status", "sponsor", "interpretation", "impact", "hot"), keys(view));
+		assertEquals(Set.of("issueStats", "genBillTitle", "shortExplain"), keys(view.get("interpretation")));
+	}
+
+	@Test
+	public void testLegislatorContract() {
+		val fields = ListFields.parse(ListFields.ALL, LegislatorListView.FIELDS);
+
+		for (int n = 1; n < 50; ++n) {
+			val leg = legislator(n);
+			assertContract(leg, LegislatorListView.toView(leg, fields), LEGISLATOR_CONTRACT);
+		}
+
+		val view = json(LegislatorListView.toView(legislator(7), fields));
+		assertEquals(Set.of("id", "name", "terms", "birthday", "impact", "interpretation"), keys(view));
+		assertEquals(1, view.get("terms").size());
+		assertEquals(Set.of("issueStats", "shortExplain"), keys(view.get("interpretation")));
+	}
+
+	@Test
+	public void testIssueStatViews() {
+		val bill = bill(3);
+		val stat = new BillIssueStat(TrackedIssue.Education, 1234, bill);
+		val view = json(BillListView.toView(stat, ListFields.parse(ListFields.ALL, BillListView.FIELDS)));
+
+		// The bills list reads these off issue listings in place of the interpretation
+		assertEquals(bill.getId(), view.get("id").asText());
+		assertEquals(1234, view.get("impact").asInt());
+		assertEquals(bill.getRating(TrackedIssue.Education), view.get("rating").asInt());
+		assertEquals(bill.getInterpretation().getShortExplain(), view.get("shortExplain").asText());
+		assertEquals("HR", view.get("type").asText());
+		assertNull(view.get("interpretation"));
+	}
+
+	@Test
+	public void testFields() {
+		assertNull(ListFields.parse(null, BillListView.FIELDS));
+		assertNull(ListFields.parse(" ", BillListView.FIELDS));
+		assertEquals(Set.of("id", "name"), ListFields.parse("id, name", BillListView.FIELDS));
+		assertThrows(BadRequestException.class, () -> ListFields.parse("id,longExplain", BillListView.FIELDS));
+
+		val narrow = json(LegislatorListView.toView(legislator(1), ListFields.parse("id,name", LegislatorListView.FIELDS)));
+		assertEquals(Set.of("id", "name"), keys(narrow));
+	}
+
+	@Test
+	public void testProjectionMatchesTable() {
+		assertProjection(TableSchema.fromBean(Bill.class).attributeNames(), BillListView.FIELDS);
+		assertProjection(TableSchema.fromBean(Legislator.class).attributeNames(), LegislatorListView.FIELDS);
+
+		val projection = ListFields.projection(ListFields.parse(ListFields.ALL, LegislatorListView.FIELDS), LegislatorListView.FIELDS);
+		assertFalse(projection.stream().anyMatch(a -> a.contains("longExplain") || a.startsWith("interactions")), projection.toString());
+	}
+
+	private static void assertProjection(List<String> attributes, Map<String, List<String>> fields) {
+		for (val field : fields.entrySet()) {
+			for (String path : field.getValue()) {
+				assertTrue(attributes.contains(path.split("\\.")[0]), field.getKey() + " projects " + path + ", which isn't an attribute");
+			}
+		}
+	}
+
+	@Test
+	public void testPayloadReduction() {
+		assertSmaller("bills", n -> bill(n), p -> BillListView.toView(p, ListFields.parse(ListFields.ALL, BillListView.FIELDS)));
+		assertSmaller("legislators", n -> legislator(n), p -> LegislatorListView.toView(p, ListFields.parse(ListFields.ALL, LegislatorListView.FIELDS)));
+	}
+
+	@SneakyThrows
+	private static void assertSmaller(String name, Function<Integer, Persistable> create, Function<Persistable, Object> toView) {
+		val mapper = PoliscoreUtil.getObjectMapper();
+
+		// A page, as the lists request them
+		val page = new ArrayList<Persistable>();
+		for (int n = 1; n <= 25; ++n) page.add(create.apply(n));
+
+		int fullBytes = mapper.writeValueAsBytes(page).length;
+		int slimBytes = mapper.writeValueAsBytes(page.stream().map(toView).toList()).length;
+
+		assertTrue(slimBytes * 2 < fullBytes, name + " views are " + slimBytes + " bytes against " + fullBytes);
+	}
+}
@@ -0,0 +1,11 @@
+package us.poliscore;
+
+import io.quarkus.test.junit.QuarkusIntegrationTest;
+
+/**
+ * Runs the index queries against the native image (mvn verify -Pnative), to show that the indexes baked into the
+ * image heap answer exactly as the ones loaded on the JVM do.
+ */
+@QuarkusIntegrationTest
+public class WebappIndexesIT extends WebappIndexesTest {
+}
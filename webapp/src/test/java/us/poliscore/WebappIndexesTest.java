@@ -0,0 +1,126 @@
+package us.poliscore;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import lombok.SneakyThrows;
+import lombok.val;
+import us.poliscore.model.LegislativeNamespace;
+import us.poliscore.search.IssueLeaderboards;
+import us.poliscore.search.TypeaheadIndex.Suggestion;
+
+/**
+ * Queries the search endpoints and checks the answers against indexes loaded fresh in the test. The same test runs
+ * against the native image (see WebappIndexesIT), where the endpoints answer from indexes baked into the image heap.
+ */
+@QuarkusTest
+public class WebappIndexesTest {
+
+	private static final List<String> QUERIES = List.of("credit card", "energy", "sanders", "ny", "ca12", "health care act", "hr 1944", "aoc", "xyzzy");
+
+	private static WebappIndexes expected;
+
+	protected static synchronized WebappIndexes expected() {
+		if (expected == null) expected = WebappIndexes.load(false);
+		return expected;
+	}
+
+	@SneakyThrows
+	private static void assertSameJson(Object expected, String actual, String message) {
+		val mapper = PoliscoreUtil.getObjectMapper();
+		assertEquals(mapper.valueToTree(expected), mapper.readTree(actual), message);
+	}
+
+	@Test
+	public void testQueryBills() {
+		val namespace = LegislativeNamespace.US_CONGRESS.getNamespace();
+		val index = expected().getBillSearch().get(namespace);
+
+		for (String query : QUERIES) {
+			val body = given().queryParam("text", query).queryParam("namespace", namespace).get("/queryBills").then().statusCode(200).extract().asString();
+
+			assertSameJson(index == null ? new ArrayList<List<String>>() : index.search(query, 30), body, query);
+		}
+	}
+
+	@Test
+	public void testQueryLegislators() {
+		for (String query : QUERIES) {
+			val body = given().queryParam("text", query).get("/queryLegislators").then().statusCode(200).extract().asString();
+
+			assertSameJson(expected().getLegislatorSearch().search(query, 10), body, query);
+		}
+	}
+
+	@Test
+	public void testAutocomplete() {
+		for (String query : QUERIES) {
+			val body = given().queryParam("text", query).get("/autocomplete").then().statusCode(200).extract().asString();
+
+			// Without a namespace, suggestions come from congress only
+			val typeahead = expected().getTypeahead();
+			val congress = typeahead == null ? null : typeahead.get(LegislativeNamespace.US_CONGRESS.getNamespace());
+			assertSameJson(congress == null ? new ArrayList<Suggestion>() : congress.suggest(query), body, query);
+
+			if (typeahead == null) continue;
+
+			for (String namespace : typeahead.namespaces()) {
+				val namespaced = given().queryParam("text", query).queryParam("namespace", namespace).get("/autocomplete").then().statusCode(200).extract().asString();
+				assertSameJson(typeahead.get(namespace).suggest(query), namespaced, namespace + " " + query);
+			}
+		}
+	}
+
+	@Test
+	public void testHeapAndMappedMatch() {
+		val mapped = expected();
+		val heap = WebappIndexes.load(true);
+
+		assertEquals(mapped.getSessions(), heap.getSessions());
+		assertEquals(mapped.getLegislators(), heap.getLegislators());
+		assertEquals(mapped.getBills(), heap.getBills());
+
+		for (String query : QUERIES) {
+			assertEquals(mapped.getLegislatorSearch().search(query, 10), heap.getLegislatorSearch().search(query, 10), query);
+
+			if (mapped.getTypeahead() != null) {
+				assertEquals(mapped.getTypeahead().namespaces(), heap.getTypeahead().namespaces());
+
+				for (String namespace : mapped.getTypeahead().namespaces()) {
+					assertEquals(mapped.getTypeahead().get(namespace).suggest(query), heap.getTypeahead().get(namespace).suggest(query), query);
+				}
+			}
+		}
+
+		if (mapped.getIssueLeaderboards() != null) {
+			assertEquals(mapped.getIssueLeaderboards().names(), heap.getIssueLeaderboards().names());
+
+			for (String name : mapped.getIssueLeaderboards().names()) {
+				val board = mapped.getIssueLeaderboards().board(name);
+				val heapBoard = heap.getIssueLeaderboards().board(name);
+
+				for (val order : IssueLeaderboards.Order.values()) {
+					assertArrayEquals(board.page(order, false, 0, 25), heapBoard.page(order, false, 0, 25), name);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testOnlyNewerPublishedBuildsAreLoaded() {
+		assertTrue(WebappIndexes.isNewer("1760870000001", 1760870000000L));
+		assertFalse(WebappIndexes.isNewer("1760870000000", 1760870000000L));
+		assertFalse(WebappIndexes.isNewer("1760860000000", 1760870000000L));
+		assertFalse(WebappIndexes.isNewer(null, 1760870000000L));
+		assertFalse(WebappIndexes.isNewer("blue", 1760870000000L));
+	}
+}
@@ -0,0 +1,63 @@
+package us.poliscore.entrypoint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.ws.rs.BadRequestException;
+import lombok.val;
+
+/**
+ * Checks how the by-ids endpoints line cache hits and fetched results back up with the requested ids.
+ */
+public class ByIdsTest {
+
+	@Test
+	public void testParseIds() {
+		assertEquals(List.of("BIL/a", "BIL/b", "BIL/c", "BIL/a"), Lambda.parseIds(List.of("BIL/a,BIL/b", " BIL/c ", "", "BIL/a,")));
+		assertEquals(List.of(), Lambda.parseIds(null));
+
+		val tooMany = new ArrayList<String>();
+		for (int i = 0; i <= Lambda.MAX_BATCH_IDS; ++i) tooMany.add("LEG/" + i);
+
+		assertThrows(BadRequestException.class, () -> Lambda.parseIds(tooMany));
+		assertEquals(Lambda.MAX_BATCH_IDS, Lambda.parseIds(tooMany.subList(1, tooMany.size())).size());
+	}
+
+	@Test
+	public void testInRequestOrder() {
+		val cache = Map.of("b", "cached b", "d", "cached d");
+		val stored = Map.of("a", "stored a", "b", "stored b", "c", "stored c");
+		val fetched = new ArrayList<Set<String>>();
+
+		val results = Lambda.inRequestOrder(List.of("c", "missing", "b", "a", "c", "d"), cache::get, misses -> {
+			fetched.add(misses);
+
+			val found = new HashMap<String, String>();
+			for (String id : misses) if (stored.containsKey(id)) found.put(id, stored.get(id));
+			return found;
+		});
+
+		assertEquals(Arrays.asList("stored c", null, "cached b", "stored a", "stored c", "cached d"), results);
+
+		// One fetch for every miss, each id asked for once, in the order they were requested
+		assertEquals(List.of(List.of("c", "missing", "a")), fetched.stream().map(ArrayList::new).toList());
+	}
+
+	@Test
+	public void testAllCached() {
+		val results = Lambda.inRequestOrder(List.of("a", "a"), id -> "cached " + id, misses -> {
+			throw new AssertionError("Nothing should be fetched");
+		});
+
+		assertEquals(List.of("cached a", "cached a"), results);
+	}
+}
@@ -0,0 +1,161 @@
+package us.poliscore.entrypoint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent.RequestContext;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+
+import lombok.SneakyThrows;
+import lombok.val;
+
+public class ResponseCompressionTest {
+
+	private static final String BODY = "[" + "{\"id\":\"BIL/us/congress/119/hr/1\",\"name\":\"A bill\"},".repeat(200) + "{}]";
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	private final AtomicReference<String> version = new AtomicReference<String>("v1");
+
+	private final ResponseCompression compression = new ResponseCompression(10, Duration.ofMinutes(10), version::get);
+
+	private static APIGatewayV2HTTPEvent event(String path, String query, Map<String, String> headers) {
+		val http = new RequestContext.Http();
+		http.setMethod("GET");
+		http.setPath(path);
+
+		val context = new RequestContext();
+		context.setHttp(http);
+
+		return APIGatewayV2HTTPEvent.builder()
+				.withRawPath(path)
+				.withRawQueryString(query)
+				.withHeaders(headers)
+				.withRequestContext(context)
+				.build();
+	}
+
+	private APIGatewayV2HTTPResponse respond(APIGatewayV2HTTPEvent event, String body, String cacheControl) {
+		return compression.handle(event, e -> {
+			calls.incrementAndGet();
+
+			val headers = new HashMap<String, String>();
+			headers.put("Content-Type", "application/json;charset=UTF-8");
+			headers.put("Content-Length", String.valueOf(body.length()));
+			if (cacheControl != null) headers.put("Cache-Control", cacheControl);
+
+			return APIGatewayV2HTTPResponse.builder().withStatusCode(200).withHeaders(headers).withBody(body).build();
+		});
+	}
+
+	@SneakyThrows
+	private static String gunzip(APIGatewayV2HTTPResponse response) {
+		assertTrue(response.getIsBase64Encoded());
+		try (val in = new GZIPInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(response.getBody())))) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	public void testNegotiate() {
+		assertEquals("gzip", ResponseCompression.negotiate("gzip, deflate, br"));
+		assertEquals("gzip", ResponseCompression.negotiate("br;q=1.0, GZIP;q=0.5"));
+		assertEquals("gzip", ResponseCompression.negotiate("*"));
+		assertEquals("gzip", ResponseCompression.negotiate("x-gzip"));
+		assertNull(ResponseCompression.negotiate(null));
+		assertNull(ResponseCompression.negotiate("identity"));
+		assertNull(ResponseCompression.negotiate("br"));
+		assertNull(ResponseCompression.negotiate("gzip;q=0"));
+		assertNull(ResponseCompression.negotiate("*;q=0.5, gzip;q=0"));
+		assertNull(ResponseCompression.negotiate("gzip;q=nope"));
+	}
+
+	@Test
+	public void testCompresses() {
+		val response = respond(event("/getBills", "pageSize=25", Map.of("accept-encoding", "gzip, br")), BODY, HttpCacheFilter.OBJECT);
+
+		assertEquals("gzip", response.getHeaders().get("Content-Encoding"));
+		assertEquals("Accept-Encoding", response.getHeaders().get("Vary"));
+		assertFalse(response.getHeaders().containsKey("Content-Length"));
+		assertEquals(BODY, gunzip(response));
+		assertTrue(Base64.getDecoder().decode(response.getBody()).length * 10 < BODY.length());
+	}
+
+	@Test
+	public void testUncompressed() {
+		// Not accepted
+		var response = respond(event("/getBills", null, Map.of()), BODY, HttpCacheFilter.OBJECT);
+		assertNull(response.getHeaders().get("Content-Encoding"));
+		assertFalse(response.getIsBase64Encoded());
+		assertEquals(BODY, response.getBody());
+		assertEquals("Accept-Encoding", response.getHeaders().get("Vary"));
+
+		// Too small to bother
+		response = respond(event("/getBill", "id=x", Map.of("Accept-Encoding", "gzip")), "{\"id\":\"x\"}", HttpCacheFilter.OBJECT);
+		assertNull(response.getHeaders().get("Content-Encoding"));
+		assertEquals("{\"id\":\"x\"}", response.getBody());
+	}
+
+	@Test
+	public void testPrecompressedCache() {
+		val gzip = Map.of("Accept-Encoding", "gzip");
+
+		val first = respond(event("/getBills", "pageSize=25", gzip), BODY, HttpCacheFilter.OBJECT);
+		val second = respond(event("/getBills", "pageSize=25", gzip), BODY, HttpCacheFilter.OBJECT);
+
+		assertEquals(1, calls.get());
+		assertEquals(first.getBody(), second.getBody());
+		assertEquals("gzip", second.getHeaders().get("Content-Encoding"));
+		assertEquals(BODY, gunzip(second));
+
+		// A different query, a conditional request or a caller that doesn't take gzip all go to the endpoint
+		respond(event("/getBills", "pageSize=50", gzip), BODY, HttpCacheFilter.OBJECT);
+		respond(event("/getBills", "pageSize=25", Map.of("Accept-Encoding", "gzip", "If-None-Match", "W/\"abc\"")), BODY, HttpCacheFilter.OBJECT);
+		respond(event("/getBills", "pageSize=25", Map.of()), BODY, HttpCacheFilter.OBJECT);
+		assertEquals(4, calls.get());
+
+		// New content is never answered from the old
+		version.set("v2");
+		respond(event("/getBills", "pageSize=25", gzip), BODY, HttpCacheFilter.OBJECT);
+		assertEquals(5, calls.get());
+	}
+
+	@Test
+	public void testPrivateNotCached() {
+		val gzip = Map.of("Accept-Encoding", "gzip");
+
+		val response = respond(event("/getLegislatorPageData", null, gzip), BODY, HttpCacheFilter.PRIVATE);
+		respond(event("/getLegislatorPageData", null, gzip), BODY, HttpCacheFilter.PRIVATE);
+		respond(event("/getBill", "id=missing", gzip), BODY, null);
+		respond(event("/getBill", "id=missing", gzip), BODY, null);
+
+		assertEquals("gzip", response.getHeaders().get("Content-Encoding"));
+		assertEquals(4, calls.get());
+	}
+
+	@Test
+	public void testExistingVary() {
+		val response = compression.handle(event("/getBills", null, Map.of()), e -> APIGatewayV2HTTPResponse.builder()
+				.withStatusCode(200)
+				.withHeaders(new HashMap<String, String>(Map.of("vary", "Origin")))
+				.withBody("[]")
+				.build());
+
+		assertEquals("Origin, Accept-Encoding", response.getHeaders().get("vary"));
+	}
+}
@@ -0,0 +1,81 @@
+package us.poliscore.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testBuckets() {
+		// Every value falls in the bucket whose bounds contain it, and the buckets tile the range without gaps
+		for (int bucket = 0; bucket < LatencyHistogram.bucket(LatencyHistogram.MAX_MICROS); ++bucket) {
+			assertEquals(LatencyHistogram.highest(bucket) + 1, LatencyHistogram.lowest(bucket + 1));
+			assertEquals(bucket, LatencyHistogram.bucket(LatencyHistogram.lowest(bucket)));
+			assertEquals(bucket, LatencyHistogram.bucket(LatencyHistogram.highest(bucket)));
+		}
+
+		for (long micros = 1; micros <= LatencyHistogram.MAX_MICROS; micros = micros * 3 + 1) {
+			int bucket = LatencyHistogram.bucket(micros);
+			assertTrue(LatencyHistogram.lowest(bucket) <= micros && micros <= LatencyHistogram.highest(bucket));
+			assertTrue(LatencyHistogram.highest(bucket) - LatencyHistogram.lowest(bucket) <= micros / 100);
+		}
+	}
+
+	@Test
+	public void testPercentiles() {
+		val random = new Random(11);
+		val histogram = new LatencyHistogram();
+		val values = new long[20000];
+
+		// Mostly fast, with a long tail, the way request latencies look
+		for (int i = 0; i < values.length; ++i) {
+			values[i] = (long) Math.exp(random.nextGaussian() * 1.5 + 9);
+			histogram.record(values[i]);
+		}
+
+		Arrays.sort(values);
+
+		for (double percent : List.of(1d, 50d, 90d, 99d, 99.9d, 100d)) {
+			long expected = values[(int) Math.ceil(percent / 100 * values.length) - 1];
+			long actual = histogram.percentile(percent);
+			assertTrue(Math.abs(actual - expected) <= expected / 100 + 1, percent + ": " + actual + " vs " + expected);
+		}
+
+		assertEquals(values.length, histogram.getCount());
+		assertEquals(values[0], histogram.getMin());
+		assertEquals(values[values.length - 1], histogram.getMax());
+		assertEquals(Arrays.stream(values).sum(), histogram.getSum());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testEmf() {
+		val histogram = new LatencyHistogram();
+		for (long micros = 0; micros < 100000; micros += 7) histogram.record(micros);
+		histogram.record(LatencyHistogram.MAX_MICROS * 2);
+
+		val emf = histogram.toEmf(100);
+		val values = (List<Double>) emf.get("Values");
+		val counts = (List<Long>) emf.get("Counts");
+
+		assertTrue(values.size() <= 100);
+		assertEquals(values.size(), counts.size());
+		assertEquals(histogram.getCount(), counts.stream().mapToLong(c -> c).sum());
+		assertEquals(histogram.getCount(), emf.get("Count"));
+		assertEquals(LatencyHistogram.MAX_MICROS / 1000d, (double) emf.get("Max"), 0.001);
+
+		for (int i = 1; i < values.size(); ++i) assertTrue(values.get(i - 1) < values.get(i));
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, ((List<Double>) histogram.toEmf(100).get("Values")).size());
+	}
+}
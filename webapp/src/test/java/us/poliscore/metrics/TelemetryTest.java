@@ -0,0 +1,198 @@
+package us.poliscore.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import us.poliscore.metrics.Telemetry.Phase;
+
+public class TelemetryTest {
+
+	private final List<String> lines = new ArrayList<String>();
+
+	private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(10));
+
+	// Started two seconds before the first invocation arrives
+	private final Telemetry telemetry = new Telemetry(lines::add, Duration.ofMinutes(1), clock::get, TimeUnit.SECONDS.toNanos(8));
+
+	private void invoke(String endpoint, long millis, long dynamoMillis) {
+		val invocation = telemetry.begin(endpoint);
+
+		if (dynamoMillis > 0) telemetry.add(Phase.DYNAMODB, TimeUnit.MILLISECONDS.toNanos(dynamoMillis));
+		telemetry.time(Phase.SERIALIZATION, () -> clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1)));
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis - 1));
+		telemetry.end(invocation);
+	}
+
+	@SneakyThrows
+	private static JsonNode parse(String line) {
+		return new ObjectMapper().readTree(line);
+	}
+
+	/**
+	 * Checks the line against the EMF spec: every dimension and metric the directive names has to be present at the top level
+	 */
+	private static JsonNode assertEmf(String line) {
+		val json = parse(line);
+		val directive = json.get("_aws").get("CloudWatchMetrics").get(0);
+
+		assertTrue(json.get("_aws").get("Timestamp").isNumber());
+		assertEquals(Telemetry.NAMESPACE, directive.get("Namespace").asText());
+
+		for (val dimension : directive.get("Dimensions").get(0)) assertTrue(json.get(dimension.asText()).isTextual(), line);
+
+		assertTrue(directive.get("Metrics").size() <= 100);
+		for (val metric : directive.get("Metrics")) {
+			assertEquals("Milliseconds", metric.get("Unit").asText());
+			assertTrue(json.has(metric.get("Name").asText()), line);
+		}
+
+		return json;
+	}
+
+	@Test
+	public void testColdStart() {
+		invoke("getBill", 300, 120);
+
+		assertEquals(1, lines.size());
+		val json = assertEmf(lines.get(0));
+
+		assertEquals("cold", json.get("Start").asText());
+		assertEquals("getBill", json.get("Endpoint").asText());
+		assertEquals("Start", json.get("_aws").get("CloudWatchMetrics").get(0).get("Dimensions").get(0).get(0).asText());
+		assertEquals(2000d, json.get(Telemetry.INIT_DURATION).asDouble(), 0.001);
+		assertEquals(300d, json.get(Telemetry.LATENCY).asDouble(), 0.001);
+		assertEquals(120d, json.get("DynamoDb").asDouble(), 0.001);
+		assertEquals(1d, json.get("Serialization").asDouble(), 0.001);
+		assertFalse(json.has("Linking"));
+
+		// Warm invocations after it are held until the next flush
+		invoke("getBill", 20, 5);
+		assertEquals(1, lines.size());
+	}
+
+	@Test
+	public void testWarmHistograms() {
+		invoke("getBill", 500, 0);
+		lines.clear();
+
+		for (int i = 1; i <= 50; ++i) invoke("getBills", i, i / 2);
+		invoke("getLegislator", 40, 0);
+		assertTrue(lines.isEmpty());
+
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+		invoke("getLegislator", 60, 0);
+
+		assertEquals(2, lines.size());
+		val byEndpoint = new HashSet<String>();
+
+		for (String line : lines) {
+			val json = assertEmf(line);
+			byEndpoint.add(json.get("Endpoint").asText());
+			assertEquals("warm", json.get("Start").asText());
+			assertEquals("Endpoint", json.get("_aws").get("CloudWatchMetrics").get(0).get("Dimensions").get(0).get(0).asText());
+
+			val latency = json.get(Telemetry.LATENCY);
+			long counted = 0;
+			for (val count : latency.get("Counts")) counted += count.asLong();
+			assertEquals(latency.get("Count").asLong(), counted);
+			assertEquals(latency.get("Values").size(), latency.get("Counts").size());
+
+			if (json.get("Endpoint").asText().equals("getBills")) {
+				assertEquals(50, latency.get("Count").asLong());
+				assertEquals(1d, latency.get("Min").asDouble(), 0.001);
+				assertEquals(50d, latency.get("Max").asDouble(), 0.001);
+				assertEquals(1275d, latency.get("Sum").asDouble(), 0.001);
+
+				// Only the invocations which went to DynamoDB count towards its distribution
+				assertEquals(49, json.get("DynamoDb").get("Count").asLong());
+				assertEquals(50, json.get("Serialization").get("Count").asLong());
+			} else {
+				assertEquals(2, latency.get("Count").asLong());
+				assertFalse(json.has("DynamoDb"));
+			}
+		}
+
+		assertEquals(Set.of("getBills", "getLegislator"), byEndpoint);
+
+		// Flushed histograms start again from nothing
+		lines.clear();
+		telemetry.flush();
+		assertTrue(lines.isEmpty());
+	}
+
+	@Test
+	public void testOutsideInvocation() {
+		// At startup, or after an invocation has ended, there's nothing to add time to
+		telemetry.add(Phase.DYNAMODB, TimeUnit.SECONDS.toNanos(5));
+		assertEquals("x", telemetry.time(Phase.DESERIALIZATION, () -> "x"));
+
+		invoke("getBill", 10, 0);
+
+		val json = parse(lines.get(0));
+		assertFalse(json.has("DynamoDb"));
+		assertFalse(json.has("Deserialization"));
+	}
+
+	@SneakyThrows
+	private static void onAnotherThread(Runnable work) {
+		val thread = new Thread(work);
+		thread.start();
+		thread.join();
+	}
+
+	@Test
+	public void testOnlyThreadsWorkingOnTheInvocationAddTime() {
+		val invocation = telemetry.begin("getBill");
+
+		// A background refresh, say, which has nothing to do with the request
+		onAnotherThread(() -> telemetry.add(Phase.DYNAMODB, TimeUnit.MILLISECONDS.toNanos(500)));
+
+		// The request thread, and work it hands off
+		onAnotherThread(() -> {
+			telemetry.attach();
+			telemetry.add(Phase.DYNAMODB, TimeUnit.MILLISECONDS.toNanos(20));
+		});
+		val carried = telemetry.carry(() -> {
+			telemetry.add(Phase.DESERIALIZATION, TimeUnit.MILLISECONDS.toNanos(3));
+			return null;
+		});
+		onAnotherThread(carried::get);
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+		telemetry.end(invocation);
+
+		// Handed off work still running after the invocation has ended records nothing, anywhere
+		val next = telemetry.begin("getBills");
+		onAnotherThread(() -> carried.get());
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+		telemetry.end(next);
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+		telemetry.flush();
+
+		val cold = parse(lines.get(0));
+		assertEquals(20d, cold.get("DynamoDb").asDouble(), 0.001);
+		assertEquals(3d, cold.get("Deserialization").asDouble(), 0.001);
+
+		val warm = parse(lines.get(1));
+		assertEquals("getBills", warm.get("Endpoint").asText());
+		assertFalse(warm.has("DynamoDb"));
+		assertFalse(warm.has("Deserialization"));
+	}
+}